@@ -107,6 +107,10 @@ public class JobAcquisitionAdd extends AbstractAddStepHandler implements Descrip
 
     MscRuntimeContainerJobExecutor mscRuntimeContainerJobExecutor = new MscRuntimeContainerJobExecutor();
 
+    if (model.hasDefined(ACQUISITION_STRATEGY)) {
+      mscRuntimeContainerJobExecutor.setAcquisitionStrategy(model.get(ACQUISITION_STRATEGY).asString());
+    }
+
     if (model.hasDefined(PROPERTIES)) {
 
       List<Property> properties = model.get(PROPERTIES).asPropertyList();
@@ -67,3 +67,58 @@ ALTER TABLE ACT_HI_DETAIL
 
 ALTER TABLE ACT_RU_JOB
   ADD SEQUENCE_COUNTER_ bigint;
+
+-- job priorities
+
+ALTER TABLE ACT_RU_JOB
+  ADD PRIORITY_ bigint DEFAULT 0 NOT NULL;
+
+ALTER TABLE ACT_RU_JOBDEF
+  ADD JOB_PRIORITY_ bigint;
+
+create index ACT_IDX_JOB_PRIORITY on ACT_RU_JOB(PRIORITY_ desc, DUEDATE_);
+
+-- effective permissions of users
+
+create table ACT_RU_EFFECTIVE_PERM (
+  USER_ID_ varchar(255) not null,
+  RESOURCE_TYPE_ integer not null,
+  RESOURCE_ID_ varchar(64) not null,
+  GRANTED_PERMS_ integer not null,
+  DECIDED_PERMS_ integer not null,
+  primary key (USER_ID_, RESOURCE_TYPE_, RESOURCE_ID_)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE utf8_bin;
+
+-- serializes the recomputation of effective permissions
+
+insert into ACT_GE_PROPERTY
+values ('effectivePermissions.lock', '0', 1);
+
+-- serializes the creation of the history cleanup job
+
+insert into ACT_GE_PROPERTY
+values ('historyCleanupJob.lock', '0', 1);
+
+-- correlation keys of message event subscriptions
+
+ALTER TABLE ACT_RU_EVENT_SUBSCR
+  ADD CORRELATION_KEY_ varchar(255);
+
+-- existing subscriptions declare no correlation keys
+update ACT_RU_EVENT_SUBSCR
+  set CORRELATION_KEY_ = EVENT_NAME_
+  where EVENT_TYPE_ = 'message'
+    and EXECUTION_ID_ is not null;
+
+create index ACT_IDX_EVENT_SUBSCR_CORR_KEY on ACT_RU_EVENT_SUBSCR(CORRELATION_KEY_);
+
+-- history time to live of process definitions
+
+ALTER TABLE ACT_RE_PROCDEF
+  ADD HISTORY_TTL_ integer;
+
+-- indexes for the history cleanup
+
+create index ACT_IDX_HI_TASKINST_PROCINST on ACT_HI_TASKINST(PROC_INST_ID_);
+create index ACT_IDX_HI_OP_LOG_PROCINST on ACT_HI_OP_LOG(PROC_INST_ID_);
+create index ACT_IDX_HI_INCIDENT_PROCINST on ACT_HI_INCIDENT(PROC_INST_ID_);
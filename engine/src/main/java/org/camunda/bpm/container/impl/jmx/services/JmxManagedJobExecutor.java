@@ -14,7 +14,10 @@ package org.camunda.bpm.container.impl.jmx.services;
 
 import org.camunda.bpm.container.impl.spi.PlatformService;
 import org.camunda.bpm.container.impl.spi.PlatformServiceContainer;
+import org.camunda.bpm.engine.impl.ProcessEngineImpl;
 import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
+import org.camunda.bpm.engine.impl.metrics.Metrics;
+import org.camunda.bpm.engine.impl.metrics.MetricsRegistry;
 
 /**
  * @author Daniel Meyer
@@ -80,6 +83,41 @@ public class JmxManagedJobExecutor implements PlatformService<JobExecutor>, JmxM
     return jobExecutor.getName();
   }
 
+  public long getAverageJobDurationInMillis() {
+    return jobExecutor.getAverageJobDurationInMillis();
+  }
+
+  public long getJobAcquisitionAttempts() {
+    return getCount(Metrics.JOB_ACQUISITION_ATTEMPT);
+  }
+
+  public long getAcquiredJobs() {
+    return getCount(Metrics.JOB_ACQUIRED_SUCCESS);
+  }
+
+  public long getJobsFailedToLock() {
+    return getCount(Metrics.JOB_ACQUIRED_FAILURE);
+  }
+
+  public long getSuccessfulJobs() {
+    return getCount(Metrics.JOB_SUCCESSFUL);
+  }
+
+  public long getFailedJobs() {
+    return getCount(Metrics.JOB_FAILED);
+  }
+
+  protected long getCount(String metric) {
+    long count = 0;
+    for (ProcessEngineImpl processEngine : jobExecutor.getProcessEngines()) {
+      MetricsRegistry metricsRegistry = processEngine.getProcessEngineConfiguration().getMetricsRegistry();
+      if (metricsRegistry != null) {
+        count += metricsRegistry.getCounter(metric).getCount();
+      }
+    }
+    return count;
+  }
+
   public JobExecutor getValue() {
     return jobExecutor;
   }
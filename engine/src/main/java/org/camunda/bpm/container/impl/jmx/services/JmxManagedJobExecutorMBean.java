@@ -39,6 +39,25 @@ public interface JmxManagedJobExecutorMBean {
 
   public int getWaitTimeInMillis();
 
+  /**
+   * @return the exponentially weighted average duration of the executed jobs
+   *         or -1 if no job has been executed yet
+   */
+  public long getAverageJobDurationInMillis();
+
+  /**
+   * The following metrics are summed up over all process engines the job executor acquires jobs for.
+   */
+  public long getJobAcquisitionAttempts();
+
+  public long getAcquiredJobs();
+
+  public long getJobsFailedToLock();
+
+  public long getSuccessfulJobs();
+
+  public long getFailedJobs();
+
   public void shutdown();
 
   public void start();
@@ -12,6 +12,8 @@
  */
 package org.camunda.bpm.container.impl.jmx.services;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 
 import org.camunda.bpm.container.impl.jmx.MBeanServiceContainer;
@@ -19,6 +21,8 @@ import org.camunda.bpm.container.impl.spi.PlatformService;
 import org.camunda.bpm.container.impl.spi.PlatformServiceContainer;
 import org.camunda.bpm.engine.ManagementService;
 import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.impl.ProcessEngineImpl;
+import org.camunda.bpm.engine.impl.metrics.MetricsRegistry;
 
 /**
  * <p>Represents a process engine managed by the {@link MBeanServiceContainer}</p>
@@ -73,4 +77,14 @@ public class JmxManagedProcessEngine implements PlatformService<ProcessEngine>,
     managementService.unregisterDeploymentForJobExecutor(deploymentId);
   }
 
+  public Map<String, Long> getMetrics() {
+    if (processEngine instanceof ProcessEngineImpl) {
+      MetricsRegistry metricsRegistry = ((ProcessEngineImpl) processEngine).getProcessEngineConfiguration().getMetricsRegistry();
+      if (metricsRegistry != null) {
+        return metricsRegistry.getValues();
+      }
+    }
+    return Collections.emptyMap();
+  }
+
 }
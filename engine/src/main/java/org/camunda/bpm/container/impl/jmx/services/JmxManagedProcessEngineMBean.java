@@ -12,6 +12,7 @@
  */
 package org.camunda.bpm.container.impl.jmx.services;
 
+import java.util.Map;
 import java.util.Set;
 
 import org.camunda.bpm.engine.ProcessEngine;
@@ -40,4 +41,10 @@ public interface JmxManagedProcessEngineMBean {
   public void registerDeployment(String deploymentId);
   
   public void unregisterDeployment(String deploymentId);
+
+  /**
+   * @return the current values of the metrics collected by the {@link ProcessEngine}
+   *         or an empty map if the process engine does not collect metrics
+   */
+  public Map<String, Long> getMetrics();
 }
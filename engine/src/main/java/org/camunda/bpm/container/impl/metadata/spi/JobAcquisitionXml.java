@@ -26,6 +26,7 @@ public interface JobAcquisitionXml {
   public final static String LOCK_TIME_IN_MILLIS = "lockTimeInMillis";
   public final static String WAIT_TIME_IN_MILLIS = "waitTimeInMillis";
   public final static String MAX_JOBS_PER_ACQUISITION = "maxJobsPerAcquisition";
+  public final static String ACQUISITION_STRATEGY = "acquisitionStrategy";
 
   /**
    * @return the name of the JobExecutor.
@@ -45,6 +46,7 @@ public interface JobAcquisitionXml {
    * @see #LOCK_TIME_IN_MILLIS
    * @see #WAIT_TIME_IN_MILLIS
    * @see #MAX_JOBS_PER_ACQUISITION
+   * @see #ACQUISITION_STRATEGY
    * 
    */
   public Map<String, String> getProperties();
@@ -40,6 +40,8 @@ import org.camunda.bpm.engine.history.NativeHistoricProcessInstanceQuery;
 import org.camunda.bpm.engine.history.NativeHistoricTaskInstanceQuery;
 import org.camunda.bpm.engine.history.UserOperationLogEntry;
 import org.camunda.bpm.engine.history.UserOperationLogQuery;
+import org.camunda.bpm.engine.repository.ProcessDefinition;
+import org.camunda.bpm.engine.runtime.Job;
 
 /**
  * Service exposing information about ongoing and past process instances.  This is different
@@ -153,4 +155,26 @@ public interface HistoryService {
    */
   String getHistoricJobLogExceptionStacktrace(String historicJobLogId);
 
+  /**
+   * Schedules the history cleanup job at the next start of the configured batch window.
+   * If the job is already scheduled, it is returned.
+   *
+   * @throws ProcessEngineException when no batch window is configured.
+   *
+   * @see #cleanUpHistoryAsync(boolean)
+   */
+  Job cleanUpHistoryAsync();
+
+  /**
+   * Schedules the history cleanup job which removes the history of finished process instances
+   * whose process definition declares a {@link ProcessDefinition#getHistoryTimeToLive() history time to live}
+   * which has expired. The history is removed in batches, each in its own transaction.
+   *
+   * @param immediatelyDue if true, the job is due now and runs until all expired history is removed,
+   *   regardless of the batch window. Otherwise, the job runs at the next start of the batch window.
+   * @return the history cleanup job
+   * @throws ProcessEngineException when the job is not immediately due and no batch window is configured.
+   */
+  Job cleanUpHistoryAsync(boolean immediatelyDue);
+
 }
@@ -512,6 +512,45 @@ public interface ManagementService {
    */
   void setJobRetriesByJobDefinitionId(String jobDefinitionId, int retries);
 
+  /**
+   * <p>Sets an overriding priority for all jobs created from the given job definition.
+   * Jobs created afterwards receive this priority instead of the priority declared in
+   * the process definition. Jobs that already exist keep their priority.</p>
+   *
+   * <p>The priority is only taken into account by the job executor if the engine
+   * configuration property <code>jobExecutorAcquireByPriority</code> is set.</p>
+   *
+   * @param jobDefinitionId id of the job definition, cannot be null.
+   * @param priority the priority that jobs of the definition receive
+   *
+   * @throws ProcessEngineException if no job definition with the given id exists.
+   */
+  void setOverridingJobPriorityForJobDefinition(String jobDefinitionId, long priority);
+
+  /**
+   * <p>Sets an overriding priority for all jobs created from the given job definition.
+   * Jobs created afterwards receive this priority instead of the priority declared in
+   * the process definition.</p>
+   *
+   * @param jobDefinitionId id of the job definition, cannot be null.
+   * @param priority the priority that jobs of the definition receive
+   * @param cascade if true, the priority of all existing jobs of the definition is updated as well
+   *
+   * @throws ProcessEngineException if no job definition with the given id exists.
+   */
+  void setOverridingJobPriorityForJobDefinition(String jobDefinitionId, long priority, boolean cascade);
+
+  /**
+   * <p>Clears the overriding priority of the given job definition. Jobs created afterwards
+   * receive the priority declared in the process definition again. The priority of
+   * existing jobs is not changed.</p>
+   *
+   * @param jobDefinitionId id of the job definition, cannot be null.
+   *
+   * @throws ProcessEngineException if no job definition with the given id exists.
+   */
+  void clearOverridingJobPriorityForJobDefinition(String jobDefinitionId);
+
   /**
    * Sets a new due date for the provided id.
    * When newDuedate is null, the job is executed with the next
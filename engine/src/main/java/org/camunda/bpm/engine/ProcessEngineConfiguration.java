@@ -131,6 +131,12 @@ public abstract class ProcessEngineConfiguration {
   protected String history = HISTORY_AUDIT;
   protected boolean jobExecutorActivate;
   protected boolean jobExecutorDeploymentAware = false;
+
+  /**
+   * If set, the job executor acquires jobs ordered by their priority (highest first)
+   * and due date. Otherwise, jobs are acquired in no particular order.
+   */
+  protected boolean jobExecutorAcquireByPriority = false;
   
   /**
    * The flag will be used inside the method "JobManager#send()". It will be used to decide whether to notify the 
@@ -463,6 +469,15 @@ public abstract class ProcessEngineConfiguration {
     return this;
   }
 
+  public boolean isJobExecutorAcquireByPriority() {
+    return jobExecutorAcquireByPriority;
+  }
+
+  public ProcessEngineConfiguration setJobExecutorAcquireByPriority(boolean jobExecutorAcquireByPriority) {
+    this.jobExecutorAcquireByPriority = jobExecutorAcquireByPriority;
+    return this;
+  }
+
   public boolean isHintJobExecutor() {
     return hintJobExecutor;
   }
@@ -187,6 +187,17 @@ public interface RepositoryService {
    */
   void suspendProcessDefinitionByKey(String processDefinitionKey, boolean suspendProcessInstances, Date suspensionDate);
 
+  /**
+   * Sets the number of days the history of finished instances of the process definition
+   * with the given id is kept before it is removed by the history cleanup.
+   *
+   * @param historyTimeToLive the number of days or null to keep the history forever
+   * @throws ProcessEngineException if no such processDefinition can be found or the time to live is negative.
+   *
+   * @see HistoryService#cleanUpHistoryAsync(boolean)
+   */
+  void updateProcessDefinitionHistoryTimeToLive(String processDefinitionId, Integer historyTimeToLive);
+
   /**
    * Activates the process definition with the given id.
    *
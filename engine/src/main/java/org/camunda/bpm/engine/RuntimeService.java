@@ -24,12 +24,14 @@ import org.camunda.bpm.engine.runtime.EventSubscriptionQuery;
 import org.camunda.bpm.engine.runtime.Execution;
 import org.camunda.bpm.engine.runtime.ExecutionQuery;
 import org.camunda.bpm.engine.runtime.IncidentQuery;
+import org.camunda.bpm.engine.runtime.MessageCorrelationBatchBuilder;
 import org.camunda.bpm.engine.runtime.MessageCorrelationBuilder;
 import org.camunda.bpm.engine.runtime.NativeExecutionQuery;
 import org.camunda.bpm.engine.runtime.NativeProcessInstanceQuery;
 import org.camunda.bpm.engine.runtime.ProcessInstance;
 import org.camunda.bpm.engine.runtime.ProcessInstanceModificationBuilder;
 import org.camunda.bpm.engine.runtime.ProcessInstanceQuery;
+import org.camunda.bpm.engine.runtime.SignalBroadcastProgress;
 import org.camunda.bpm.engine.runtime.VariableInstanceQuery;
 import org.camunda.bpm.engine.variable.VariableMap;
 import org.camunda.bpm.engine.variable.value.SerializableValue;
@@ -953,6 +955,30 @@ public interface RuntimeService {
    */
   void signalEventReceived(String signalName, Map<String, Object> processVariables);
 
+  /**
+   * Notifies the process engine that a signal event of name 'signalName' has
+   * been received. This method delivers the signal asynchronously to all executions
+   * waiting on the signal when the method is invoked.<p/>
+   *
+   * The delivery is split into jobs which notify a chunk of the waiting executions
+   * each and are executed in parallel by the job executor. A failing job is retried
+   * without affecting the other chunks.
+   *
+   * @param signalName
+   *          the name of the signal event
+   * @return the id of the broadcast, which can be used to query its progress with
+   *          {@link #getSignalBroadcastProgress(String)}
+   */
+  String signalEventReceivedAsync(String signalName);
+
+  /**
+   * Returns the progress of an asynchronous signal broadcast.
+   *
+   * @param broadcastId
+   *          the id of the broadcast returned by {@link #signalEventReceivedAsync(String)}
+   */
+  SignalBroadcastProgress getSignalBroadcastProgress(String broadcastId);
+
   /**
    * Notifies the process engine that a signal event of name 'signalName' has
    * been received. This method delivers the signal to a single execution, being the
@@ -1178,6 +1204,14 @@ public interface RuntimeService {
    */
   void correlateMessage(String messageName, String businessKey, Map<String, Object> correlationKeys, Map<String, Object> processVariables);
 
+  /**
+   * Define the correlation of a batch of messages in a single command using a fluent builder.
+   * The executions and process definitions matching the messages are looked up together.
+   *
+   * @return the fluent builder for defining the batch of messages.
+   */
+  MessageCorrelationBatchBuilder createMessageCorrelationBatch();
+
   /**
    * Define a modification of a process instance in terms of activity cancellations
    * and instantiations via a fluent builder
@@ -25,6 +25,7 @@ public class EventSubscriptionQueryValue implements Serializable {
   
   protected String eventType;
   protected String eventName;
+  protected boolean withoutCorrelationKey;
   
   public EventSubscriptionQueryValue(String eventName, String eventType) {
     this.eventName = eventName;
@@ -46,6 +47,14 @@ public class EventSubscriptionQueryValue implements Serializable {
   public void setEventName(String eventName) {
     this.eventName = eventName;
   }
+
+  public boolean isWithoutCorrelationKey() {
+    return withoutCorrelationKey;
+  }
+
+  public void setWithoutCorrelationKey(boolean withoutCorrelationKey) {
+    this.withoutCorrelationKey = withoutCorrelationKey;
+  }
   
     
 
@@ -120,6 +120,16 @@ public class ExecutionQueryImpl extends AbstractVariableQueryImpl<ExecutionQuery
     return eventSubscription("message", null);
   }
 
+  /**
+   * Restricts the query to executions with a message event subscription which
+   * is not correlated by its correlation key, i.e. declares no correlation keys.
+   */
+  public ExecutionQuery messageEventSubscriptionWithoutCorrelationKey(String messageName) {
+    eventSubscription("message", messageName);
+    eventSubscriptions.get(eventSubscriptions.size() - 1).setWithoutCorrelationKey(true);
+    return this;
+  }
+
   public ExecutionQuery eventSubscription(String eventType, String eventName) {
     ensureNotNull("event type", eventType);
     if (!"message".equals(eventType)) {
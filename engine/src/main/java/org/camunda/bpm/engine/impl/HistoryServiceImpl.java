@@ -31,11 +31,13 @@ import org.camunda.bpm.engine.history.NativeHistoricCaseInstanceQuery;
 import org.camunda.bpm.engine.history.NativeHistoricProcessInstanceQuery;
 import org.camunda.bpm.engine.history.NativeHistoricTaskInstanceQuery;
 import org.camunda.bpm.engine.history.UserOperationLogQuery;
+import org.camunda.bpm.engine.runtime.Job;
 import org.camunda.bpm.engine.impl.cmd.DeleteHistoricCaseInstanceCmd;
 import org.camunda.bpm.engine.impl.cmd.DeleteHistoricProcessInstanceCmd;
 import org.camunda.bpm.engine.impl.cmd.DeleteHistoricTaskInstanceCmd;
 import org.camunda.bpm.engine.impl.cmd.DeleteUserOperationLogEntryCmd;
 import org.camunda.bpm.engine.impl.cmd.GetHistoricJobLogExceptionStacktraceCmd;
+import org.camunda.bpm.engine.impl.cmd.HistoryCleanupCmd;
 
 /**
  * @author Tom Baeyens
@@ -127,4 +129,12 @@ public class HistoryServiceImpl extends ServiceImpl implements HistoryService {
   public String getHistoricJobLogExceptionStacktrace(String historicJobLogId) {
     return commandExecutor.execute(new GetHistoricJobLogExceptionStacktraceCmd(historicJobLogId));
   }
+
+  public Job cleanUpHistoryAsync() {
+    return cleanUpHistoryAsync(false);
+  }
+
+  public Job cleanUpHistoryAsync(boolean immediatelyDue) {
+    return commandExecutor.execute(new HistoryCleanupCmd(immediatelyDue));
+  }
 }
@@ -87,6 +87,18 @@ public class ManagementServiceImpl extends ServiceImpl implements ManagementServ
     commandExecutor.execute(new SetJobDuedateCmd(jobId, newDuedate));
   }
 
+  public void setOverridingJobPriorityForJobDefinition(String jobDefinitionId, long priority) {
+    setOverridingJobPriorityForJobDefinition(jobDefinitionId, priority, false);
+  }
+
+  public void setOverridingJobPriorityForJobDefinition(String jobDefinitionId, long priority, boolean cascade) {
+    commandExecutor.execute(new SetJobDefinitionPriorityCmd(jobDefinitionId, priority, cascade));
+  }
+
+  public void clearOverridingJobPriorityForJobDefinition(String jobDefinitionId) {
+    commandExecutor.execute(new SetJobDefinitionPriorityCmd(jobDefinitionId, null, false));
+  }
+
   public TablePageQuery createTablePageQuery() {
     return new TablePageQueryImpl(commandExecutor);
   }
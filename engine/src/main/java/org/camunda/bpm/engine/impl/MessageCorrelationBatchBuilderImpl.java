@@ -0,0 +1,60 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl;
+
+import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensureNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.engine.impl.cmd.CorrelateMessageBatchCmd;
+import org.camunda.bpm.engine.impl.cmd.CorrelateMessageBatchInNewTransactionsCmd;
+import org.camunda.bpm.engine.impl.cmd.CorrelateMessageCmd;
+import org.camunda.bpm.engine.impl.interceptor.CommandExecutor;
+import org.camunda.bpm.engine.runtime.MessageCorrelationBatchBuilder;
+import org.camunda.bpm.engine.runtime.MessageCorrelationBatchResult;
+
+public class MessageCorrelationBatchBuilderImpl implements MessageCorrelationBatchBuilder {
+
+  protected CommandExecutor commandExecutor;
+
+  protected List<CorrelateMessageCmd> messages = new ArrayList<CorrelateMessageCmd>();
+  protected boolean allOrNothing = false;
+
+  public MessageCorrelationBatchBuilderImpl(CommandExecutor commandExecutor) {
+    ensureNotNull("commandExecutor", commandExecutor);
+    this.commandExecutor = commandExecutor;
+  }
+
+  public MessageCorrelationBatchBuilder addMessage(String messageName, String businessKey,
+      Map<String, Object> correlationKeys, Map<String, Object> processVariables) {
+    messages.add(new CorrelateMessageCmd(messageName, businessKey, correlationKeys, processVariables));
+    return this;
+  }
+
+  public MessageCorrelationBatchBuilder allOrNothing() {
+    this.allOrNothing = true;
+    return this;
+  }
+
+  public List<MessageCorrelationBatchResult> correlate() {
+    if (allOrNothing) {
+      return commandExecutor.execute(new CorrelateMessageBatchCmd(messages, true));
+    }
+    else {
+      return commandExecutor.execute(new CorrelateMessageBatchInNewTransactionsCmd(messages));
+    }
+  }
+
+}
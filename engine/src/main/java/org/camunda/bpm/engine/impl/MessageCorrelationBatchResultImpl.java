@@ -0,0 +1,70 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl;
+
+import org.camunda.bpm.engine.runtime.MessageCorrelationBatchResult;
+
+public class MessageCorrelationBatchResultImpl implements MessageCorrelationBatchResult {
+
+  protected String messageName;
+  protected String businessKey;
+  protected String processInstanceId;
+  protected Exception exception;
+
+  public static MessageCorrelationBatchResultImpl correlated(String messageName, String businessKey, String processInstanceId) {
+    MessageCorrelationBatchResultImpl result = new MessageCorrelationBatchResultImpl(messageName, businessKey);
+    result.processInstanceId = processInstanceId;
+    return result;
+  }
+
+  public static MessageCorrelationBatchResultImpl failed(String messageName, String businessKey, Exception exception) {
+    MessageCorrelationBatchResultImpl result = new MessageCorrelationBatchResultImpl(messageName, businessKey);
+    result.exception = exception;
+    return result;
+  }
+
+  protected MessageCorrelationBatchResultImpl(String messageName, String businessKey) {
+    this.messageName = messageName;
+    this.businessKey = businessKey;
+  }
+
+  public String getMessageName() {
+    return messageName;
+  }
+
+  public String getBusinessKey() {
+    return businessKey;
+  }
+
+  public boolean isCorrelated() {
+    return exception == null;
+  }
+
+  public String getProcessInstanceId() {
+    return processInstanceId;
+  }
+
+  public Exception getException() {
+    return exception;
+  }
+
+  public String toString() {
+    return this.getClass().getSimpleName()
+           + "[messageName=" + messageName
+           + ", businessKey=" + businessKey
+           + ", processInstanceId=" + processInstanceId
+           + ", exception=" + exception
+           + "]";
+  }
+
+}
@@ -16,13 +16,19 @@ import java.util.Map;
 import java.util.logging.Logger;
 
 import org.camunda.bpm.engine.*;
+import org.camunda.bpm.engine.impl.cfg.IdGenerator;
 import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.camunda.bpm.engine.impl.cfg.TransactionContextFactory;
+import org.camunda.bpm.engine.impl.cmd.HistoryCleanupCmd;
+import org.camunda.bpm.engine.impl.db.PrefetchingDbIdGenerator;
 import org.camunda.bpm.engine.impl.el.ExpressionManager;
 import org.camunda.bpm.engine.impl.history.HistoryLevel;
+import org.camunda.bpm.engine.impl.history.handler.AsyncHistoryEventHandler;
+import org.camunda.bpm.engine.impl.history.handler.HistoryEventHandler;
 import org.camunda.bpm.engine.impl.interceptor.CommandExecutor;
 import org.camunda.bpm.engine.impl.interceptor.SessionFactory;
 import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
+import org.camunda.bpm.engine.impl.metrics.MetricsReportingTimer;
 
 /**
  * @author Tom Baeyens
@@ -51,6 +57,7 @@ public class ProcessEngineImpl implements ProcessEngine {
   protected HistoryLevel historyLevel;
   protected TransactionContextFactory transactionContextFactory;
   protected ProcessEngineConfigurationImpl processEngineConfiguration;
+  protected MetricsReportingTimer metricsReportingTimer;
 
 
 
@@ -76,6 +83,8 @@ public class ProcessEngineImpl implements ProcessEngine {
     this.transactionContextFactory = processEngineConfiguration.getTransactionContextFactory();
 
     executeSchemaOperations();
+    startAsyncHistory();
+    scheduleHistoryCleanupJob();
 
     if (name == null) {
       log.info("default activiti ProcessEngine created");
@@ -89,12 +98,57 @@ public class ProcessEngineImpl implements ProcessEngine {
       // register process engine with Job Executor
       jobExecutor.registerProcessEngine(this);
     }
+
+    startMetricsReporting();
+  }
+
+  protected void startMetricsReporting() {
+    if (processEngineConfiguration.getMetricsRegistry() != null
+        && processEngineConfiguration.getMetricsReporters() != null
+        && !processEngineConfiguration.getMetricsReporters().isEmpty()) {
+
+      metricsReportingTimer = new MetricsReportingTimer(name,
+          processEngineConfiguration.getMetricsRegistry(),
+          processEngineConfiguration.getMetricsReporters(),
+          processEngineConfiguration.getMetricsReportingIntervalInMillis());
+      metricsReportingTimer.start();
+    }
   }
 
   protected void executeSchemaOperations() {
     commandExecutorSchemaOperations.execute(new SchemaOperationsProcessEngineBuild());
   }
 
+  protected void startAsyncHistory() {
+    HistoryEventHandler historyEventHandler = processEngineConfiguration.getHistoryEventHandler();
+    if (historyEventHandler instanceof AsyncHistoryEventHandler) {
+      // replays the history events of a previous crash
+      ((AsyncHistoryEventHandler) historyEventHandler).start(processEngineConfiguration);
+    }
+  }
+
+  protected void stopAsyncHistory() {
+    HistoryEventHandler historyEventHandler = processEngineConfiguration.getHistoryEventHandler();
+    if (historyEventHandler instanceof AsyncHistoryEventHandler) {
+      // writes the queued history events
+      ((AsyncHistoryEventHandler) historyEventHandler).stop();
+    }
+  }
+
+  protected void stopIdBlockPrefetching() {
+    IdGenerator idGenerator = processEngineConfiguration.getIdGenerator();
+    if (idGenerator instanceof PrefetchingDbIdGenerator) {
+      ((PrefetchingDbIdGenerator) idGenerator).shutdown();
+    }
+  }
+
+  protected void scheduleHistoryCleanupJob() {
+    if (processEngineConfiguration.getHistoryCleanupBatchWindowStartTime() != null
+        && historyLevel != HistoryLevel.HISTORY_LEVEL_NONE) {
+      commandExecutorSchemaOperations.execute(new HistoryCleanupCmd(false));
+    }
+  }
+
   public void close() {
 
     ProcessEngines.unregister(this);
@@ -104,6 +158,13 @@ public class ProcessEngineImpl implements ProcessEngine {
       jobExecutor.unregisterProcessEngine(this);
     }
 
+    if (metricsReportingTimer != null) {
+      metricsReportingTimer.stop();
+    }
+
+    stopAsyncHistory();
+    stopIdBlockPrefetching();
+
     commandExecutorSchemaOperations.execute(new SchemaOperationProcessEngineClose());
   }
 
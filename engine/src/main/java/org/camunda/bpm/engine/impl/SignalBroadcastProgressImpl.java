@@ -0,0 +1,53 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.camunda.bpm.engine.runtime.Job;
+import org.camunda.bpm.engine.runtime.SignalBroadcastProgress;
+
+public class SignalBroadcastProgressImpl implements SignalBroadcastProgress {
+
+  protected String broadcastId;
+  protected int remainingJobCount;
+  protected List<String> failedJobIds = new ArrayList<String>();
+
+  public SignalBroadcastProgressImpl(String broadcastId, List<? extends Job> remainingJobs) {
+    this.broadcastId = broadcastId;
+    this.remainingJobCount = remainingJobs.size();
+    for (Job job : remainingJobs) {
+      if (job.getRetries() <= 0) {
+        failedJobIds.add(job.getId());
+      }
+    }
+  }
+
+  public String getBroadcastId() {
+    return broadcastId;
+  }
+
+  public boolean isCompleted() {
+    return remainingJobCount == 0;
+  }
+
+  public int getRemainingJobCount() {
+    return remainingJobCount;
+  }
+
+  public List<String> getFailedJobIds() {
+    return failedJobIds;
+  }
+
+}
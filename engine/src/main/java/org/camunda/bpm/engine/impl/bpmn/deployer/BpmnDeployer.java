@@ -157,6 +157,7 @@ public class BpmnDeployer implements Deployer {
 
         List<JobDeclaration<?>> declarations = jobDeclarations.get(processDefinition.getKey());
         updateJobDeclarations(declarations, processDefinition, deployment.isNew());
+        addJobBatchSizes(declarations, processDefinition);
         adjustStartEventSubscriptions(processDefinition, latestProcessDefinition);
 
         dbEntityManager.insert(processDefinition);
@@ -171,9 +172,11 @@ public class BpmnDeployer implements Deployer {
         processDefinition.setId(persistedProcessDefinition.getId());
         processDefinition.setVersion(persistedProcessDefinition.getVersion());
         processDefinition.setSuspensionState(persistedProcessDefinition.getSuspensionState());
+        processDefinition.setHistoryTimeToLive(persistedProcessDefinition.getHistoryTimeToLive());
 
         List<JobDeclaration<?>> declarations = jobDeclarations.get(processDefinition.getKey());
         updateJobDeclarations(declarations, processDefinition, deployment.isNew());
+        addJobBatchSizes(declarations, processDefinition);
 
         deploymentCache.addProcessDefinition(processDefinition);
         addAuthorizations(processDefinition);
@@ -231,6 +234,20 @@ public class BpmnDeployer implements Deployer {
 
   }
 
+  /**
+   * Makes the declared job batch sizes available to the job acquisition
+   * which only knows the job definition ids of the jobs.
+   */
+  protected void addJobBatchSizes(List<JobDeclaration<?>> jobDeclarations, ProcessDefinitionEntity processDefinition) {
+    if (jobDeclarations != null) {
+      for (JobDeclaration<?> jobDeclaration : jobDeclarations) {
+        if (jobDeclaration.getJobBatchSize() != null) {
+          processDefinition.addJobBatchSize(jobDeclaration.getJobDefinitionId(), jobDeclaration.getJobBatchSize());
+        }
+      }
+    }
+  }
+
   protected void createJobDefinition(ProcessDefinition processDefinition, JobDeclaration<?> jobDeclaration) {
     final JobDefinitionManager jobDefinitionManager = Context.getCommandContext().getJobDefinitionManager();
 
@@ -23,8 +23,10 @@ import java.text.StringCharacterIterator;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -165,6 +167,11 @@ public class BpmnParse extends Parse {
   public static final String PROPERTYNAME_EVENT_SUBSCRIPTION_DECLARATION = "eventDefinitions";
   public static final String PROPERTYNAME_TRIGGERED_BY_EVENT = "triggeredByEvent";
   public static final String PROPERTYNAME_TYPE = "type";
+  public static final String PROPERTYNAME_JOB_PRIORITY = "jobPriority";
+  public static final String PROPERTYNAME_JOB_BATCH_SIZE = "jobBatchSize";
+  public static final String PROPERTYNAME_CORRELATION_KEYS = "correlationKeys";
+  public static final String PROPERTYNAME_CORRELATION_VARIABLE_NAMES = "correlationVariableNames";
+  public static final String PROPERTYNAME_HISTORY_TIME_TO_LIVE = "historyTimeToLive";
 
   /* process start authorization specific finals */
   protected static final String POTENTIAL_STARTER = "potentialStarter";
@@ -490,6 +497,9 @@ public class BpmnParse extends Parse {
     processDefinition.setProperty(PROPERTYNAME_DOCUMENTATION, parseDocumentation(processElement));
     processDefinition.setTaskDefinitions(new HashMap<String, TaskDefinition>());
     processDefinition.setDeploymentId(deployment.getId());
+    processDefinition.setProperty(PROPERTYNAME_JOB_PRIORITY, parseJobPriority(processElement));
+    processDefinition.setProperty(PROPERTYNAME_CORRELATION_KEYS, parseCorrelationKeys(processElement));
+    processDefinition.setHistoryTimeToLive(parseHistoryTimeToLive(processElement));
 
     if (LOGGER.isLoggable(Level.FINE)) {
       LOGGER.fine("Parsing process " + processDefinition.getKey());
@@ -503,6 +513,8 @@ public class BpmnParse extends Parse {
       parseListener.parseProcess(processElement, processDefinition);
     }
 
+    processDefinition.setProperty(PROPERTYNAME_CORRELATION_VARIABLE_NAMES, collectCorrelationVariableNames(processDefinition));
+
     // now we have parsed anything we can validate some stuff
     validateActivities(processDefinition.getActivities());
 
@@ -914,7 +926,9 @@ public class BpmnParse extends Parse {
       addError("Invalid 'messageRef': no message with id '"+messageRef+"' found.", messageEventDefinition);
     }
 
-    return new EventSubscriptionDeclaration(messageDefinition.getName(), MessageEventHandler.EVENT_HANDLER_TYPE);
+    EventSubscriptionDeclaration declaration = new EventSubscriptionDeclaration(messageDefinition.getName(), MessageEventHandler.EVENT_HANDLER_TYPE);
+    declaration.setCorrelationKeys(parseCorrelationKeys(messageEventDefinition));
+    return declaration;
   }
 
   @SuppressWarnings("unchecked")
@@ -1666,6 +1680,8 @@ public class BpmnParse extends Parse {
     boolean isAsyncBefore = isAsyncBefore(element);
     boolean isAsyncAfter = isAsyncAfter(element);
     boolean exclusive = isExclusive(element);
+    Long jobPriority = parseJobPriority(element, activity.getProcessDefinition());
+    Integer jobBatchSize = parseJobBatchSize(element);
 
     // set properties on activity
     activity.setAsyncBefore(isAsyncBefore);
@@ -1675,6 +1691,8 @@ public class BpmnParse extends Parse {
 
       MessageJobDeclaration messageJobDeclaration = new AsyncBeforeMessageJobDeclaration();
       messageJobDeclaration.setExclusive(exclusive);
+      messageJobDeclaration.setJobPriority(jobPriority);
+      messageJobDeclaration.setJobBatchSize(jobBatchSize);
       messageJobDeclaration.setActivityId(activity.getId());
 
       addMessageJobDeclarationToActivity(messageJobDeclaration, activity);
@@ -1685,6 +1703,8 @@ public class BpmnParse extends Parse {
 
       MessageJobDeclaration messageJobDeclaration = new AsyncAfterMessageJobDeclaration();
       messageJobDeclaration.setExclusive(exclusive);
+      messageJobDeclaration.setJobPriority(jobPriority);
+      messageJobDeclaration.setJobBatchSize(jobBatchSize);
       messageJobDeclaration.setActivityId(activity.getId());
 
       addMessageJobDeclarationToActivity(messageJobDeclaration, activity);
@@ -2648,6 +2668,8 @@ public class BpmnParse extends Parse {
     TimerDeclarationImpl timerDeclaration = new TimerDeclarationImpl(expression, type, jobHandlerType);
     timerDeclaration.setJobHandlerConfiguration(timerActivity.getId());
     timerDeclaration.setExclusive("true".equals(timerEventDefinition.attributeNS(BpmnParser.ACTIVITI_BPMN_EXTENSIONS_NS, "exclusive", String.valueOf(JobEntity.DEFAULT_EXCLUSIVE))));
+    timerDeclaration.setJobPriority(parseJobPriority(timerEventDefinition, timerActivity.getProcessDefinition()));
+    timerDeclaration.setJobBatchSize(parseJobBatchSize(timerEventDefinition));
     if(timerActivity.getId() == null) {
       addError("Attribute \"id\" is required!",timerEventDefinition);
     }
@@ -3511,6 +3533,126 @@ public class BpmnParse extends Parse {
     return "true".equals(element.attributeNS(BpmnParser.ACTIVITI_BPMN_EXTENSIONS_NS, "exclusive", String.valueOf(JobEntity.DEFAULT_EXCLUSIVE)));
   }
 
+  /**
+   * Parses the <code>camunda:jobPriority</code> attribute of the given element.
+   *
+   * @return the declared priority or null if the element declares none
+   */
+  protected Long parseJobPriority(Element element) {
+    String jobPriority = element.attributeNS(BpmnParser.ACTIVITI_BPMN_EXTENSIONS_NS, PROPERTYNAME_JOB_PRIORITY);
+    if (jobPriority == null) {
+      return null;
+    }
+    try {
+      return Long.parseLong(jobPriority.trim());
+    } catch (NumberFormatException e) {
+      addError("Cannot parse job priority '" + jobPriority + "': value must be a long", element);
+      return null;
+    }
+  }
+
+  /**
+   * Parses the job priority of the given element and falls back to the job priority
+   * declared on the process if the element declares none.
+   */
+  protected Long parseJobPriority(Element element, ProcessDefinitionImpl processDefinition) {
+    Long jobPriority = parseJobPriority(element);
+    if (jobPriority == null) {
+      jobPriority = (Long) processDefinition.getProperty(PROPERTYNAME_JOB_PRIORITY);
+    }
+    return jobPriority;
+  }
+
+  /**
+   * Parses the <code>camunda:jobBatchSize</code> attribute of the given element.
+   *
+   * @return the maximum number of jobs which are executed in one transaction or null if the element declares none
+   */
+  protected Integer parseJobBatchSize(Element element) {
+    String jobBatchSize = element.attributeNS(BpmnParser.ACTIVITI_BPMN_EXTENSIONS_NS, PROPERTYNAME_JOB_BATCH_SIZE);
+    if (jobBatchSize == null) {
+      return null;
+    }
+    try {
+      int batchSize = Integer.parseInt(jobBatchSize.trim());
+      if (batchSize > 0) {
+        return batchSize;
+      }
+    } catch (NumberFormatException e) {
+      // handled below
+    }
+    addError("Cannot parse job batch size '" + jobBatchSize + "': value must be a positive integer", element);
+    return null;
+  }
+
+  /**
+   * Parses the <code>camunda:historyTimeToLive</code> attribute of the given element.
+   *
+   * @return the number of days the history of finished instances is kept or null if the element declares none
+   */
+  protected Integer parseHistoryTimeToLive(Element element) {
+    String historyTimeToLive = element.attributeNS(BpmnParser.ACTIVITI_BPMN_EXTENSIONS_NS, PROPERTYNAME_HISTORY_TIME_TO_LIVE);
+    if (historyTimeToLive == null) {
+      return null;
+    }
+    try {
+      int days = Integer.parseInt(historyTimeToLive.trim());
+      if (days >= 0) {
+        return days;
+      }
+    } catch (NumberFormatException e) {
+      // handled below
+    }
+    addError("Cannot parse history time to live '" + historyTimeToLive + "': value must be a non-negative integer", element);
+    return null;
+  }
+
+  /**
+   * Parses the <code>camunda:correlationKeys</code> attribute of the given element.
+   *
+   * @return the names of the variables which correlate messages or null if the element declares none
+   */
+  protected List<String> parseCorrelationKeys(Element element) {
+    String correlationKeys = element.attributeNS(BpmnParser.ACTIVITI_BPMN_EXTENSIONS_NS, PROPERTYNAME_CORRELATION_KEYS);
+    if (correlationKeys == null) {
+      return null;
+    }
+    List<String> variableNames = parseCommaSeparatedList(correlationKeys);
+    if (variableNames.isEmpty() || variableNames.contains("")) {
+      addError("Cannot parse correlation keys '" + correlationKeys + "': value must be a comma separated list of variable names", element);
+      return null;
+    }
+    return variableNames;
+  }
+
+  /**
+   * Collects the names of all variables which are used to compute the correlation keys
+   * of the message event subscriptions of the given process definition.
+   *
+   * @return the variable names or null if the process declares no correlation keys
+   */
+  @SuppressWarnings("unchecked")
+  protected Set<String> collectCorrelationVariableNames(ProcessDefinitionEntity processDefinition) {
+    Set<String> variableNames = new HashSet<String>();
+    List<String> processCorrelationKeys = (List<String>) processDefinition.getProperty(PROPERTYNAME_CORRELATION_KEYS);
+    if (processCorrelationKeys != null) {
+      variableNames.addAll(processCorrelationKeys);
+    }
+    collectCorrelationVariableNames(processDefinition, variableNames);
+    return variableNames.isEmpty() ? null : variableNames;
+  }
+
+  protected void collectCorrelationVariableNames(ScopeImpl scope, Set<String> variableNames) {
+    for (EventSubscriptionDeclaration declaration : EventSubscriptionDeclaration.getDeclarationsForScope(scope)) {
+      if (declaration.getCorrelationKeys() != null) {
+        variableNames.addAll(declaration.getCorrelationKeys());
+      }
+    }
+    for (ActivityImpl activity : scope.getActivities()) {
+      collectCorrelationVariableNames(activity, variableNames);
+    }
+  }
+
   protected boolean isAsyncBefore(Element element) {
     return "true".equals(element.attributeNS(BpmnParser.ACTIVITI_BPMN_EXTENSIONS_NS, "async"))
         || "true".equals(element.attributeNS(BpmnParser.ACTIVITI_BPMN_EXTENSIONS_NS, "asyncBefore"));
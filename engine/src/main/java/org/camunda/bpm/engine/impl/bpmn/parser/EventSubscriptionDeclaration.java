@@ -15,7 +15,9 @@ package org.camunda.bpm.engine.impl.bpmn.parser;
 
 import java.io.Serializable;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.camunda.bpm.engine.ProcessEngineException;
 import org.camunda.bpm.engine.impl.bpmn.behavior.ParallelMultiInstanceBehavior;
@@ -27,6 +29,7 @@ import org.camunda.bpm.engine.impl.persistence.entity.MessageEventSubscriptionEn
 import org.camunda.bpm.engine.impl.persistence.entity.SignalEventSubscriptionEntity;
 import org.camunda.bpm.engine.impl.pvm.PvmScope;
 import org.camunda.bpm.engine.impl.pvm.process.ActivityImpl;
+import org.camunda.bpm.engine.impl.util.CorrelationKeyUtil;
 
 
 /**
@@ -46,6 +49,7 @@ public class EventSubscriptionDeclaration implements Serializable {
   protected String eventScopeActivityId = null;
   protected boolean isStartEvent;
   protected Boolean isParallelMultiInstance = null;
+  protected List<String> correlationKeys;
 
   public EventSubscriptionDeclaration(String eventName, String eventType) {
     this.eventName = eventName;
@@ -92,6 +96,18 @@ public class EventSubscriptionDeclaration implements Serializable {
     return isParallelMultiInstance;
   }
 
+  /**
+   * @return the names of the variables which correlate messages to the subscriptions
+   *   of this declaration or null if the declaration declares none
+   */
+  public List<String> getCorrelationKeys() {
+    return correlationKeys;
+  }
+
+  public void setCorrelationKeys(List<String> correlationKeys) {
+    this.correlationKeys = correlationKeys;
+  }
+
   public boolean isStartEvent() {
     return isStartEvent;
   }
@@ -140,11 +156,54 @@ public class EventSubscriptionDeclaration implements Serializable {
       ActivityImpl activity = execution.getProcessDefinition().findActivity(activityId);
       eventSubscriptionEntity.setActivity(activity);
     }
+    if (eventSubscriptionEntity instanceof MessageEventSubscriptionEntity) {
+      eventSubscriptionEntity.setCorrelationKey(resolveCorrelationKey(execution));
+    }
 
     eventSubscriptionEntity.insert();
     return eventSubscriptionEntity;
   }
 
+  /**
+   * Recomputes the correlation key of a message event subscription created by this
+   * declaration, e.g. after a variable it is computed from has changed.
+   */
+  public void updateCorrelationKey(EventSubscriptionEntity eventSubscription, ExecutionEntity execution) {
+    String correlationKey = resolveCorrelationKey(execution);
+    if (!correlationKey.equals(eventSubscription.getCorrelationKey())) {
+      eventSubscription.setCorrelationKey(correlationKey);
+    }
+  }
+
+  /**
+   * Computes the correlation key from the current values of the declared correlation keys.
+   * Falls back to the correlation keys declared on the process.
+   *
+   * @return the correlation key or the event name if no correlation keys are declared,
+   *   a declared variable does not exist or its value cannot be hashed
+   */
+  @SuppressWarnings("unchecked")
+  protected String resolveCorrelationKey(ExecutionEntity execution) {
+    List<String> variableNames = correlationKeys;
+    if (variableNames == null) {
+      variableNames = (List<String>) execution.getProcessDefinition().getProperty(BpmnParse.PROPERTYNAME_CORRELATION_KEYS);
+    }
+    if (variableNames == null) {
+      return eventName;
+    }
+
+    Map<String, Object> correlationKeyValues = new HashMap<String, Object>();
+    for (String variableName : variableNames) {
+      if (!execution.hasVariable(variableName)) {
+        return eventName;
+      }
+      correlationKeyValues.put(variableName, execution.getVariable(variableName));
+    }
+
+    String correlationKey = CorrelationKeyUtil.hashCorrelationKeys(eventName, correlationKeyValues);
+    return correlationKey != null ? correlationKey : eventName;
+  }
+
   @SuppressWarnings("unchecked")
   public static List<EventSubscriptionDeclaration> getDeclarationsForScope(PvmScope scope) {
     Object result = scope.getProperty(BpmnParse.PROPERTYNAME_EVENT_SUBSCRIPTION_DECLARATION);
@@ -94,7 +94,9 @@ import org.camunda.bpm.engine.impl.cmmn.transformer.CmmnTransformFactory;
 import org.camunda.bpm.engine.impl.cmmn.transformer.CmmnTransformListener;
 import org.camunda.bpm.engine.impl.cmmn.transformer.CmmnTransformer;
 import org.camunda.bpm.engine.impl.cmmn.transformer.DefaultCmmnTransformFactory;
+import org.camunda.bpm.engine.impl.db.AuthorizationDecisionCache;
 import org.camunda.bpm.engine.impl.db.DbIdGenerator;
+import org.camunda.bpm.engine.impl.db.PrefetchingDbIdGenerator;
 import org.camunda.bpm.engine.impl.db.entitymanager.DbEntityManagerFactory;
 import org.camunda.bpm.engine.impl.db.entitymanager.cache.DbEntityCacheKeyMapping;
 import org.camunda.bpm.engine.impl.db.sql.DbSqlPersistenceProviderFactory;
@@ -127,7 +129,9 @@ import org.camunda.bpm.engine.impl.form.validator.MinValidator;
 import org.camunda.bpm.engine.impl.form.validator.ReadOnlyValidator;
 import org.camunda.bpm.engine.impl.form.validator.RequiredValidator;
 import org.camunda.bpm.engine.impl.history.HistoryLevel;
+import org.camunda.bpm.engine.impl.history.handler.AsyncHistoryEventHandler;
 import org.camunda.bpm.engine.impl.history.handler.DbHistoryEventHandler;
+import org.camunda.bpm.engine.impl.history.handler.HistoryEventDeliveryGuarantee;
 import org.camunda.bpm.engine.impl.history.handler.HistoryEventHandler;
 import org.camunda.bpm.engine.impl.history.parser.HistoryParseListener;
 import org.camunda.bpm.engine.impl.history.producer.CacheAwareCmmnHistoryEventProducer;
@@ -151,10 +155,12 @@ import org.camunda.bpm.engine.impl.jobexecutor.CallerRunsRejectedJobsHandler;
 import org.camunda.bpm.engine.impl.jobexecutor.DefaultFailedJobCommandFactory;
 import org.camunda.bpm.engine.impl.jobexecutor.DefaultJobExecutor;
 import org.camunda.bpm.engine.impl.jobexecutor.FailedJobCommandFactory;
+import org.camunda.bpm.engine.impl.jobexecutor.HistoryCleanupJobHandler;
 import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
 import org.camunda.bpm.engine.impl.jobexecutor.JobHandler;
 import org.camunda.bpm.engine.impl.jobexecutor.ProcessEventJobHandler;
 import org.camunda.bpm.engine.impl.jobexecutor.RejectedJobsHandler;
+import org.camunda.bpm.engine.impl.jobexecutor.SignalBroadcastJobHandler;
 import org.camunda.bpm.engine.impl.jobexecutor.TimerActivateJobDefinitionHandler;
 import org.camunda.bpm.engine.impl.jobexecutor.TimerActivateProcessDefinitionHandler;
 import org.camunda.bpm.engine.impl.jobexecutor.TimerCatchIntermediateEventJobHandler;
@@ -163,6 +169,8 @@ import org.camunda.bpm.engine.impl.jobexecutor.TimerStartEventJobHandler;
 import org.camunda.bpm.engine.impl.jobexecutor.TimerStartEventSubprocessJobHandler;
 import org.camunda.bpm.engine.impl.jobexecutor.TimerSuspendJobDefinitionHandler;
 import org.camunda.bpm.engine.impl.jobexecutor.TimerSuspendProcessDefinitionHandler;
+import org.camunda.bpm.engine.impl.metrics.MetricsRegistry;
+import org.camunda.bpm.engine.impl.metrics.MetricsReporter;
 import org.camunda.bpm.engine.impl.persistence.GenericManagerFactory;
 import org.camunda.bpm.engine.impl.persistence.deploy.Deployer;
 import org.camunda.bpm.engine.impl.persistence.deploy.DeploymentCache;
@@ -171,6 +179,7 @@ import org.camunda.bpm.engine.impl.persistence.entity.AuthorizationManager;
 import org.camunda.bpm.engine.impl.persistence.entity.ByteArrayManager;
 import org.camunda.bpm.engine.impl.persistence.entity.CommentManager;
 import org.camunda.bpm.engine.impl.persistence.entity.DeploymentManager;
+import org.camunda.bpm.engine.impl.persistence.entity.EffectivePermissionManager;
 import org.camunda.bpm.engine.impl.persistence.entity.EventSubscriptionManager;
 import org.camunda.bpm.engine.impl.persistence.entity.ExecutionManager;
 import org.camunda.bpm.engine.impl.persistence.entity.FilterManager;
@@ -212,6 +221,7 @@ import org.camunda.bpm.engine.impl.util.ReflectUtil;
 import org.camunda.bpm.engine.impl.variable.ValueTypeResolverImpl;
 import org.camunda.bpm.engine.impl.variable.serializer.BooleanValueSerializer;
 import org.camunda.bpm.engine.impl.variable.serializer.ByteArrayValueSerializer;
+import org.camunda.bpm.engine.impl.variable.serializer.CompactBinaryObjectSerializer;
 import org.camunda.bpm.engine.impl.variable.serializer.DateValueSerializer;
 import org.camunda.bpm.engine.impl.variable.serializer.DefaultVariableSerializers;
 import org.camunda.bpm.engine.impl.variable.serializer.DoubleValueSerializer;
@@ -220,6 +230,7 @@ import org.camunda.bpm.engine.impl.variable.serializer.JavaObjectSerializer;
 import org.camunda.bpm.engine.impl.variable.serializer.LongValueSerlializer;
 import org.camunda.bpm.engine.impl.variable.serializer.NullValueSerializer;
 import org.camunda.bpm.engine.impl.variable.serializer.ShortValueSerializer;
+import org.camunda.bpm.engine.impl.variable.serializer.StreamValueSerializer;
 import org.camunda.bpm.engine.impl.variable.serializer.StringValueSerializer;
 import org.camunda.bpm.engine.impl.variable.serializer.TypedValueSerializer;
 import org.camunda.bpm.engine.impl.variable.serializer.VariableSerializers;
@@ -299,12 +310,43 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
   protected List<Deployer> customPostDeployers;
   protected List<Deployer> deployers;
   protected DeploymentCache deploymentCache;
+  /** the maximum number of definitions and models kept in each cache of the deployment cache */
+  protected int cacheCapacity = DeploymentCache.DEFAULT_CACHE_CAPACITY;
 
   // JOB EXECUTOR /////////////////////////////////////////////////////////////
 
   protected List<JobHandler> customJobHandlers;
   protected Map<String, JobHandler> jobHandlers;
   protected JobExecutor jobExecutor;
+  /**
+   * If true, due non-exclusive jobs created by a job are locked in the same transaction
+   * and executed by the same job executor thread instead of waiting for the next acquisition.
+   */
+  protected boolean jobExecutorLocalContinuation = false;
+  /** the number of signal event subscriptions notified by each job of an asynchronous signal broadcast */
+  protected int signalBroadcastChunkSize = 100;
+
+  // HISTORY CLEANUP //////////////////////////////////////////////////////////
+
+  /** the start of the daily window in which the history cleanup runs, in the format HH:mm */
+  protected String historyCleanupBatchWindowStartTime;
+  /** the end of the daily window in which the history cleanup runs, in the format HH:mm */
+  protected String historyCleanupBatchWindowEndTime;
+  /** the number of process instances whose history is removed in one transaction */
+  protected int historyCleanupBatchSize = 500;
+
+  // ASYNCHRONOUS HISTORY /////////////////////////////////////////////////////
+
+  /** if true and no history event handler is set, history events are written by an {@link AsyncHistoryEventHandler} */
+  protected boolean asyncHistoryEnabled = false;
+  protected HistoryEventDeliveryGuarantee asyncHistoryDeliveryGuarantee = HistoryEventDeliveryGuarantee.AT_LEAST_ONCE;
+  /** the directory of the write-ahead log, required for {@link HistoryEventDeliveryGuarantee#AT_LEAST_ONCE} */
+  protected String asyncHistoryLogDirectory;
+  /** the number of history events which may wait to be written before committing transactions block */
+  protected int asyncHistoryQueueCapacity = 10000;
+  /** the maximum number of history events written in one transaction */
+  protected int asyncHistoryBatchSize = 500;
+  protected int asyncHistoryWriterThreads = 2;
 
   // MYBATIS SQL SESSION FACTORY //////////////////////////////////////////////
 
@@ -316,6 +358,19 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
   protected IdGenerator idGenerator;
   protected DataSource idGeneratorDataSource;
   protected String idGeneratorDataSourceJndiName;
+  /**
+   * If true, the next id block is fetched in the background before the
+   * current block runs out (see {@link PrefetchingDbIdGenerator}).
+   */
+  protected boolean idBlockPrefetching = false;
+
+  // METRICS //////////////////////////////////////////////////////////////////
+
+  protected boolean isMetricsEnabled = true;
+  protected MetricsRegistry metricsRegistry;
+  protected List<MetricsReporter> metricsReporters;
+  /** the interval in which the {@link #metricsReporters} are invoked */
+  protected int metricsReportingIntervalInMillis = 5 * 60 * 1000;
 
   // INCIDENT HANDLER /////////////////////////////////////////////////////////
 
@@ -336,6 +391,8 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
   protected List<TypedValueSerializer> customPostVariableSerializers;
   protected VariableSerializers variableSerializers;
   protected String defaultSerializationFormat = Variables.SerializationDataFormats.JAVA.getName();
+  protected int compactBinaryCompressionThreshold = CompactBinaryObjectSerializer.DEFAULT_COMPRESSION_THRESHOLD;
+  protected List<String> compactBinaryAllowedClasses;
   protected String defaultCharsetName = null;
   protected Charset defaultCharset = null;
 
@@ -381,6 +438,12 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
   protected boolean isDbIdentityUsed = true;
   protected boolean isDbHistoryUsed = true;
 
+  /**
+   * If true, the database operations of a flush are executed as JDBC batches.
+   * Requires a JDBC driver which reports the update counts of batched statements.
+   */
+  protected boolean jdbcBatchProcessing = false;
+
   protected DelegateInterceptor delegateInterceptor;
 
   protected CommandInterceptor actualCommandExecutor;
@@ -416,6 +479,15 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
 
   protected ResourceAuthorizationProvider resourceAuthorizationProvider;
 
+  protected AuthorizationDecisionCache authorizationDecisionCache;
+  protected boolean authorizationDecisionCacheEnabled = true;
+  protected int authorizationDecisionCacheCapacity = AuthorizationDecisionCache.DEFAULT_CAPACITY;
+  /** the time in milliseconds an authorization decision is cached */
+  protected long authorizationDecisionCacheTimeToLive = AuthorizationDecisionCache.DEFAULT_TIME_TO_LIVE;
+
+  /** if true the effective permissions of the users are maintained and checked by queries */
+  protected boolean effectivePermissionsEnabled = false;
+
   protected List<ProcessEnginePlugin> processEnginePlugins = new ArrayList<ProcessEnginePlugin>();
 
   protected HistoryEventProducer historyEventProducer;
@@ -481,6 +553,7 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     initIdGenerator();
     initDeployers();
     initJobExecutor();
+    initMetrics();
     initDataSource();
     initTransactionFactory();
     initSqlSessionFactory();
@@ -498,6 +571,8 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     initPasswordDigest();
     initDeploymentRegistration();
     initResourceAuthorizationProvider();
+    initAuthorizationDecisionCache();
+    initHistoryCleanup();
 
     invokePostInit();
   }
@@ -871,6 +946,7 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
       addSessionFactory(new GenericManagerFactory(StatisticsManager.class));
       addSessionFactory(new GenericManagerFactory(IncidentManager.class));
       addSessionFactory(new GenericManagerFactory(AuthorizationManager.class));
+      addSessionFactory(new GenericManagerFactory(EffectivePermissionManager.class));
       addSessionFactory(new GenericManagerFactory(FilterManager.class));
 
       addSessionFactory(new GenericManagerFactory(CaseDefinitionManager.class));
@@ -886,6 +962,9 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
       }
 
     }
+    if (historyEventHandler instanceof AsyncHistoryEventHandler) {
+      addSessionFactory((AsyncHistoryEventHandler) historyEventHandler);
+    }
     if (customSessionFactories!=null) {
       for (SessionFactory sessionFactory: customSessionFactories) {
         addSessionFactory(sessionFactory);
@@ -903,6 +982,7 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     dbSqlSessionFactory.setCmmnEnabled(cmmnEnabled);
     dbSqlSessionFactory.setDatabaseTablePrefix(databaseTablePrefix);
     dbSqlSessionFactory.setDatabaseSchema(databaseSchema);
+    dbSqlSessionFactory.setJdbcBatchProcessing(jdbcBatchProcessing);
     addSessionFactory(dbSqlSessionFactory);
     addSessionFactory(new DbSqlPersistenceProviderFactory());
   }
@@ -934,7 +1014,7 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
         deployers.addAll(customPostDeployers);
       }
 
-      deploymentCache = new DeploymentCache();
+      deploymentCache = new DeploymentCache(cacheCapacity);
       deploymentCache.setDeployers(deployers);
     }
   }
@@ -1021,6 +1101,20 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     return defaultListener;
   }
 
+  // metrics //////////////////////////////////////////////////////////////////
+
+  protected void initMetrics() {
+    if (!isMetricsEnabled) {
+      metricsRegistry = null;
+    } else if (metricsRegistry == null) {
+      metricsRegistry = new MetricsRegistry();
+    }
+
+    if (metricsReporters == null) {
+      metricsReporters = new ArrayList<MetricsReporter>();
+    }
+  }
+
   // job executor /////////////////////////////////////////////////////////////
 
   protected void initJobExecutor() {
@@ -1059,6 +1153,15 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     TimerActivateJobDefinitionHandler activateJobDefinitionHandler = new TimerActivateJobDefinitionHandler();
     jobHandlers.put(activateJobDefinitionHandler.getType(), activateJobDefinitionHandler);
 
+    if (signalBroadcastChunkSize <= 0) {
+      throw new ProcessEngineException("signalBroadcastChunkSize must be positive");
+    }
+    SignalBroadcastJobHandler signalBroadcastJobHandler = new SignalBroadcastJobHandler();
+    jobHandlers.put(signalBroadcastJobHandler.getType(), signalBroadcastJobHandler);
+
+    HistoryCleanupJobHandler historyCleanupJobHandler = new HistoryCleanupJobHandler();
+    jobHandlers.put(historyCleanupJobHandler.getType(), historyCleanupJobHandler);
+
     // if we have custom job handlers, register them
     if (getCustomJobHandlers()!=null) {
       for (JobHandler customJobHandler : getCustomJobHandlers()) {
@@ -1136,10 +1239,17 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
         idGeneratorCommandExecutor = commandExecutorTxRequiresNew;
       }
 
-      DbIdGenerator dbIdGenerator = new DbIdGenerator();
-      dbIdGenerator.setIdBlockSize(idBlockSize);
-      dbIdGenerator.setCommandExecutor(idGeneratorCommandExecutor);
-      idGenerator = dbIdGenerator;
+      if (idBlockPrefetching) {
+        PrefetchingDbIdGenerator prefetchingDbIdGenerator = new PrefetchingDbIdGenerator();
+        prefetchingDbIdGenerator.setIdBlockSize(idBlockSize);
+        prefetchingDbIdGenerator.setCommandExecutor(idGeneratorCommandExecutor);
+        idGenerator = prefetchingDbIdGenerator;
+      } else {
+        DbIdGenerator dbIdGenerator = new DbIdGenerator();
+        dbIdGenerator.setIdBlockSize(idBlockSize);
+        dbIdGenerator.setCommandExecutor(idGeneratorCommandExecutor);
+        idGenerator = dbIdGenerator;
+      }
     }
   }
 
@@ -1194,8 +1304,14 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
       variableSerializers.addSerializer(new DateValueSerializer());
       variableSerializers.addSerializer(new DoubleValueSerializer());
       variableSerializers.addSerializer(new ByteArrayValueSerializer());
+      variableSerializers.addSerializer(new StreamValueSerializer());
       variableSerializers.addSerializer(new JavaObjectSerializer());
 
+      CompactBinaryObjectSerializer compactBinaryObjectSerializer = new CompactBinaryObjectSerializer();
+      compactBinaryObjectSerializer.setCompressionThreshold(compactBinaryCompressionThreshold);
+      compactBinaryObjectSerializer.setAllowedClasses(compactBinaryAllowedClasses);
+      variableSerializers.addSerializer(compactBinaryObjectSerializer);
+
       if (customPostVariableSerializers!=null) {
         for (TypedValueSerializer<?> customVariableType: customPostVariableSerializers) {
           variableSerializers.addSerializer(customVariableType);
@@ -1389,7 +1505,21 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
 
   protected void initHistoryEventHandler() {
     if(historyEventHandler == null) {
-      historyEventHandler = new DbHistoryEventHandler();
+      if (asyncHistoryEnabled) {
+        historyEventHandler = new AsyncHistoryEventHandler(new DbHistoryEventHandler());
+      }
+      else {
+        historyEventHandler = new DbHistoryEventHandler();
+      }
+    }
+
+    if (historyEventHandler instanceof AsyncHistoryEventHandler) {
+      if (asyncHistoryDeliveryGuarantee == HistoryEventDeliveryGuarantee.AT_LEAST_ONCE && asyncHistoryLogDirectory == null) {
+        throw new ProcessEngineException("asyncHistoryLogDirectory must be set for the delivery guarantee " + asyncHistoryDeliveryGuarantee);
+      }
+      if (asyncHistoryQueueCapacity <= 0 || asyncHistoryBatchSize <= 0 || asyncHistoryWriterThreads <= 0) {
+        throw new ProcessEngineException("asyncHistoryQueueCapacity, asyncHistoryBatchSize and asyncHistoryWriterThreads must be positive");
+      }
     }
   }
 
@@ -1416,6 +1546,23 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     }
   }
 
+  protected void initAuthorizationDecisionCache() {
+    if (authorizationDecisionCache == null && authorizationDecisionCacheEnabled) {
+      authorizationDecisionCache = new AuthorizationDecisionCache(authorizationDecisionCacheCapacity, authorizationDecisionCacheTimeToLive);
+    }
+  }
+
+  // history cleanup //////////////////////////////////////////////////////////
+
+  protected void initHistoryCleanup() {
+    // validate the batch window
+    HistoryCleanupJobHandler.BatchWindow.parse(historyCleanupBatchWindowStartTime, historyCleanupBatchWindowEndTime);
+
+    if (historyCleanupBatchSize <= 0) {
+      throw new ProcessEngineException("historyCleanupBatchSize must be positive");
+    }
+  }
+
   // getters and setters //////////////////////////////////////////////////////
 
   public String getProcessEngineName() {
@@ -2112,6 +2259,158 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     this.deploymentCache = deploymentCache;
   }
 
+  public int getCacheCapacity() {
+    return cacheCapacity;
+  }
+
+  /**
+   * Sets the maximum number of process definitions, case definitions and models
+   * kept in the deployment cache. If the capacity is exceeded, the least recently
+   * used entries are evicted and deployed again when they are needed.
+   */
+  public ProcessEngineConfigurationImpl setCacheCapacity(int cacheCapacity) {
+    this.cacheCapacity = cacheCapacity;
+    return this;
+  }
+
+  public boolean isJobExecutorLocalContinuation() {
+    return jobExecutorLocalContinuation;
+  }
+
+  public ProcessEngineConfigurationImpl setJobExecutorLocalContinuation(boolean jobExecutorLocalContinuation) {
+    this.jobExecutorLocalContinuation = jobExecutorLocalContinuation;
+    return this;
+  }
+
+  public int getSignalBroadcastChunkSize() {
+    return signalBroadcastChunkSize;
+  }
+
+  public ProcessEngineConfigurationImpl setSignalBroadcastChunkSize(int signalBroadcastChunkSize) {
+    this.signalBroadcastChunkSize = signalBroadcastChunkSize;
+    return this;
+  }
+
+  public String getHistoryCleanupBatchWindowStartTime() {
+    return historyCleanupBatchWindowStartTime;
+  }
+
+  public ProcessEngineConfigurationImpl setHistoryCleanupBatchWindowStartTime(String historyCleanupBatchWindowStartTime) {
+    this.historyCleanupBatchWindowStartTime = historyCleanupBatchWindowStartTime;
+    return this;
+  }
+
+  public String getHistoryCleanupBatchWindowEndTime() {
+    return historyCleanupBatchWindowEndTime;
+  }
+
+  public ProcessEngineConfigurationImpl setHistoryCleanupBatchWindowEndTime(String historyCleanupBatchWindowEndTime) {
+    this.historyCleanupBatchWindowEndTime = historyCleanupBatchWindowEndTime;
+    return this;
+  }
+
+  public int getHistoryCleanupBatchSize() {
+    return historyCleanupBatchSize;
+  }
+
+  public ProcessEngineConfigurationImpl setHistoryCleanupBatchSize(int historyCleanupBatchSize) {
+    this.historyCleanupBatchSize = historyCleanupBatchSize;
+    return this;
+  }
+
+  public boolean isAsyncHistoryEnabled() {
+    return asyncHistoryEnabled;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncHistoryEnabled(boolean asyncHistoryEnabled) {
+    this.asyncHistoryEnabled = asyncHistoryEnabled;
+    return this;
+  }
+
+  public HistoryEventDeliveryGuarantee getAsyncHistoryDeliveryGuarantee() {
+    return asyncHistoryDeliveryGuarantee;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncHistoryDeliveryGuarantee(HistoryEventDeliveryGuarantee asyncHistoryDeliveryGuarantee) {
+    this.asyncHistoryDeliveryGuarantee = asyncHistoryDeliveryGuarantee;
+    return this;
+  }
+
+  public String getAsyncHistoryLogDirectory() {
+    return asyncHistoryLogDirectory;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncHistoryLogDirectory(String asyncHistoryLogDirectory) {
+    this.asyncHistoryLogDirectory = asyncHistoryLogDirectory;
+    return this;
+  }
+
+  public int getAsyncHistoryQueueCapacity() {
+    return asyncHistoryQueueCapacity;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncHistoryQueueCapacity(int asyncHistoryQueueCapacity) {
+    this.asyncHistoryQueueCapacity = asyncHistoryQueueCapacity;
+    return this;
+  }
+
+  public int getAsyncHistoryBatchSize() {
+    return asyncHistoryBatchSize;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncHistoryBatchSize(int asyncHistoryBatchSize) {
+    this.asyncHistoryBatchSize = asyncHistoryBatchSize;
+    return this;
+  }
+
+  public int getAsyncHistoryWriterThreads() {
+    return asyncHistoryWriterThreads;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncHistoryWriterThreads(int asyncHistoryWriterThreads) {
+    this.asyncHistoryWriterThreads = asyncHistoryWriterThreads;
+    return this;
+  }
+
+  public boolean isMetricsEnabled() {
+    return isMetricsEnabled;
+  }
+
+  public ProcessEngineConfigurationImpl setMetricsEnabled(boolean isMetricsEnabled) {
+    this.isMetricsEnabled = isMetricsEnabled;
+    return this;
+  }
+
+  /**
+   * @return the metrics of the process engine or null if metrics are disabled
+   */
+  public MetricsRegistry getMetricsRegistry() {
+    return metricsRegistry;
+  }
+
+  public ProcessEngineConfigurationImpl setMetricsRegistry(MetricsRegistry metricsRegistry) {
+    this.metricsRegistry = metricsRegistry;
+    return this;
+  }
+
+  public List<MetricsReporter> getMetricsReporters() {
+    return metricsReporters;
+  }
+
+  public ProcessEngineConfigurationImpl setMetricsReporters(List<MetricsReporter> metricsReporters) {
+    this.metricsReporters = metricsReporters;
+    return this;
+  }
+
+  public int getMetricsReportingIntervalInMillis() {
+    return metricsReportingIntervalInMillis;
+  }
+
+  public ProcessEngineConfigurationImpl setMetricsReportingIntervalInMillis(int metricsReportingIntervalInMillis) {
+    this.metricsReportingIntervalInMillis = metricsReportingIntervalInMillis;
+    return this;
+  }
+
   public ProcessEngineConfigurationImpl setDelegateInterceptor(DelegateInterceptor delegateInterceptor) {
     this.delegateInterceptor = delegateInterceptor;
     return this;
@@ -2214,6 +2513,20 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     this.idGeneratorDataSourceJndiName = idGeneratorDataSourceJndiName;
   }
 
+  public boolean isIdBlockPrefetching() {
+    return idBlockPrefetching;
+  }
+
+  /**
+   * If set to true, the default id generator fetches the next id block in the
+   * background so that no thread has to wait for the database when a block runs out.
+   * The size of the blocks adapts to the rate at which ids are used.
+   */
+  public ProcessEngineConfigurationImpl setIdBlockPrefetching(boolean idBlockPrefetching) {
+    this.idBlockPrefetching = idBlockPrefetching;
+    return this;
+  }
+
   public ProcessApplicationManager getProcessApplicationManager() {
     return processApplicationManager;
   }
@@ -2299,6 +2612,70 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     this.resourceAuthorizationProvider = resourceAuthorizationProvider;
   }
 
+  /**
+   * @return the cache of authorization decisions or null if authorization decisions are not cached
+   */
+  public AuthorizationDecisionCache getAuthorizationDecisionCache() {
+    return authorizationDecisionCache;
+  }
+
+  public ProcessEngineConfigurationImpl setAuthorizationDecisionCache(AuthorizationDecisionCache authorizationDecisionCache) {
+    this.authorizationDecisionCache = authorizationDecisionCache;
+    return this;
+  }
+
+  public boolean isAuthorizationDecisionCacheEnabled() {
+    return authorizationDecisionCacheEnabled;
+  }
+
+  public ProcessEngineConfigurationImpl setAuthorizationDecisionCacheEnabled(boolean authorizationDecisionCacheEnabled) {
+    this.authorizationDecisionCacheEnabled = authorizationDecisionCacheEnabled;
+    return this;
+  }
+
+  public int getAuthorizationDecisionCacheCapacity() {
+    return authorizationDecisionCacheCapacity;
+  }
+
+  public ProcessEngineConfigurationImpl setAuthorizationDecisionCacheCapacity(int authorizationDecisionCacheCapacity) {
+    this.authorizationDecisionCacheCapacity = authorizationDecisionCacheCapacity;
+    return this;
+  }
+
+  public long getAuthorizationDecisionCacheTimeToLive() {
+    return authorizationDecisionCacheTimeToLive;
+  }
+
+  /**
+   * Sets the time in milliseconds an authorization decision is cached. In a
+   * cluster, authorizations changed by another process engine are only taken
+   * into account by this process engine once the cached decisions expired.
+   * A negative value caches decisions until authorizations are changed by
+   * this process engine.
+   */
+  public ProcessEngineConfigurationImpl setAuthorizationDecisionCacheTimeToLive(long authorizationDecisionCacheTimeToLive) {
+    this.authorizationDecisionCacheTimeToLive = authorizationDecisionCacheTimeToLive;
+    return this;
+  }
+
+  public boolean isEffectivePermissionsEnabled() {
+    return effectivePermissionsEnabled;
+  }
+
+  /**
+   * Enables the effective permissions of the users, which are maintained
+   * whenever authorizations or group memberships are changed. If enabled,
+   * queries check the permissions of the authenticated user against its
+   * effective permissions, provided that the authenticated groups are the
+   * groups the user is a member of. When enabling the effective permissions
+   * for a database with existing authorizations, they must be computed once
+   * by executing the {@link org.camunda.bpm.engine.impl.cmd.RebuildEffectivePermissionsCmd}.
+   */
+  public ProcessEngineConfigurationImpl setEffectivePermissionsEnabled(boolean effectivePermissionsEnabled) {
+    this.effectivePermissionsEnabled = effectivePermissionsEnabled;
+    return this;
+  }
+
   public List<ProcessEnginePlugin> getProcessEnginePlugins() {
     return processEnginePlugins;
   }
@@ -2407,6 +2784,21 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     this.cmmnEnabled = cmmnEnabled;
   }
 
+  public boolean isJdbcBatchProcessing() {
+    return jdbcBatchProcessing;
+  }
+
+  /**
+   * If set to true, consecutive database operations of a flush which use the same
+   * statement are sent to the database as a single JDBC batch. This reduces the
+   * number of database round trips per command. The JDBC driver must report the
+   * update counts of batched statements, otherwise optimistic locking cannot be verified.
+   */
+  public ProcessEngineConfigurationImpl setJdbcBatchProcessing(boolean jdbcBatchProcessing) {
+    this.jdbcBatchProcessing = jdbcBatchProcessing;
+    return this;
+  }
+
   public ScriptFactory getScriptFactory() {
     return scriptFactory;
   }
@@ -2449,6 +2841,37 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     return this;
   }
 
+  public int getCompactBinaryCompressionThreshold() {
+    return compactBinaryCompressionThreshold;
+  }
+
+  /**
+   * Sets the size in bytes above which object values serialized in the
+   * {@link Variables.SerializationDataFormats#COMPACT_BINARY} format are
+   * compressed. A negative value disables the compression.
+   */
+  public ProcessEngineConfigurationImpl setCompactBinaryCompressionThreshold(int compactBinaryCompressionThreshold) {
+    this.compactBinaryCompressionThreshold = compactBinaryCompressionThreshold;
+    return this;
+  }
+
+  public List<String> getCompactBinaryAllowedClasses() {
+    return compactBinaryAllowedClasses;
+  }
+
+  /**
+   * Sets the classes which may be deserialized from object values in the
+   * {@link Variables.SerializationDataFormats#COMPACT_BINARY} format. Entries are
+   * class names or patterns like <code>com.example.*</code> which allow the classes
+   * of a package and its sub packages. The classes of <code>java.lang</code> and the
+   * collections encoded by the format are always allowed. If no classes are set,
+   * all serializable classes may be deserialized.
+   */
+  public ProcessEngineConfigurationImpl setCompactBinaryAllowedClasses(List<String> compactBinaryAllowedClasses) {
+    this.compactBinaryAllowedClasses = compactBinaryAllowedClasses;
+    return this;
+  }
+
   public ProcessEngineConfigurationImpl setDefaultCharsetName(String defaultCharsetName) {
     this.defaultCharsetName = defaultCharsetName;
     return this;
@@ -57,15 +57,24 @@ public abstract class AbstractCorrelateMessageCmd implements Command<Void> {
     this.processInstanceId = messageCorrelationBuilderImpl.getProcessInstanceId();
   }
 
+  public String getMessageName() {
+    return messageName;
+  }
+
+  public String getBusinessKey() {
+    return businessKey;
+  }
+
   protected void triggerExecution(CommandContext commandContext, MessageCorrelationResult correlationResult) {
     new MessageEventReceivedCmd(messageName, correlationResult.getExecutionEntity().getId(), processVariables).execute(commandContext);
   }
 
-  protected void instantiateProcess(CommandContext commandContext, MessageCorrelationResult correlationResult) {
+  protected ExecutionEntity instantiateProcess(CommandContext commandContext, MessageCorrelationResult correlationResult) {
     ProcessDefinitionEntity processDefinitionEntity = correlationResult.getProcessDefinitionEntity();
     ActivityImpl messageStartEvent = processDefinitionEntity.findActivity(correlationResult.getStartEventActivityId());
     ExecutionEntity processInstance = processDefinitionEntity.createProcessInstance(businessKey, messageStartEvent);
     processInstance.start(processVariables);
+    return processInstance;
   }
 
 }
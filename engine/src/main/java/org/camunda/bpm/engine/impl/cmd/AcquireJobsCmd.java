@@ -14,10 +14,18 @@ package org.camunda.bpm.engine.impl.cmd;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.camunda.bpm.engine.impl.Page;
+import org.camunda.bpm.engine.impl.cfg.TransactionListener;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
 import org.camunda.bpm.engine.impl.context.Context;
 import org.camunda.bpm.engine.impl.db.DbEntity;
 import org.camunda.bpm.engine.impl.db.entitymanager.OptimisticLockingListener;
@@ -27,7 +35,12 @@ import org.camunda.bpm.engine.impl.interceptor.Command;
 import org.camunda.bpm.engine.impl.interceptor.CommandContext;
 import org.camunda.bpm.engine.impl.jobexecutor.AcquiredJobs;
 import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
+import org.camunda.bpm.engine.impl.jobexecutor.NonExclusiveJobBatch;
+import org.camunda.bpm.engine.impl.metrics.Metrics;
+import org.camunda.bpm.engine.impl.metrics.MetricsRegistry;
 import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.JobManager;
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
 import org.camunda.bpm.engine.impl.util.ClockUtil;
 
 
@@ -39,23 +52,82 @@ public class AcquireJobsCmd implements Command<AcquiredJobs>, OptimisticLockingL
 
   private final JobExecutor jobExecutor;
 
+  /** the number of jobs to acquire or null if it is determined on execution */
+  protected Integer numJobsToAcquire;
+
   protected AcquiredJobs acquiredJobs;
 
+  /** the job batches which can take more jobs, by job definition id */
+  protected Map<String, NonExclusiveJobBatch> openJobBatches;
+
   public AcquireJobsCmd(JobExecutor jobExecutor) {
     this.jobExecutor = jobExecutor;
   }
 
+  /**
+   * @param numJobsToAcquire the number of jobs to acquire, as determined by the
+   *   acquisition loop from the {@link JobExecutor#getNumberOfJobsToAcquire() free capacity}
+   */
+  public AcquireJobsCmd(JobExecutor jobExecutor, int numJobsToAcquire) {
+    this.jobExecutor = jobExecutor;
+    this.numJobsToAcquire = numJobsToAcquire;
+  }
+
   public AcquiredJobs execute(CommandContext commandContext) {
 
     String lockOwner = jobExecutor.getLockOwner();
     int lockTimeInMillis = jobExecutor.getLockTimeInMillis();
-    int maxNonExclusiveJobsPerAcquisition = jobExecutor.getMaxJobsPerAcquisition();
+    int maxNonExclusiveJobsPerAcquisition = numJobsToAcquire != null ? numJobsToAcquire : jobExecutor.getNumberOfJobsToAcquire();
+
+    boolean skipLocked = isSkipLockedAcquisition();
 
     acquiredJobs = new AcquiredJobs();
+    openJobBatches = new HashMap<String, NonExclusiveJobBatch>();
+    if (maxNonExclusiveJobsPerAcquisition == 0) {
+      // the job executor is saturated
+      return acquiredJobs;
+    }
+
     List<JobEntity> jobs = commandContext
       .getJobManager()
-      .findNextJobsToExecute(new Page(0, maxNonExclusiveJobsPerAcquisition));
+      .findNextJobsToExecute(new Page(0, maxNonExclusiveJobsPerAcquisition), skipLocked);
+
+    if (jobExecutor.isLockJobsInBulk()) {
+      acquireJobsInBulk(commandContext, jobs, lockOwner, lockTimeInMillis, skipLocked);
+    } else {
+      acquireJobs(commandContext, jobs, lockOwner, lockTimeInMillis, skipLocked);
+    }
+
+    // register an OptimisticLockingListener which is notified about jobs which cannot be acquired.
+    // the listener removes them from the list of acquired jobs.
+    Context.getCommandContext()
+      .getDbEntityManager()
+      .registerOptimisticLockingListener(this);
+
+    registerMetricsListener(commandContext);
+
+    return acquiredJobs;
+  }
+
+  /**
+   * The jobs which could not be locked are only known after the flush,
+   * so the acquisition is recorded once the transaction is committed.
+   */
+  protected void registerMetricsListener(CommandContext commandContext) {
+    final MetricsRegistry metricsRegistry = Context.getProcessEngineConfiguration().getMetricsRegistry();
+    if (metricsRegistry != null) {
+      final AcquiredJobs jobs = acquiredJobs;
+      commandContext.getTransactionContext().addTransactionListener(TransactionState.COMMITTED, new TransactionListener() {
+        public void execute(CommandContext commandContext) {
+          metricsRegistry.markOccurrence(Metrics.JOB_ACQUISITION_ATTEMPT);
+          metricsRegistry.markOccurrence(Metrics.JOB_ACQUIRED_SUCCESS, jobs.size());
+          metricsRegistry.markOccurrence(Metrics.JOB_ACQUIRED_FAILURE, jobs.getNumberOfJobsFailedToLock());
+        }
+      });
+    }
+  }
 
+  protected void acquireJobs(CommandContext commandContext, List<JobEntity> jobs, String lockOwner, int lockTimeInMillis, boolean skipLocked) {
     for (JobEntity job: jobs) {
       List<String> jobIds = new ArrayList<String>();
 
@@ -64,7 +136,7 @@ public class AcquireJobsCmd implements Command<AcquiredJobs>, OptimisticLockingL
           // acquire all exclusive jobs in the same process instance
           // (includes the current job)
           List<JobEntity> exclusiveJobs = commandContext.getJobManager()
-            .findExclusiveJobsToExecute(job.getProcessInstanceId());
+            .findExclusiveJobsToExecute(job.getProcessInstanceId(), skipLocked);
           for (JobEntity exclusiveJob : exclusiveJobs) {
             if(exclusiveJob != null) {
               lockJob(exclusiveJob, lockOwner, lockTimeInMillis);
@@ -73,6 +145,9 @@ public class AcquireJobsCmd implements Command<AcquiredJobs>, OptimisticLockingL
           }
         } else {
           lockJob(job, lockOwner, lockTimeInMillis);
+          if (addToJobBatch(job)) {
+            continue;
+          }
           jobIds.add(job.getId());
         }
 
@@ -81,21 +156,158 @@ public class AcquireJobsCmd implements Command<AcquiredJobs>, OptimisticLockingL
       acquiredJobs.addJobIdBatch(jobIds);
     }
 
-    // register an OptimisticLockingListener which is notified about jobs which cannot be acquired.
-    // the listener removes them from the list of acquired jobs.
-    Context.getCommandContext()
-      .getDbEntityManager()
-      .registerOptimisticLockingListener(this);
+    addOpenJobBatches();
+  }
 
-    return acquiredJobs;
+  /**
+   * Locks all jobs with a single set-based update. The exclusive jobs of all
+   * process instances are fetched with a single query as well.
+   */
+  protected void acquireJobsInBulk(CommandContext commandContext, List<JobEntity> jobs, String lockOwner, int lockTimeInMillis, boolean skipLocked) {
+    JobManager jobManager = commandContext.getJobManager();
+
+    Map<String, List<JobEntity>> exclusiveJobsByProcessInstance = new HashMap<String, List<JobEntity>>();
+    Set<String> processInstanceIds = new HashSet<String>();
+    for (JobEntity job : jobs) {
+      if (job != null && job.isExclusive() && job.getProcessInstanceId() != null) {
+        processInstanceIds.add(job.getProcessInstanceId());
+      }
+    }
+    if (!processInstanceIds.isEmpty()) {
+      for (JobEntity exclusiveJob : jobManager.findExclusiveJobsToExecute(processInstanceIds, skipLocked)) {
+        List<JobEntity> exclusiveJobs = exclusiveJobsByProcessInstance.get(exclusiveJob.getProcessInstanceId());
+        if (exclusiveJobs == null) {
+          exclusiveJobs = new ArrayList<JobEntity>();
+          exclusiveJobsByProcessInstance.put(exclusiveJob.getProcessInstanceId(), exclusiveJobs);
+        }
+        exclusiveJobs.add(exclusiveJob);
+      }
+    }
+
+    // build the batches like the per-job acquisition does
+    Map<String, JobEntity> jobsToLock = new LinkedHashMap<String, JobEntity>();
+    for (JobEntity job: jobs) {
+      List<String> jobIds = new ArrayList<String>();
+
+      if (job != null && !acquiredJobs.contains(job.getId())) {
+        if (job.isExclusive() && job.getProcessInstanceId() != null) {
+          List<JobEntity> exclusiveJobs = exclusiveJobsByProcessInstance.get(job.getProcessInstanceId());
+          if (exclusiveJobs != null) {
+            for (JobEntity exclusiveJob : exclusiveJobs) {
+              jobsToLock.put(exclusiveJob.getId(), exclusiveJob);
+              jobIds.add(exclusiveJob.getId());
+            }
+          }
+        } else {
+          jobsToLock.put(job.getId(), job);
+          if (addToJobBatch(job)) {
+            continue;
+          }
+          jobIds.add(job.getId());
+        }
+      }
+
+      acquiredJobs.addJobIdBatch(jobIds);
+    }
+
+    addOpenJobBatches();
+
+    if (!jobsToLock.isEmpty()) {
+      List<JobEntity> candidates = new ArrayList<JobEntity>(jobsToLock.values());
+      int numberOfLockedJobs = jobManager.lockJobs(candidates, lockOwner, getLockExpirationTime(lockTimeInMillis));
+
+      if (numberOfLockedJobs < candidates.size()) {
+        // some jobs have been modified concurrently (e.g. locked by another job executor):
+        // determine which jobs we were able to lock and remove all others
+        Set<String> lockedJobIds = new HashSet<String>(jobManager.findLockedJobIds(candidates, lockOwner));
+        for (JobEntity candidate : candidates) {
+          if (!lockedJobIds.contains(candidate.getId())) {
+            acquiredJobs.removeJobId(candidate.getId());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds the job to a batch of jobs of the same job definition which are
+   * executed in one transaction if the job definition declares a job batch size.
+   *
+   * @return true if the job was added to a batch
+   */
+  protected boolean addToJobBatch(JobEntity job) {
+    int jobBatchSize = getJobBatchSize(job);
+    if (jobBatchSize <= 1) {
+      return false;
+    }
+
+    String jobDefinitionId = job.getJobDefinitionId();
+    NonExclusiveJobBatch jobBatch = openJobBatches.get(jobDefinitionId);
+    if (jobBatch == null) {
+      jobBatch = new NonExclusiveJobBatch(jobBatchSize);
+      openJobBatches.put(jobDefinitionId, jobBatch);
+    }
+
+    jobBatch.add(job.getId());
+    if (jobBatch.isFull()) {
+      acquiredJobs.addJobIdBatch(jobBatch);
+      openJobBatches.remove(jobDefinitionId);
+    }
+
+    return true;
+  }
+
+  protected void addOpenJobBatches() {
+    for (NonExclusiveJobBatch jobBatch : openJobBatches.values()) {
+      acquiredJobs.addJobIdBatch(jobBatch);
+    }
+    openJobBatches.clear();
+  }
+
+  /**
+   * Only process definitions which are already cached are considered, the
+   * acquisition does not deploy process definitions to find the batch size.
+   *
+   * @return the maximum number of jobs which are executed in one transaction with the given job
+   */
+  protected int getJobBatchSize(JobEntity job) {
+    if (job.isExclusive() || job.getJobDefinitionId() == null || job.getProcessDefinitionId() == null) {
+      return 1;
+    }
+
+    ProcessDefinitionEntity processDefinition = Context.getProcessEngineConfiguration()
+      .getDeploymentCache()
+      .getProcessDefinitionCache()
+      .get(job.getProcessDefinitionId());
+
+    if (processDefinition != null) {
+      Integer jobBatchSize = processDefinition.getJobBatchSize(job.getJobDefinitionId());
+      if (jobBatchSize != null) {
+        return jobBatchSize;
+      }
+    }
+    return 1;
+  }
+
+  /**
+   * The skip locked strategy is only used if the database supports it,
+   * otherwise jobs are acquired optimistically.
+   */
+  protected boolean isSkipLockedAcquisition() {
+    return jobExecutor.isSkipLockedAcquisition()
+        && Context.getProcessEngineConfiguration().getDbSqlSessionFactory().isSkipLockedSupported();
   }
 
   protected void lockJob(JobEntity job, String lockOwner, int lockTimeInMillis) {
     job.setLockOwner(lockOwner);
+    job.setLockExpirationTime(getLockExpirationTime(lockTimeInMillis));
+  }
+
+  protected Date getLockExpirationTime(int lockTimeInMillis) {
     GregorianCalendar gregorianCalendar = new GregorianCalendar();
     gregorianCalendar.setTime(ClockUtil.getCurrentTime());
     gregorianCalendar.add(Calendar.MILLISECOND, lockTimeInMillis);
-    job.setLockExpirationTime(gregorianCalendar.getTime());
+    return gregorianCalendar.getTime();
   }
 
   public Class<? extends DbEntity> getEntityType() {
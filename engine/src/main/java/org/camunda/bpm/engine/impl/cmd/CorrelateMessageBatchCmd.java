@@ -0,0 +1,154 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.cmd;
+
+import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensureAtLeastOneNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.camunda.bpm.engine.MismatchingMessageCorrelationException;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.MessageCorrelationBatchResultImpl;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.db.entitymanager.DbEntityManager;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.persistence.entity.EventSubscriptionEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.ExecutionEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.MessageEventSubscriptionEntity;
+import org.camunda.bpm.engine.impl.runtime.CorrelationHandler;
+import org.camunda.bpm.engine.impl.runtime.CorrelationSet;
+import org.camunda.bpm.engine.impl.runtime.MessageCorrelationResult;
+import org.camunda.bpm.engine.runtime.MessageCorrelationBatchResult;
+
+/**
+ * Correlates a batch of messages in one command. The executions and process definitions
+ * matching the messages are looked up together by the {@link CorrelationHandler}.
+ *
+ * <p>If the batch is not all-or-nothing, a message which does not match is reported in its
+ * result. A message whose notification fails is reported by a {@link MessageCorrelationFailedException},
+ * which rolls back the command, so that it can be repeated without the failing message.</p>
+ */
+public class CorrelateMessageBatchCmd implements Command<List<MessageCorrelationBatchResult>> {
+
+  protected final List<CorrelateMessageCmd> messages;
+  protected final boolean allOrNothing;
+
+  public CorrelateMessageBatchCmd(List<CorrelateMessageCmd> messages, boolean allOrNothing) {
+    this.messages = messages;
+    this.allOrNothing = allOrNothing;
+  }
+
+  public List<MessageCorrelationBatchResult> execute(CommandContext commandContext) {
+    List<String> messageNames = new ArrayList<String>();
+    List<CorrelationSet> correlationSets = new ArrayList<CorrelationSet>();
+    for (CorrelateMessageCmd message : messages) {
+      ensureAtLeastOneNotNull("At least one of the following correlation criteria has to be present: "
+          + "messageName, businessKey, correlationKeys, processInstanceId", message.messageName, message.businessKey, message.correlationKeys, message.processInstanceId);
+      messageNames.add(message.messageName);
+      correlationSets.add(new CorrelationSet(message.businessKey, message.processInstanceId, message.correlationKeys));
+    }
+
+    CorrelationHandler correlationHandler = Context.getProcessEngineConfiguration().getCorrelationHandler();
+    List<List<MessageCorrelationResult>> correlationResults = correlationHandler.correlateMessageBatch(commandContext, messageNames, correlationSets);
+
+    List<MessageCorrelationBatchResult> results = new ArrayList<MessageCorrelationBatchResult>(messages.size());
+    for (int i = 0; i < messages.size(); i++) {
+      CorrelateMessageCmd message = messages.get(i);
+
+      MessageCorrelationResult correlationResult;
+      try {
+        correlationResult = message.selectCorrelationResult(removeStaleResults(commandContext, message, correlationResults.get(i)));
+      }
+      catch (MismatchingMessageCorrelationException e) {
+        if (allOrNothing) {
+          throw e;
+        }
+        results.add(MessageCorrelationBatchResultImpl.failed(message.messageName, message.businessKey, e));
+        continue;
+      }
+
+      try {
+        String processInstanceId = message.correlate(commandContext, correlationResult);
+        results.add(MessageCorrelationBatchResultImpl.correlated(message.messageName, message.businessKey, processInstanceId));
+      }
+      catch (RuntimeException e) {
+        if (allOrNothing) {
+          throw e;
+        }
+        throw new MessageCorrelationFailedException(i, e);
+      }
+    }
+
+    return results;
+  }
+
+  /**
+   * Removes the matched executions which were ended or lost their subscription to the
+   * message by the notification of a previous message of the batch, since the results
+   * of all messages are looked up before any message is correlated.
+   */
+  protected List<MessageCorrelationResult> removeStaleResults(CommandContext commandContext, CorrelateMessageCmd message,
+      List<MessageCorrelationResult> correlationResults) {
+    DbEntityManager dbEntityManager = commandContext.getDbEntityManager();
+
+    List<MessageCorrelationResult> validResults = new ArrayList<MessageCorrelationResult>(correlationResults.size());
+    for (MessageCorrelationResult correlationResult : correlationResults) {
+      if (MessageCorrelationResult.TYPE_EXECUTION.equals(correlationResult.getResultType())) {
+        ExecutionEntity execution = correlationResult.getExecutionEntity();
+        if (dbEntityManager.isDeleted(execution) || execution.isEnded()
+            || !hasMessageEventSubscription(dbEntityManager, execution, message.messageName)) {
+          continue;
+        }
+      }
+      validResults.add(correlationResult);
+    }
+    return validResults;
+  }
+
+  protected boolean hasMessageEventSubscription(DbEntityManager dbEntityManager, ExecutionEntity execution, String messageName) {
+    for (EventSubscriptionEntity eventSubscription : execution.getEventSubscriptions()) {
+      if (eventSubscription instanceof MessageEventSubscriptionEntity
+          && (messageName == null || messageName.equals(eventSubscription.getEventName()))
+          && !dbEntityManager.isDeleted(eventSubscription)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Signals that the notification of a message of the batch failed.
+   */
+  public static class MessageCorrelationFailedException extends ProcessEngineException {
+
+    private static final long serialVersionUID = 1L;
+
+    protected final int messageIndex;
+
+    public MessageCorrelationFailedException(int messageIndex, RuntimeException cause) {
+      super("Correlation of message " + messageIndex + " of the batch failed: " + cause.getMessage(), cause);
+      this.messageIndex = messageIndex;
+    }
+
+    /**
+     * @return the index of the failed message in the batch
+     */
+    public int getMessageIndex() {
+      return messageIndex;
+    }
+
+  }
+
+}
@@ -0,0 +1,78 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.cmd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.camunda.bpm.engine.impl.MessageCorrelationBatchResultImpl;
+import org.camunda.bpm.engine.impl.cmd.CorrelateMessageBatchCmd.MessageCorrelationFailedException;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.interceptor.CommandExecutor;
+import org.camunda.bpm.engine.runtime.MessageCorrelationBatchResult;
+
+/**
+ * Correlates a batch of messages which is not all-or-nothing. Each attempt runs a
+ * {@link CorrelateMessageBatchCmd} in a new transaction. If the notification of a
+ * message fails, the attempt is rolled back and repeated without the failed message.
+ *
+ * <p>The attempts must not join a surrounding transaction, since the first failure
+ * would mark it for rollback and the repeated attempt could not commit.</p>
+ */
+public class CorrelateMessageBatchInNewTransactionsCmd implements Command<List<MessageCorrelationBatchResult>> {
+
+  protected final List<CorrelateMessageCmd> messages;
+
+  public CorrelateMessageBatchInNewTransactionsCmd(List<CorrelateMessageCmd> messages) {
+    this.messages = messages;
+  }
+
+  public List<MessageCorrelationBatchResult> execute(CommandContext commandContext) {
+    CommandExecutor commandExecutor = Context.getProcessEngineConfiguration().getCommandExecutorTxRequiresNew();
+
+    MessageCorrelationBatchResult[] results = new MessageCorrelationBatchResult[messages.size()];
+
+    // the indexes of the messages which are correlated by the next attempt
+    List<Integer> pendingMessages = new ArrayList<Integer>();
+    for (int i = 0; i < messages.size(); i++) {
+      pendingMessages.add(i);
+    }
+
+    while (!pendingMessages.isEmpty()) {
+      List<CorrelateMessageCmd> batch = new ArrayList<CorrelateMessageCmd>();
+      for (int index : pendingMessages) {
+        batch.add(messages.get(index));
+      }
+
+      try {
+        List<MessageCorrelationBatchResult> batchResults = commandExecutor.execute(new CorrelateMessageBatchCmd(batch, false));
+        for (int i = 0; i < batchResults.size(); i++) {
+          results[pendingMessages.get(i)] = batchResults.get(i);
+        }
+        pendingMessages.clear();
+      }
+      catch (MessageCorrelationFailedException e) {
+        // the attempt was rolled back, repeat it without the failed message
+        int index = pendingMessages.remove(e.getMessageIndex());
+        CorrelateMessageCmd message = messages.get(index);
+        results[index] = MessageCorrelationBatchResultImpl.failed(message.getMessageName(), message.getBusinessKey(), (Exception) e.getCause());
+      }
+    }
+
+    return Arrays.asList(results);
+  }
+
+}
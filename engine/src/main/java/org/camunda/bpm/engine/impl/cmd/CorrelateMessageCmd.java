@@ -13,6 +13,8 @@
 
 package org.camunda.bpm.engine.impl.cmd;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.camunda.bpm.engine.MismatchingMessageCorrelationException;
@@ -57,14 +59,57 @@ public class CorrelateMessageCmd extends AbstractCorrelateMessageCmd {
 
     if (correlationResult == null) {
       throw new MismatchingMessageCorrelationException(messageName, "No process definition or execution matches the parameters");
+    }
+
+    correlate(commandContext, correlationResult);
+
+    return null;
+  }
+
+  /**
+   * Selects the correlation of the message from the executions and the process definition that match it.
+   *
+   * @throws MismatchingMessageCorrelationException if more than one execution or neither an execution
+   *   nor a process definition matches the message
+   */
+  protected MessageCorrelationResult selectCorrelationResult(List<MessageCorrelationResult> correlationResults) {
+    List<MessageCorrelationResult> executionCorrelations = new ArrayList<MessageCorrelationResult>();
+    MessageCorrelationResult processDefinitionCorrelation = null;
+    for (MessageCorrelationResult correlationResult : correlationResults) {
+      if (MessageCorrelationResult.TYPE_EXECUTION.equals(correlationResult.getResultType())) {
+        executionCorrelations.add(correlationResult);
+      } else {
+        processDefinitionCorrelation = correlationResult;
+      }
+    }
+
+    if (executionCorrelations.size() > 1) {
+      throw new MismatchingMessageCorrelationException(messageName, businessKey, correlationKeys,
+          String.valueOf(executionCorrelations.size()) + " executions match the correlation keys. Should be one or zero.");
+    }
+    else if (!executionCorrelations.isEmpty()) {
+      return executionCorrelations.get(0);
+    }
+    else if (processDefinitionCorrelation != null) {
+      return processDefinitionCorrelation;
+    }
+    else {
+      throw new MismatchingMessageCorrelationException(messageName, "No process definition or execution matches the parameters");
+    }
+  }
 
-    } else if (MessageCorrelationResult.TYPE_EXECUTION.equals(correlationResult.getResultType())) {
+  /**
+   * Notifies the matched execution or starts a process instance of the matched process definition.
+   *
+   * @return the id of the process instance the message was correlated to
+   */
+  protected String correlate(CommandContext commandContext, MessageCorrelationResult correlationResult) {
+    if (MessageCorrelationResult.TYPE_EXECUTION.equals(correlationResult.getResultType())) {
       triggerExecution(commandContext, correlationResult);
+      return correlationResult.getExecutionEntity().getProcessInstanceId();
 
     } else {
-      instantiateProcess(commandContext, correlationResult);
+      return instantiateProcess(commandContext, correlationResult).getProcessInstanceId();
     }
-
-    return null;
   }
 }
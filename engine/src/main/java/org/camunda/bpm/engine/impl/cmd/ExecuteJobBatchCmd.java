@@ -0,0 +1,99 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.cmd;
+
+import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensureNotEmpty;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutorContext;
+import org.camunda.bpm.engine.impl.metrics.Metrics;
+import org.camunda.bpm.engine.impl.metrics.MetricsRegistry;
+import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
+
+/**
+ * <p>Executes several jobs in one transaction.</p>
+ *
+ * <p>Contrary to the {@link ExecuteJobsCmd}, a failure is not recorded in the
+ * failing job: the whole transaction is rolled back and the caller is expected
+ * to execute the jobs again one by one.</p>
+ */
+public class ExecuteJobBatchCmd implements Command<Void>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static Logger log = Logger.getLogger(ExecuteJobBatchCmd.class.getName());
+
+  protected List<String> jobIds;
+
+  public ExecuteJobBatchCmd(List<String> jobIds) {
+    this.jobIds = jobIds;
+  }
+
+  public Void execute(CommandContext commandContext) {
+    ensureNotEmpty("jobIds", jobIds);
+
+    if (log.isLoggable(Level.FINE)) {
+      log.fine("Executing jobs " + jobIds + " in one transaction");
+    }
+
+    final JobExecutorContext jobExecutorContext = Context.getJobExecutorContext();
+
+    for (String jobId : jobIds) {
+      JobEntity job = commandContext.getDbEntityManager().selectById(JobEntity.class, jobId);
+
+      if (job == null) {
+        // the job has been deleted after it was acquired (see ExecuteJobsCmd)
+        log.log(Level.FINE, "Job with Id " + jobId + " was acquired but cannot be found in database.");
+        continue;
+      }
+
+      if (jobExecutorContext != null && job.isLockExpired()) {
+        log.warning("Lock of job " + jobId + " expired before its execution, the job is not executed.");
+        markLockExpired();
+        continue;
+      }
+
+      job.setExecuting(true);
+
+      if (jobExecutorContext != null) {
+        jobExecutorContext.setCurrentJob(job);
+      }
+
+      try {
+        job.execute(commandContext);
+
+      } finally {
+        if (jobExecutorContext != null) {
+          jobExecutorContext.setCurrentJob(null);
+        }
+      }
+    }
+
+    return null;
+  }
+
+  protected void markLockExpired() {
+    MetricsRegistry metricsRegistry = Context.getProcessEngineConfiguration().getMetricsRegistry();
+    if (metricsRegistry != null) {
+      metricsRegistry.markOccurrence(Metrics.JOB_LOCK_EXPIRED);
+    }
+  }
+
+}
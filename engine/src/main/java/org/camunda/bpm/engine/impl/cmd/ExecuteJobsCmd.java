@@ -26,6 +26,8 @@ import org.camunda.bpm.engine.impl.interceptor.CommandContext;
 import org.camunda.bpm.engine.impl.interceptor.CommandExecutor;
 import org.camunda.bpm.engine.impl.jobexecutor.FailedJobListener;
 import org.camunda.bpm.engine.impl.jobexecutor.JobExecutorContext;
+import org.camunda.bpm.engine.impl.metrics.Metrics;
+import org.camunda.bpm.engine.impl.metrics.MetricsRegistry;
 import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
 
 /**
@@ -72,6 +74,13 @@ public class ExecuteJobsCmd implements Command<Object>, Serializable {
 
     }
 
+    if (jobExecutorContext != null && job.isLockExpired()) {
+      // the job may already have been acquired by another job executor
+      log.warning("Lock of job " + jobId + " expired before its execution, the job is not executed.");
+      markLockExpired();
+      return null;
+    }
+
     // set the given job to executing
     job.setExecuting(true);
 
@@ -111,6 +120,13 @@ public class ExecuteJobsCmd implements Command<Object>, Serializable {
 
   }
 
+  protected void markLockExpired() {
+    MetricsRegistry metricsRegistry = Context.getProcessEngineConfiguration().getMetricsRegistry();
+    if (metricsRegistry != null) {
+      metricsRegistry.markOccurrence(Metrics.JOB_LOCK_EXPIRED);
+    }
+  }
+
   protected FailedJobListener createFailedJobListener(CommandExecutor commandExecutor) {
     return new FailedJobListener(commandExecutor, jobId);
   }
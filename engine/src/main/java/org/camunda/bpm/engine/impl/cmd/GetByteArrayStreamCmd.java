@@ -0,0 +1,103 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.cmd;
+
+import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensureNotNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.util.IoUtil;
+
+/**
+ * Copies the content of a byte array to a temporary file and returns a stream
+ * on the file which deletes it when the stream is closed. The returned stream
+ * can be read after the command has finished without holding the content in memory.
+ */
+public class GetByteArrayStreamCmd implements Command<InputStream> {
+
+  protected static final int BUFFER_SIZE = 8192;
+
+  protected String byteArrayId;
+
+  public GetByteArrayStreamCmd(String byteArrayId) {
+    this.byteArrayId = byteArrayId;
+  }
+
+  public InputStream execute(CommandContext commandContext) {
+    ensureNotNull("byteArrayId", byteArrayId);
+
+    InputStream content = commandContext.getByteArrayManager().openByteArrayStream(byteArrayId);
+    File file = null;
+    OutputStream out = null;
+    try {
+      file = File.createTempFile("camunda-byte-array-", ".tmp");
+      out = new FileOutputStream(file);
+
+      byte[] buffer = new byte[BUFFER_SIZE];
+      int read;
+      while ((read = content.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      out.close();
+      out = null;
+
+      return new TemporaryFileInputStream(file);
+
+    } catch (IOException e) {
+      if (file != null) {
+        file.delete();
+      }
+      throw new ProcessEngineException("Cannot copy the content of byte array " + byteArrayId + " to a temporary file: " + e.getMessage(), e);
+
+    } finally {
+      IoUtil.closeSilently(out);
+      IoUtil.closeSilently(content);
+    }
+  }
+
+  /**
+   * Reads a temporary file and deletes it when it is closed.
+   */
+  public static class TemporaryFileInputStream extends FileInputStream {
+
+    protected File file;
+
+    public TemporaryFileInputStream(File file) throws FileNotFoundException {
+      super(file);
+      this.file = file;
+    }
+
+    public File getFile() {
+      return file;
+    }
+
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        file.delete();
+      }
+    }
+
+  }
+
+}
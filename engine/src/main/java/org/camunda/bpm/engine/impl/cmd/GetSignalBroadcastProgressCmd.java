@@ -0,0 +1,44 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.cmd;
+
+import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensureNotNull;
+
+import java.util.List;
+
+import org.camunda.bpm.engine.impl.SignalBroadcastProgressImpl;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.jobexecutor.SignalBroadcastJobHandler;
+import org.camunda.bpm.engine.impl.jobexecutor.SignalBroadcastJobHandler.SignalBroadcastConfiguration;
+import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
+import org.camunda.bpm.engine.runtime.SignalBroadcastProgress;
+
+public class GetSignalBroadcastProgressCmd implements Command<SignalBroadcastProgress> {
+
+  protected final String broadcastId;
+
+  public GetSignalBroadcastProgressCmd(String broadcastId) {
+    this.broadcastId = broadcastId;
+  }
+
+  public SignalBroadcastProgress execute(CommandContext commandContext) {
+    ensureNotNull("broadcastId", broadcastId);
+
+    List<JobEntity> remainingJobs = commandContext.getJobManager()
+      .findJobsByConfigurationPrefix(SignalBroadcastJobHandler.TYPE, SignalBroadcastConfiguration.getPrefix(broadcastId));
+
+    return new SignalBroadcastProgressImpl(broadcastId, remainingJobs);
+  }
+
+}
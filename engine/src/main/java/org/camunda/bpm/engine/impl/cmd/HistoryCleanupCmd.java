@@ -0,0 +1,82 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.cmd;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.jobexecutor.HistoryCleanupJobHandler;
+import org.camunda.bpm.engine.impl.jobexecutor.HistoryCleanupJobHandler.BatchWindow;
+import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
+import org.camunda.bpm.engine.runtime.Job;
+
+/**
+ * Schedules the history cleanup job. If the job already exists, it is reused.
+ * The command holds an exclusive lock on the property <code>historyCleanupJob.lock</code>
+ * until the transaction ends, so that at most one history cleanup job is created.
+ */
+public class HistoryCleanupCmd implements Command<Job>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  protected boolean immediatelyDue;
+
+  public HistoryCleanupCmd(boolean immediatelyDue) {
+    this.immediatelyDue = immediatelyDue;
+  }
+
+  public Job execute(CommandContext commandContext) {
+    ProcessEngineConfigurationImpl processEngineConfiguration = Context.getProcessEngineConfiguration();
+    BatchWindow batchWindow = BatchWindow.parse(processEngineConfiguration.getHistoryCleanupBatchWindowStartTime(),
+        processEngineConfiguration.getHistoryCleanupBatchWindowEndTime());
+
+    if (!immediatelyDue && batchWindow == null) {
+      throw new ProcessEngineException("Cannot schedule the history cleanup: no batch window is configured "
+          + "and the history cleanup is not immediately due");
+    }
+
+    // serialize the scheduling so that concurrently starting engines of a cluster
+    // do not both create a history cleanup job
+    commandContext.getPropertyManager().acquireHistoryCleanupJobLock();
+
+    Date now = ClockUtil.getCurrentTime();
+    List<JobEntity> jobs = commandContext.getJobManager().findJobsByHandlerType(HistoryCleanupJobHandler.TYPE);
+
+    if (jobs.isEmpty()) {
+      if (immediatelyDue) {
+        return HistoryCleanupJobHandler.scheduleJob(now, HistoryCleanupJobHandler.CONFIGURATION_IMMEDIATELY_DUE, commandContext);
+      }
+      else {
+        return HistoryCleanupJobHandler.scheduleJob(batchWindow.getNextStart(now), HistoryCleanupJobHandler.CONFIGURATION_SCHEDULED, commandContext);
+      }
+    }
+
+    JobEntity job = jobs.get(0);
+    if (immediatelyDue) {
+      job.setJobHandlerConfiguration(HistoryCleanupJobHandler.CONFIGURATION_IMMEDIATELY_DUE);
+      job.setDuedate(now);
+    }
+    if (job.getRetries() == 0) {
+      job.setRetries(JobEntity.DEFAULT_RETRIES);
+    }
+    return job;
+  }
+
+}
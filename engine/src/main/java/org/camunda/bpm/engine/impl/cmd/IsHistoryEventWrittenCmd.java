@@ -0,0 +1,39 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.cmd;
+
+import org.camunda.bpm.engine.impl.history.event.HistoryEvent;
+import org.camunda.bpm.engine.impl.history.handler.DbHistoryEventHandler;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+
+/**
+ * Checks whether a history event replayed by the
+ * {@link org.camunda.bpm.engine.impl.history.handler.AsyncHistoryEventHandler}
+ * was written before.
+ */
+public class IsHistoryEventWrittenCmd implements Command<Boolean> {
+
+  protected DbHistoryEventHandler historyEventHandler;
+  protected HistoryEvent historyEvent;
+
+  public IsHistoryEventWrittenCmd(DbHistoryEventHandler historyEventHandler, HistoryEvent historyEvent) {
+    this.historyEventHandler = historyEventHandler;
+    this.historyEvent = historyEvent;
+  }
+
+  public Boolean execute(CommandContext commandContext) {
+    return historyEventHandler.isWritten(historyEvent);
+  }
+
+}
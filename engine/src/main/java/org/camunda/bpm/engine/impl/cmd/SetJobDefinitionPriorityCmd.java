@@ -0,0 +1,65 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.cmd;
+
+import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensureNotNull;
+
+import java.io.Serializable;
+
+import org.camunda.bpm.engine.history.UserOperationLogEntry;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.persistence.entity.JobDefinitionEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.PropertyChange;
+
+/**
+ * Sets (or clears) the priority that overrides the declared priority of all jobs
+ * created from a job definition.
+ */
+public class SetJobDefinitionPriorityCmd implements Command<Void>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final String JOB_DEFINITION_OVERRIDING_PRIORITY = "overridingPriority";
+
+  protected String jobDefinitionId;
+  protected Long priority;
+  protected boolean cascade = false;
+
+  public SetJobDefinitionPriorityCmd(String jobDefinitionId, Long priority, boolean cascade) {
+    this.jobDefinitionId = jobDefinitionId;
+    this.priority = priority;
+    this.cascade = cascade;
+  }
+
+  public Void execute(CommandContext commandContext) {
+    ensureNotNull("jobDefinitionId", jobDefinitionId);
+
+    JobDefinitionEntity jobDefinition = commandContext.getJobDefinitionManager().findById(jobDefinitionId);
+    ensureNotNull("Job definition with id '" + jobDefinitionId + "' does not exist", "jobDefinition", jobDefinition);
+
+    Long currentPriority = jobDefinition.getOverridingJobPriority();
+    jobDefinition.setOverridingJobPriority(priority);
+
+    if (cascade && priority != null) {
+      commandContext.getJobManager().updateJobPriorityByDefinitionId(jobDefinitionId, priority);
+    }
+
+    PropertyChange propertyChange = new PropertyChange(JOB_DEFINITION_OVERRIDING_PRIORITY, currentPriority, priority);
+    commandContext.getOperationLogManager().logJobDefinitionOperation(UserOperationLogEntry.OPERATION_TYPE_SET_PRIORITY,
+        jobDefinitionId, jobDefinition.getProcessDefinitionId(), jobDefinition.getProcessDefinitionKey(), propertyChange);
+
+    return null;
+  }
+
+}
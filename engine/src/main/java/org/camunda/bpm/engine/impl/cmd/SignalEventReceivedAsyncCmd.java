@@ -0,0 +1,48 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.cmd;
+
+import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensureNotNull;
+
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.jobexecutor.SignalBroadcastJobHandler;
+import org.camunda.bpm.engine.impl.jobexecutor.SignalBroadcastJobHandler.SignalBroadcastConfiguration;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
+
+/**
+ * Starts an asynchronous broadcast of a signal by creating the job which splits
+ * the delivery into chunks.
+ *
+ * @see SignalBroadcastJobHandler
+ */
+public class SignalEventReceivedAsyncCmd implements Command<String> {
+
+  protected final String eventName;
+
+  public SignalEventReceivedAsyncCmd(String eventName) {
+    this.eventName = eventName;
+  }
+
+  public String execute(CommandContext commandContext) {
+    ensureNotNull("eventName", eventName);
+
+    String broadcastId = Context.getProcessEngineConfiguration().getIdGenerator().getNextId();
+    SignalBroadcastConfiguration broadcast = new SignalBroadcastConfiguration(broadcastId, ClockUtil.getCurrentTime(), eventName);
+    SignalBroadcastJobHandler.sendJob(broadcast, commandContext);
+
+    return broadcastId;
+  }
+
+}
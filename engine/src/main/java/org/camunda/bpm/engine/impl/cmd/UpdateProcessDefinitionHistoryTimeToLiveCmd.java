@@ -0,0 +1,63 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.cmd;
+
+import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensureNotNull;
+
+import java.io.Serializable;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+
+/**
+ * Sets the history time to live of a process definition and updates
+ * the process definition in the deployment cache.
+ */
+public class UpdateProcessDefinitionHistoryTimeToLiveCmd implements Command<Void>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  protected String processDefinitionId;
+  protected Integer historyTimeToLive;
+
+  public UpdateProcessDefinitionHistoryTimeToLiveCmd(String processDefinitionId, Integer historyTimeToLive) {
+    ensureNotNull("processDefinitionId", processDefinitionId);
+    if (historyTimeToLive != null && historyTimeToLive < 0) {
+      throw new ProcessEngineException("historyTimeToLive must not be negative");
+    }
+    this.processDefinitionId = processDefinitionId;
+    this.historyTimeToLive = historyTimeToLive;
+  }
+
+  public Void execute(CommandContext commandContext) {
+    ProcessDefinitionEntity processDefinition = commandContext
+      .getProcessDefinitionManager()
+      .findLatestProcessDefinitionById(processDefinitionId);
+
+    ensureNotNull("Cannot find process definition with id " + processDefinitionId, "processDefinition", processDefinition);
+
+    processDefinition.setHistoryTimeToLive(historyTimeToLive);
+
+    // update the cached process definition
+    Context
+      .getProcessEngineConfiguration()
+      .getDeploymentCache()
+      .findDeployedProcessDefinitionById(processDefinitionId);
+
+    return null;
+  }
+
+}
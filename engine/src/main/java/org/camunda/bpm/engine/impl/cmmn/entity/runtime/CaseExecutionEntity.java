@@ -16,6 +16,7 @@ import static org.camunda.bpm.engine.impl.cmmn.handler.ItemHandler.PROPERTY_ACTI
 import static org.camunda.bpm.engine.impl.cmmn.handler.ItemHandler.PROPERTY_ACTIVITY_TYPE;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -644,6 +645,13 @@ public class CaseExecutionEntity extends CmmnExecution implements CaseExecution,
         .findVariableInstancesByCaseExecutionId(id);
   }
 
+  protected List<VariableInstanceEntity> loadVariableInstances(Collection<String> variableNames) {
+    return Context
+        .getCommandContext()
+        .getVariableInstanceManager()
+        .findVariableInstancesByCaseExecutionIdAndVariableNames(id, variableNames);
+  }
+
   // toString /////////////////////////////////////////////////////////////
 
   public String toString() {
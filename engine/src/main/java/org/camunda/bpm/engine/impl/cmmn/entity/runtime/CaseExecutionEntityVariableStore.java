@@ -12,6 +12,7 @@
  */
 package org.camunda.bpm.engine.impl.cmmn.entity.runtime;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.camunda.bpm.engine.impl.persistence.entity.VariableInstanceEntity;
@@ -35,6 +36,10 @@ public class CaseExecutionEntityVariableStore extends AbstractPersistentVariable
     return caseExecutionEntity.loadVariableInstances();
   }
 
+  protected List<VariableInstanceEntity> loadVariableInstances(Collection<String> variableNames) {
+    return caseExecutionEntity.loadVariableInstances(variableNames);
+  }
+
   protected void initializeVariableInstanceBackPointer(VariableInstanceEntity variableInstance) {
     caseExecutionEntity.initializeVariableInstanceBackPointer(variableInstance);
   }
@@ -83,10 +83,44 @@ public abstract class AbstractVariableScope implements Serializable, VariableSco
     return variables;
   }
 
+  /**
+   * Returns the variables with the given names which are visible from this scope.
+   * Only the requested variables are fetched from the database.
+   */
+  public VariableMapImpl getVariablesTyped(Collection<String> variableNames, boolean deserializeValues) {
+    VariableMapImpl variableMap = new VariableMapImpl();
+    collectVariables(variableMap, variableNames, false, deserializeValues);
+    return variableMap;
+  }
+
+  /**
+   * Returns the local variables with the given names.
+   * Only the requested variables are fetched from the database.
+   */
+  public VariableMapImpl getVariablesLocalTyped(Collection<String> variableNames, boolean deserializeValues) {
+    VariableMapImpl variableMap = new VariableMapImpl();
+    collectVariables(variableMap, variableNames, true, deserializeValues);
+    return variableMap;
+  }
+
   public void collectVariables(VariableMapImpl resultVariables, Collection<String> variableNames, boolean isLocal, boolean deserializeValues) {
     boolean collectAll = (variableNames == null);
 
-    Map<String, CoreVariableInstance> localVariables = getVariableInstancesLocal();
+    Map<String, CoreVariableInstance> localVariables = null;
+    if (collectAll) {
+      localVariables = getVariableInstancesLocal();
+    }
+    else {
+      // only fetch the variables which have not been collected yet
+      List<String> missingVariableNames = new ArrayList<String>();
+      for (String variableName : variableNames) {
+        if (!resultVariables.containsKey(variableName)) {
+          missingVariableNames.add(variableName);
+        }
+      }
+      localVariables = getVariableInstancesLocal(missingVariableNames);
+    }
+
     for (Entry<String, CoreVariableInstance> var : localVariables.entrySet()) {
       if(!resultVariables.containsKey(var.getKey())
          && (collectAll || variableNames.contains(var.getKey()))) {
@@ -176,6 +210,10 @@ public abstract class AbstractVariableScope implements Serializable, VariableSco
     return getVariableStore().getVariableInstances();
   }
 
+  public Map<String, CoreVariableInstance> getVariableInstancesLocal(Collection<String> variableNames) {
+    return getVariableStore().getVariableInstances(variableNames);
+  }
+
   public boolean hasVariables() {
     if (!getVariableStore().isEmpty()) {
       return true;
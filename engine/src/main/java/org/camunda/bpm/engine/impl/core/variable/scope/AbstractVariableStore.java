@@ -12,6 +12,10 @@
  */
 package org.camunda.bpm.engine.impl.core.variable.scope;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.camunda.bpm.engine.impl.core.variable.CoreVariableInstance;
 import org.camunda.bpm.engine.variable.value.TypedValue;
 
@@ -22,6 +26,17 @@ import org.camunda.bpm.engine.variable.value.TypedValue;
  */
 public abstract class AbstractVariableStore implements CoreVariableStore {
 
+  public Map<String, CoreVariableInstance> getVariableInstances(Collection<String> variableNames) {
+    Map<String, CoreVariableInstance> variableInstances = new HashMap<String, CoreVariableInstance>();
+    for (String variableName : variableNames) {
+      CoreVariableInstance variableInstance = getVariableInstance(variableName);
+      if (variableInstance != null) {
+        variableInstances.put(variableName, variableInstance);
+      }
+    }
+    return variableInstances;
+  }
+
   public void createOrUpdateVariable(String variableName, TypedValue value, AbstractVariableScope sourceActivityExecution) {
     CoreVariableInstance variableInstance = getVariableInstance(variableName);
 
@@ -30,6 +30,11 @@ public interface CoreVariableStore {
 
   CoreVariableInstance getVariableInstance(String variableName);
 
+  /**
+   * @return the variable instances with the given names, variables which do not exist are not contained
+   */
+  Map<String, CoreVariableInstance> getVariableInstances(Collection<String> variableNames);
+
   Set<String> getVariableNames();
 
   boolean isEmpty();
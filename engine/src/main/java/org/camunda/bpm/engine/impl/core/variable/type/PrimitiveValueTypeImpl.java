@@ -12,6 +12,7 @@
  */
 package org.camunda.bpm.engine.impl.core.variable.type;
 
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Map;
@@ -29,6 +30,7 @@ import org.camunda.bpm.engine.variable.value.IntegerValue;
 import org.camunda.bpm.engine.variable.value.LongValue;
 import org.camunda.bpm.engine.variable.value.NumberValue;
 import org.camunda.bpm.engine.variable.value.ShortValue;
+import org.camunda.bpm.engine.variable.value.StreamValue;
 import org.camunda.bpm.engine.variable.value.StringValue;
 import org.camunda.bpm.engine.variable.value.TypedValue;
 
@@ -99,6 +101,20 @@ public abstract class PrimitiveValueTypeImpl extends AbstractValueTypeImpl imple
 
   }
 
+  public static class StreamTypeImpl extends PrimitiveValueTypeImpl {
+
+    private static final long serialVersionUID = 1L;
+
+    public StreamTypeImpl() {
+      super("stream", InputStream.class);
+    }
+
+    public StreamValue createValue(Object value, Map<String, Object> valueInfo) {
+      return Variables.streamValue((InputStream) value);
+    }
+
+  }
+
   public static class DateTypeImpl extends PrimitiveValueTypeImpl {
 
     private static final long serialVersionUID = 1L;
@@ -35,6 +35,12 @@ public class AuthorizationCheck implements Serializable {
    */
   protected boolean isAuthorizationCheckEnabled = false;
 
+  /**
+   * If true the permissions are checked against the effective permissions of
+   * the user instead of the authorizations of the user and its groups.
+   */
+  protected boolean isEffectivePermissionCheckEnabled = false;
+
   /** the id of the user to check permissions for */
   protected String authUserId;
 
@@ -57,6 +63,14 @@ public class AuthorizationCheck implements Serializable {
     this.isAuthorizationCheckEnabled = isAuthorizationCheckPerformed;
   }
 
+  public boolean isEffectivePermissionCheckEnabled() {
+    return isEffectivePermissionCheckEnabled;
+  }
+
+  public void setEffectivePermissionCheckEnabled(boolean isEffectivePermissionCheckEnabled) {
+    this.isEffectivePermissionCheckEnabled = isEffectivePermissionCheckEnabled;
+  }
+
   public String getAuthUserId() {
     return authUserId;
   }
@@ -0,0 +1,194 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.db;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.camunda.bpm.engine.impl.persistence.deploy.ConcurrentLruCache;
+
+/**
+ * <p>Caches the results of the authorization checks performed by the
+ * {@link org.camunda.bpm.engine.impl.persistence.entity.AuthorizationManager}.
+ * A decision is cached for a user, the groups of the user and the checked
+ * permissions on resources.</p>
+ *
+ * <p>The cache is cleared whenever authorizations are written by this process
+ * engine; if only the authorizations of a resource are deleted, only the decisions
+ * on the resource are removed. Authorizations written by other process engines of a cluster are
+ * only taken into account once the cached decisions expire, so the time to
+ * live bounds how long a decision may be outdated.</p>
+ */
+public class AuthorizationDecisionCache {
+
+  public static final int DEFAULT_CAPACITY = 1000;
+  public static final long DEFAULT_TIME_TO_LIVE = 10000;
+
+  protected ConcurrentLruCache<DecisionKey, Decision> decisions;
+  /** the time in milliseconds a decision is cached, or a negative value if decisions do not expire */
+  protected long timeToLive;
+
+  public AuthorizationDecisionCache() {
+    this(DEFAULT_CAPACITY, DEFAULT_TIME_TO_LIVE);
+  }
+
+  public AuthorizationDecisionCache(int capacity, long timeToLive) {
+    this.decisions = new ConcurrentLruCache<DecisionKey, Decision>(capacity);
+    this.timeToLive = timeToLive;
+  }
+
+  /**
+   * @return the cached decision or null if no valid decision is cached
+   */
+  public Boolean getDecision(String userId, List<String> groupIds, List<PermissionCheck> permissionChecks) {
+    DecisionKey key = new DecisionKey(userId, groupIds, permissionChecks);
+    Decision decision = decisions.get(key);
+
+    if (decision == null) {
+      return null;
+    }
+    else if (decision.isExpired()) {
+      decisions.remove(key);
+      return null;
+    }
+    else {
+      return decision.authorized;
+    }
+  }
+
+  public void putDecision(String userId, List<String> groupIds, List<PermissionCheck> permissionChecks, boolean authorized) {
+    long expirationTime = timeToLive < 0 ? Long.MAX_VALUE : System.currentTimeMillis() + timeToLive;
+    decisions.put(new DecisionKey(userId, groupIds, permissionChecks), new Decision(authorized, expirationTime));
+  }
+
+  /**
+   * Removes all cached decisions. Invoked when authorizations are created,
+   * updated or deleted.
+   */
+  public void clear() {
+    decisions.clear();
+  }
+
+  /**
+   * Removes the cached decisions which check permissions on the resource. Invoked
+   * when the authorizations of a single resource are deleted.
+   */
+  public void clear(int resourceType, String resourceId) {
+    for (DecisionKey key : decisions.keySet()) {
+      if (key.checksResource(resourceType, resourceId)) {
+        decisions.remove(key);
+      }
+    }
+  }
+
+  /**
+   * @return the number of cached decisions
+   */
+  public int size() {
+    return decisions.size();
+  }
+
+  /**
+   * @return the number of checks which were answered by a cached decision
+   */
+  public long getHitCount() {
+    return decisions.getHitCount();
+  }
+
+  public int getCapacity() {
+    return decisions.getCapacity();
+  }
+
+  public long getTimeToLive() {
+    return timeToLive;
+  }
+
+  /**
+   * Identifies a decision by the user, the (unordered) groups and the checked
+   * permissions on resources.
+   */
+  public static class DecisionKey {
+
+    protected final String userId;
+    protected final HashSet<String> groupIds;
+    protected final List<Object> permissionChecks;
+
+    public DecisionKey(String userId, List<String> groupIds, List<PermissionCheck> permissionChecks) {
+      this.userId = userId;
+      this.groupIds = groupIds != null ? new HashSet<String>(groupIds) : new HashSet<String>();
+
+      this.permissionChecks = new ArrayList<Object>();
+      for (PermissionCheck permissionCheck : permissionChecks) {
+        this.permissionChecks.add(permissionCheck.getPermission().getValue());
+        this.permissionChecks.add(permissionCheck.getResource().resourceType());
+        this.permissionChecks.add(permissionCheck.getResourceId());
+      }
+    }
+
+    public boolean checksResource(int resourceType, String resourceId) {
+      for (int i = 0; i < permissionChecks.size(); i += 3) {
+        if (permissionChecks.get(i + 1).equals(resourceType) && resourceId.equals(permissionChecks.get(i + 2))) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    public int hashCode() {
+      final int prime = 31;
+      int result = 1;
+      result = prime * result + ((userId == null) ? 0 : userId.hashCode());
+      result = prime * result + groupIds.hashCode();
+      result = prime * result + permissionChecks.hashCode();
+      return result;
+    }
+
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      DecisionKey other = (DecisionKey) obj;
+      if (userId == null) {
+        if (other.userId != null) {
+          return false;
+        }
+      }
+      else if (!userId.equals(other.userId)) {
+        return false;
+      }
+      return groupIds.equals(other.groupIds) && permissionChecks.equals(other.permissionChecks);
+    }
+
+  }
+
+  protected static class Decision {
+
+    protected final boolean authorized;
+    protected final long expirationTime;
+
+    public Decision(boolean authorized, long expirationTime) {
+      this.authorized = authorized;
+      this.expirationTime = expirationTime;
+    }
+
+    public boolean isExpired() {
+      return System.currentTimeMillis() > expirationTime;
+    }
+
+  }
+
+}
@@ -0,0 +1,41 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.db;
+
+/**
+ * <p>Interface which can be implemented by {@link DbEntity DbEntities} which
+ * track changes of their persistent state themselves.</p>
+ *
+ * <p>The entity cache uses this contract instead of comparing the result of
+ * {@link DbEntity#getPersistentState()} with a copy which has been made when
+ * the entity was loaded or flushed. That way, no map has to be created per
+ * cached entity in order to find out whether it has to be updated.</p>
+ *
+ * <p>Implementations must detect changes to all the properties which are part
+ * of the persistent state, including properties which are not changed by a setter.</p>
+ */
+public interface DirtyTrackingDbEntity extends DbEntity {
+
+  /**
+   * Remembers the current persistent state of the entity. Called when the
+   * entity is put into the cache and after it has been flushed.
+   */
+  void trackPersistentState();
+
+  /**
+   * @return true if the persistent state has changed since {@link #trackPersistentState()}
+   * has been called last or if it has never been called
+   */
+  boolean isPersistentStateChanged();
+
+}
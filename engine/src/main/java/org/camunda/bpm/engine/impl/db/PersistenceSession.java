@@ -28,6 +28,14 @@ public interface PersistenceSession extends Session {
 
   void executeDbOperation(DbOperation operation);
 
+  /**
+   * Completes the operations which have been executed but whose results are not known yet,
+   * e.g. because they are executed as JDBC batches.
+   *
+   * @return the completed operations. Failed operations are {@link DbOperation#isFailed() marked as failed}.
+   */
+  List<DbOperation> flushOperations();
+
   List<?> selectList(String statement, Object parameter);
 
   <T extends DbEntity> T selectById(Class<T> type, String id);
@@ -36,6 +44,8 @@ public interface PersistenceSession extends Session {
 
   void lock(String statement);
 
+  int executeUpdate(String updateStatement, Object parameter);
+
   void commit();
 
   void rollback();
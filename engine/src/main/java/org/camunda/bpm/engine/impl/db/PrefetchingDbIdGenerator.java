@@ -0,0 +1,231 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.db;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.camunda.bpm.engine.impl.cfg.IdGenerator;
+import org.camunda.bpm.engine.impl.cmd.GetNextIdBlockCmd;
+import org.camunda.bpm.engine.impl.interceptor.CommandExecutor;
+
+/**
+ * <p>{@link IdGenerator} which hands out ids from an atomic counter and fetches
+ * the next id block in the background before the current block runs out.
+ * Contrary to the {@link DbIdGenerator}, threads requesting ids do not wait
+ * for the database while the next block is fetched.</p>
+ *
+ * <p>The size of the fetched blocks adapts to the rate at which ids are used:
+ * a block is sized to last for about {@link #getTargetBlockDurationInMillis()}
+ * but never smaller than the configured id block size and never larger than
+ * the maximum id block size. Fewer, larger blocks reduce the contention on the
+ * id property row shared by all nodes of a cluster.</p>
+ */
+public class PrefetchingDbIdGenerator implements IdGenerator {
+
+  private static Logger log = Logger.getLogger(PrefetchingDbIdGenerator.class.getName());
+
+  protected static final long SHUTDOWN_TIMEOUT_IN_MILLIS = 10 * 1000;
+
+  /** the minimal size of a block */
+  protected int idBlockSize;
+  protected int maxIdBlockSize = 100000;
+  protected long targetBlockDurationInMillis = 30 * 1000;
+
+  protected CommandExecutor commandExecutor;
+
+  protected volatile IdRange currentRange = new IdRange(0, -1);
+  protected final AtomicReference<Future<IdBlock>> nextBlock = new AtomicReference<Future<IdBlock>>();
+  protected ExecutorService prefetchExecutor = createPrefetchExecutor();
+
+  public String getNextId() {
+    while (true) {
+      IdRange range = currentRange;
+      long id = range.nextId.getAndIncrement();
+
+      if (id <= range.lastId) {
+        if (id == range.prefetchId) {
+          prefetchNextBlock(range);
+        }
+        return Long.toString(id);
+      }
+
+      switchToNextBlock(range);
+    }
+  }
+
+  /**
+   * Replaces the exhausted range by the prefetched block. Only waits for the
+   * database if the prefetched block has not been fetched yet.
+   */
+  protected synchronized void switchToNextBlock(IdRange exhaustedRange) {
+    if (currentRange != exhaustedRange) {
+      // another thread already switched to the next block
+      return;
+    }
+
+    IdBlock idBlock = null;
+    Future<IdBlock> prefetchedBlock = nextBlock.getAndSet(null);
+    if (prefetchedBlock != null) {
+      idBlock = getPrefetchedBlock(prefetchedBlock);
+    }
+    if (idBlock == null) {
+      idBlock = fetchBlock(idBlockSize);
+    }
+
+    currentRange = new IdRange(idBlock.getNextId(), idBlock.getLastId());
+  }
+
+  protected IdBlock getPrefetchedBlock(Future<IdBlock> prefetchedBlock) {
+    try {
+      return prefetchedBlock.get();
+    } catch (ExecutionException e) {
+      log.log(Level.WARNING, "Could not prefetch the next id block, fetching it again", e.getCause());
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.log(Level.WARNING, "Interrupted while waiting for the prefetched id block, fetching it again", e);
+      return null;
+    }
+  }
+
+  protected void prefetchNextBlock(IdRange range) {
+    final int blockSize = calculateNextBlockSize(range);
+
+    FutureTask<IdBlock> fetchTask = new FutureTask<IdBlock>(new Callable<IdBlock>() {
+      public IdBlock call() throws Exception {
+        return fetchBlock(blockSize);
+      }
+    });
+
+    if (nextBlock.compareAndSet(null, fetchTask)) {
+      try {
+        prefetchExecutor.execute(fetchTask);
+      } catch (RejectedExecutionException e) {
+        // the generator has been shut down, the block is fetched when it is needed
+        nextBlock.compareAndSet(fetchTask, null);
+      }
+    }
+  }
+
+  /**
+   * Stops fetching id blocks in the background and waits for a block which is
+   * currently fetched. Afterwards, the next block is fetched by the thread which needs it.
+   */
+  public void shutdown() {
+    prefetchExecutor.shutdown();
+    try {
+      if (!prefetchExecutor.awaitTermination(SHUTDOWN_TIMEOUT_IN_MILLIS, TimeUnit.MILLISECONDS)) {
+        log.warning("Timed out while waiting for the id block prefetching to finish");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Calculates the size of the next block from the rate at which the ids
+   * of the current range have been used so far.
+   */
+  protected int calculateNextBlockSize(IdRange range) {
+    long usedIds = range.prefetchId - range.firstId + 1;
+    long elapsedMillis = Math.max(1, System.currentTimeMillis() - range.creationTime);
+
+    long blockSize = usedIds * targetBlockDurationInMillis / elapsedMillis;
+    blockSize = Math.min(blockSize, maxIdBlockSize);
+    blockSize = Math.max(blockSize, idBlockSize);
+
+    return (int) blockSize;
+  }
+
+  protected IdBlock fetchBlock(int blockSize) {
+    return commandExecutor.execute(new GetNextIdBlockCmd(blockSize));
+  }
+
+  protected ExecutorService createPrefetchExecutor() {
+    // a single daemon thread which terminates when no block has been fetched for a minute
+    return new ThreadPoolExecutor(0, 1, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "camunda-id-block-prefetch");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  public int getIdBlockSize() {
+    return idBlockSize;
+  }
+
+  public void setIdBlockSize(int idBlockSize) {
+    this.idBlockSize = idBlockSize;
+  }
+
+  public int getMaxIdBlockSize() {
+    return maxIdBlockSize;
+  }
+
+  public void setMaxIdBlockSize(int maxIdBlockSize) {
+    this.maxIdBlockSize = maxIdBlockSize;
+  }
+
+  public long getTargetBlockDurationInMillis() {
+    return targetBlockDurationInMillis;
+  }
+
+  public void setTargetBlockDurationInMillis(long targetBlockDurationInMillis) {
+    this.targetBlockDurationInMillis = targetBlockDurationInMillis;
+  }
+
+  public CommandExecutor getCommandExecutor() {
+    return commandExecutor;
+  }
+
+  public void setCommandExecutor(CommandExecutor commandExecutor) {
+    this.commandExecutor = commandExecutor;
+  }
+
+  /**
+   * The ids of a block which are handed out by an atomic counter. The next
+   * block is prefetched as soon as half of the ids have been used.
+   */
+  protected static class IdRange {
+
+    protected final AtomicLong nextId;
+    protected final long firstId;
+    protected final long lastId;
+    protected final long prefetchId;
+    protected final long creationTime = System.currentTimeMillis();
+
+    public IdRange(long firstId, long lastId) {
+      this.nextId = new AtomicLong(firstId);
+      this.firstId = firstId;
+      this.lastId = lastId;
+      this.prefetchId = firstId + (lastId - firstId) / 2;
+    }
+
+  }
+
+}
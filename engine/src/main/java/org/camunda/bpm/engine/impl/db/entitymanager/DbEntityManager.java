@@ -68,6 +68,8 @@ import org.camunda.bpm.engine.impl.identity.db.DbGroupQueryImpl;
 import org.camunda.bpm.engine.impl.identity.db.DbUserQueryImpl;
 import org.camunda.bpm.engine.impl.interceptor.Session;
 import org.camunda.bpm.engine.impl.jobexecutor.JobExecutorContext;
+import org.camunda.bpm.engine.impl.metrics.Metrics;
+import org.camunda.bpm.engine.impl.metrics.MetricsRegistry;
 
 /**
  *
@@ -243,6 +245,16 @@ public class DbEntityManager implements Session {
     persistenceSession.lock(statement);
   }
 
+  /**
+   * Executes the given update statement immediately instead of scheduling it
+   * for the next flush.
+   *
+   * @return the number of affected rows
+   */
+  public int executeUpdate(String statement, Object parameter) {
+    return persistenceSession.executeUpdate(statement, parameter);
+  }
+
   public boolean isDirty(DbEntity dbEntity) {
     CachedDbEntity cachedEntity = dbEntityCache.getCachedEntity(dbEntity);
     if(cachedEntity == null) {
@@ -260,6 +272,7 @@ public class DbEntityManager implements Session {
     // obtain totally ordered operation list from operation manager
     List<DbOperation> operationsToFlush = dbOperationManager.calculateFlush();
     logFlushSummary(operationsToFlush);
+    recordFlushMetrics(operationsToFlush);
 
     // execute the flush
     for (DbOperation dbOperation : operationsToFlush) {
@@ -274,12 +287,30 @@ public class DbEntityManager implements Session {
       }
     }
 
+    // complete the operations executed as JDBC batches
+    List<DbOperation> batchedOperations;
+    try {
+      batchedOperations = persistenceSession.flushOperations();
+    }
+    catch(Exception e) {
+      throw new ProcessEngineException(formatExceptionMessage(e, null, operationsToFlush), e);
+    }
+    for (DbOperation dbOperation : batchedOperations) {
+      if(dbOperation.isFailed()) {
+        handleOptimisticLockingException(dbOperation);
+      }
+    }
+
   }
 
   protected String formatExceptionMessage(Exception e, DbOperation dbOperation, List<DbOperation> operationsToFlush) {
     StringBuilder exceptionMessage = new StringBuilder();
-    exceptionMessage.append("Exception while executing Database Operation: ");
-    exceptionMessage.append(dbOperation.toString());
+    if (dbOperation != null) {
+      exceptionMessage.append("Exception while executing Database Operation: ");
+      exceptionMessage.append(dbOperation.toString());
+    } else {
+      exceptionMessage.append("Exception while executing batched Database Operations");
+    }
     exceptionMessage.append(":");
     exceptionMessage.append(e.getMessage());
     exceptionMessage.append("\nFlush summary:\n[\n");
@@ -292,6 +323,16 @@ public class DbEntityManager implements Session {
     return exceptionMessage.toString();
   }
 
+  protected void recordFlushMetrics(List<DbOperation> operationsToFlush) {
+    ProcessEngineConfigurationImpl processEngineConfiguration = Context.getProcessEngineConfiguration();
+    if (processEngineConfiguration != null) {
+      MetricsRegistry metricsRegistry = processEngineConfiguration.getMetricsRegistry();
+      if (metricsRegistry != null) {
+        metricsRegistry.updateHistogram(Metrics.FLUSH_OPERATIONS, operationsToFlush.size());
+      }
+    }
+  }
+
   protected void handleOptimisticLockingException(DbOperation dbOperation) {
     boolean isHandled = false;
 
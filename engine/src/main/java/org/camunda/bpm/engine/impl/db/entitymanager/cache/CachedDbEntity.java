@@ -13,6 +13,7 @@
 package org.camunda.bpm.engine.impl.db.entitymanager.cache;
 
 import org.camunda.bpm.engine.impl.db.DbEntity;
+import org.camunda.bpm.engine.impl.db.DirtyTrackingDbEntity;
 import org.camunda.bpm.engine.impl.db.entitymanager.Recyclable;
 
 /**
@@ -27,12 +28,15 @@ public class CachedDbEntity implements Recyclable {
 
   protected Object copy;
 
+  protected boolean forcedDirty;
+
   protected DbEntityState entityState;
 
   public void recycle() {
     // clean out state
     dbEntity = null;
     copy = null;
+    forcedDirty = false;
     entityState = null;
   }
 
@@ -41,16 +45,28 @@ public class CachedDbEntity implements Recyclable {
    * @return true if the entity is dirty (state has changed since it was put into the cache)
    */
   public boolean isDirty() {
-    return !dbEntity.getPersistentState().equals(copy);
+    if (forcedDirty) {
+      return true;
+    } else if (dbEntity instanceof DirtyTrackingDbEntity) {
+      // the entity knows whether it has changed, no need to compare the persistent state
+      return ((DirtyTrackingDbEntity) dbEntity).isPersistentStateChanged();
+    } else {
+      return !dbEntity.getPersistentState().equals(copy);
+    }
   }
 
   public void forceSetDirty() {
-    // set the value of the copy to some value which will always be different from the new entity state.
-    this.copy = -1;
+    // the entity is dirty until the next copy is made
+    this.forcedDirty = true;
   }
 
   public void makeCopy() {
-    copy = dbEntity.getPersistentState();
+    forcedDirty = false;
+    if (dbEntity instanceof DirtyTrackingDbEntity) {
+      ((DirtyTrackingDbEntity) dbEntity).trackPersistentState();
+    } else {
+      copy = dbEntity.getPersistentState();
+    }
   }
 
   public String toString() {
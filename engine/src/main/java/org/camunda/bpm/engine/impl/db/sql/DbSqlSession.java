@@ -26,10 +26,15 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import org.camunda.bpm.engine.ProcessEngine;
 import org.camunda.bpm.engine.ProcessEngineException;
@@ -39,6 +44,9 @@ import org.camunda.bpm.engine.impl.db.DbEntity;
 import org.camunda.bpm.engine.impl.db.HasDbRevision;
 import org.camunda.bpm.engine.impl.db.entitymanager.operation.DbBulkOperation;
 import org.camunda.bpm.engine.impl.db.entitymanager.operation.DbEntityOperation;
+import org.camunda.bpm.engine.impl.db.entitymanager.operation.DbOperation;
+import org.camunda.bpm.engine.impl.db.entitymanager.operation.DbOperationType;
+import org.camunda.bpm.engine.impl.persistence.entity.ByteArrayEntity;
 import org.camunda.bpm.engine.impl.util.ClassNameUtil;
 import org.camunda.bpm.engine.impl.util.IoUtil;
 import org.camunda.bpm.engine.impl.util.ReflectUtil;
@@ -63,11 +71,35 @@ public class DbSqlSession extends AbstractPersistenceSession {
   protected String connectionMetadataDefaultCatalog = null;
   protected String connectionMetadataDefaultSchema = null;
 
+  /** if true, the statements are executed as JDBC batches when the operations are flushed */
+  protected boolean jdbcBatchProcessing = false;
+  /** the operations executed since the last flush of the JDBC batches */
+  protected List<DbOperation> batchedOperations = new ArrayList<DbOperation>();
+  /** the batched operations whose results are known, but which are not returned by {@link #flushOperations()} yet */
+  protected List<DbOperation> completedOperations = new ArrayList<DbOperation>();
+
+  /** maximum number of rows inserted by a single multi-row insert statement */
+  public static final int MULTI_ROW_INSERT_MAX_ROWS = 100;
+  /** if true, consecutive inserts of the same entity type are executed as a single multi-row insert statement */
+  protected boolean multiRowInsert = false;
+  /** the entities which are inserted by the next multi-row insert statement */
+  protected List<DbEntity> pendingInserts = new ArrayList<DbEntity>();
+  protected String pendingInsertStatement;
+
   public DbSqlSession(DbSqlSessionFactory dbSqlSessionFactory) {
     this.dbSqlSessionFactory = dbSqlSessionFactory;
-    this.sqlSession = dbSqlSessionFactory
-      .getSqlSessionFactory()
-      .openSession();
+    this.jdbcBatchProcessing = dbSqlSessionFactory.isJdbcBatchProcessing();
+    if (jdbcBatchProcessing) {
+      this.sqlSession = dbSqlSessionFactory
+        .getSqlSessionFactory()
+        .openSession(ExecutorType.BATCH);
+    } else {
+      this.sqlSession = dbSqlSessionFactory
+        .getSqlSessionFactory()
+        .openSession();
+    }
+    // a JDBC batch already sends the inserts in a single round trip
+    this.multiRowInsert = !jdbcBatchProcessing && dbSqlSessionFactory.isMultiRowInsertSupported();
   }
 
   public DbSqlSession(DbSqlSessionFactory dbSqlSessionFactory, Connection connection, String catalog, String schema) {
@@ -82,6 +114,7 @@ public class DbSqlSession extends AbstractPersistenceSession {
   // select ////////////////////////////////////////////
 
   public List<?> selectList(String statement, Object parameter){
+    executeBatchedOperations();
     statement = dbSqlSessionFactory.mapStatement(statement);
     return sqlSession.selectList(statement, parameter);
   }
@@ -91,10 +124,12 @@ public class DbSqlSession extends AbstractPersistenceSession {
     selectStatement = dbSqlSessionFactory.mapStatement(selectStatement);
     ensureNotNull("no select statement for " + type + " in the ibatis mapping files", "selectStatement", selectStatement);
 
+    executeBatchedOperations();
     return (T) sqlSession.selectOne(selectStatement, id);
   }
 
   public Object selectOne(String statement, Object parameter) {
+    executeBatchedOperations();
     statement = dbSqlSessionFactory.mapStatement(statement);
     return sqlSession.selectOne(statement, parameter);
   }
@@ -107,7 +142,96 @@ public class DbSqlSession extends AbstractPersistenceSession {
     // Id using the DbIdGenerator while performing a deployment.
     if (!DbSqlSessionFactory.H2.equals(dbSqlSessionFactory.getDatabaseType())) {
       String mappedStatement = dbSqlSessionFactory.mapStatement(statement);
+      executeBatchedOperations();
       sqlSession.update(mappedStatement);
+      if (jdbcBatchProcessing) {
+        // acquire the lock immediately, the batch only contains the lock statement
+        sqlSession.flushStatements();
+      }
+    }
+  }
+
+  // operations ///////////////////////////////////////
+
+  public void executeDbOperation(DbOperation operation) {
+    if (operation.getOperationType() != DbOperationType.INSERT) {
+      executePendingInserts();
+    }
+
+    super.executeDbOperation(operation);
+
+    if (jdbcBatchProcessing) {
+      batchedOperations.add(operation);
+    }
+  }
+
+  /**
+   * Executes the JDBC batches of the operations executed since the last flush and
+   * checks the results of the operations using the update counts of the batches.
+   */
+  public List<DbOperation> flushOperations() {
+    executePendingInserts();
+
+    if (!jdbcBatchProcessing) {
+      return Collections.emptyList();
+    }
+
+    executeBatchedOperations();
+
+    List<DbOperation> operations = completedOperations;
+    completedOperations = new ArrayList<DbOperation>();
+    return operations;
+  }
+
+  /**
+   * Executes the JDBC batches of the operations executed so far and records their
+   * results. Called before a statement whose result is needed immediately and before
+   * a select, since MyBatis executes the pending batches before both and the update
+   * counts of the operations would be lost otherwise.
+   */
+  protected void executeBatchedOperations() {
+    if (!jdbcBatchProcessing || batchedOperations.isEmpty()) {
+      return;
+    }
+
+    List<DbOperation> operations = batchedOperations;
+    batchedOperations = new ArrayList<DbOperation>();
+
+    List<BatchResult> batchResults = sqlSession.flushStatements();
+
+    // each operation executes a single statement, the batches are executed in the order of the operations
+    Iterator<DbOperation> operationIt = operations.iterator();
+    for (BatchResult batchResult : batchResults) {
+      for (int updateCount : batchResult.getUpdateCounts()) {
+        if (!operationIt.hasNext()) {
+          throw new ProcessEngineException("Unexpected result of batch statement '" + batchResult.getMappedStatement().getId()
+              + "': more update counts than executed database operations");
+        }
+        batchedOperationExecuted(operationIt.next(), updateCount);
+      }
+    }
+    if (operationIt.hasNext()) {
+      throw new ProcessEngineException("Unexpected results of batch statements: missing update count for " + operationIt.next());
+    }
+
+    completedOperations.addAll(operations);
+  }
+
+  protected void batchedOperationExecuted(DbOperation operation, int updateCount) {
+    if (updateCount == Statement.SUCCESS_NO_INFO) {
+      // the driver does not report the number of affected rows
+      updateCount = 1;
+    }
+
+    switch (operation.getOperationType()) {
+      case UPDATE:
+        entityUpdated((DbEntityOperation) operation, updateCount);
+        break;
+      case DELETE:
+        entityDeleted((DbEntityOperation) operation, updateCount);
+        break;
+      default:
+        // nothing to check
     }
   }
 
@@ -117,6 +241,19 @@ public class DbSqlSession extends AbstractPersistenceSession {
 
     final DbEntity dbEntity = operation.getEntity();
 
+    if (multiRowInsert) {
+      String multiRowInsertStatement = getMultiRowInsertStatement(dbEntity);
+      if (multiRowInsertStatement != null) {
+        addPendingInsert(multiRowInsertStatement, dbEntity);
+        return;
+      }
+      executePendingInserts();
+    }
+
+    insertSingleEntity(dbEntity);
+  }
+
+  protected void insertSingleEntity(DbEntity dbEntity) {
     // get statement
     String insertStatement = dbSqlSessionFactory.getInsertStatement(dbEntity);
     insertStatement = dbSqlSessionFactory.mapStatement(insertStatement);
@@ -146,6 +283,68 @@ public class DbSqlSession extends AbstractPersistenceSession {
     // nothing to do
   }
 
+  /**
+   * @return the mapped multi-row insert statement for the entity or null
+   * if the entity type has no multi-row insert mapping
+   */
+  protected String getMultiRowInsertStatement(DbEntity dbEntity) {
+    if (dbEntity instanceof ByteArrayEntity && ((ByteArrayEntity) dbEntity).isStreamedInsert()) {
+      // the content is streamed or copied by a single-row statement
+      return null;
+    }
+
+    String multiRowInsertStatement = dbSqlSessionFactory.getMultiRowInsertStatement(dbEntity);
+    multiRowInsertStatement = dbSqlSessionFactory.mapStatement(multiRowInsertStatement);
+
+    if (sqlSession.getConfiguration().hasStatement(multiRowInsertStatement, false)) {
+      return multiRowInsertStatement;
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Collects consecutive inserts of the same entity type. The inserts are sorted
+   * by type, so a different statement means that all entities of the previous
+   * type have been collected.
+   */
+  protected void addPendingInsert(String multiRowInsertStatement, DbEntity dbEntity) {
+    if (!multiRowInsertStatement.equals(pendingInsertStatement) || pendingInserts.size() >= MULTI_ROW_INSERT_MAX_ROWS) {
+      executePendingInserts();
+    }
+    pendingInsertStatement = multiRowInsertStatement;
+    pendingInserts.add(dbEntity);
+  }
+
+  protected void executePendingInserts() {
+    if (pendingInserts.isEmpty()) {
+      return;
+    }
+
+    List<DbEntity> entities = pendingInserts;
+    String multiRowInsertStatement = pendingInsertStatement;
+    pendingInserts = new ArrayList<DbEntity>();
+    pendingInsertStatement = null;
+
+    if (entities.size() == 1) {
+      insertSingleEntity(entities.get(0));
+      return;
+    }
+
+    if(log.isLoggable(Level.FINE)) {
+      log.fine("inserting " + entities.size() + " rows using " + multiRowInsertStatement);
+    }
+    sqlSession.insert(multiRowInsertStatement, entities);
+
+    for (DbEntity dbEntity : entities) {
+      // set revision of our copy to 1
+      if (dbEntity instanceof HasDbRevision) {
+        ((HasDbRevision) dbEntity).setRevision(1);
+      }
+      entityInserted(dbEntity);
+    }
+  }
+
   // delete ///////////////////////////////////////////
 
   protected void deleteEntity(DbEntityOperation operation) {
@@ -163,6 +362,14 @@ public class DbSqlSession extends AbstractPersistenceSession {
     // execute the delete
     int nrOfRowsDeleted = executeDelete(deleteStatement, dbEntity);
 
+    if (!jdbcBatchProcessing) {
+      entityDeleted(operation, nrOfRowsDeleted);
+    }
+  }
+
+  protected void entityDeleted(DbEntityOperation operation, int nrOfRowsDeleted) {
+    final DbEntity dbEntity = operation.getEntity();
+
     // It only makes sense to check for optimistic locking exceptions for objects that actually have a revision
     if (dbEntity instanceof HasDbRevision && nrOfRowsDeleted == 0) {
       operation.setFailed(true);
@@ -208,7 +415,15 @@ public class DbSqlSession extends AbstractPersistenceSession {
     }
 
     // execute update
-    int numOfRowsUpdated = executeUpdate(updateStatement, dbEntity);
+    int numOfRowsUpdated = executeUpdateStatement(updateStatement, dbEntity);
+
+    if (!jdbcBatchProcessing) {
+      entityUpdated(operation, numOfRowsUpdated);
+    }
+  }
+
+  protected void entityUpdated(DbEntityOperation operation, int numOfRowsUpdated) {
+    final DbEntity dbEntity = operation.getEntity();
 
     if (dbEntity instanceof HasDbRevision) {
       if(numOfRowsUpdated != 1) {
@@ -226,7 +441,25 @@ public class DbSqlSession extends AbstractPersistenceSession {
     entityUpdated(dbEntity);
   }
 
-  protected int executeUpdate(String updateStatement, Object parameter) {
+  public int executeUpdate(String updateStatement, Object parameter) {
+    executeBatchedOperations();
+
+    int numOfRowsUpdated = executeUpdateStatement(updateStatement, parameter);
+
+    if (jdbcBatchProcessing) {
+      // execute the update immediately, the batch only contains this statement
+      numOfRowsUpdated = 0;
+      for (BatchResult batchResult : sqlSession.flushStatements()) {
+        for (int updateCount : batchResult.getUpdateCounts()) {
+          numOfRowsUpdated += updateCount;
+        }
+      }
+    }
+
+    return numOfRowsUpdated;
+  }
+
+  protected int executeUpdateStatement(String updateStatement, Object parameter) {
     updateStatement = dbSqlSessionFactory.mapStatement(updateStatement);
     return sqlSession.update(updateStatement, parameter);
   }
@@ -243,7 +476,7 @@ public class DbSqlSession extends AbstractPersistenceSession {
       log.fine("updating (bulk): " + statement + " " + parameter);
     }
 
-    executeUpdate(statement, parameter);
+    executeUpdateStatement(statement, parameter);
   }
 
   // utils /////////////////////////////////////////
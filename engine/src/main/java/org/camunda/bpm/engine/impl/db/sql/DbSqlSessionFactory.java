@@ -14,7 +14,9 @@
 package org.camunda.bpm.engine.impl.db.sql;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ibatis.session.SqlSessionFactory;
@@ -60,6 +62,12 @@ public class DbSqlSessionFactory implements SessionFactory {
 
   public static final Map<String, Map<String, String>> dbSpecificConstants = new HashMap<String, Map<String, String>>();
 
+  // databases on which jobs can be acquired with SELECT ... FOR UPDATE SKIP LOCKED
+  public static final Set<String> databaseTypesSupportingSkipLocked = new HashSet<String>();
+
+  // databases on which multiple rows can be inserted with INSERT ... VALUES (...), (...)
+  public static final Set<String> databaseTypesSupportingMultiRowInsert = new HashSet<String>();
+
   static {
 
     String defaultOrderBy = " order by ${orderBy} ";
@@ -85,6 +93,8 @@ public class DbSqlSessionFactory implements SessionFactory {
     constants.put("constant.for.update", "for update");
     dbSpecificConstants.put(H2, constants);
 
+    databaseTypesSupportingMultiRowInsert.add(H2);
+
 	  //mysql specific
     databaseSpecificLimitBeforeStatements.put(MYSQL, "");
     databaseSpecificLimitAfterStatements.put(MYSQL, "LIMIT #{maxResults} OFFSET #{firstResult}");
@@ -101,6 +111,8 @@ public class DbSqlSessionFactory implements SessionFactory {
     databaseSpecificFalseConstant.put(MYSQL, "0");
     addDatabaseSpecificStatement(MYSQL, "selectNextJobsToExecute", "selectNextJobsToExecute_mysql");
     addDatabaseSpecificStatement(MYSQL, "selectExclusiveJobsToExecute", "selectExclusiveJobsToExecute_mysql");
+    addDatabaseSpecificStatement(MYSQL, "selectNextJobsToExecuteSkipLocked", "selectNextJobsToExecuteSkipLocked_mysql");
+    addDatabaseSpecificStatement(MYSQL, "selectExclusiveJobsToExecuteSkipLocked", "selectExclusiveJobsToExecuteSkipLocked_mysql");
     addDatabaseSpecificStatement(MYSQL, "selectProcessDefinitionsByQueryCriteria", "selectProcessDefinitionsByQueryCriteria_mysql");
     addDatabaseSpecificStatement(MYSQL, "selectProcessDefinitionCountByQueryCriteria", "selectProcessDefinitionCountByQueryCriteria_mysql");
     addDatabaseSpecificStatement(MYSQL, "selectDeploymentsByQueryCriteria", "selectDeploymentsByQueryCriteria_mysql");
@@ -111,6 +123,8 @@ public class DbSqlSessionFactory implements SessionFactory {
     constants.put("constant.op_message", "CONCAT(NEW_VALUE_, '_|_', PROPERTY_)");
     constants.put("constant.for.update", "for update");
     dbSpecificConstants.put(MYSQL, constants);
+    databaseTypesSupportingSkipLocked.add(MYSQL);
+    databaseTypesSupportingMultiRowInsert.add(MYSQL);
 
     //postgres specific
     databaseSpecificLimitBeforeStatements.put(POSTGRES, "");
@@ -127,6 +141,7 @@ public class DbSqlSessionFactory implements SessionFactory {
     databaseSpecificTrueConstant.put(POSTGRES, "true");
     databaseSpecificFalseConstant.put(POSTGRES, "false");
     addDatabaseSpecificStatement(POSTGRES, "insertByteArray", "insertByteArray_postgres");
+    addDatabaseSpecificStatement(POSTGRES, "multiRowInsertByteArray", "multiRowInsertByteArray_postgres");
     addDatabaseSpecificStatement(POSTGRES, "updateByteArray", "updateByteArray_postgres");
     addDatabaseSpecificStatement(POSTGRES, "selectByteArray", "selectByteArray_postgres");
     addDatabaseSpecificStatement(POSTGRES, "selectResourceByDeploymentIdAndResourceName", "selectResourceByDeploymentIdAndResourceName_postgres");
@@ -153,6 +168,8 @@ public class DbSqlSessionFactory implements SessionFactory {
     constants.put("constant.op_message", "NEW_VALUE_ || '_|_' || PROPERTY_");
     constants.put("constant.for.update", "for update");
     dbSpecificConstants.put(POSTGRES, constants);
+    databaseTypesSupportingSkipLocked.add(POSTGRES);
+    databaseTypesSupportingMultiRowInsert.add(POSTGRES);
 
     // oracle
     databaseSpecificLimitBeforeStatements.put(ORACLE, "select * from ( select a.*, ROWNUM rnum from (");
@@ -168,12 +185,14 @@ public class DbSqlSessionFactory implements SessionFactory {
     databaseSpecificBitAnd3.put(ORACLE, ")");
     databaseSpecificTrueConstant.put(ORACLE, "1");
     databaseSpecificFalseConstant.put(ORACLE, "0");
+    addDatabaseSpecificStatement(ORACLE, "selectNextJobsToExecuteSkipLocked", "selectNextJobsToExecuteSkipLocked_oracle");
 
     constants = new HashMap<String, String>();
     constants.put("constant.event", "cast('event' as nvarchar2(255))");
     constants.put("constant.op_message", "NEW_VALUE_ || '_|_' || PROPERTY_");
     constants.put("constant.for.update", "for update");
     dbSpecificConstants.put(ORACLE, constants);
+    databaseTypesSupportingSkipLocked.add(ORACLE);
 
     // db2
     databaseSpecificLimitBeforeStatements.put(DB2, "SELECT SUB.* FROM (");
@@ -226,6 +245,8 @@ public class DbSqlSessionFactory implements SessionFactory {
     addDatabaseSpecificStatement(MSSQL, "selectHistoricTaskInstanceByNativeQuery", "selectHistoricTaskInstanceByNativeQuery_mssql_or_db2");
     addDatabaseSpecificStatement(MSSQL, "selectTaskByNativeQuery", "selectTaskByNativeQuery_mssql_or_db2");
     addDatabaseSpecificStatement(MSSQL, "lockDeploymentLockProperty", "lockDeploymentLockProperty_mssql");
+    addDatabaseSpecificStatement(MSSQL, "lockEffectivePermissionsLockProperty", "lockEffectivePermissionsLockProperty_mssql");
+    addDatabaseSpecificStatement(MSSQL, "lockHistoryCleanupJobLockProperty", "lockHistoryCleanupJobLockProperty_mssql");
 
     constants = new HashMap<String, String>();
     constants.put("constant.event", "'event'");
@@ -249,9 +270,11 @@ public class DbSqlSessionFactory implements SessionFactory {
   protected Map<Class<?>,String>  updateStatements = new ConcurrentHashMap<Class<?>, String>();
   protected Map<Class<?>,String>  deleteStatements = new ConcurrentHashMap<Class<?>, String>();
   protected Map<Class<?>,String>  selectStatements = new ConcurrentHashMap<Class<?>, String>();
+  protected Map<Class<?>,String>  multiRowInsertStatements = new ConcurrentHashMap<Class<?>, String>();
   protected boolean isDbIdentityUsed = true;
   protected boolean isDbHistoryUsed = true;
   protected boolean cmmnEnabled = true;
+  protected boolean jdbcBatchProcessing = false;
 
   public Class< ? > getSessionType() {
     return DbSqlSession.class;
@@ -267,6 +290,10 @@ public class DbSqlSessionFactory implements SessionFactory {
     return getStatement(object.getClass(), insertStatements, "insert");
   }
 
+  public String getMultiRowInsertStatement(DbEntity object) {
+    return getStatement(object.getClass(), multiRowInsertStatements, "multiRowInsert");
+  }
+
   public String getUpdateStatement(DbEntity object) {
     return getStatement(object.getClass(), updateStatements, "update");
   }
@@ -309,6 +336,14 @@ public class DbSqlSessionFactory implements SessionFactory {
     return (mappedStatement!=null ? mappedStatement : statement);
   }
 
+  public boolean isSkipLockedSupported() {
+    return databaseTypesSupportingSkipLocked.contains(databaseType);
+  }
+
+  public boolean isMultiRowInsertSupported() {
+    return databaseTypesSupportingMultiRowInsert.contains(databaseType);
+  }
+
   // customized getters and setters ///////////////////////////////////////////
 
   public void setDatabaseType(String databaseType) {
@@ -413,6 +448,14 @@ public class DbSqlSessionFactory implements SessionFactory {
     this.cmmnEnabled = cmmnEnabled;
   }
 
+  public boolean isJdbcBatchProcessing() {
+    return jdbcBatchProcessing;
+  }
+
+  public void setJdbcBatchProcessing(boolean jdbcBatchProcessing) {
+    this.jdbcBatchProcessing = jdbcBatchProcessing;
+  }
+
   public void setDatabaseTablePrefix(String databaseTablePrefix) {
     this.databaseTablePrefix = databaseTablePrefix;
   }
@@ -0,0 +1,46 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.db.sql;
+
+import java.io.InputStream;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+/**
+ * Streams an {@link InputStream} parameter into a binary column, so that the
+ * content is never held in memory as a whole.
+ */
+public class InputStreamTypeHandler extends BaseTypeHandler<InputStream> {
+
+  public void setNonNullParameter(PreparedStatement ps, int i, InputStream parameter, JdbcType jdbcType) throws SQLException {
+    ps.setBinaryStream(i, parameter);
+  }
+
+  public InputStream getNullableResult(ResultSet rs, String columnName) throws SQLException {
+    return rs.getBinaryStream(columnName);
+  }
+
+  public InputStream getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+    return rs.getBinaryStream(columnIndex);
+  }
+
+  public InputStream getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+    throw new SQLException("Binary streams cannot be read from callable statements");
+  }
+
+}
@@ -24,7 +24,11 @@ import org.camunda.bpm.engine.impl.javax.el.FunctionMapper;
 import org.camunda.bpm.engine.impl.javax.el.ListELResolver;
 import org.camunda.bpm.engine.impl.javax.el.MapELResolver;
 import org.camunda.bpm.engine.impl.javax.el.ValueExpression;
+import org.camunda.bpm.engine.impl.juel.ConcurrentCache;
 import org.camunda.bpm.engine.impl.juel.ExpressionFactoryImpl;
+import org.camunda.bpm.engine.impl.juel.ExpressionFactoryImpl.Profile;
+import org.camunda.bpm.engine.impl.juel.TreeCache;
+import org.camunda.bpm.engine.impl.persistence.deploy.ConcurrentLruCache;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -43,6 +47,12 @@ import java.util.Map;
  * Then also this class is used as an entry point for runtime evaluation of the
  * expressions.
  * </p>
+ * <p>
+ * The parsed expression trees are held by a {@link TreeCache} which can be
+ * passed to the constructor. The value expressions created from the trees are
+ * cached per expression text, so that the same expression text is only
+ * processed by the expression factory once.
+ * </p>
  *
  * @author Tom Baeyens
  * @author Dave Syer
@@ -50,6 +60,7 @@ import java.util.Map;
  */
 public class ExpressionManager {
 
+  public static final int DEFAULT_EXPRESSION_CACHE_SIZE = 1000;
 
   protected List<FunctionMapper> functionMappers = new ArrayList<FunctionMapper>();
   protected ExpressionFactory expressionFactory;
@@ -57,24 +68,52 @@ public class ExpressionManager {
   protected ELContext parsingElContext = new ProcessEngineElContext(functionMappers);
   protected Map<Object, Object> beans;
   protected ELResolver elResolver;
+  protected TreeCache treeCache;
+  protected ConcurrentLruCache<String, ValueExpression> valueExpressionCache = new ConcurrentLruCache<String, ValueExpression>(DEFAULT_EXPRESSION_CACHE_SIZE);
 
   public ExpressionManager() {
     this(null);
   }
 
   public ExpressionManager(Map<Object, Object> beans) {
+    this(beans, new ConcurrentCache(DEFAULT_EXPRESSION_CACHE_SIZE));
+  }
+
+  /**
+   * @param beans the beans which can be referenced by expressions (may be <code>null</code>)
+   * @param treeCache the cache of the parsed expression trees (may be <code>null</code>)
+   */
+  public ExpressionManager(Map<Object, Object> beans, TreeCache treeCache) {
     // Use the ExpressionFactoryImpl built-in version of juel, with parametrised method expressions enabled
-    expressionFactory = new ExpressionFactoryImpl();
+    expressionFactory = new ExpressionFactoryImpl(Profile.JEE6, treeCache);
+    this.treeCache = treeCache;
     this.beans = beans;
   }
 
   public Expression createExpression(String expression) {
-    ValueExpression valueExpression = expressionFactory.createValueExpression(parsingElContext, expression, Object.class);
+    ValueExpression valueExpression = valueExpressionCache.get(expression);
+    if (valueExpression == null) {
+      valueExpression = expressionFactory.createValueExpression(parsingElContext, expression, Object.class);
+      valueExpressionCache.put(expression, valueExpression);
+    }
     return new JuelExpression(valueExpression, this, expression);
   }
 
   public void setExpressionFactory(ExpressionFactory expressionFactory) {
     this.expressionFactory = expressionFactory;
+    // value expressions of the previous factory must not be used anymore
+    valueExpressionCache.clear();
+  }
+
+  /**
+   * @return the cache of the parsed expression trees or null if the trees are not cached
+   */
+  public TreeCache getTreeCache() {
+    return treeCache;
+  }
+
+  public ConcurrentLruCache<String, ValueExpression> getValueExpressionCache() {
+    return valueExpressionCache;
   }
 
   public ELContext getElContext(VariableScope variableScope) {
@@ -139,5 +178,7 @@ public class ExpressionManager {
    */
   public void addFunctionMapper(FunctionMapper elFunctionMapper) {
     this.functionMappers.add(elFunctionMapper);
+    // the functions of cached value expressions are bound when they are created
+    valueExpressionCache.clear();
   }
 }
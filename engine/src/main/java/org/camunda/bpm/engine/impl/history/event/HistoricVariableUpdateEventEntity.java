@@ -35,6 +35,8 @@ public class HistoricVariableUpdateEventEntity extends HistoricDetailEventEntity
   protected String textValue;
   protected String textValue2;
   protected byte[] byteValue;
+  /** the id of the byte array whose content is copied instead of the byte value */
+  protected String sourceByteArrayId;
 
   protected String byteArrayId;
 
@@ -82,6 +84,12 @@ public class HistoricVariableUpdateEventEntity extends HistoricDetailEventEntity
   public void setByteValue(byte[] byteValue) {
     this.byteValue = byteValue;
   }
+  public String getSourceByteArrayId() {
+    return sourceByteArrayId;
+  }
+  public void setSourceByteArrayId(String sourceByteArrayId) {
+    this.sourceByteArrayId = sourceByteArrayId;
+  }
   public int getRevision() {
     return revision;
   }
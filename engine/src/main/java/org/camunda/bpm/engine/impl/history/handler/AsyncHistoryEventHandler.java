@@ -0,0 +1,493 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.history.handler;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.cmd.IsHistoryEventWrittenCmd;
+import org.camunda.bpm.engine.impl.cmd.WriteHistoryEventsCmd;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.history.event.HistoricVariableUpdateEventEntity;
+import org.camunda.bpm.engine.impl.history.event.HistoryEvent;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.interceptor.CommandExecutor;
+import org.camunda.bpm.engine.impl.interceptor.Session;
+import org.camunda.bpm.engine.impl.interceptor.SessionFactory;
+import org.camunda.bpm.engine.impl.persistence.entity.ByteArrayEntity;
+
+/**
+ * <p>A {@link HistoryEventHandler} which writes the history events after the
+ * transaction which produced them committed, so that writing the history does not
+ * add to the latency of the commands.</p>
+ *
+ * <p>The events of a transaction are collected by an {@link AsyncHistoryEventSession}.
+ * After the commit, they are put on the bounded queue of one of the
+ * {@link HistoryEventWriter} threads, which write them in batches using the
+ * delegate handler, by default the {@link DbHistoryEventHandler}. The events of a
+ * process instance (or case instance) always go to the same writer, so that the
+ * updates of a history row are written in order. A committing transaction blocks
+ * while the queue is full.</p>
+ *
+ * <p>With the delivery guarantee {@link HistoryEventDeliveryGuarantee#AT_LEAST_ONCE},
+ * the events are appended to a {@link HistoryEventLog write-ahead log} before the
+ * transaction commits and marked as committed afterwards. The committed events which
+ * were not written when the process engine stopped or crashed are replayed when it
+ * starts again.</p>
+ *
+ * <p>The history is not transactionally consistent with the runtime state: it
+ * lags behind, and commands which read or delete history do not see the queued events.
+ * Before the handler is started and after it is stopped, events are written
+ * synchronously by the delegate handler.</p>
+ */
+public class AsyncHistoryEventHandler implements HistoryEventHandler, SessionFactory {
+
+  private static Logger log = Logger.getLogger(AsyncHistoryEventHandler.class.getName());
+
+  protected HistoryEventHandler delegate;
+
+  protected HistoryEventDeliveryGuarantee deliveryGuarantee;
+  protected CommandExecutor commandExecutor;
+  protected volatile HistoryEventLog eventLog;
+  protected List<HistoryEventWriter> writers;
+  protected List<Thread> writerThreads;
+
+  protected AtomicLong pendingEvents = new AtomicLong();
+  protected volatile boolean running = false;
+
+  /**
+   * Held for reading while events are queued or the log is used by a transaction,
+   * and for writing while the handler stops, so that no transaction queues events
+   * or uses the log once the writers are drained and the log is closed.
+   */
+  protected ReadWriteLock stopLock = new ReentrantReadWriteLock();
+
+  public AsyncHistoryEventHandler() {
+    this(new DbHistoryEventHandler());
+  }
+
+  public AsyncHistoryEventHandler(HistoryEventHandler delegate) {
+    this.delegate = delegate;
+  }
+
+  // history event handler ////////////////////////////////////////////////////
+
+  public void handleEvent(HistoryEvent historyEvent) {
+    if (!running) {
+      delegate.handleEvent(historyEvent);
+      return;
+    }
+
+    CommandContext commandContext = Context.getCommandContext();
+    assignId(historyEvent);
+    loadSourceByteArray(historyEvent, commandContext);
+    commandContext.getSession(AsyncHistoryEventSession.class).addHistoryEvent(historyEvent);
+  }
+
+  public void handleEvents(List<HistoryEvent> historyEvents) {
+    for (HistoryEvent historyEvent : historyEvents) {
+      handleEvent(historyEvent);
+    }
+  }
+
+  /**
+   * Events like variable updates get their id when they are inserted. The id is
+   * assigned before the event is logged instead, so that a replayed event inserts
+   * the same row again and can be recognized as written.
+   */
+  protected void assignId(HistoryEvent historyEvent) {
+    if (historyEvent.getId() == null) {
+      historyEvent.setId(Context.getProcessEngineConfiguration().getIdGenerator().getNextId());
+    }
+  }
+
+  /**
+   * A streamed variable value is copied by the database from the runtime byte array,
+   * which may be gone by the time the event is written. It is loaded instead.
+   */
+  protected void loadSourceByteArray(HistoryEvent historyEvent, CommandContext commandContext) {
+    if (historyEvent instanceof HistoricVariableUpdateEventEntity) {
+      HistoricVariableUpdateEventEntity variableUpdateEvent = (HistoricVariableUpdateEventEntity) historyEvent;
+      String sourceByteArrayId = variableUpdateEvent.getSourceByteArrayId();
+      if (variableUpdateEvent.getByteValue() == null && sourceByteArrayId != null) {
+        ByteArrayEntity byteArray = commandContext.getDbEntityManager().selectById(ByteArrayEntity.class, sourceByteArrayId);
+        if (byteArray != null) {
+          variableUpdateEvent.setByteValue(byteArray.getBytes());
+          variableUpdateEvent.setSourceByteArrayId(null);
+        }
+      }
+    }
+  }
+
+  // session factory //////////////////////////////////////////////////////////
+
+  public Class<?> getSessionType() {
+    return AsyncHistoryEventSession.class;
+  }
+
+  public Session openSession() {
+    return new AsyncHistoryEventSession(this, Context.getCommandContext());
+  }
+
+  // lifecycle ////////////////////////////////////////////////////////////////
+
+  /**
+   * Starts the writer threads and replays the events of the write-ahead log.
+   */
+  public synchronized void start(ProcessEngineConfigurationImpl processEngineConfiguration) {
+    if (running) {
+      return;
+    }
+
+    deliveryGuarantee = processEngineConfiguration.getAsyncHistoryDeliveryGuarantee();
+    commandExecutor = processEngineConfiguration.getCommandExecutorTxRequiresNew();
+
+    List<HistoryEventLog.Entry> recoveredEntries = new ArrayList<HistoryEventLog.Entry>();
+    if (deliveryGuarantee == HistoryEventDeliveryGuarantee.AT_LEAST_ONCE) {
+      eventLog = new HistoryEventLog(new File(processEngineConfiguration.getAsyncHistoryLogDirectory()));
+      recoveredEntries = eventLog.recover();
+    }
+
+    int writerCount = processEngineConfiguration.getAsyncHistoryWriterThreads();
+    int queueCapacity = Math.max(1, processEngineConfiguration.getAsyncHistoryQueueCapacity() / writerCount);
+    writers = new ArrayList<HistoryEventWriter>();
+    writerThreads = new ArrayList<Thread>();
+    for (int i = 0; i < writerCount; i++) {
+      HistoryEventWriter writer = new HistoryEventWriter(this, queueCapacity, processEngineConfiguration.getAsyncHistoryBatchSize());
+      Thread writerThread = new Thread(writer, "history-event-writer-" + processEngineConfiguration.getProcessEngineName() + "-" + i);
+      writerThread.setDaemon(true);
+      writers.add(writer);
+      writerThreads.add(writerThread);
+    }
+
+    running = true;
+    for (Thread writerThread : writerThreads) {
+      writerThread.start();
+    }
+
+    if (!recoveredEntries.isEmpty()) {
+      log.info("Replaying the history events of " + recoveredEntries.size() + " transactions from the write-ahead log");
+      for (HistoryEventLog.Entry entry : recoveredEntries) {
+        queue(entry.getEvents(), entry.getSequence(), true);
+      }
+    }
+  }
+
+  /**
+   * Writes the queued events and stops the writer threads.
+   */
+  public synchronized void stop() {
+    if (!running) {
+      return;
+    }
+    // transactions blocked on a full queue give up and leave their events to the drain below
+    running = false;
+
+    stopLock.writeLock().lock();
+    try {
+      for (Thread writerThread : writerThreads) {
+        joinUninterruptibly(writerThread);
+      }
+
+      // events queued while the writers stopped, or left behind by a writer at a failing event
+      for (HistoryEventWriter writer : writers) {
+        writer.writeRemainingEvents();
+      }
+
+      writers = null;
+      writerThreads = null;
+
+      if (eventLog != null) {
+        eventLog.close();
+        eventLog = null;
+      }
+    }
+    finally {
+      stopLock.writeLock().unlock();
+    }
+  }
+
+  protected void joinUninterruptibly(Thread thread) {
+    boolean interrupted = false;
+    while (thread.isAlive()) {
+      try {
+        thread.join();
+      }
+      catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
+  // queueing /////////////////////////////////////////////////////////////////
+
+  /**
+   * @return the sequence number of the events in the write-ahead log, or -1 if they are not logged
+   */
+  protected long log(List<HistoryEvent> historyEvents) {
+    stopLock.readLock().lock();
+    try {
+      HistoryEventLog eventLog = this.eventLog;
+      if (eventLog != null) {
+        return eventLog.append(historyEvents);
+      }
+      else {
+        return -1;
+      }
+    }
+    finally {
+      stopLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Appends the commit marker of the events and waits until it is forced to disk. The
+   * transaction committed already, so a failure only affects the replay after a crash
+   * and is not propagated.
+   */
+  protected void commit(long sequence) {
+    stopLock.readLock().lock();
+    try {
+      HistoryEventLog eventLog = this.eventLog;
+      if (eventLog != null) {
+        eventLog.commit(sequence);
+      }
+    }
+    catch (Exception e) {
+      log.log(Level.SEVERE, "Cannot append the commit marker of record " + sequence
+          + " to the history event log, its events are not replayed after a crash", e);
+    }
+    finally {
+      stopLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Appends the cancel marker of the events. The transaction rolled back already,
+   * and a record without a marker is not replayed either, so a failure is not propagated.
+   */
+  protected void cancel(long sequence) {
+    stopLock.readLock().lock();
+    try {
+      HistoryEventLog eventLog = this.eventLog;
+      if (eventLog != null) {
+        eventLog.cancel(sequence);
+      }
+    }
+    catch (Exception e) {
+      log.log(Level.WARNING, "Cannot append the cancel marker of record " + sequence + " to the history event log", e);
+    }
+    finally {
+      stopLock.readLock().unlock();
+    }
+  }
+
+  protected void queue(List<HistoryEvent> historyEvents, long sequence, boolean replayed) {
+    LoggedEvents loggedEvents = sequence >= 0 ? new LoggedEvents(sequence, historyEvents.size()) : null;
+
+    stopLock.readLock().lock();
+    try {
+      if (historyEvents.isEmpty()) {
+        if (loggedEvents != null) {
+          acknowledge(loggedEvents.getSequence());
+        }
+        return;
+      }
+
+      if (writers == null) {
+        // the writers are drained, write the events of the late transaction now
+        write(historyEvents);
+        if (loggedEvents != null) {
+          acknowledge(loggedEvents.getSequence());
+        }
+        return;
+      }
+
+      for (HistoryEvent historyEvent : historyEvents) {
+        pendingEvents.incrementAndGet();
+        getWriter(historyEvent).queue(new QueuedHistoryEvent(historyEvent, loggedEvents, replayed));
+      }
+    }
+    finally {
+      stopLock.readLock().unlock();
+    }
+  }
+
+  protected HistoryEventWriter getWriter(HistoryEvent historyEvent) {
+    String partitionKey = getPartitionKey(historyEvent);
+    int index = partitionKey != null ? Math.abs(partitionKey.hashCode() % writers.size()) : 0;
+    return writers.get(index);
+  }
+
+  /**
+   * @return the key of the events whose rows depend on each other
+   */
+  protected String getPartitionKey(HistoryEvent historyEvent) {
+    if (historyEvent.getProcessInstanceId() != null) {
+      return historyEvent.getProcessInstanceId();
+    }
+    else if (historyEvent.getCaseInstanceId() != null) {
+      return historyEvent.getCaseInstanceId();
+    }
+    else if (historyEvent instanceof HistoricVariableUpdateEventEntity) {
+      // the updates of a variable of a standalone task refer to the historic variable instance
+      return ((HistoricVariableUpdateEventEntity) historyEvent).getVariableInstanceId();
+    }
+    else {
+      return historyEvent.getId();
+    }
+  }
+
+  // writing //////////////////////////////////////////////////////////////////
+
+  /**
+   * Writes the events in a new transaction.
+   */
+  protected void write(List<HistoryEvent> historyEvents) {
+    commandExecutor.execute(new WriteHistoryEventsCmd(delegate, historyEvents));
+  }
+
+  /**
+   * @return true if the event was written before, false if it was not or the delegate cannot tell
+   */
+  protected boolean isWritten(HistoryEvent historyEvent) {
+    if (delegate instanceof DbHistoryEventHandler) {
+      return commandExecutor.execute(new IsHistoryEventWrittenCmd((DbHistoryEventHandler) delegate, historyEvent));
+    }
+    else {
+      return false;
+    }
+  }
+
+  /**
+   * Called when the event is written or skipped.
+   */
+  protected void written(QueuedHistoryEvent event) {
+    event.setWritten(true);
+    pendingEvents.decrementAndGet();
+    LoggedEvents loggedEvents = event.getLoggedEvents();
+    if (loggedEvents != null && loggedEvents.eventDone()) {
+      acknowledge(loggedEvents.getSequence());
+    }
+  }
+
+  /**
+   * Needs no lock: the log is only closed once the writers ended and the
+   * transactions released the stop lock. A failure is not propagated, since
+   * it would stop the writer which already wrote the events.
+   */
+  protected void acknowledge(long sequence) {
+    try {
+      HistoryEventLog eventLog = this.eventLog;
+      if (eventLog != null) {
+        eventLog.acknowledge(sequence);
+      }
+    }
+    catch (Exception e) {
+      log.log(Level.WARNING, "Cannot acknowledge record " + sequence + " of the history event log, it is replayed after a crash", e);
+    }
+  }
+
+  // getters //////////////////////////////////////////////////////////////////
+
+  public HistoryEventHandler getDelegate() {
+    return delegate;
+  }
+
+  public HistoryEventDeliveryGuarantee getDeliveryGuarantee() {
+    return deliveryGuarantee;
+  }
+
+  /**
+   * @return the number of events which are queued or being written
+   */
+  public long getPendingEventCount() {
+    return pendingEvents.get();
+  }
+
+  /**
+   * The events of a transaction which are appended to the write-ahead log. They are
+   * acknowledged once all of them are written.
+   */
+  protected static class LoggedEvents {
+
+    protected long sequence;
+    protected AtomicInteger remainingEvents;
+
+    public LoggedEvents(long sequence, int eventCount) {
+      this.sequence = sequence;
+      this.remainingEvents = new AtomicInteger(eventCount);
+    }
+
+    public long getSequence() {
+      return sequence;
+    }
+
+    /**
+     * @return true if this was the last remaining event
+     */
+    public boolean eventDone() {
+      return remainingEvents.decrementAndGet() == 0;
+    }
+  }
+
+  public static class QueuedHistoryEvent {
+
+    protected HistoryEvent historyEvent;
+    protected LoggedEvents loggedEvents;
+    protected boolean replayed;
+    protected boolean written = false;
+
+    public QueuedHistoryEvent(HistoryEvent historyEvent, LoggedEvents loggedEvents, boolean replayed) {
+      this.historyEvent = historyEvent;
+      this.loggedEvents = loggedEvents;
+      this.replayed = replayed;
+    }
+
+    public HistoryEvent getHistoryEvent() {
+      return historyEvent;
+    }
+
+    public LoggedEvents getLoggedEvents() {
+      return loggedEvents;
+    }
+
+    public boolean isReplayed() {
+      return replayed;
+    }
+
+    public boolean isWritten() {
+      return written;
+    }
+
+    public void setWritten(boolean written) {
+      this.written = written;
+    }
+  }
+
+}
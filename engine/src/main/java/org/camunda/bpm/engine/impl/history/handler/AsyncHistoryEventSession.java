@@ -0,0 +1,97 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.history.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.camunda.bpm.engine.impl.cfg.TransactionContext;
+import org.camunda.bpm.engine.impl.cfg.TransactionListener;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.history.event.HistoryEvent;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.interceptor.Session;
+
+/**
+ * <p>Collects the history events of a command for the {@link AsyncHistoryEventHandler}.</p>
+ *
+ * <p>Before the transaction commits, the events are appended to the write-ahead log.
+ * After it committed, they are marked as committed in the log and queued to be
+ * written. If it rolls back, they are discarded and cancelled in the log.</p>
+ */
+public class AsyncHistoryEventSession implements Session {
+
+  protected AsyncHistoryEventHandler historyEventHandler;
+  protected List<HistoryEvent> historyEvents = new ArrayList<HistoryEvent>();
+
+  /** the sequence number of the events in the write-ahead log, -1 if they are not logged */
+  protected long sequence = -1;
+
+  protected boolean committed = false;
+
+  public AsyncHistoryEventSession(AsyncHistoryEventHandler historyEventHandler, CommandContext commandContext) {
+    this.historyEventHandler = historyEventHandler;
+
+    TransactionContext transactionContext = commandContext.getTransactionContext();
+    transactionContext.addTransactionListener(TransactionState.COMMITTING, new TransactionListener() {
+      public void execute(CommandContext commandContext) {
+        logEvents();
+      }
+    });
+    transactionContext.addTransactionListener(TransactionState.COMMITTED, new TransactionListener() {
+      public void execute(CommandContext commandContext) {
+        queueEvents();
+      }
+    });
+    transactionContext.addTransactionListener(TransactionState.ROLLED_BACK, new TransactionListener() {
+      public void execute(CommandContext commandContext) {
+        cancelEvents();
+      }
+    });
+  }
+
+  public void addHistoryEvent(HistoryEvent historyEvent) {
+    historyEvents.add(historyEvent);
+  }
+
+  protected void logEvents() {
+    if (!historyEvents.isEmpty()) {
+      sequence = historyEventHandler.log(historyEvents);
+    }
+  }
+
+  protected void queueEvents() {
+    committed = true;
+    if (sequence >= 0) {
+      historyEventHandler.commit(sequence);
+    }
+    if (!historyEvents.isEmpty()) {
+      historyEventHandler.queue(historyEvents, sequence, false);
+    }
+  }
+
+  protected void cancelEvents() {
+    // a failure after the commit must not cancel the committed events
+    if (sequence >= 0 && !committed) {
+      historyEventHandler.cancel(sequence);
+    }
+  }
+
+  public void flush() {
+    // the events are queued after the transaction committed
+  }
+
+  public void close() {
+  }
+
+}
@@ -94,6 +94,12 @@ public class DbHistoryEventHandler implements HistoryEventHandler {
         .insert(byteArrayEntity);
         historyEvent.setByteArrayId(byteArrayEntity.getId());
 
+      } else if (historyEvent.getSourceByteArrayId() != null) {
+        ByteArrayEntity byteArrayEntity = new ByteArrayEntity(historyEvent.getVariableName(), null);
+        byteArrayEntity.setSourceByteArrayId(historyEvent.getSourceByteArrayId());
+        dbEntityManager.insert(byteArrayEntity);
+        historyEvent.setByteArrayId(byteArrayEntity.getId());
+
       }
       dbEntityManager.insert(historyEvent);
     }
@@ -127,6 +133,33 @@ public class DbHistoryEventHandler implements HistoryEventHandler {
   }
 
 
+  /**
+   * Checks whether the rows an event inserts exist already, i.e. whether the
+   * event was written before. Events which only update rows are never
+   * considered as written, since writing them again does not fail.
+   */
+  public boolean isWritten(HistoryEvent historyEvent) {
+    DbEntityManager dbEntityManager = getDbEntityManager();
+
+    if (historyEvent instanceof HistoricVariableUpdateEventEntity) {
+      HistoricVariableUpdateEventEntity variableUpdateEvent = (HistoricVariableUpdateEventEntity) historyEvent;
+      if (!Context.getProcessEngineConfiguration().getHistoryLevel().equals(HistoryLevel.HISTORY_LEVEL_FULL)) {
+        // only the historic variable instance is inserted
+        return HistoryEventTypes.VARIABLE_INSTANCE_CREATE.getEventName().equals(variableUpdateEvent.getEventType())
+            && dbEntityManager.selectById(HistoricVariableInstanceEntity.class, variableUpdateEvent.getVariableInstanceId()) != null;
+      }
+    }
+    else {
+      String eventType = historyEvent.getEventType();
+      if (eventType != null && !isInitialEvent(eventType)) {
+        return false;
+      }
+    }
+
+    return historyEvent.getId() != null
+        && dbEntityManager.selectById(historyEvent.getClass(), historyEvent.getId()) != null;
+  }
+
   protected boolean isInitialEvent(String eventType) {
     return HistoryEventTypes.ACTIVITY_INSTANCE_START.getEventName().equals(eventType)
         || HistoryEventTypes.PROCESS_INSTANCE_START.getEventName().equals(eventType)
@@ -0,0 +1,41 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.history.handler;
+
+/**
+ * The guarantee with which the {@link AsyncHistoryEventHandler} delivers the
+ * history events of committed transactions to the history tables.
+ */
+public enum HistoryEventDeliveryGuarantee {
+
+  /**
+   * The events are only kept in memory until they are written. They are lost
+   * if the process engine crashes before, and events the database rejects are dropped.
+   */
+  AT_MOST_ONCE,
+
+  /**
+   * <p>The events are appended to a write-ahead log before the transaction commits
+   * and a commit marker is forced to disk after it committed, before the command
+   * returns. After a crash, the events with a commit marker which were not written
+   * yet are replayed. Events which were written before the crash are replayed as
+   * well; they are recognized by the rows they inserted and skipped.</p>
+   *
+   * <p>If the process engine crashes between the commit of a transaction and the
+   * disk flush of its commit marker, its events cannot be told apart from the events
+   * of a transaction which rolled back. They are dropped, so the events of a command
+   * which did not return may be lost.</p>
+   */
+  AT_LEAST_ONCE
+
+}
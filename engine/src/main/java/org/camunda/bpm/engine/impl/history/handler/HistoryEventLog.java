@@ -0,0 +1,687 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.history.handler;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.history.event.HistoryEvent;
+import org.camunda.bpm.engine.impl.util.IoUtil;
+
+/**
+ * <p>A write-ahead log for the history events of committed transactions.</p>
+ *
+ * <p>The events of a transaction are appended as one record with an increasing
+ * sequence number and forced to disk. The records are written by a log writer
+ * thread which forces all records appended in the meantime at once, so that
+ * concurrently committing transactions share a single disk flush. Once all events of a record are written to
+ * the history tables, the record is acknowledged. The highest sequence number up to
+ * which all records are acknowledged is stored as checkpoint. The log is split into
+ * segment files which are deleted as soon as the checkpoint passes them.</p>
+ *
+ * <p>Each record consists of its type, its sequence number, the length and the CRC32
+ * checksum of its payload and the payload, i.e. the serialized events. The record is
+ * appended before its transaction commits. Once the transaction committed, a commit
+ * marker is appended and forced to disk before the committing thread continues; if it
+ * rolled back, a cancel marker is appended instead.</p>
+ *
+ * <p>When recovering, only the records with a commit marker are replayed. A record
+ * without a marker is in doubt: its transaction may have rolled back or may not have
+ * reached the database at all, so it is dropped. A torn record at the end of a segment
+ * is truncated.</p>
+ */
+public class HistoryEventLog {
+
+  private static Logger log = Logger.getLogger(HistoryEventLog.class.getName());
+
+  public static final String SEGMENT_PREFIX = "history-";
+  public static final String SEGMENT_SUFFIX = ".log";
+  public static final String CHECKPOINT_FILE = "checkpoint";
+
+  protected static final byte RECORD = 1;
+  protected static final byte CANCEL = 2;
+  protected static final byte COMMIT = 3;
+
+  /** type, sequence number, payload length and checksum */
+  protected static final int RECORD_HEADER_SIZE = 1 + 8 + 4 + 8;
+
+  /** the size after which a new segment is started */
+  protected static final long MAX_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+  /** the minimum interval between two writes of the checkpoint */
+  protected static final long CHECKPOINT_INTERVAL_MILLIS = 1000;
+
+  /** tells the log writer thread to stop after the records queued before */
+  protected static final PendingWrite CLOSE = new PendingWrite((byte) 0, 0, new byte[0]);
+
+  protected File directory;
+
+  /** only written by the log writer thread once the log is recovered */
+  protected FileOutputStream segmentOutputStream;
+  protected long segmentSize;
+
+  /** the records to write, in the order of their sequence numbers */
+  protected BlockingQueue<PendingWrite> pendingWrites = new LinkedBlockingQueue<PendingWrite>();
+  protected Thread logWriterThread;
+  protected boolean closed = false;
+
+  /** set if a failed write cannot be undone, the following records would not be readable */
+  protected volatile Exception writeFailure;
+
+  /** the first sequence numbers of the segments, mapped to their files */
+  protected TreeMap<Long, File> segments = new TreeMap<Long, File>();
+
+  /** the appended records which are neither acknowledged nor cancelled */
+  protected TreeSet<Long> pendingRecords = new TreeSet<Long>();
+
+  protected long lastSequence;
+  protected long checkpoint;
+  protected long lastCheckpointWrite;
+
+  public HistoryEventLog(File directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Reads the committed records which are not acknowledged by the checkpoint and opens
+   * a new segment for appending. The recovered records stay pending until they are acknowledged.
+   *
+   * @return the recovered records ordered by their sequence numbers
+   */
+  public synchronized List<Entry> recover() {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new ProcessEngineException("Cannot create history event log directory '" + directory + "'");
+    }
+
+    checkpoint = readCheckpoint();
+    lastSequence = checkpoint;
+
+    Map<Long, Entry> entries = new TreeMap<Long, Entry>();
+    Set<Long> committedRecords = new HashSet<Long>();
+    for (File segment : listSegments()) {
+      segments.put(getFirstSequence(segment), segment);
+      readSegment(segment, entries, committedRecords);
+    }
+
+    List<Entry> committedEntries = new ArrayList<Entry>();
+    for (Entry entry : entries.values()) {
+      if (committedRecords.contains(entry.getSequence())) {
+        pendingRecords.add(entry.getSequence());
+        committedEntries.add(entry);
+      }
+      else {
+        log.warning("Dropping record " + entry.getSequence() + " of the history event log in '" + directory
+            + "', it has no commit marker and its transaction may have rolled back");
+      }
+    }
+
+    openSegment(lastSequence + 1);
+
+    logWriterThread = new Thread(new Runnable() {
+      public void run() {
+        writePendingRecords();
+      }
+    }, "history-event-log-writer-" + directory.getName());
+    logWriterThread.setDaemon(true);
+    logWriterThread.start();
+
+    return committedEntries;
+  }
+
+  /**
+   * Appends the events of a transaction and waits until they are forced to disk.
+   *
+   * @return the sequence number of the record
+   */
+  public long append(List<HistoryEvent> events) {
+    // serialize outside of the lock
+    byte[] payload = serialize(events);
+
+    PendingWrite pendingWrite;
+    synchronized (this) {
+      long sequence = ++lastSequence;
+      pendingWrite = queueWrite(RECORD, sequence, payload);
+      pendingRecords.add(sequence);
+    }
+
+    try {
+      pendingWrite.await();
+    }
+    catch (ProcessEngineException e) {
+      // the transaction rolls back without cancelling the record
+      synchronized (this) {
+        pendingRecords.remove(pendingWrite.getSequence());
+      }
+      throw e;
+    }
+    return pendingWrite.getSequence();
+  }
+
+  /**
+   * Marks a record whose transaction committed, so that it is replayed if it is not
+   * acknowledged before a crash, and waits until the marker is forced to disk. The
+   * transaction committed already, so it holds no database locks while waiting.
+   */
+  public void commit(long sequence) {
+    PendingWrite pendingWrite;
+    synchronized (this) {
+      pendingWrite = queueWrite(COMMIT, sequence, new byte[0]);
+    }
+    pendingWrite.await();
+  }
+
+  /**
+   * Cancels a record whose transaction rolled back, so that it is not replayed.
+   * A record without a marker is not replayed either, so this method does not
+   * wait for the marker to be forced to disk.
+   */
+  public synchronized void cancel(long sequence) {
+    queueWrite(CANCEL, sequence, new byte[0]);
+    acknowledge(sequence);
+  }
+
+  /**
+   * Acknowledges that all events of the record are written to the history tables.
+   * A checkpoint which cannot be written is logged and written with a later
+   * acknowledgement; until then, more records are replayed after a crash.
+   */
+  public synchronized void acknowledge(long sequence) {
+    pendingRecords.remove(sequence);
+
+    long newCheckpoint = pendingRecords.isEmpty() ? lastSequence : pendingRecords.first() - 1;
+    if (newCheckpoint > checkpoint) {
+      checkpoint = newCheckpoint;
+      if (System.currentTimeMillis() - lastCheckpointWrite >= CHECKPOINT_INTERVAL_MILLIS) {
+        try {
+          writeCheckpoint();
+        }
+        catch (ProcessEngineException e) {
+          log.log(Level.WARNING, "Cannot write the checkpoint of the history event log in '" + directory
+              + "', it is written with the next acknowledged record", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the queued records, the checkpoint and closes the current segment.
+   */
+  public void close() {
+    Thread logWriterThread;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      pendingWrites.add(CLOSE);
+      logWriterThread = this.logWriterThread;
+    }
+
+    if (logWriterThread != null) {
+      joinUninterruptibly(logWriterThread);
+    }
+
+    synchronized (this) {
+      try {
+        writeCheckpoint();
+      }
+      catch (ProcessEngineException e) {
+        log.log(Level.WARNING, "Cannot write the checkpoint of the history event log in '" + directory
+            + "', the records after the last written checkpoint are replayed when the process engine starts again", e);
+      }
+      closeSegment();
+    }
+  }
+
+  protected void joinUninterruptibly(Thread thread) {
+    boolean interrupted = false;
+    while (thread.isAlive()) {
+      try {
+        thread.join();
+      }
+      catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public synchronized long getCheckpoint() {
+    return checkpoint;
+  }
+
+  public synchronized int getPendingRecordCount() {
+    return pendingRecords.size();
+  }
+
+  // segments /////////////////////////////////////////////////////////////////
+
+  protected File[] listSegments() {
+    File[] files = directory.listFiles(new FilenameFilter() {
+      public boolean accept(File dir, String name) {
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+      }
+    });
+    // the zero padded sequence numbers sort by name
+    Arrays.sort(files);
+    return files;
+  }
+
+  protected long getFirstSequence(File segment) {
+    String name = segment.getName();
+    return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  protected void openSegment(long firstSequence) {
+    File segment = new File(directory, SEGMENT_PREFIX + String.format("%020d", firstSequence) + SEGMENT_SUFFIX);
+    try {
+      segmentOutputStream = new FileOutputStream(segment, true);
+      segmentSize = segment.length();
+      segments.put(firstSequence, segment);
+    }
+    catch (IOException e) {
+      throw new ProcessEngineException("Cannot open history event log segment '" + segment + "'", e);
+    }
+  }
+
+  protected void closeSegment() {
+    if (segmentOutputStream != null) {
+      IoUtil.closeSilently(segmentOutputStream);
+      segmentOutputStream = null;
+    }
+  }
+
+  /**
+   * Deletes the segments which only contain records up to the checkpoint.
+   * The current segment is never deleted.
+   */
+  protected void deleteAcknowledgedSegments() {
+    while (segments.size() > 1) {
+      Long firstSequence = segments.firstKey();
+      Long nextFirstSequence = segments.higherKey(firstSequence);
+      if (nextFirstSequence - 1 > checkpoint) {
+        break;
+      }
+      File segment = segments.remove(firstSequence);
+      if (!segment.delete()) {
+        log.warning("Cannot delete history event log segment '" + segment + "'");
+      }
+    }
+  }
+
+  // records //////////////////////////////////////////////////////////////////
+
+  protected PendingWrite queueWrite(byte type, long sequence, byte[] payload) {
+    if (closed) {
+      throw new ProcessEngineException("History event log in '" + directory + "' is closed");
+    }
+    PendingWrite pendingWrite = new PendingWrite(type, sequence, payload);
+    pendingWrites.add(pendingWrite);
+    return pendingWrite;
+  }
+
+  /**
+   * Run by the log writer thread until the log is closed.
+   */
+  protected void writePendingRecords() {
+    List<PendingWrite> batch = new ArrayList<PendingWrite>();
+    while (true) {
+      PendingWrite pendingWrite;
+      try {
+        pendingWrite = pendingWrites.take();
+      }
+      catch (InterruptedException e) {
+        continue;
+      }
+      batch.add(pendingWrite);
+      pendingWrites.drainTo(batch);
+
+      boolean close = batch.remove(CLOSE);
+      if (!batch.isEmpty()) {
+        writeBatch(batch);
+        batch.clear();
+      }
+      if (close) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Writes the records with a single write and forces them to disk at once.
+   */
+  protected void writeBatch(List<PendingWrite> batch) {
+    Exception failure = writeFailure;
+    if (failure == null) {
+      try {
+        appendToSegment(batch);
+      }
+      catch (Exception e) {
+        failure = e;
+      }
+    }
+    for (PendingWrite pendingWrite : batch) {
+      pendingWrite.done(failure);
+    }
+  }
+
+  protected void appendToSegment(List<PendingWrite> batch) throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(buffer);
+    Long firstRecordSequence = null;
+    for (PendingWrite pendingWrite : batch) {
+      writeRecord(output, pendingWrite);
+      if (firstRecordSequence == null && pendingWrite.getType() == RECORD) {
+        firstRecordSequence = pendingWrite.getSequence();
+      }
+    }
+
+    if (segmentOutputStream == null || (segmentSize >= MAX_SEGMENT_SIZE && firstRecordSequence != null)) {
+      synchronized (this) {
+        closeSegment();
+        openSegment(firstRecordSequence != null ? firstRecordSequence : lastSequence + 1);
+      }
+    }
+
+    long validSize = segmentSize;
+    try {
+      segmentOutputStream.write(buffer.toByteArray());
+      segmentOutputStream.getChannel().force(false);
+      segmentSize += buffer.size();
+    }
+    catch (IOException e) {
+      // drop the partially written records, so that the records appended later are readable
+      try {
+        segmentOutputStream.getChannel().truncate(validSize);
+      }
+      catch (IOException truncateException) {
+        writeFailure = e;
+        log.log(Level.SEVERE, "Cannot truncate history event log segment, appending to the history event log in '"
+            + directory + "' fails until the process engine is restarted", truncateException);
+      }
+      throw e;
+    }
+  }
+
+  protected void writeRecord(DataOutputStream output, PendingWrite pendingWrite) throws IOException {
+    byte[] payload = pendingWrite.getPayload();
+    CRC32 crc = new CRC32();
+    crc.update(payload);
+    output.writeByte(pendingWrite.getType());
+    output.writeLong(pendingWrite.getSequence());
+    output.writeInt(payload.length);
+    output.writeLong(crc.getValue());
+    output.write(payload);
+  }
+
+  protected void readSegment(File segment, Map<Long, Entry> entries, Set<Long> committedRecords) {
+    long validLength = readRecords(segment, entries, committedRecords);
+    if (validLength < segment.length()) {
+      // drop the torn tail, so that records appended later are readable
+      log.warning("Truncating incomplete record at the end of history event log segment '" + segment + "'");
+      truncate(segment, validLength);
+    }
+  }
+
+  /**
+   * @return the length of the complete records of the segment
+   */
+  protected long readRecords(File segment, Map<Long, Entry> entries, Set<Long> committedRecords) {
+    DataInputStream input = null;
+    try {
+      input = new DataInputStream(new BufferedInputStream(new FileInputStream(segment)));
+      long length = segment.length();
+      long position = 0;
+      while (position < length) {
+        byte type;
+        long sequence;
+        long checksum;
+        byte[] payload;
+        try {
+          type = input.readByte();
+          sequence = input.readLong();
+          int payloadLength = input.readInt();
+          checksum = input.readLong();
+          if (payloadLength < 0 || payloadLength > length - position - RECORD_HEADER_SIZE) {
+            return position;
+          }
+          payload = new byte[payloadLength];
+          input.readFully(payload);
+        }
+        catch (EOFException e) {
+          return position;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if (crc.getValue() != checksum || (type != RECORD && type != CANCEL && type != COMMIT)) {
+          return position;
+        }
+        position += RECORD_HEADER_SIZE + payload.length;
+
+        lastSequence = Math.max(lastSequence, sequence);
+        if (sequence <= checkpoint) {
+          continue;
+        }
+        if (type == CANCEL) {
+          entries.remove(sequence);
+        }
+        else if (type == COMMIT) {
+          committedRecords.add(sequence);
+        }
+        else {
+          try {
+            entries.put(sequence, new Entry(sequence, deserialize(payload)));
+          }
+          catch (Exception e) {
+            log.log(Level.SEVERE, "Cannot read record " + sequence + " of history event log segment '" + segment + "', skipping it", e);
+          }
+        }
+      }
+      return position;
+    }
+    catch (IOException e) {
+      throw new ProcessEngineException("Cannot read history event log segment '" + segment + "'", e);
+    }
+    finally {
+      IoUtil.closeSilently(input);
+    }
+  }
+
+  protected void truncate(File segment, long length) {
+    RandomAccessFile file = null;
+    try {
+      file = new RandomAccessFile(segment, "rw");
+      file.setLength(length);
+    }
+    catch (IOException e) {
+      throw new ProcessEngineException("Cannot truncate history event log segment '" + segment + "'", e);
+    }
+    finally {
+      IoUtil.closeSilently(file);
+    }
+  }
+
+  protected byte[] serialize(List<HistoryEvent> events) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try {
+      ObjectOutputStream output = new ObjectOutputStream(buffer);
+      output.writeObject(new ArrayList<HistoryEvent>(events));
+      output.close();
+    }
+    catch (IOException e) {
+      throw new ProcessEngineException("Cannot serialize history events", e);
+    }
+    return buffer.toByteArray();
+  }
+
+  @SuppressWarnings("unchecked")
+  protected List<HistoryEvent> deserialize(byte[] payload) throws IOException, ClassNotFoundException {
+    ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(payload));
+    try {
+      return (List<HistoryEvent>) input.readObject();
+    }
+    finally {
+      input.close();
+    }
+  }
+
+  // checkpoint ///////////////////////////////////////////////////////////////
+
+  protected long readCheckpoint() {
+    File file = new File(directory, CHECKPOINT_FILE);
+    if (!file.exists()) {
+      return 0;
+    }
+    FileInputStream input = null;
+    try {
+      input = new FileInputStream(file);
+      return Long.parseLong(new String(IoUtil.readInputStream(input, file.getName()), "UTF-8").trim());
+    }
+    catch (Exception e) {
+      throw new ProcessEngineException("Cannot read history event log checkpoint '" + file + "'", e);
+    }
+    finally {
+      IoUtil.closeSilently(input);
+    }
+  }
+
+  protected void writeCheckpoint() {
+    File file = new File(directory, CHECKPOINT_FILE);
+    File tempFile = new File(directory, CHECKPOINT_FILE + ".tmp");
+    FileOutputStream output = null;
+    try {
+      output = new FileOutputStream(tempFile);
+      output.write(String.valueOf(checkpoint).getBytes("UTF-8"));
+      output.getChannel().force(false);
+    }
+    catch (IOException e) {
+      throw new ProcessEngineException("Cannot write history event log checkpoint '" + file + "'", e);
+    }
+    finally {
+      IoUtil.closeSilently(output);
+    }
+
+    // renaming fails on some platforms if the target exists
+    if (!tempFile.renameTo(file) && !(file.delete() && tempFile.renameTo(file))) {
+      throw new ProcessEngineException("Cannot write history event log checkpoint '" + file + "'");
+    }
+    lastCheckpointWrite = System.currentTimeMillis();
+
+    deleteAcknowledgedSegments();
+  }
+
+  /**
+   * The events of a transaction read from the log.
+   */
+  public static class Entry {
+
+    protected long sequence;
+    protected List<HistoryEvent> events;
+
+    public Entry(long sequence, List<HistoryEvent> events) {
+      this.sequence = sequence;
+      this.events = events;
+    }
+
+    public long getSequence() {
+      return sequence;
+    }
+
+    public List<HistoryEvent> getEvents() {
+      return events;
+    }
+  }
+
+  /**
+   * A record which is queued for the log writer thread.
+   */
+  protected static class PendingWrite {
+
+    protected byte type;
+    protected long sequence;
+    protected byte[] payload;
+
+    protected CountDownLatch written = new CountDownLatch(1);
+    protected Exception failure;
+
+    public PendingWrite(byte type, long sequence, byte[] payload) {
+      this.type = type;
+      this.sequence = sequence;
+      this.payload = payload;
+    }
+
+    public byte getType() {
+      return type;
+    }
+
+    public long getSequence() {
+      return sequence;
+    }
+
+    public byte[] getPayload() {
+      return payload;
+    }
+
+    public void done(Exception failure) {
+      this.failure = failure;
+      written.countDown();
+    }
+
+    /**
+     * Waits until the record is forced to disk.
+     */
+    public void await() {
+      try {
+        written.await();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ProcessEngineException("Interrupted while appending record " + sequence + " to the history event log", e);
+      }
+      if (failure != null) {
+        throw new ProcessEngineException("Cannot append record " + sequence + " to the history event log", failure);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,265 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.history.handler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.history.event.HistoryEvent;
+import org.camunda.bpm.engine.impl.history.handler.AsyncHistoryEventHandler.QueuedHistoryEvent;
+
+/**
+ * <p>Takes the history events from its queue and writes them in batches.</p>
+ *
+ * <p>Each batch is written in one transaction. Since the history event handler
+ * writes at most one event per row in a transaction, a batch is split where an
+ * event updates a row inserted or updated by an earlier event of the batch.</p>
+ *
+ * <p>If a batch fails, its events are written one by one. A replayed event which was
+ * written before the crash is skipped. Any other failing event is retried
+ * until it is written and blocks the events queued behind it, since later events of
+ * its process instance may update the rows it inserts. If the process engine stops
+ * meanwhile, the writer stops at the failing event. The handler tries to write it
+ * and the following events once more after the writer thread ended; if it fails
+ * again, they stay in the write-ahead log, from which they are replayed in order.</p>
+ */
+public class HistoryEventWriter implements Runnable {
+
+  private static Logger log = Logger.getLogger(HistoryEventWriter.class.getName());
+
+  protected static final long POLL_TIMEOUT_MILLIS = 100;
+  protected static final long RETRY_BACKOFF_MILLIS = 500;
+  protected static final long MAX_RETRY_BACKOFF_MILLIS = 30000;
+
+  protected AsyncHistoryEventHandler historyEventHandler;
+  protected BlockingQueue<QueuedHistoryEvent> queue;
+  protected int batchSize;
+
+  /** the events of the batch the writer thread stopped at */
+  protected List<QueuedHistoryEvent> unwrittenEvents = new ArrayList<QueuedHistoryEvent>();
+
+  /** the events queued after the process engine began to stop */
+  protected Queue<QueuedHistoryEvent> remainingEvents = new ConcurrentLinkedQueue<QueuedHistoryEvent>();
+
+  public HistoryEventWriter(AsyncHistoryEventHandler historyEventHandler, int queueCapacity, int batchSize) {
+    this.historyEventHandler = historyEventHandler;
+    this.queue = new ArrayBlockingQueue<QueuedHistoryEvent>(queueCapacity);
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Queues the event and blocks while the queue is full. Once the process engine
+   * stops, the event is kept for {@link #writeRemainingEvents()} instead.
+   */
+  public void queue(QueuedHistoryEvent event) {
+    try {
+      while (true) {
+        if (!historyEventHandler.isRunning()) {
+          remainingEvents.add(event);
+          return;
+        }
+        if (queue.offer(event, POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+          return;
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ProcessEngineException("Interrupted while queueing history event " + event.getHistoryEvent(), e);
+    }
+  }
+
+  public void run() {
+    List<QueuedHistoryEvent> batch = new ArrayList<QueuedHistoryEvent>();
+
+    // the queued events are written before the writer stops
+    while (historyEventHandler.isRunning() || !queue.isEmpty()) {
+      QueuedHistoryEvent event;
+      try {
+        event = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      }
+      catch (InterruptedException e) {
+        continue;
+      }
+      if (event != null) {
+        batch.add(event);
+        queue.drainTo(batch, batchSize - 1);
+        boolean written = writeBatch(batch);
+        if (!written) {
+          // the process engine stopped while an event could not be written,
+          // the queued events must not overtake it
+          for (QueuedHistoryEvent batchEvent : batch) {
+            if (!batchEvent.isWritten()) {
+              unwrittenEvents.add(batchEvent);
+            }
+          }
+          return;
+        }
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Writes the events the writer thread left behind, in order, until an event
+   * fails. The failing event and the following ones stay in the write-ahead log.
+   * Called by the stopping handler once the writer thread ended.
+   */
+  public void writeRemainingEvents() {
+    List<QueuedHistoryEvent> events = new ArrayList<QueuedHistoryEvent>(unwrittenEvents);
+    unwrittenEvents.clear();
+    queue.drainTo(events);
+    QueuedHistoryEvent event;
+    while ((event = remainingEvents.poll()) != null) {
+      events.add(event);
+    }
+
+    for (int i = 0; i < events.size(); i += batchSize) {
+      if (!writeBatch(events.subList(i, Math.min(i + batchSize, events.size())))) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return false if the writing stopped at an event which cannot be written
+   */
+  protected boolean writeBatch(List<QueuedHistoryEvent> batch) {
+    List<QueuedHistoryEvent> part = new ArrayList<QueuedHistoryEvent>();
+    Set<String> ids = new HashSet<String>();
+
+    for (QueuedHistoryEvent event : batch) {
+      String id = event.getHistoryEvent().getId();
+      if (id != null && !ids.add(id)) {
+        if (!writePart(part)) {
+          return false;
+        }
+        part = new ArrayList<QueuedHistoryEvent>();
+        ids.clear();
+        ids.add(id);
+      }
+      part.add(event);
+    }
+    return writePart(part);
+  }
+
+  /**
+   * @return false if the writing stopped at an event which cannot be written
+   */
+  protected boolean writePart(List<QueuedHistoryEvent> part) {
+    List<HistoryEvent> historyEvents = new ArrayList<HistoryEvent>();
+    for (QueuedHistoryEvent event : part) {
+      historyEvents.add(event.getHistoryEvent());
+    }
+
+    try {
+      historyEventHandler.write(historyEvents);
+    }
+    catch (Exception e) {
+      log.log(Level.FINE, "Cannot write a batch of " + part.size() + " history events, writing them one by one", e);
+      for (QueuedHistoryEvent event : part) {
+        if (!writeEvent(event)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    for (QueuedHistoryEvent event : part) {
+      historyEventHandler.written(event);
+    }
+    return true;
+  }
+
+  /**
+   * Writes the event, retrying it while the process engine is running.
+   *
+   * @return false if the process engine stopped before the event could be written
+   */
+  protected boolean writeEvent(QueuedHistoryEvent event) {
+    HistoryEvent historyEvent = event.getHistoryEvent();
+    int attempts = 0;
+
+    while (true) {
+      try {
+        historyEventHandler.write(Collections.singletonList(historyEvent));
+        historyEventHandler.written(event);
+        return true;
+      }
+      catch (Exception e) {
+        attempts++;
+
+        if (event.isReplayed() && isWritten(historyEvent)) {
+          log.warning("Skipping replayed history event " + historyEvent + ", it was written before the crash");
+          historyEventHandler.written(event);
+          return true;
+        }
+        if (historyEventHandler.getDeliveryGuarantee() == HistoryEventDeliveryGuarantee.AT_MOST_ONCE) {
+          log.log(Level.SEVERE, "Dropping history event " + historyEvent, e);
+          historyEventHandler.written(event);
+          return true;
+        }
+        if (!historyEventHandler.isRunning()) {
+          log.log(Level.SEVERE, "Cannot write history event " + historyEvent + ", it and the events queued behind it"
+              + " are replayed from the write-ahead log when the process engine starts again", e);
+          return false;
+        }
+
+        long backoff = Math.min(RETRY_BACKOFF_MILLIS << Math.min(attempts - 1, 16), MAX_RETRY_BACKOFF_MILLIS);
+        log.log(Level.WARNING, "Cannot write history event " + historyEvent + ", retrying in " + backoff
+            + " ms, the events queued behind it wait (attempt " + attempts + ")", e);
+        sleep(backoff);
+      }
+    }
+  }
+
+  protected boolean isWritten(HistoryEvent historyEvent) {
+    try {
+      return historyEventHandler.isWritten(historyEvent);
+    }
+    catch (Exception e) {
+      log.log(Level.FINE, "Cannot check whether history event " + historyEvent + " was written", e);
+      return false;
+    }
+  }
+
+  /**
+   * Sleeps in short steps, so that a stopping process engine does not wait for the backoff.
+   */
+  protected void sleep(long millis) {
+    long wakeUpTime = System.currentTimeMillis() + millis;
+    long remaining = millis;
+    while (remaining > 0 && historyEventHandler.isRunning()) {
+      try {
+        Thread.sleep(Math.min(remaining, POLL_TIMEOUT_MILLIS));
+      }
+      catch (InterruptedException e) {
+        // retry now
+        return;
+      }
+      remaining = wakeUpTime - System.currentTimeMillis();
+    }
+  }
+
+}
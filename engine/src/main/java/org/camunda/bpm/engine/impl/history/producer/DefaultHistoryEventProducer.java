@@ -52,6 +52,7 @@ import org.camunda.bpm.engine.impl.util.ClockUtil;
 import org.camunda.bpm.engine.management.JobDefinition;
 import org.camunda.bpm.engine.runtime.Incident;
 import org.camunda.bpm.engine.runtime.Job;
+import org.camunda.bpm.engine.variable.type.ValueType;
 
 /**
  * @author Daniel Meyer
@@ -163,8 +164,13 @@ public class DefaultHistoryEventProducer implements HistoryEventProducer {
     evt.setDoubleValue(variableInstance.getDoubleValue());
     evt.setLongValue(variableInstance.getLongValue());
     if (variableInstance.getByteArrayValueId() != null) {
-      ByteArrayEntity byteArrayValue = variableInstance.getByteArrayValue();
-      evt.setByteValue(byteArrayValue.getBytes());
+      if (ValueType.STREAM.getName().equals(variableInstance.getSerializerName())) {
+        // streamed content is copied by the database instead of being loaded
+        evt.setSourceByteArrayId(variableInstance.getByteArrayValueId());
+      } else {
+        ByteArrayEntity byteArrayValue = variableInstance.getByteArrayValue();
+        evt.setByteValue(byteArrayValue.getBytes());
+      }
     }
   }
 
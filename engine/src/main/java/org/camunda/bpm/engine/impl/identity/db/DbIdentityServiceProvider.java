@@ -21,6 +21,7 @@ import org.camunda.bpm.engine.identity.Group;
 import org.camunda.bpm.engine.identity.User;
 import org.camunda.bpm.engine.impl.context.Context;
 import org.camunda.bpm.engine.impl.identity.WritableIdentityProvider;
+import org.camunda.bpm.engine.impl.persistence.entity.EffectivePermissionManager;
 import org.camunda.bpm.engine.impl.persistence.entity.GroupEntity;
 import org.camunda.bpm.engine.impl.persistence.entity.MembershipEntity;
 import org.camunda.bpm.engine.impl.persistence.entity.UserEntity;
@@ -64,6 +65,7 @@ public class DbIdentityServiceProvider extends DbReadOnlyIdentityServiceProvider
     UserEntity user = findUserById(userId);
     if(user != null) {
       deleteMembershipsByUserId(userId);
+      getEffectivePermissionManager().membershipChanged(userId);
       deleteAuthorizations(Resources.USER, userId);
       getDbEntityManager().delete(user);
     }
@@ -93,6 +95,7 @@ public class DbIdentityServiceProvider extends DbReadOnlyIdentityServiceProvider
     checkAuthorization(Permissions.DELETE, Resources.GROUP, groupId);
     GroupEntity group = findGroupById(groupId);
     if(group != null) {
+      getEffectivePermissionManager().groupMembersChanged(groupId);
       deleteMembershipsByGroupId(groupId);
       deleteAuthorizations(Resources.GROUP, groupId);
       getDbEntityManager().delete(group);
@@ -108,6 +111,7 @@ public class DbIdentityServiceProvider extends DbReadOnlyIdentityServiceProvider
     parameters.put("groupId", groupId);
     getDbSqlSession().getSqlSession().insert("insertMembership", parameters);
     createDefaultMembershipAuthorizations(userId, groupId);
+    getEffectivePermissionManager().membershipChanged(userId);
   }
 
   public void deleteMembership(String userId, String groupId) {
@@ -118,6 +122,7 @@ public class DbIdentityServiceProvider extends DbReadOnlyIdentityServiceProvider
     parameters.put("userId", userId);
     parameters.put("groupId", groupId);
     getDbEntityManager().delete(MembershipEntity.class, "deleteMembership", parameters);
+    getEffectivePermissionManager().membershipChanged(userId);
   }
 
   protected void deleteMembershipsByUserId(String userId) {
@@ -128,6 +133,10 @@ public class DbIdentityServiceProvider extends DbReadOnlyIdentityServiceProvider
     getDbEntityManager().delete(MembershipEntity.class, "deleteMembershipsByGroupId", groupId);
   }
 
+  protected EffectivePermissionManager getEffectivePermissionManager() {
+    return getSession(EffectivePermissionManager.class);
+  }
+
   // authorizations ////////////////////////////////////////////////////////////
 
   protected void createDefaultAuthorizations(UserEntity userEntity) {
@@ -50,6 +50,7 @@ import org.camunda.bpm.engine.impl.persistence.entity.AuthorizationManager;
 import org.camunda.bpm.engine.impl.persistence.entity.ByteArrayManager;
 import org.camunda.bpm.engine.impl.persistence.entity.CommentManager;
 import org.camunda.bpm.engine.impl.persistence.entity.DeploymentManager;
+import org.camunda.bpm.engine.impl.persistence.entity.EffectivePermissionManager;
 import org.camunda.bpm.engine.impl.persistence.entity.EventSubscriptionManager;
 import org.camunda.bpm.engine.impl.persistence.entity.ExecutionEntity;
 import org.camunda.bpm.engine.impl.persistence.entity.ExecutionManager;
@@ -417,6 +418,10 @@ public class CommandContext {
     return getSession(AuthorizationManager.class);
   }
 
+  public EffectivePermissionManager getEffectivePermissionManager() {
+    return getSession(EffectivePermissionManager.class);
+  }
+
   public ReadOnlyIdentityProvider getReadOnlyIdentityProvider() {
     return getSession(ReadOnlyIdentityProvider.class);
   }
@@ -19,6 +19,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.camunda.bpm.engine.impl.Page;
+import org.camunda.bpm.engine.impl.ProcessEngineImpl;
 import org.camunda.bpm.engine.impl.interceptor.CommandExecutor;
 import org.camunda.bpm.engine.impl.persistence.entity.TimerEntity;
 import org.camunda.bpm.engine.impl.util.ClockUtil;
@@ -42,6 +43,9 @@ public class AcquireJobsRunnable implements Runnable {
   protected float waitIncreaseFactor = 2;
   protected long maxWait = 60 * 1000;
 
+  /** time to wait before checking again if the saturated job executor has free capacity */
+  protected long waitForCapacityInMillis = 100;
+
   public AcquireJobsRunnable(JobExecutor jobExecutor) {
     this.jobExecutor = jobExecutor;
   }
@@ -54,10 +58,17 @@ public class AcquireJobsRunnable implements Runnable {
     final CommandExecutor commandExecutor = jobExecutor.getCommandExecutor();
 
     while (!isInterrupted) {
-      int maxJobsPerAcquisition = jobExecutor.getMaxJobsPerAcquisition();
+      int maxJobsPerAcquisition = jobExecutor.getNumberOfJobsToAcquire();
 
       try {
-        AcquiredJobs acquiredJobs = commandExecutor.execute(jobExecutor.getAcquireJobsCmd());
+        if (maxJobsPerAcquisition == 0) {
+          // the job executor is saturated, do not acquire jobs which cannot be executed
+          millisToWait = waitForCapacityInMillis;
+          suspendAcquisition(millisToWait);
+          continue;
+        }
+
+        AcquiredJobs acquiredJobs = commandExecutor.execute(jobExecutor.getAcquireJobsCmd(maxJobsPerAcquisition));
 
         for (List<String> jobIds : acquiredJobs.getJobIdBatches()) {
           jobExecutor.executeJobs(jobIds);
@@ -99,27 +110,7 @@ public class AcquireJobsRunnable implements Runnable {
       }
 
       if ((millisToWait > 0) && (!isJobAdded)) {
-        try {
-          if (log.isLoggable(Level.FINE)) {
-            log.fine("job acquisition thread sleeping for " + millisToWait + " millis");
-          }
-          synchronized (MONITOR) {
-            if(!isInterrupted) {
-              isWaiting.set(true);
-              MONITOR.wait(millisToWait);
-            }
-          }
-
-          if (log.isLoggable(Level.FINE)) {
-            log.fine("job acquisition thread woke up");
-          }
-        } catch (InterruptedException e) {
-          if (log.isLoggable(Level.FINE)) {
-            log.fine("job acquisition wait interrupted");
-          }
-        } finally {
-          isWaiting.set(false);
-        }
+        suspendAcquisition(millisToWait);
       }
     }
 
@@ -128,6 +119,30 @@ public class AcquireJobsRunnable implements Runnable {
     }
   }
 
+  protected void suspendAcquisition(long millis) {
+    try {
+      if (log.isLoggable(Level.FINE)) {
+        log.fine("job acquisition thread sleeping for " + millis + " millis");
+      }
+      synchronized (MONITOR) {
+        if(!isInterrupted) {
+          isWaiting.set(true);
+          MONITOR.wait(millis);
+        }
+      }
+
+      if (log.isLoggable(Level.FINE)) {
+        log.fine("job acquisition thread woke up");
+      }
+    } catch (InterruptedException e) {
+      if (log.isLoggable(Level.FINE)) {
+        log.fine("job acquisition wait interrupted");
+      }
+    } finally {
+      isWaiting.set(false);
+    }
+  }
+
   public void stop() {
     synchronized (MONITOR) {
       isInterrupted = true;
@@ -137,6 +152,21 @@ public class AcquireJobsRunnable implements Runnable {
       }
   }
 
+  /**
+   * Called when a process engine is registered with the running job executor.
+   * By default, this wakes up the acquisition to acquire jobs of the new process engine.
+   */
+  public void processEngineRegistered(ProcessEngineImpl processEngine) {
+    jobWasAdded();
+  }
+
+  /**
+   * Called when a process engine is unregistered from the running job executor.
+   */
+  public void processEngineUnregistered(ProcessEngineImpl processEngine) {
+    jobWasAdded();
+  }
+
   public void jobWasAdded() {
     isJobAdded = true;
     if(isWaiting.compareAndSet(true, false)) {
@@ -173,4 +203,12 @@ public class AcquireJobsRunnable implements Runnable {
     this.maxWait = maxWait;
   }
 
+  public long getWaitForCapacityInMillis() {
+    return waitForCapacityInMillis;
+  }
+
+  public void setWaitForCapacityInMillis(long waitForCapacityInMillis) {
+    this.waitForCapacityInMillis = waitForCapacityInMillis;
+  }
+
 }
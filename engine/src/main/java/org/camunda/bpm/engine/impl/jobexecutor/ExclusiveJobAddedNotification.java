@@ -36,7 +36,7 @@ public class ExclusiveJobAddedNotification implements TransactionListener {
 
   public void execute(CommandContext commandContext) {
     if(log.isLoggable(Level.FINE)) {
-      log.log(Level.FINE, "Adding new exclusive job to job executor context. Job Id='"+jobId+"'.");
+      log.log(Level.FINE, "Adding new job to job executor context. Job Id='"+jobId+"'.");
     }
     jobExecutorContext.getCurrentProcessorJobQueue().add(jobId);
   }
@@ -12,14 +12,18 @@
  */
 package org.camunda.bpm.engine.impl.jobexecutor;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.camunda.bpm.engine.impl.ProcessEngineImpl;
+import org.camunda.bpm.engine.impl.cmd.ExecuteJobBatchCmd;
 import org.camunda.bpm.engine.impl.cmd.ExecuteJobsCmd;
 import org.camunda.bpm.engine.impl.context.Context;
 import org.camunda.bpm.engine.impl.interceptor.CommandExecutor;
+import org.camunda.bpm.engine.impl.metrics.Metrics;
+import org.camunda.bpm.engine.impl.metrics.MetricsRegistry;
 
 
 /**
@@ -45,6 +49,9 @@ public class ExecuteJobsRunnable implements Runnable {
   }
 
   public void run() {
+    final JobExecutor jobExecutor = getJobExecutor();
+    final MetricsRegistry metricsRegistry = getMetricsRegistry();
+
     final JobExecutorContext jobExecutorContext = new JobExecutorContext();
     final List<String> currentProcessorJobQueue = jobExecutorContext.getCurrentProcessorJobQueue();
     CommandExecutor commandExecutor = null;
@@ -60,13 +67,29 @@ public class ExecuteJobsRunnable implements Runnable {
     
     Context.setJobExecutorContext(jobExecutorContext);
     try {
+      if (jobIds instanceof NonExclusiveJobBatch && jobIds.size() > 1) {
+        executeJobBatch(commandExecutor, currentProcessorJobQueue, jobExecutor, metricsRegistry);
+      }
+
       while (!currentProcessorJobQueue.isEmpty()) {
         
         String nextJobId = currentProcessorJobQueue.remove(0);
+        long startTime = System.currentTimeMillis();
+        boolean successful = false;
         try {
           executeJob(nextJobId, commandExecutor);        
+          successful = true;
         } catch(Throwable t) {
           LOGG.log(Level.WARNING, "Exception while executing job with id "+nextJobId, t);
+        } finally {
+          long duration = System.currentTimeMillis() - startTime;
+          if (jobExecutor != null) {
+            jobExecutor.jobExecuted(duration);
+          }
+          if (metricsRegistry != null) {
+            metricsRegistry.markOccurrence(successful ? Metrics.JOB_SUCCESSFUL : Metrics.JOB_FAILED);
+            metricsRegistry.updateHistogram(Metrics.JOB_EXECUTION_TIME, duration);
+          }
         }
         
       }      
@@ -75,8 +98,58 @@ public class ExecuteJobsRunnable implements Runnable {
     }
   }
   
+  /**
+   * Executes the jobs of the batch in one transaction. If the transaction fails,
+   * the jobs stay in the queue and are executed one by one afterwards.
+   */
+  protected void executeJobBatch(CommandExecutor commandExecutor, List<String> currentProcessorJobQueue, JobExecutor jobExecutor, MetricsRegistry metricsRegistry) {
+    List<String> jobBatch = new ArrayList<String>(jobIds);
+    long startTime = System.currentTimeMillis();
+    try {
+      commandExecutor.execute(new ExecuteJobBatchCmd(jobBatch));
+    } catch (Throwable t) {
+      LOGG.log(Level.FINE, "Exception while executing jobs " + jobBatch + " in one transaction, executing them one by one", t);
+      return;
+    }
+
+    // jobs created by the batch may have been added to the queue in the meantime
+    currentProcessorJobQueue.removeAll(jobBatch);
+
+    long durationPerJob = (System.currentTimeMillis() - startTime) / jobBatch.size();
+    for (int i = 0; i < jobBatch.size(); i++) {
+      if (jobExecutor != null) {
+        jobExecutor.jobExecuted(durationPerJob);
+      }
+      if (metricsRegistry != null) {
+        metricsRegistry.markOccurrence(Metrics.JOB_SUCCESSFUL);
+        metricsRegistry.updateHistogram(Metrics.JOB_EXECUTION_TIME, durationPerJob);
+      }
+    }
+  }
+
   protected void executeJob(String nextJobId, CommandExecutor commandExecutor) {    
     commandExecutor.execute(new ExecuteJobsCmd(nextJobId));
   }
+
+  public List<String> getJobIds() {
+    return jobIds;
+  }
+
+  /**
+   * @return the metrics of the process engine or null if metrics are disabled
+   */
+  protected MetricsRegistry getMetricsRegistry() {
+    if (processEngine != null) {
+      return processEngine.getProcessEngineConfiguration().getMetricsRegistry();
+    }
+    return null;
+  }
+
+  protected JobExecutor getJobExecutor() {
+    if (jobExecutor == null && processEngine != null) {
+      return processEngine.getProcessEngineConfiguration().getJobExecutor();
+    }
+    return jobExecutor;
+  }
   
 }
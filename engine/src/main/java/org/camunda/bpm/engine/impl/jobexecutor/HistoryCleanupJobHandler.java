@@ -0,0 +1,170 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.jobexecutor;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.persistence.entity.ExecutionEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.HistoricProcessInstanceManager;
+import org.camunda.bpm.engine.impl.persistence.entity.TimerEntity;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
+
+/**
+ * <p>Removes the history of finished process instances whose process definition
+ * declares a history time to live which has expired.</p>
+ *
+ * <p>Each execution of the job deletes one batch of process instances in its own
+ * transaction. If the batch was full, the job is rescheduled to run again immediately.
+ * Otherwise, or if the job runs outside of the configured batch window, it is
+ * rescheduled to the next start of the batch window.</p>
+ *
+ * <p>A job which is {@link #CONFIGURATION_IMMEDIATELY_DUE immediately due} ignores the
+ * batch window and runs until all expired history is removed.</p>
+ */
+public class HistoryCleanupJobHandler implements JobHandler {
+
+  public final static String TYPE = "history-cleanup";
+
+  public final static String CONFIGURATION_SCHEDULED = "scheduled";
+  public final static String CONFIGURATION_IMMEDIATELY_DUE = "immediatelyDue";
+
+  public String getType() {
+    return TYPE;
+  }
+
+  public void execute(String configuration, ExecutionEntity execution, CommandContext commandContext) {
+    ProcessEngineConfigurationImpl processEngineConfiguration = Context.getProcessEngineConfiguration();
+    BatchWindow batchWindow = BatchWindow.parse(processEngineConfiguration.getHistoryCleanupBatchWindowStartTime(),
+        processEngineConfiguration.getHistoryCleanupBatchWindowEndTime());
+
+    Date now = ClockUtil.getCurrentTime();
+    boolean immediatelyDue = CONFIGURATION_IMMEDIATELY_DUE.equals(configuration);
+
+    if (immediatelyDue || (batchWindow != null && batchWindow.isWithin(now))) {
+      int batchSize = processEngineConfiguration.getHistoryCleanupBatchSize();
+
+      HistoricProcessInstanceManager historicProcessInstanceManager = commandContext.getHistoricProcessInstanceManager();
+      List<String> processInstanceIds = historicProcessInstanceManager.findHistoricProcessInstanceIdsForCleanup(batchSize);
+      historicProcessInstanceManager.deleteHistoricProcessInstanceByIds(processInstanceIds);
+
+      if (processInstanceIds.size() == batchSize) {
+        // there may be more to clean up
+        scheduleJob(now, configuration, commandContext);
+        return;
+      }
+    }
+
+    if (batchWindow != null) {
+      scheduleJob(batchWindow.getNextStart(now), CONFIGURATION_SCHEDULED, commandContext);
+    }
+  }
+
+  public static TimerEntity scheduleJob(Date duedate, String configuration, CommandContext commandContext) {
+    TimerEntity timer = new TimerEntity();
+    timer.setJobHandlerType(TYPE);
+    timer.setJobHandlerConfiguration(configuration);
+    timer.setDuedate(duedate);
+
+    commandContext.getJobManager().schedule(timer);
+
+    return timer;
+  }
+
+  /**
+   * The daily window in which the history cleanup runs, given by a start and an
+   * end time in the format <code>HH:mm</code>. The window may span midnight. If the
+   * start time equals the end time, the window spans the whole day.
+   */
+  public static class BatchWindow {
+
+    protected int startMinute;
+    protected int endMinute;
+
+    public BatchWindow(int startMinute, int endMinute) {
+      this.startMinute = startMinute;
+      this.endMinute = endMinute;
+    }
+
+    /**
+     * @return the batch window or null if neither a start time nor an end time is given
+     * @throws ProcessEngineException if only one of the times is given or a time cannot be parsed
+     */
+    public static BatchWindow parse(String startTime, String endTime) {
+      if (startTime == null && endTime == null) {
+        return null;
+      }
+      if (startTime == null || endTime == null) {
+        throw new ProcessEngineException("The start time and the end time of the history cleanup batch window must both be set");
+      }
+      return new BatchWindow(parseTimeOfDay(startTime), parseTimeOfDay(endTime));
+    }
+
+    protected static int parseTimeOfDay(String time) {
+      String[] parts = time.trim().split(":");
+      if (parts.length == 2) {
+        try {
+          int hours = Integer.parseInt(parts[0]);
+          int minutes = Integer.parseInt(parts[1]);
+          if (hours >= 0 && hours < 24 && minutes >= 0 && minutes < 60) {
+            return hours * 60 + minutes;
+          }
+        } catch (NumberFormatException e) {
+          // handled below
+        }
+      }
+      throw new ProcessEngineException("Cannot parse history cleanup batch window time '" + time + "': value must have the format HH:mm");
+    }
+
+    public boolean isWithin(Date date) {
+      int minute = getMinuteOfDay(date);
+      if (startMinute < endMinute) {
+        return minute >= startMinute && minute < endMinute;
+      }
+      else if (startMinute > endMinute) {
+        return minute >= startMinute || minute < endMinute;
+      }
+      else {
+        return true;
+      }
+    }
+
+    /**
+     * @return the next start of the batch window after the given date
+     */
+    public Date getNextStart(Date date) {
+      Calendar nextStart = Calendar.getInstance();
+      nextStart.setTime(date);
+      nextStart.set(Calendar.HOUR_OF_DAY, startMinute / 60);
+      nextStart.set(Calendar.MINUTE, startMinute % 60);
+      nextStart.set(Calendar.SECOND, 0);
+      nextStart.set(Calendar.MILLISECOND, 0);
+      if (!nextStart.getTime().after(date)) {
+        nextStart.add(Calendar.DAY_OF_MONTH, 1);
+      }
+      return nextStart.getTime();
+    }
+
+    protected int getMinuteOfDay(Date date) {
+      Calendar calendar = Calendar.getInstance();
+      calendar.setTime(date);
+      return calendar.get(Calendar.HOUR_OF_DAY) * 60 + calendar.get(Calendar.MINUTE);
+    }
+  }
+
+}
@@ -40,6 +40,12 @@ public abstract class JobDeclaration<T extends JobEntity> implements Serializabl
 
   protected boolean exclusive = JobEntity.DEFAULT_EXCLUSIVE;
 
+  /** the priority declared in the process definition; null if none was declared */
+  protected Long jobPriority;
+
+  /** the maximum number of jobs which are executed in one transaction; null if none was declared */
+  protected Integer jobBatchSize;
+
   protected String activityId;
 
   public JobDeclaration(String jobHandlerType) {
@@ -60,6 +66,10 @@ public abstract class JobDeclaration<T extends JobEntity> implements Serializabl
     // set job definition id
     job.setJobDefinitionId(jobDefinitionId);
 
+    if(jobPriority != null) {
+      job.setPriority(jobPriority);
+    }
+
     if(jobDefinitionId != null) {
 
       JobDefinitionEntity jobDefinition = Context.getCommandContext()
@@ -72,6 +82,11 @@ public abstract class JobDeclaration<T extends JobEntity> implements Serializabl
         job.setSuspensionState(jobDefinition.getSuspensionState());
         job.setProcessDefinitionKey(jobDefinition.getProcessDefinitionKey());
         job.setProcessDefinitionId(jobDefinition.getProcessDefinitionId());
+
+        // a priority set on the job definition overrides the declared priority
+        if(jobDefinition.getOverridingJobPriority() != null) {
+          job.setPriority(jobDefinition.getOverridingJobPriority());
+        }
       }
 
     }
@@ -128,6 +143,22 @@ public abstract class JobDeclaration<T extends JobEntity> implements Serializabl
     this.activityId = activityId;
   }
 
+  public Long getJobPriority() {
+    return jobPriority;
+  }
+
+  public void setJobPriority(Long jobPriority) {
+    this.jobPriority = jobPriority;
+  }
+
+  public Integer getJobBatchSize() {
+    return jobBatchSize;
+  }
+
+  public void setJobBatchSize(Integer jobBatchSize) {
+    this.jobBatchSize = jobBatchSize;
+  }
+
   public String getJobConfiguration() {
     return jobConfiguration;
   }
@@ -16,9 +16,11 @@ package org.camunda.bpm.engine.impl.jobexecutor;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.camunda.bpm.engine.ProcessEngineException;
 import org.camunda.bpm.engine.impl.ProcessEngineImpl;
 import org.camunda.bpm.engine.impl.cmd.AcquireJobsCmd;
 import org.camunda.bpm.engine.impl.interceptor.Command;
@@ -42,6 +44,36 @@ public abstract class JobExecutor {
 
   private static Logger log = Logger.getLogger(JobExecutor.class.getName());
 
+  /**
+   * Acquires jobs by selecting them and locking them with revision-checked updates.
+   * Jobs concurrently locked by another job executor are detected as optimistic
+   * locking failures. This is the default strategy and works on all databases.
+   */
+  public static final String LOCKING_STRATEGY_OPTIMISTIC = "optimistic";
+
+  /**
+   * Acquires jobs using <code>SELECT ... FOR UPDATE SKIP LOCKED</code> so that
+   * jobs currently being acquired by another job executor are skipped instead of
+   * causing optimistic locking failures. Requires PostgreSQL 9.5+, Oracle or MySQL 8+;
+   * on all other databases the {@link #LOCKING_STRATEGY_OPTIMISTIC optimistic} strategy
+   * is used instead.
+   */
+  public static final String LOCKING_STRATEGY_SKIP_LOCKED = "skipLocked";
+
+  /**
+   * Acquires jobs for all registered process engines one after another
+   * in a single acquisition thread. This is the default strategy.
+   */
+  public static final String ACQUISITION_STRATEGY_SEQUENTIAL = "SEQUENTIAL";
+
+  /**
+   * Acquires jobs in a separate acquisition loop per registered process engine
+   * so that the process engines do not delay each other's job acquisition.
+   *
+   * @see ParallelJobAcquisitionRunnable
+   */
+  public static final String ACQUISITION_STRATEGY_PARALLEL = "PARALLEL";
+
   protected String name = "JobExecutor["+getClass().getName()+"]";
   protected List<ProcessEngineImpl> processEngines = new CopyOnWriteArrayList<ProcessEngineImpl>();
   protected Command<AcquiredJobs> acquireJobsCmd;
@@ -56,6 +88,13 @@ public abstract class JobExecutor {
   protected int waitTimeInMillis = 5 * 1000;
   protected String lockOwner = UUID.randomUUID().toString();
   protected int lockTimeInMillis = 5 * 60 * 1000;
+  protected String lockingStrategy = LOCKING_STRATEGY_OPTIMISTIC;
+  protected boolean lockJobsInBulk = false;
+  protected String acquisitionStrategy = ACQUISITION_STRATEGY_SEQUENTIAL;
+
+  /** weight of the most recent job duration in the average job duration */
+  protected double jobDurationWeight = 0.2;
+  protected final AtomicLong averageJobDurationInMillis = new AtomicLong(-1);
 
   public void start() {
     if (isActive) {
@@ -80,7 +119,15 @@ public abstract class JobExecutor {
 
   protected void ensureInitialization() {
     acquireJobsCmd = new AcquireJobsCmd(this);
-    acquireJobsRunnable = new SequentialJobAcquisitionRunnable(this);
+    acquireJobsRunnable = createAcquireJobsRunnable();
+  }
+
+  protected AcquireJobsRunnable createAcquireJobsRunnable() {
+    if (ACQUISITION_STRATEGY_PARALLEL.equals(acquisitionStrategy)) {
+      return new ParallelJobAcquisitionRunnable(this);
+    } else {
+      return new SequentialJobAcquisitionRunnable(this);
+    }
   }
 
   protected void ensureCleanup() {
@@ -100,6 +147,9 @@ public abstract class JobExecutor {
     // when we register the first process engine, start the jobexecutor
     if(processEngines.size() == 1 && isAutoActivate) {
       start();
+    } else {
+      // let the job acquisition pick up the new process engine
+      processEngineRegistered(processEngine);
     }
   }
 
@@ -109,6 +159,21 @@ public abstract class JobExecutor {
     // if we unregister the last process engine, auto-shutdown the jobexecutor
     if(processEngines.isEmpty() && isActive) {
       shutdown();
+    } else {
+      // let the job acquisition pick up the removed process engine
+      processEngineUnregistered(processEngine);
+    }
+  }
+
+  protected void processEngineRegistered(ProcessEngineImpl processEngine) {
+    if(isActive) {
+      acquireJobsRunnable.processEngineRegistered(processEngine);
+    }
+  }
+
+  protected void processEngineUnregistered(ProcessEngineImpl processEngine) {
+    if(isActive) {
+      acquireJobsRunnable.processEngineUnregistered(processEngine);
     }
   }
 
@@ -116,6 +181,79 @@ public abstract class JobExecutor {
   protected abstract void stopExecutingJobs();
   public abstract void executeJobs(List<String> jobIds, ProcessEngineImpl processEngine);
 
+  /**
+   * Starts an additional, long running job acquisition loop. Used by the
+   * {@link ParallelJobAcquisitionRunnable} to start one loop per process engine.
+   * Subclasses may override this to delegate thread management to the environment.
+   */
+  public void startAcquisitionLoop(Runnable acquisitionLoop, String name) {
+    Thread acquisitionThread = new Thread(acquisitionLoop, name);
+    acquisitionThread.start();
+  }
+
+  /**
+   * Returns the number of job batches the job executor is able to accept
+   * without rejecting them. Acquisition loops do not acquire jobs while the
+   * job executor has no free capacity.
+   */
+  public int getFreeCapacity() {
+    return Integer.MAX_VALUE;
+  }
+
+  /**
+   * Returns the number of jobs to acquire next, which is the configured
+   * {@link #getMaxJobsPerAcquisition() maximum} limited by the {@link #getFreeCapacity() free capacity}
+   * of the job executor. Returns 0 if the job executor is saturated.
+   */
+  public int getNumberOfJobsToAcquire() {
+    return Math.max(0, Math.min(maxJobsPerAcquisition, getFreeCapacity()));
+  }
+
+  /**
+   * Returns the number of jobs which can be queued in addition to the pending jobs
+   * such that all of them are started before their lock expires, based on the
+   * {@link #getAverageJobDurationInMillis() average job duration}.
+   *
+   * @param executionThreads the number of threads executing jobs
+   * @param pendingJobs the number of jobs queued or currently executed
+   */
+  protected int getJobsExecutableWithinLockTime(int executionThreads, int pendingJobs) {
+    long averageJobDuration = getAverageJobDurationInMillis();
+    if (averageJobDuration <= 0) {
+      return Integer.MAX_VALUE;
+    }
+
+    // each thread executes one job right away and the following ones after the average job duration
+    double jobsPerThread = 1 + (double) lockTimeInMillis / averageJobDuration;
+    long executableJobs = (long) (executionThreads * jobsPerThread) - pendingJobs;
+    return (int) Math.max(0, Math.min(Integer.MAX_VALUE, executableJobs));
+  }
+
+  /**
+   * Records the duration of an executed job. Used to calculate the
+   * {@link #getAverageJobDurationInMillis() average job duration}.
+   */
+  public void jobExecuted(long durationInMillis) {
+    long currentAverage;
+    long newAverage;
+    do {
+      currentAverage = averageJobDurationInMillis.get();
+      if (currentAverage < 0) {
+        newAverage = durationInMillis;
+      } else {
+        newAverage = Math.round(currentAverage + jobDurationWeight * (durationInMillis - currentAverage));
+      }
+    } while (!averageJobDurationInMillis.compareAndSet(currentAverage, newAverage));
+  }
+
+  /**
+   * @return the exponentially weighted average duration of the executed jobs
+   *         or -1 if no job has been executed yet.
+   */
+  public long getAverageJobDurationInMillis() {
+    return averageJobDurationInMillis.get();
+  }
+
   /**
    * Deprecated: use {@link #executeJobs(List, ProcessEngineImpl)} instead
    * @param jobIds
@@ -198,6 +336,54 @@ public abstract class JobExecutor {
     this.maxJobsPerAcquisition = maxJobsPerAcquisition;
   }
 
+  public String getLockingStrategy() {
+    return lockingStrategy;
+  }
+
+  public void setLockingStrategy(String lockingStrategy) {
+    if (!LOCKING_STRATEGY_OPTIMISTIC.equals(lockingStrategy)
+        && !LOCKING_STRATEGY_SKIP_LOCKED.equals(lockingStrategy)) {
+      throw new ProcessEngineException("Unknown job locking strategy '" + lockingStrategy + "', expected one of '"
+          + LOCKING_STRATEGY_OPTIMISTIC + "' or '" + LOCKING_STRATEGY_SKIP_LOCKED + "'");
+    }
+    this.lockingStrategy = lockingStrategy;
+  }
+
+  public boolean isSkipLockedAcquisition() {
+    return LOCKING_STRATEGY_SKIP_LOCKED.equals(lockingStrategy);
+  }
+
+  public boolean isLockJobsInBulk() {
+    return lockJobsInBulk;
+  }
+
+  /**
+   * If set to true, all jobs of an acquisition are locked with a single
+   * set-based update statement instead of one update statement per job.
+   * Recommended when acquiring many jobs at once (see {@link #setMaxJobsPerAcquisition(int)}).
+   */
+  public void setLockJobsInBulk(boolean lockJobsInBulk) {
+    this.lockJobsInBulk = lockJobsInBulk;
+  }
+
+  public String getAcquisitionStrategy() {
+    return acquisitionStrategy;
+  }
+
+  /**
+   * Sets the strategy used to acquire jobs for multiple process engines, either
+   * {@link #ACQUISITION_STRATEGY_SEQUENTIAL} or {@link #ACQUISITION_STRATEGY_PARALLEL}.
+   * Takes effect the next time the job executor is started.
+   */
+  public void setAcquisitionStrategy(String acquisitionStrategy) {
+    if (!ACQUISITION_STRATEGY_SEQUENTIAL.equals(acquisitionStrategy)
+        && !ACQUISITION_STRATEGY_PARALLEL.equals(acquisitionStrategy)) {
+      throw new ProcessEngineException("Unknown job acquisition strategy '" + acquisitionStrategy + "', expected one of '"
+          + ACQUISITION_STRATEGY_SEQUENTIAL + "' or '" + ACQUISITION_STRATEGY_PARALLEL + "'");
+    }
+    this.acquisitionStrategy = acquisitionStrategy;
+  }
+
   public String getName() {
     return name;
   }
@@ -206,6 +392,15 @@ public abstract class JobExecutor {
     return acquireJobsCmd;
   }
 
+  /**
+   * Returns a new command acquiring the given number of jobs. The acquisition loops
+   * determine the {@link #getNumberOfJobsToAcquire() number of jobs to acquire} once and
+   * compare the acquired jobs with it, so the command must not determine it again.
+   */
+  public Command<AcquiredJobs> getAcquireJobsCmd(int numJobsToAcquire) {
+    return new AcquireJobsCmd(this, numJobsToAcquire);
+  }
+
   public void setAcquireJobsCmd(Command<AcquiredJobs> acquireJobsCmd) {
     this.acquireJobsCmd = acquireJobsCmd;
   }
@@ -0,0 +1,40 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.jobexecutor;
+
+import java.util.ArrayList;
+
+/**
+ * <p>The ids of acquired non-exclusive jobs of the same job definition which
+ * are executed in one transaction. The size of the batch is limited by the
+ * <code>camunda:jobBatchSize</code> declared for the job definition.</p>
+ *
+ * <p>If the transaction fails, the jobs are executed again one by one so that
+ * a failing job does not roll back the other jobs of the batch.</p>
+ */
+public class NonExclusiveJobBatch extends ArrayList<String> {
+
+  private static final long serialVersionUID = 1L;
+
+  protected final int maxSize;
+
+  public NonExclusiveJobBatch(int maxSize) {
+    super(maxSize);
+    this.maxSize = maxSize;
+  }
+
+  public boolean isFull() {
+    return size() >= maxSize;
+  }
+
+}
@@ -0,0 +1,163 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.jobexecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.camunda.bpm.engine.impl.ProcessEngineImpl;
+
+/**
+ * <p>{@link AcquireJobsRunnable} able to serve multiple process engines in parallel.</p>
+ *
+ * <p>Starts a {@link ProcessEngineJobAcquisitionRunnable} for each process engine registered
+ * with the job executor and keeps the set of acquisition loops in sync with the registered
+ * process engines. Contrary to the {@link SequentialJobAcquisitionRunnable}, a slow or
+ * unavailable database of one process engine does not delay the acquisition of jobs
+ * for the other process engines.</p>
+ */
+public class ParallelJobAcquisitionRunnable extends AcquireJobsRunnable {
+
+  private static Logger log = Logger.getLogger(ParallelJobAcquisitionRunnable.class.getName());
+
+  protected Map<ProcessEngineImpl, ProcessEngineJobAcquisitionRunnable> acquisitionLoops = new ConcurrentHashMap<ProcessEngineImpl, ProcessEngineJobAcquisitionRunnable>();
+
+  /** time to wait for the acquisition loops to terminate on shutdown */
+  protected long shutdownTimeoutInMillis = 60 * 1000;
+
+  public ParallelJobAcquisitionRunnable(JobExecutor jobExecutor) {
+    super(jobExecutor);
+  }
+
+  public synchronized void run() {
+    log.info(jobExecutor.getName() + " starting parallel job acquisition");
+
+    try {
+      while (!isInterrupted) {
+        try {
+          updateAcquisitionLoops();
+        } catch (Exception e) {
+          log.log(Level.SEVERE, "exception while updating job acquisition loops: " + e.getMessage(), e);
+        }
+
+        try {
+          synchronized (MONITOR) {
+            if (!isInterrupted) {
+              isWaiting.set(true);
+              MONITOR.wait(jobExecutor.getWaitTimeInMillis());
+            }
+          }
+        } catch (InterruptedException e) {
+          log.fine("job acquisition wait interrupted");
+        } finally {
+          isWaiting.set(false);
+        }
+      }
+
+    } finally {
+      stopAcquisitionLoops();
+    }
+
+    log.info(jobExecutor.getName() + " stopped parallel job acquisition");
+  }
+
+  /**
+   * Starts an acquisition loop for each newly registered process engine and
+   * stops the loops of process engines which have been unregistered.
+   */
+  protected void updateAcquisitionLoops() {
+    List<ProcessEngineImpl> registeredProcessEngines = new ArrayList<ProcessEngineImpl>(jobExecutor.getProcessEngines());
+
+    for (ProcessEngineImpl processEngine : registeredProcessEngines) {
+      if (!acquisitionLoops.containsKey(processEngine)) {
+        ProcessEngineJobAcquisitionRunnable acquisitionLoop = createAcquisitionLoop(processEngine);
+        jobExecutor.startAcquisitionLoop(acquisitionLoop, jobExecutor.getName() + "[" + processEngine.getName() + "]");
+        acquisitionLoops.put(processEngine, acquisitionLoop);
+      }
+    }
+
+    for (ProcessEngineImpl processEngine : new ArrayList<ProcessEngineImpl>(acquisitionLoops.keySet())) {
+      if (!registeredProcessEngines.contains(processEngine)) {
+        acquisitionLoops.remove(processEngine).stop();
+      }
+    }
+  }
+
+  protected ProcessEngineJobAcquisitionRunnable createAcquisitionLoop(ProcessEngineImpl processEngine) {
+    ProcessEngineJobAcquisitionRunnable acquisitionLoop = new ProcessEngineJobAcquisitionRunnable(jobExecutor, processEngine);
+    acquisitionLoop.setWaitIncreaseFactor(waitIncreaseFactor);
+    acquisitionLoop.setMaxWait(maxWait);
+    acquisitionLoop.setWaitForCapacityInMillis(waitForCapacityInMillis);
+    return acquisitionLoop;
+  }
+
+  protected void stopAcquisitionLoops() {
+    List<ProcessEngineJobAcquisitionRunnable> stoppedLoops = new ArrayList<ProcessEngineJobAcquisitionRunnable>(acquisitionLoops.values());
+    acquisitionLoops.clear();
+
+    for (ProcessEngineJobAcquisitionRunnable acquisitionLoop : stoppedLoops) {
+      acquisitionLoop.stop();
+    }
+
+    long deadline = System.currentTimeMillis() + shutdownTimeoutInMillis;
+    for (ProcessEngineJobAcquisitionRunnable acquisitionLoop : stoppedLoops) {
+      try {
+        long remainingTime = Math.max(0, deadline - System.currentTimeMillis());
+        if (!acquisitionLoop.awaitTermination(remainingTime, TimeUnit.MILLISECONDS)) {
+          log.log(Level.WARNING, "Timeout while waiting for the job acquisition of process engine '"
+              + acquisitionLoop.getProcessEngine().getName() + "' to terminate");
+        }
+      } catch (InterruptedException e) {
+        log.log(Level.WARNING, "Interrupted while waiting for the job acquisition loops to terminate", e);
+        return;
+      }
+    }
+  }
+
+  public void processEngineRegistered(ProcessEngineImpl processEngine) {
+    // only wake up to start the acquisition loop of the new process engine,
+    // the loops of the other process engines are not affected
+    super.jobWasAdded();
+  }
+
+  public void processEngineUnregistered(ProcessEngineImpl processEngine) {
+    // only wake up to stop the acquisition loop of the removed process engine
+    super.jobWasAdded();
+  }
+
+  public void jobWasAdded() {
+    super.jobWasAdded();
+
+    for (ProcessEngineJobAcquisitionRunnable acquisitionLoop : acquisitionLoops.values()) {
+      acquisitionLoop.jobWasAdded();
+    }
+  }
+
+  public Map<ProcessEngineImpl, ProcessEngineJobAcquisitionRunnable> getAcquisitionLoops() {
+    return acquisitionLoops;
+  }
+
+  public long getShutdownTimeoutInMillis() {
+    return shutdownTimeoutInMillis;
+  }
+
+  public void setShutdownTimeoutInMillis(long shutdownTimeoutInMillis) {
+    this.shutdownTimeoutInMillis = shutdownTimeoutInMillis;
+  }
+
+}
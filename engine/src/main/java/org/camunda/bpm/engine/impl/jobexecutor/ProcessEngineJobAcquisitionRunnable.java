@@ -0,0 +1,123 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.jobexecutor;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.camunda.bpm.engine.impl.ProcessEngineImpl;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandExecutor;
+
+/**
+ * <p>Acquisition loop for a single process engine. Used by the {@link ParallelJobAcquisitionRunnable}
+ * so that a slow database of one process engine does not delay the job acquisition
+ * of the other process engines.</p>
+ *
+ * <p>Each loop keeps its own wait / backoff state. Jobs are only acquired if the
+ * job executor has free capacity to execute them.</p>
+ */
+public class ProcessEngineJobAcquisitionRunnable extends AcquireJobsRunnable {
+
+  private static Logger log = Logger.getLogger(ProcessEngineJobAcquisitionRunnable.class.getName());
+
+  protected final ProcessEngineImpl processEngine;
+  protected final CountDownLatch terminated = new CountDownLatch(1);
+
+  public ProcessEngineJobAcquisitionRunnable(JobExecutor jobExecutor, ProcessEngineImpl processEngine) {
+    super(jobExecutor);
+    this.processEngine = processEngine;
+  }
+
+  public synchronized void run() {
+    log.info(jobExecutor.getName() + " starting to acquire jobs for process engine '" + processEngine.getName() + "'");
+
+    try {
+      while (!isInterrupted) {
+        int numJobsToAcquire = jobExecutor.getNumberOfJobsToAcquire();
+        if (numJobsToAcquire > 0) {
+          acquireJobs(numJobsToAcquire);
+        } else {
+          // the job executor is saturated, do not acquire jobs which cannot be executed
+          millisToWait = waitForCapacityInMillis;
+        }
+
+        if (millisToWait > 0 && !isJobAdded) {
+          suspendAcquisition(millisToWait);
+        }
+        isJobAdded = false;
+      }
+
+    } finally {
+      terminated.countDown();
+    }
+
+    log.info(jobExecutor.getName() + " stopped job acquisition for process engine '" + processEngine.getName() + "'");
+  }
+
+  protected void acquireJobs(int numJobsToAcquire) {
+    try {
+      CommandExecutor commandExecutor = processEngine.getProcessEngineConfiguration().getCommandExecutorTxRequired();
+      AcquiredJobs acquiredJobs = commandExecutor.execute(createAcquireJobsCmd(numJobsToAcquire));
+
+      for (List<String> jobIds : acquiredJobs.getJobIdBatches()) {
+        jobExecutor.executeJobs(jobIds, processEngine);
+      }
+
+      // add number of jobs which we attempted to acquire but could not obtain a lock for -> do not wait if we could not acquire jobs.
+      int jobsAcquired = acquiredJobs.getJobIdBatches().size() + acquiredJobs.getNumberOfJobsFailedToLock();
+      if (jobsAcquired < numJobsToAcquire) {
+        millisToWait = jobExecutor.getWaitTimeInMillis();
+      } else {
+        millisToWait = 0;
+      }
+
+    } catch (Exception e) {
+      log.log(Level.SEVERE, "exception during job acquisition for process engine '" + processEngine.getName() + "': " + e.getMessage(), e);
+
+      if (millisToWait == 0) {
+        millisToWait = jobExecutor.getWaitTimeInMillis();
+      } else {
+        millisToWait *= waitIncreaseFactor;
+        if (millisToWait > maxWait) {
+          millisToWait = maxWait;
+        }
+      }
+    }
+  }
+
+  /**
+   * The command is not shared with other acquisition loops since it
+   * holds state of the current acquisition.
+   */
+  protected Command<AcquiredJobs> createAcquireJobsCmd(int numJobsToAcquire) {
+    return jobExecutor.getAcquireJobsCmd(numJobsToAcquire);
+  }
+
+  /**
+   * Waits until the acquisition loop has terminated after it has been {@link #stop() stopped}.
+   *
+   * @return true if the loop terminated within the given time
+   */
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return terminated.await(timeout, unit);
+  }
+
+  public ProcessEngineImpl getProcessEngine() {
+    return processEngine;
+  }
+
+}
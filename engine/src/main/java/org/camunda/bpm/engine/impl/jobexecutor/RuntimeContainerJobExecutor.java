@@ -39,6 +39,13 @@ public class RuntimeContainerJobExecutor extends JobExecutor {
    
   }
 
+  public void startAcquisitionLoop(Runnable acquisitionLoop, String name) {
+    // the acquisition loop is long running
+    if(!getRuntimeContainerDelegate().getExecutorService().schedule(acquisitionLoop, true)) {
+      throw new ProcessEngineException("Could not schedule job acquisition loop '" + name + "' for execution.");
+    }
+  }
+
   protected void stopExecutingJobs() {
     // nothing to do
   }
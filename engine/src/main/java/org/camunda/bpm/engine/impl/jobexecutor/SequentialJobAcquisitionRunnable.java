@@ -31,7 +31,13 @@ public class SequentialJobAcquisitionRunnable extends AcquireJobsRunnable {
 
     while (!isInterrupted) {
       ProcessEngineImpl currentProcessEngine = null;
-      int maxJobsPerAcquisition = jobExecutor.getMaxJobsPerAcquisition();
+      int maxJobsPerAcquisition = jobExecutor.getNumberOfJobsToAcquire();
+
+      if (maxJobsPerAcquisition == 0) {
+        // the job executor is saturated, do not acquire jobs which cannot be executed
+        suspendAcquisition(waitForCapacityInMillis);
+        continue;
+      }
 
       try {
 
@@ -61,7 +67,7 @@ public class SequentialJobAcquisitionRunnable extends AcquireJobsRunnable {
           final CommandExecutor commandExecutor = currentProcessEngine.getProcessEngineConfiguration()
               .getCommandExecutorTxRequired();
 
-          AcquiredJobs acquiredJobs = commandExecutor.execute(jobExecutor.getAcquireJobsCmd());
+          AcquiredJobs acquiredJobs = commandExecutor.execute(jobExecutor.getAcquireJobsCmd(maxJobsPerAcquisition));
 
           for (List<String> jobIds : acquiredJobs.getJobIdBatches()) {
             jobExecutor.executeJobs(jobIds, currentProcessEngine);
@@ -0,0 +1,173 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.jobexecutor;
+
+import java.util.Date;
+import java.util.List;
+
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.persistence.entity.EventSubscriptionManager;
+import org.camunda.bpm.engine.impl.persistence.entity.ExecutionEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.MessageEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.SignalEventSubscriptionEntity;
+
+/**
+ * <p>Delivers a signal asynchronously to all executions waiting on it.</p>
+ *
+ * <p>The first job of a broadcast pages over the ids of the matching signal event
+ * subscriptions and creates a job for each chunk of them. The chunk jobs are not
+ * exclusive and run in parallel. Each chunk job delivers the signal to the
+ * subscriptions of its chunk in its own transaction, so a failure only rolls back
+ * and retries this chunk.</p>
+ *
+ * <p>Only subscriptions which existed when the signal was received are notified.</p>
+ */
+public class SignalBroadcastJobHandler implements JobHandler {
+
+  public final static String TYPE = "signal-broadcast";
+
+  public final static String JOB_HANDLER_CONFIG_DELIMITER = "$";
+
+  public String getType() {
+    return TYPE;
+  }
+
+  public void execute(String configuration, ExecutionEntity execution, CommandContext commandContext) {
+    SignalBroadcastConfiguration broadcast = SignalBroadcastConfiguration.parse(configuration);
+
+    if (broadcast.isChunk()) {
+      deliverChunk(broadcast, commandContext);
+    }
+    else {
+      createChunks(broadcast, commandContext);
+    }
+  }
+
+  protected void createChunks(SignalBroadcastConfiguration broadcast, CommandContext commandContext) {
+    EventSubscriptionManager eventSubscriptionManager = commandContext.getEventSubscriptionManager();
+    int chunkSize = Context.getProcessEngineConfiguration().getSignalBroadcastChunkSize();
+
+    String lastId = null;
+    List<String> subscriptionIds;
+    do {
+      subscriptionIds = eventSubscriptionManager.findSignalEventSubscriptionIdsByEventName(
+          broadcast.getSignalName(), broadcast.getReceivedTime(), lastId, chunkSize);
+
+      if (!subscriptionIds.isEmpty()) {
+        String firstId = subscriptionIds.get(0);
+        lastId = subscriptionIds.get(subscriptionIds.size() - 1);
+        sendJob(broadcast.chunk(firstId, lastId), commandContext);
+      }
+    } while (subscriptionIds.size() == chunkSize);
+  }
+
+  protected void deliverChunk(SignalBroadcastConfiguration broadcast, CommandContext commandContext) {
+    List<SignalEventSubscriptionEntity> signalEvents = commandContext.getEventSubscriptionManager()
+      .findSignalEventSubscriptionsByEventNameAndIdRange(broadcast.getSignalName(), broadcast.getReceivedTime(),
+          broadcast.getFirstSubscriptionId(), broadcast.getLastSubscriptionId());
+
+    for (SignalEventSubscriptionEntity signalEvent : signalEvents) {
+      signalEvent.eventReceived(null, false);
+    }
+  }
+
+  public static void sendJob(SignalBroadcastConfiguration broadcast, CommandContext commandContext) {
+    MessageEntity message = new MessageEntity();
+    message.setJobHandlerType(TYPE);
+    message.setJobHandlerConfiguration(broadcast.toString());
+    message.setExclusive(false);
+
+    commandContext.getJobManager().send(message);
+  }
+
+  /**
+   * The configuration of a broadcast job. It consists of the id of the broadcast, the
+   * time the signal was received, the range of subscription ids of a chunk (empty for
+   * the job which creates the chunks) and the signal name, separated by
+   * {@link SignalBroadcastJobHandler#JOB_HANDLER_CONFIG_DELIMITER}. The broadcast id comes
+   * first, so that all jobs of a broadcast can be found by the prefix of their configuration.
+   */
+  public static class SignalBroadcastConfiguration {
+
+    protected String broadcastId;
+    protected Date receivedTime;
+    protected String firstSubscriptionId;
+    protected String lastSubscriptionId;
+    protected String signalName;
+
+    public SignalBroadcastConfiguration(String broadcastId, Date receivedTime, String signalName) {
+      this(broadcastId, receivedTime, null, null, signalName);
+    }
+
+    protected SignalBroadcastConfiguration(String broadcastId, Date receivedTime, String firstSubscriptionId, String lastSubscriptionId, String signalName) {
+      this.broadcastId = broadcastId;
+      this.receivedTime = receivedTime;
+      this.firstSubscriptionId = firstSubscriptionId;
+      this.lastSubscriptionId = lastSubscriptionId;
+      this.signalName = signalName;
+    }
+
+    public static String getPrefix(String broadcastId) {
+      return broadcastId + JOB_HANDLER_CONFIG_DELIMITER;
+    }
+
+    public static SignalBroadcastConfiguration parse(String configuration) {
+      // the signal name is last and may contain the delimiter
+      String[] parts = configuration.split("\\" + JOB_HANDLER_CONFIG_DELIMITER, 5);
+      return new SignalBroadcastConfiguration(parts[0], new Date(Long.parseLong(parts[1])),
+          emptyToNull(parts[2]), emptyToNull(parts[3]), parts[4]);
+    }
+
+    protected static String emptyToNull(String value) {
+      return value.length() == 0 ? null : value;
+    }
+
+    public SignalBroadcastConfiguration chunk(String firstSubscriptionId, String lastSubscriptionId) {
+      return new SignalBroadcastConfiguration(broadcastId, receivedTime, firstSubscriptionId, lastSubscriptionId, signalName);
+    }
+
+    public boolean isChunk() {
+      return firstSubscriptionId != null;
+    }
+
+    public String getBroadcastId() {
+      return broadcastId;
+    }
+
+    public Date getReceivedTime() {
+      return receivedTime;
+    }
+
+    public String getFirstSubscriptionId() {
+      return firstSubscriptionId;
+    }
+
+    public String getLastSubscriptionId() {
+      return lastSubscriptionId;
+    }
+
+    public String getSignalName() {
+      return signalName;
+    }
+
+    public String toString() {
+      return getPrefix(broadcastId)
+        + receivedTime.getTime() + JOB_HANDLER_CONFIG_DELIMITER
+        + (firstSubscriptionId != null ? firstSubscriptionId : "") + JOB_HANDLER_CONFIG_DELIMITER
+        + (lastSubscriptionId != null ? lastSubscriptionId : "") + JOB_HANDLER_CONFIG_DELIMITER
+        + signalName;
+    }
+  }
+
+}
@@ -44,6 +44,36 @@ public class ThreadPoolJobExecutor extends JobExecutor {
     }
   }
   
+  /**
+   * The free capacity is the number of jobs the thread pool accepts without rejecting
+   * them, limited to the number of jobs which are started before their lock expires.
+   * A queued runnable may execute several jobs, so the queued jobs are counted per runnable.
+   */
+  public int getFreeCapacity() {
+    if (threadPoolExecutor == null || threadPoolExecutor.isShutdown()) {
+      return super.getFreeCapacity();
+    }
+    int maximumPoolSize = threadPoolExecutor.getMaximumPoolSize();
+    int activeThreads = threadPoolExecutor.getActiveCount();
+    int queuedJobs = getQueuedJobs();
+
+    int freeSlots = threadPoolExecutor.getQueue().remainingCapacity() + Math.max(0, maximumPoolSize - activeThreads);
+    return Math.min(freeSlots, getJobsExecutableWithinLockTime(maximumPoolSize, activeThreads + queuedJobs));
+  }
+
+  protected int getQueuedJobs() {
+    int queuedJobs = 0;
+    for (Runnable runnable : threadPoolExecutor.getQueue()) {
+      if (runnable instanceof ExecuteJobsRunnable) {
+        queuedJobs += ((ExecuteJobsRunnable) runnable).getJobIds().size();
+      }
+      else {
+        queuedJobs++;
+      }
+    }
+    return queuedJobs;
+  }
+
   // getters / setters
 
   public ThreadPoolExecutor getThreadPoolExecutor() {
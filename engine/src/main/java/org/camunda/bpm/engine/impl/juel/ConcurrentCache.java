@@ -0,0 +1,183 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.camunda.bpm.engine.impl.juel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Thread-safe {@link TreeCache} which does not take a lock to look up or
+ * add a tree. Contrary to the {@link Cache}, concurrent parsers do not
+ * contend for a global monitor.</p>
+ *
+ * <p>The eviction is an approximation of LRU: as soon as the cache exceeds
+ * its size, a single thread removes the least recently used trees in one
+ * batch while the other threads continue without waiting. Until then, the
+ * cache may briefly hold more than its size.</p>
+ */
+public class ConcurrentCache implements TreeCache {
+
+  protected static final Comparator<Entry<String, CacheEntry>> LEAST_RECENTLY_USED_FIRST = new Comparator<Entry<String, CacheEntry>>() {
+    public int compare(Entry<String, CacheEntry> entry1, Entry<String, CacheEntry> entry2) {
+      long accessTime1 = entry1.getValue().lastAccessTime;
+      long accessTime2 = entry2.getValue().lastAccessTime;
+      return accessTime1 < accessTime2 ? -1 : (accessTime1 == accessTime2 ? 0 : 1);
+    }
+  };
+
+  protected final int size;
+  protected final int evictionBatchSize;
+  protected final ConcurrentMap<String, CacheEntry> entries = new ConcurrentHashMap<String, CacheEntry>();
+  protected final AtomicBoolean evicting = new AtomicBoolean(false);
+
+  protected final AtomicLong hitCount = new AtomicLong();
+  protected final AtomicLong missCount = new AtomicLong();
+  protected final AtomicLong evictionCount = new AtomicLong();
+
+  /**
+   * @param size maximum cache size
+   */
+  public ConcurrentCache(int size) {
+    this(size, Math.max(1, size / 10));
+  }
+
+  /**
+   * @param size maximum cache size
+   * @param evictionBatchSize the number of trees which are removed in addition to the exceeding
+   *   ones, so that not every added tree triggers an eviction
+   */
+  public ConcurrentCache(int size, int evictionBatchSize) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("size must be positive: " + size);
+    }
+    if (evictionBatchSize < 0) {
+      throw new IllegalArgumentException("evictionBatchSize must not be negative: " + evictionBatchSize);
+    }
+    this.size = size;
+    this.evictionBatchSize = Math.min(evictionBatchSize, size - 1);
+  }
+
+  public Tree get(String expression) {
+    CacheEntry entry = entries.get(expression);
+    if (entry == null) {
+      missCount.incrementAndGet();
+      return null;
+    }
+
+    entry.lastAccessTime = System.nanoTime();
+    hitCount.incrementAndGet();
+    return entry.tree;
+  }
+
+  public void put(String expression, Tree tree) {
+    entries.put(expression, new CacheEntry(tree));
+
+    if (entries.size() > size) {
+      evictLeastRecentlyUsedTrees();
+    }
+  }
+
+  protected void evictLeastRecentlyUsedTrees() {
+    if (!evicting.compareAndSet(false, true)) {
+      // another thread is already evicting
+      return;
+    }
+
+    try {
+      List<Entry<String, CacheEntry>> candidates = new ArrayList<Entry<String, CacheEntry>>(entries.entrySet());
+      int numberOfEvictions = candidates.size() - size + evictionBatchSize;
+      if (numberOfEvictions <= evictionBatchSize) {
+        return;
+      }
+
+      Collections.sort(candidates, LEAST_RECENTLY_USED_FIRST);
+      for (int i = 0; i < numberOfEvictions; i++) {
+        Entry<String, CacheEntry> candidate = candidates.get(i);
+        if (entries.remove(candidate.getKey(), candidate.getValue())) {
+          evictionCount.incrementAndGet();
+        }
+      }
+    }
+    finally {
+      evicting.set(false);
+    }
+  }
+
+  public void clear() {
+    entries.clear();
+  }
+
+  /**
+   * @return the number of cached trees
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return the maximum cache size
+   */
+  public int getMaxSize() {
+    return size;
+  }
+
+  /**
+   * @return the number of lookups which found a cached tree
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * @return the number of lookups which did not find a cached tree
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * @return the number of trees which have been evicted because the cache size was exceeded
+   */
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  /**
+   * @return the ratio of lookups which found a cached tree, or 0 if there were no lookups
+   */
+  public double getHitRate() {
+    long hits = hitCount.get();
+    long lookups = hits + missCount.get();
+    return lookups == 0 ? 0d : (double) hits / lookups;
+  }
+
+  protected static class CacheEntry {
+
+    protected final Tree tree;
+    protected volatile long lastAccessTime = System.nanoTime();
+
+    public CacheEntry(Tree tree) {
+      this.tree = tree;
+    }
+
+  }
+
+}
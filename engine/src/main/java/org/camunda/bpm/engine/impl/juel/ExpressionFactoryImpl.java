@@ -218,6 +218,22 @@ public class ExpressionFactoryImpl extends org.camunda.bpm.engine.impl.javax.el.
 		this.converter = converter;
 	}
 
+	/**
+	 * Create a new expression factory using the default builder implementation and the specified
+	 * cache. The builder and type converter are configured from the specified profile and
+	 * <code>el.properties</code> (see above). The cache size property is ignored.
+	 * 
+	 * @param profile
+	 *            builder profile (features may be overridden in <code>el.properties</code>)
+	 * @param cache
+	 *            the cache of the parse trees (may be <code>null</code>)
+	 */
+	public ExpressionFactoryImpl(Profile profile, TreeCache cache) {
+		Properties properties = loadProperties("el.properties");
+		this.store = new TreeStore(createTreeBuilder(profile, properties), cache);
+		this.converter = createTypeConverter(properties);
+	}
+
 	/**
 	 * Create a new expression factory.
 	 * 
@@ -308,22 +324,7 @@ public class ExpressionFactoryImpl extends org.camunda.bpm.engine.impl.javax.el.
 	 */
 	protected TreeStore createTreeStore(int defaultCacheSize, Profile profile, Properties properties) {
 		// create builder
-		TreeBuilder builder = null;
-		if (properties == null) {
-			builder = createTreeBuilder(null, profile.features());
-		} else {
-			EnumSet<Builder.Feature> features = EnumSet.noneOf(Builder.Feature.class);
-			if (getFeatureProperty(profile, properties, Feature.METHOD_INVOCATIONS, PROP_METHOD_INVOCATIONS)) {
-				features.add(Builder.Feature.METHOD_INVOCATIONS);
-			}
-			if (getFeatureProperty(profile, properties, Feature.VARARGS, PROP_VAR_ARGS)) {
-				features.add(Builder.Feature.VARARGS);
-			}
-			if (getFeatureProperty(profile, properties, Feature.NULL_PROPERTIES, PROP_NULL_PROPERTIES)) {
-				features.add(Builder.Feature.NULL_PROPERTIES);
-			}
-			builder = createTreeBuilder(properties, features.toArray(new Builder.Feature[0]));
-		}
+		TreeBuilder builder = createTreeBuilder(profile, properties);
 
 		// create cache
 		int cacheSize = defaultCacheSize;
@@ -334,11 +335,28 @@ public class ExpressionFactoryImpl extends org.camunda.bpm.engine.impl.javax.el.
 				throw new ELException("Cannot parse EL property " + PROP_CACHE_SIZE, e);
 			}
 		}
-		Cache cache = cacheSize > 0 ? new Cache(cacheSize) : null;
+		TreeCache cache = cacheSize > 0 ? new ConcurrentCache(cacheSize) : null;
 
 		return new TreeStore(builder, cache);
 	}
 
+	private TreeBuilder createTreeBuilder(Profile profile, Properties properties) {
+		if (properties == null) {
+			return createTreeBuilder(null, profile.features());
+		}
+		EnumSet<Builder.Feature> features = EnumSet.noneOf(Builder.Feature.class);
+		if (getFeatureProperty(profile, properties, Feature.METHOD_INVOCATIONS, PROP_METHOD_INVOCATIONS)) {
+			features.add(Builder.Feature.METHOD_INVOCATIONS);
+		}
+		if (getFeatureProperty(profile, properties, Feature.VARARGS, PROP_VAR_ARGS)) {
+			features.add(Builder.Feature.VARARGS);
+		}
+		if (getFeatureProperty(profile, properties, Feature.NULL_PROPERTIES, PROP_NULL_PROPERTIES)) {
+			features.add(Builder.Feature.NULL_PROPERTIES);
+		}
+		return createTreeBuilder(properties, features.toArray(new Builder.Feature[0]));
+	}
+
 	/**
 	 * Create the factory's type converter. This implementation takes the
 	 * <code>de.odysseus.el.misc.TypeConverter</code> property as the name of a class implementing
@@ -0,0 +1,36 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A counter which can be incremented concurrently without locking.
+ */
+public class Counter {
+
+  protected final AtomicLong count = new AtomicLong();
+
+  public void inc() {
+    count.incrementAndGet();
+  }
+
+  public void inc(long times) {
+    count.addAndGet(times);
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+}
@@ -0,0 +1,120 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Records the distribution of non-negative values, e.g. durations, without locking.</p>
+ *
+ * <p>The values are counted in buckets whose bounds are powers of two: bucket
+ * <code>i</code> contains the values from <code>2^(i-1)</code> to <code>2^i - 1</code>.
+ * Percentiles are therefore approximated by the upper bound of the bucket which
+ * contains them and are exact up to a factor of two.</p>
+ */
+public class Histogram {
+
+  protected static final int NUMBER_OF_BUCKETS = 64;
+
+  protected final AtomicLongArray buckets = new AtomicLongArray(NUMBER_OF_BUCKETS);
+  protected final AtomicLong count = new AtomicLong();
+  protected final AtomicLong sum = new AtomicLong();
+  protected final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a value. Negative values are recorded as zero.
+   */
+  public void update(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+
+    buckets.incrementAndGet(getBucketIndex(value));
+    count.incrementAndGet();
+    sum.addAndGet(value);
+
+    long currentMax = max.get();
+    while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+      currentMax = max.get();
+    }
+  }
+
+  protected int getBucketIndex(long value) {
+    return Long.SIZE - Long.numberOfLeadingZeros(value);
+  }
+
+  protected long getBucketUpperBound(int bucketIndex) {
+    if (bucketIndex >= NUMBER_OF_BUCKETS - 1) {
+      return Long.MAX_VALUE;
+    } else {
+      return (1L << bucketIndex) - 1;
+    }
+  }
+
+  /**
+   * @return the number of recorded values
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * @return the sum of the recorded values
+   */
+  public long getSum() {
+    return sum.get();
+  }
+
+  /**
+   * @return the largest recorded value or 0 if no value has been recorded
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * @return the mean of the recorded values or 0 if no value has been recorded
+   */
+  public double getMean() {
+    long currentCount = count.get();
+    if (currentCount == 0) {
+      return 0;
+    } else {
+      return (double) sum.get() / currentCount;
+    }
+  }
+
+  /**
+   * @param quantile the quantile between 0 and 1, e.g. 0.99
+   * @return the approximated value below which the given quantile of the recorded values
+   *         is, or 0 if no value has been recorded
+   */
+  public long getPercentile(double quantile) {
+    long currentCount = count.get();
+    if (currentCount == 0) {
+      return 0;
+    }
+
+    long rank = (long) Math.ceil(quantile * currentCount);
+    long cumulatedCount = 0;
+    for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+      cumulatedCount += buckets.get(i);
+      if (cumulatedCount >= rank) {
+        return Math.min(getBucketUpperBound(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+}
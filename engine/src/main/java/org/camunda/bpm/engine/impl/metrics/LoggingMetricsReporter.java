@@ -0,0 +1,42 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.metrics;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link MetricsReporter} which writes the values of all metrics to the log.
+ * Configure a log handler for this logger to write them to a file.
+ */
+public class LoggingMetricsReporter implements MetricsReporter {
+
+  private final static Logger LOG = Logger.getLogger(LoggingMetricsReporter.class.getName());
+
+  protected Level level = Level.INFO;
+
+  public void report(String processEngineName, MetricsRegistry metricsRegistry) {
+    if (LOG.isLoggable(level)) {
+      LOG.log(level, "Metrics of process engine " + processEngineName + ": " + metricsRegistry.getValues());
+    }
+  }
+
+  public Level getLevel() {
+    return level;
+  }
+
+  public void setLevel(Level level) {
+    this.level = level;
+  }
+
+}
@@ -0,0 +1,50 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.metrics;
+
+/**
+ * Names of the metrics collected by the process engine.
+ */
+public class Metrics {
+
+  /** number of job acquisitions */
+  public static final String JOB_ACQUISITION_ATTEMPT = "job-acquisition-attempt";
+
+  /** number of jobs which have been acquired and locked */
+  public static final String JOB_ACQUIRED_SUCCESS = "job-acquired-success";
+
+  /** number of jobs which could not be locked because they have been locked concurrently */
+  public static final String JOB_ACQUIRED_FAILURE = "job-acquired-failure";
+
+  /** number of jobs which have been executed successfully */
+  public static final String JOB_SUCCESSFUL = "job-successful";
+
+  /** number of jobs which failed with an exception */
+  public static final String JOB_FAILED = "job-failed";
+
+  /** number of acquired jobs which have not been executed because their lock expired before */
+  public static final String JOB_LOCK_EXPIRED = "job-lock-expired";
+
+  /** histogram of the execution time of jobs in milliseconds */
+  public static final String JOB_EXECUTION_TIME = "job-execution-time";
+
+  /** histogram of the number of database operations per flush */
+  public static final String FLUSH_OPERATIONS = "flush-operations";
+
+  /** number of started activity instances */
+  public static final String ACTIVITY_INSTANCE_START = "activity-instance-start";
+
+  /** number of ended activity instances */
+  public static final String ACTIVITY_INSTANCE_END = "activity-instance-end";
+
+}
@@ -0,0 +1,102 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>Holds the {@link Counter counters} and {@link Histogram histograms} of a
+ * process engine. Metrics are created the first time they are used.</p>
+ *
+ * <p>The names of the metrics collected by the engine are defined by {@link Metrics}.</p>
+ */
+public class MetricsRegistry {
+
+  protected final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+  protected final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+
+  public Counter getCounter(String name) {
+    Counter counter = counters.get(name);
+    if (counter == null) {
+      Counter newCounter = new Counter();
+      counter = counters.putIfAbsent(name, newCounter);
+      if (counter == null) {
+        counter = newCounter;
+      }
+    }
+    return counter;
+  }
+
+  public Histogram getHistogram(String name) {
+    Histogram histogram = histograms.get(name);
+    if (histogram == null) {
+      Histogram newHistogram = new Histogram();
+      histogram = histograms.putIfAbsent(name, newHistogram);
+      if (histogram == null) {
+        histogram = newHistogram;
+      }
+    }
+    return histogram;
+  }
+
+  public void markOccurrence(String name) {
+    getCounter(name).inc();
+  }
+
+  public void markOccurrence(String name, long times) {
+    getCounter(name).inc(times);
+  }
+
+  public void updateHistogram(String name, long value) {
+    getHistogram(name).update(value);
+  }
+
+  public Map<String, Counter> getCounters() {
+    return Collections.unmodifiableMap(counters);
+  }
+
+  public Map<String, Histogram> getHistograms() {
+    return Collections.unmodifiableMap(histograms);
+  }
+
+  /**
+   * @return the current values of all metrics sorted by their names. Histograms are
+   *         summarized by the values <code>name.count</code>, <code>name.mean</code>,
+   *         <code>name.max</code>, <code>name.p95</code> and <code>name.p99</code>.
+   */
+  public Map<String, Long> getValues() {
+    Map<String, Long> values = new TreeMap<String, Long>();
+
+    for (Entry<String, Counter> counter : counters.entrySet()) {
+      values.put(counter.getKey(), counter.getValue().getCount());
+    }
+
+    for (Entry<String, Histogram> entry : histograms.entrySet()) {
+      String name = entry.getKey();
+      Histogram histogram = entry.getValue();
+      values.put(name + ".count", histogram.getCount());
+      values.put(name + ".mean", Math.round(histogram.getMean()));
+      values.put(name + ".max", histogram.getMax());
+      values.put(name + ".p95", histogram.getPercentile(0.95));
+      values.put(name + ".p99", histogram.getPercentile(0.99));
+    }
+
+    return values;
+  }
+
+}
@@ -0,0 +1,34 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.metrics;
+
+/**
+ * <p>SPI for publishing the metrics of a process engine, e.g. by writing them
+ * to a file, a database table or a monitoring system.</p>
+ *
+ * <p>Reporters are configured by
+ * {@link org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl#setMetricsReporters(java.util.List)}
+ * and invoked periodically by the {@link MetricsReportingTimer}.</p>
+ */
+public interface MetricsReporter {
+
+  /**
+   * Publishes the current values of the metrics. Invoked by a single
+   * thread which is not bound to a command context.
+   *
+   * @param processEngineName the name of the process engine which collected the metrics
+   * @param metricsRegistry the metrics to report
+   */
+  void report(String processEngineName, MetricsRegistry metricsRegistry);
+
+}
@@ -0,0 +1,87 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.metrics;
+
+import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensureNotNull;
+import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensurePositive;
+
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Invokes the {@link MetricsReporter MetricsReporters} of a process engine
+ * periodically from a daemon thread. The metrics are reported once more when
+ * the timer is stopped.
+ */
+public class MetricsReportingTimer {
+
+  private final static Logger LOG = Logger.getLogger(MetricsReportingTimer.class.getName());
+
+  protected final String processEngineName;
+  protected final MetricsRegistry metricsRegistry;
+  protected final List<MetricsReporter> metricsReporters;
+  protected final int reportingIntervalInMillis;
+
+  protected Timer timer;
+
+  public MetricsReportingTimer(String processEngineName, MetricsRegistry metricsRegistry,
+      List<MetricsReporter> metricsReporters, int reportingIntervalInMillis) {
+    ensureNotNull("metricsRegistry", metricsRegistry);
+    ensureNotNull("metricsReporters", metricsReporters);
+    ensurePositive("reportingIntervalInMillis", reportingIntervalInMillis);
+
+    this.processEngineName = processEngineName;
+    this.metricsRegistry = metricsRegistry;
+    this.metricsReporters = metricsReporters;
+    this.reportingIntervalInMillis = reportingIntervalInMillis;
+  }
+
+  public synchronized void start() {
+    if (timer == null) {
+      timer = new Timer("camunda-metrics-reporting-" + processEngineName, true);
+      timer.scheduleAtFixedRate(new TimerTask() {
+        public void run() {
+          report();
+        }
+      }, reportingIntervalInMillis, reportingIntervalInMillis);
+    }
+  }
+
+  public synchronized void stop() {
+    if (timer != null) {
+      timer.cancel();
+      timer = null;
+
+      report();
+    }
+  }
+
+  public void report() {
+    for (MetricsReporter metricsReporter : metricsReporters) {
+      try {
+        metricsReporter.report(processEngineName, metricsRegistry);
+      } catch (RuntimeException e) {
+        LOG.log(Level.WARNING, "Exception while reporting the metrics of process engine " + processEngineName
+            + " with " + metricsReporter, e);
+      }
+    }
+  }
+
+  public boolean isActive() {
+    return timer != null;
+  }
+
+}
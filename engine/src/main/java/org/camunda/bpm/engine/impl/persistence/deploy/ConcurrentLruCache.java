@@ -0,0 +1,173 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.persistence.deploy;
+
+import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensureNotNull;
+import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensurePositive;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Thread-safe cache with a maximum number of entries. If the capacity is
+ * exceeded, the least recently used entries are evicted.</p>
+ *
+ * <p>Reading an entry does not lock the cache. The least recently used entry
+ * is determined when an entry is added to a full cache, which is rare compared
+ * to reads for the definitions of the {@link DeploymentCache}.</p>
+ *
+ * <p>The cache can be used as {@link java.util.Map}. Its entry set is a
+ * snapshot which cannot be modified.</p>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the cached values
+ */
+public class ConcurrentLruCache<K, V> extends AbstractMap<K, V> {
+
+  protected final int capacity;
+  protected final ConcurrentMap<K, CacheEntry<V>> entries = new ConcurrentHashMap<K, CacheEntry<V>>();
+
+  protected final AtomicLong hitCount = new AtomicLong();
+  protected final AtomicLong missCount = new AtomicLong();
+  protected final AtomicLong evictionCount = new AtomicLong();
+
+  public ConcurrentLruCache(int capacity) {
+    ensurePositive("capacity", capacity);
+    this.capacity = capacity;
+  }
+
+  /**
+   * @return the cached value or null if the key is not cached
+   */
+  public V get(Object key) {
+    CacheEntry<V> entry = entries.get(key);
+    if (entry == null) {
+      missCount.incrementAndGet();
+      return null;
+    }
+
+    entry.lastAccessTime = System.nanoTime();
+    hitCount.incrementAndGet();
+    return entry.value;
+  }
+
+  /**
+   * Adds the value to the cache and evicts the least recently
+   * used entries if the capacity of the cache is exceeded.
+   */
+  public V put(K key, V value) {
+    ensureNotNull("key", key);
+    ensureNotNull("value", value);
+
+    CacheEntry<V> previousEntry = entries.put(key, new CacheEntry<V>(value));
+
+    if (entries.size() > capacity) {
+      evictLeastRecentlyUsedEntries();
+    }
+    return previousEntry != null ? previousEntry.value : null;
+  }
+
+  protected synchronized void evictLeastRecentlyUsedEntries() {
+    while (entries.size() > capacity) {
+      Entry<K, CacheEntry<V>> leastRecentlyUsed = null;
+      for (Entry<K, CacheEntry<V>> entry : entries.entrySet()) {
+        if (leastRecentlyUsed == null || entry.getValue().lastAccessTime < leastRecentlyUsed.getValue().lastAccessTime) {
+          leastRecentlyUsed = entry;
+        }
+      }
+
+      if (leastRecentlyUsed == null) {
+        return;
+      }
+      if (entries.remove(leastRecentlyUsed.getKey(), leastRecentlyUsed.getValue())) {
+        evictionCount.incrementAndGet();
+      }
+    }
+  }
+
+  public V remove(Object key) {
+    CacheEntry<V> entry = entries.remove(key);
+    return entry != null ? entry.value : null;
+  }
+
+  public void clear() {
+    entries.clear();
+  }
+
+  public boolean containsKey(Object key) {
+    return entries.containsKey(key);
+  }
+
+  public Set<K> keySet() {
+    return Collections.unmodifiableSet(entries.keySet());
+  }
+
+  public Set<Entry<K, V>> entrySet() {
+    Set<Entry<K, V>> entrySet = new HashSet<Entry<K, V>>();
+    for (Entry<K, CacheEntry<V>> entry : entries.entrySet()) {
+      entrySet.add(new SimpleImmutableEntry<K, V>(entry.getKey(), entry.getValue().value));
+    }
+    return Collections.unmodifiableSet(entrySet);
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @return the number of lookups which found a cached value
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * @return the number of lookups which did not find a cached value
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * @return the number of entries which have been evicted because the capacity was exceeded
+   */
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  protected static class CacheEntry<V> {
+
+    protected final V value;
+    protected volatile long lastAccessTime = System.nanoTime();
+
+    public CacheEntry(V value) {
+      this.value = value;
+    }
+
+  }
+
+}
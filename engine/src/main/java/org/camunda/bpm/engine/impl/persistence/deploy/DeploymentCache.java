@@ -14,7 +14,6 @@
 package org.camunda.bpm.engine.impl.persistence.deploy;
 
 import java.io.InputStream;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -29,6 +28,8 @@ import org.camunda.bpm.engine.impl.context.Context;
 import org.camunda.bpm.engine.impl.interceptor.CommandContext;
 import org.camunda.bpm.engine.impl.persistence.entity.DeploymentEntity;
 import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.camunda.bpm.engine.impl.scripting.SourceExecutableScript;
+import org.camunda.bpm.engine.impl.util.ResourceUtil;
 import org.camunda.bpm.engine.repository.CaseDefinition;
 import org.camunda.bpm.engine.repository.ProcessDefinition;
 import org.camunda.bpm.model.bpmn.Bpmn;
@@ -47,12 +48,33 @@ public class DeploymentCache {
 
   private Logger LOGGER = Logger.getLogger(DeploymentCache.class.getName());
 
-  protected Map<String, ProcessDefinitionEntity> processDefinitionCache = new HashMap<String, ProcessDefinitionEntity>();
-  protected Map<String, CaseDefinitionEntity> caseDefinitionCache = new HashMap<String, CaseDefinitionEntity>();
-  protected Map<String, BpmnModelInstance> bpmnModelInstanceCache = new HashMap<String, BpmnModelInstance>();
-  protected Map<String, CmmnModelInstance> cmmnModelInstanceCache = new HashMap<String, CmmnModelInstance>();
+  /** the default maximum number of entries of each cache */
+  public static final int DEFAULT_CACHE_CAPACITY = 1000;
+
+  protected Map<String, ProcessDefinitionEntity> processDefinitionCache;
+  protected Map<String, CaseDefinitionEntity> caseDefinitionCache;
+  protected Map<String, BpmnModelInstance> bpmnModelInstanceCache;
+  protected Map<String, CmmnModelInstance> cmmnModelInstanceCache;
+  protected ConcurrentLruCache<ScriptResourceKey, SourceExecutableScript> scriptResourceCache;
   protected List<Deployer> deployers;
 
+  public DeploymentCache() {
+    this(DEFAULT_CACHE_CAPACITY);
+  }
+
+  /**
+   * @param cacheCapacity the maximum number of entries of each cache. Evicted definitions
+   *   are deployed again when they are resolved, evicted models are parsed again and evicted
+   *   script resources are loaded and compiled again.
+   */
+  public DeploymentCache(int cacheCapacity) {
+    processDefinitionCache = new ConcurrentLruCache<String, ProcessDefinitionEntity>(cacheCapacity);
+    caseDefinitionCache = new ConcurrentLruCache<String, CaseDefinitionEntity>(cacheCapacity);
+    bpmnModelInstanceCache = new ConcurrentLruCache<String, BpmnModelInstance>(cacheCapacity);
+    cmmnModelInstanceCache = new ConcurrentLruCache<String, CmmnModelInstance>(cacheCapacity);
+    scriptResourceCache = new ConcurrentLruCache<ScriptResourceKey, SourceExecutableScript>(cacheCapacity);
+  }
+
   public void deploy(DeploymentEntity deployment) {
     for (Deployer deployer: deployers) {
       deployer.deploy(deployment);
@@ -156,6 +178,7 @@ public class DeploymentCache {
 
   public void removeProcessDefinition(String processDefinitionId) {
     processDefinitionCache.remove(processDefinitionId);
+    bpmnModelInstanceCache.remove(processDefinitionId);
   }
 
   public void discardProcessDefinitionCache() {
@@ -298,6 +321,7 @@ public class DeploymentCache {
 
   public void removeCaseDefinition(String caseDefinitionId) {
     caseDefinitionCache.remove(caseDefinitionId);
+    cmmnModelInstanceCache.remove(caseDefinitionId);
   }
 
   public void discardCaseDefinitionCache() {
@@ -306,14 +330,56 @@ public class DeploymentCache {
 
   // getters and setters //////////////////////////////////////////////////////
 
+  // SCRIPT RESOURCES ////////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Returns the script of a resource which is loaded from the given deployment
+   * or from the classpath. The resource is loaded once per deployment and the
+   * returned script is compiled on its first execution.
+   */
+  public SourceExecutableScript findScriptResource(DeploymentEntity deployment, String resourcePath, String language) {
+    String deploymentId = deployment != null ? deployment.getId() : null;
+    ScriptResourceKey key = new ScriptResourceKey(deploymentId, resourcePath, language);
+
+    SourceExecutableScript script = scriptResourceCache.get(key);
+    if (script == null) {
+      String source = ResourceUtil.loadResourceContent(resourcePath, deployment);
+      script = new SourceExecutableScript(language, source);
+      scriptResourceCache.put(key, script);
+    }
+    return script;
+  }
+
+  public void removeScriptResources(String deploymentId) {
+    for (ScriptResourceKey key : scriptResourceCache.keySet()) {
+      if (deploymentId.equals(key.deploymentId)) {
+        scriptResourceCache.remove(key);
+      }
+    }
+  }
+
+  public void discardScriptResourceCache() {
+    scriptResourceCache.clear();
+  }
+
+  // getters and setters //////////////////////////////////////////////////////
+
   public Map<String, BpmnModelInstance> getBpmnModelInstanceCache() {
     return bpmnModelInstanceCache;
   }
 
+  public void setBpmnModelInstanceCache(Map<String, BpmnModelInstance> bpmnModelInstanceCache) {
+    this.bpmnModelInstanceCache = bpmnModelInstanceCache;
+  }
+
   public Map<String, CmmnModelInstance> getCmmnModelInstanceCache() {
     return cmmnModelInstanceCache;
   }
 
+  public void setCmmnModelInstanceCache(Map<String, CmmnModelInstance> cmmnModelInstanceCache) {
+    this.cmmnModelInstanceCache = cmmnModelInstanceCache;
+  }
+
   public Map<String, ProcessDefinitionEntity> getProcessDefinitionCache() {
     return processDefinitionCache;
   }
@@ -330,6 +396,38 @@ public class DeploymentCache {
     this.caseDefinitionCache = caseDefinitionCache;
   }
 
+  /**
+   * @return the process definition cache if it is a {@link ConcurrentLruCache}, which
+   *   provides its capacity and statistics, or null if another map has been set
+   */
+  public ConcurrentLruCache<String, ProcessDefinitionEntity> getProcessDefinitionLruCache() {
+    return asLruCache(processDefinitionCache);
+  }
+
+  /**
+   * @return the case definition cache if it is a {@link ConcurrentLruCache}, which
+   *   provides its capacity and statistics, or null if another map has been set
+   */
+  public ConcurrentLruCache<String, CaseDefinitionEntity> getCaseDefinitionLruCache() {
+    return asLruCache(caseDefinitionCache);
+  }
+
+  @SuppressWarnings("unchecked")
+  protected static <K, V> ConcurrentLruCache<K, V> asLruCache(Map<K, V> cache) {
+    if (cache instanceof ConcurrentLruCache) {
+      return (ConcurrentLruCache<K, V>) cache;
+    }
+    return null;
+  }
+
+  public ConcurrentLruCache<ScriptResourceKey, SourceExecutableScript> getScriptResourceCache() {
+    return scriptResourceCache;
+  }
+
+  public void setScriptResourceCache(ConcurrentLruCache<ScriptResourceKey, SourceExecutableScript> scriptResourceCache) {
+    this.scriptResourceCache = scriptResourceCache;
+  }
+
   public List<Deployer> getDeployers() {
     return deployers;
   }
@@ -341,6 +439,7 @@ public class DeploymentCache {
   public void removeDeployment(String deploymentId) {
     removeAllProcessDefinitionsByDeploymentId(deploymentId);
     removeAllCaseDefinitionsByDeploymentId(deploymentId);
+    removeScriptResources(deploymentId);
   }
 
   protected void removeAllProcessDefinitionsByDeploymentId(String deploymentId) {
@@ -380,4 +479,47 @@ public class DeploymentCache {
       }
     }
   }
+  /**
+   * Identifies a script resource which has been loaded for a deployment.
+   */
+  public static class ScriptResourceKey {
+
+    protected final String deploymentId;
+    protected final String resourcePath;
+    protected final String language;
+
+    public ScriptResourceKey(String deploymentId, String resourcePath, String language) {
+      this.deploymentId = deploymentId;
+      this.resourcePath = resourcePath;
+      this.language = language;
+    }
+
+    public int hashCode() {
+      final int prime = 31;
+      int result = 1;
+      result = prime * result + ((deploymentId == null) ? 0 : deploymentId.hashCode());
+      result = prime * result + ((resourcePath == null) ? 0 : resourcePath.hashCode());
+      result = prime * result + ((language == null) ? 0 : language.hashCode());
+      return result;
+    }
+
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof ScriptResourceKey)) {
+        return false;
+      }
+      ScriptResourceKey other = (ScriptResourceKey) obj;
+      return equals(deploymentId, other.deploymentId)
+          && equals(resourcePath, other.resourcePath)
+          && equals(language, other.language);
+    }
+
+    protected static boolean equals(String value, String otherValue) {
+      return value == null ? otherValue == null : value.equals(otherValue);
+    }
+
+  }
+
 }
@@ -51,6 +51,16 @@ public class AttachmentManager extends AbstractHistoricManager {
     }
   }
 
+  /**
+   * Deletes the attachments of the given process instances and of their historic task
+   * instances, which must not be deleted yet.
+   */
+  public void deleteAttachmentsByProcessInstanceIds(List<String> processInstanceIds) {
+    checkHistoryEnabled();
+    getDbEntityManager().delete(ByteArrayEntity.class, "deleteAttachmentByteArraysByProcessInstanceIds", processInstanceIds);
+    getDbEntityManager().delete(AttachmentEntity.class, "deleteAttachmentsByProcessInstanceIds", processInstanceIds);
+  }
+
   public Attachment findAttachmentByTaskIdAndAttachmentId(String taskId, String attachmentId) {
     checkHistoryEnabled();
 
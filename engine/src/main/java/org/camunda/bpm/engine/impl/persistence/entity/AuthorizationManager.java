@@ -35,10 +35,16 @@ import org.camunda.bpm.engine.authorization.Resource;
 import org.camunda.bpm.engine.impl.AbstractQuery;
 import org.camunda.bpm.engine.impl.AuthorizationQueryImpl;
 import org.camunda.bpm.engine.impl.TaskQueryImpl;
+import org.camunda.bpm.engine.impl.cfg.TransactionContext;
+import org.camunda.bpm.engine.impl.cfg.TransactionListener;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.context.Context;
 import org.camunda.bpm.engine.impl.db.AuthorizationCheck;
+import org.camunda.bpm.engine.impl.db.AuthorizationDecisionCache;
 import org.camunda.bpm.engine.impl.db.DbEntity;
 import org.camunda.bpm.engine.impl.db.PermissionCheck;
 import org.camunda.bpm.engine.impl.identity.Authentication;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
 import org.camunda.bpm.engine.impl.persistence.AbstractManager;
 
 /**
@@ -58,6 +64,8 @@ public class AuthorizationManager extends AbstractManager {
   public void insert(DbEntity authorization) {
     checkAuthorization(CREATE, AUTHORIZATION, null);
     getDbEntityManager().insert(authorization);
+    invalidateAuthorizationDecisions();
+    getEffectivePermissionManager().authorizationChanged((AuthorizationEntity) authorization);
   }
 
   public List<Authorization> selectAuthorizationByQueryCriteria(AuthorizationQueryImpl authorizationQuery) {
@@ -73,12 +81,25 @@ public class AuthorizationManager extends AbstractManager {
   public void update(AuthorizationEntity authorization) {
     checkAuthorization(UPDATE, AUTHORIZATION, authorization.getId());
     getDbEntityManager().merge(authorization);
+    invalidateAuthorizationDecisions();
+
+    EffectivePermissionManager effectivePermissionManager = getEffectivePermissionManager();
+    if (effectivePermissionManager.isEffectivePermissionsEnabled()) {
+      // the permissions of the previous user or group and resource change as well
+      AuthorizationEntity persistentAuthorization = getDbSqlSession().selectById(AuthorizationEntity.class, authorization.getId());
+      if (persistentAuthorization != null) {
+        effectivePermissionManager.authorizationChanged(persistentAuthorization);
+      }
+      effectivePermissionManager.authorizationChanged(authorization);
+    }
   }
 
   public void delete(DbEntity authorization) {
     checkAuthorization(DELETE, AUTHORIZATION, authorization.getId());
     deleteAuthorizationsByResourceId(AUTHORIZATION, authorization.getId());
     super.delete(authorization);
+    invalidateAuthorizationDecisions();
+    getEffectivePermissionManager().authorizationChanged((AuthorizationEntity) authorization);
   }
 
   // authorization checks ///////////////////////////////////////////
@@ -164,11 +185,75 @@ public class AuthorizationManager extends AbstractManager {
   }
 
   public boolean isAuthorized(String userId, List<String> groupIds, List<PermissionCheck> parameters) {
+    AuthorizationDecisionCache decisionCache = getAuthorizationDecisionCache();
+    if (decisionCache != null) {
+      Boolean cachedDecision = decisionCache.getDecision(userId, groupIds, parameters);
+      if (cachedDecision != null) {
+        return cachedDecision;
+      }
+    }
+
     AuthorizationCheck authCheck = new AuthorizationCheck();
     authCheck.setAuthUserId(userId);
     authCheck.setAuthGroupIds(groupIds);
     authCheck.setPermissionChecks(parameters);
-    return getDbEntityManager().selectBoolean("isUserAuthorizedForResource", authCheck);
+    boolean isAuthorized = getDbEntityManager().selectBoolean("isUserAuthorizedForResource", authCheck);
+
+    if (decisionCache != null) {
+      decisionCache.putDecision(userId, groupIds, parameters, isAuthorized);
+    }
+    return isAuthorized;
+  }
+
+  protected EffectivePermissionManager getEffectivePermissionManager() {
+    return getSession(EffectivePermissionManager.class);
+  }
+
+  protected AuthorizationDecisionCache getAuthorizationDecisionCache() {
+    return Context.getProcessEngineConfiguration().getAuthorizationDecisionCache();
+  }
+
+  /**
+   * Clears the cached authorization decisions when authorizations are written. The
+   * decisions are cleared again when the transaction ends, since decisions made
+   * before the end of the transaction may be based on uncommitted or rolled back
+   * authorizations.
+   */
+  protected void invalidateAuthorizationDecisions() {
+    final AuthorizationDecisionCache decisionCache = getAuthorizationDecisionCache();
+    if (decisionCache != null) {
+      decisionCache.clear();
+
+      TransactionListener clearDecisionCache = new TransactionListener() {
+        public void execute(CommandContext commandContext) {
+          decisionCache.clear();
+        }
+      };
+      TransactionContext transactionContext = Context.getCommandContext().getTransactionContext();
+      transactionContext.addTransactionListener(TransactionState.COMMITTED, clearDecisionCache);
+      transactionContext.addTransactionListener(TransactionState.ROLLED_BACK, clearDecisionCache);
+    }
+  }
+
+  /**
+   * Like {@link #invalidateAuthorizationDecisions()}, but only clears the decisions
+   * which check permissions on the resource, since only the authorizations of
+   * the resource are deleted.
+   */
+  protected void invalidateAuthorizationDecisions(final int resourceType, final String resourceId) {
+    final AuthorizationDecisionCache decisionCache = getAuthorizationDecisionCache();
+    if (decisionCache != null) {
+      decisionCache.clear(resourceType, resourceId);
+
+      TransactionListener clearDecisionCache = new TransactionListener() {
+        public void execute(CommandContext commandContext) {
+          decisionCache.clear(resourceType, resourceId);
+        }
+      };
+      TransactionContext transactionContext = Context.getCommandContext().getTransactionContext();
+      transactionContext.addTransactionListener(TransactionState.COMMITTED, clearDecisionCache);
+      transactionContext.addTransactionListener(TransactionState.ROLLED_BACK, clearDecisionCache);
+    }
   }
 
   // authorization checks on queries ////////////////////////////////
@@ -187,11 +272,13 @@ public class AuthorizationManager extends AbstractManager {
 
       query.setAuthUserId(currentUserId);
       query.setAuthGroupIds(currentGroupIds);
+      query.setEffectivePermissionCheckEnabled(getEffectivePermissionManager().isEffectivePermissionCheckApplicable(currentUserId, currentGroupIds));
     }
     else {
       query.setAuthorizationCheckEnabled(false);
       query.setAuthUserId(null);
       query.setAuthGroupIds(null);
+      query.setEffectivePermissionCheckEnabled(false);
     }
   }
 
@@ -216,6 +303,11 @@ public class AuthorizationManager extends AbstractManager {
       permCheck.setPermission(permission);
 
       query.addPermissionCheck(permCheck);
+
+      if (Integer.bitCount(permission.getValue()) != 1) {
+        // the effective permissions are decided per single permission
+        query.setEffectivePermissionCheckEnabled(false);
+      }
     }
   }  // delete authorizations //////////////////////////////////////////////////
 
@@ -229,7 +321,17 @@ public class AuthorizationManager extends AbstractManager {
       Map<String, Object> deleteParams = new HashMap<String, Object>();
       deleteParams.put("resourceType", resource.resourceType());
       deleteParams.put("resourceId", resourceId);
+
+      EffectivePermissionManager effectivePermissionManager = getEffectivePermissionManager();
+      if (effectivePermissionManager.isEffectivePermissionsEnabled()) {
+        List<AuthorizationEntity> deletedAuthorizations = (List<AuthorizationEntity>) getDbSqlSession().selectList("selectAuthorizationsByResourceId", deleteParams);
+        for (AuthorizationEntity deletedAuthorization : deletedAuthorizations) {
+          effectivePermissionManager.authorizationChanged(deletedAuthorization);
+        }
+      }
+
       getDbEntityManager().delete(AuthorizationEntity.class, "deleteAuthorizationsForResourceId", deleteParams);
+      invalidateAuthorizationDecisions(resource.resourceType(), resourceId);
     }
 
   }
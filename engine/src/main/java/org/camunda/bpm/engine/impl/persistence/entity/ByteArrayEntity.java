@@ -12,15 +12,17 @@
  */
 package org.camunda.bpm.engine.impl.persistence.entity;
 
+import java.io.InputStream;
 import java.io.Serializable;
 
+import org.camunda.bpm.engine.impl.db.HasDbReferences;
 import org.camunda.bpm.engine.impl.db.HasDbRevision;
 import org.camunda.bpm.engine.impl.db.DbEntity;
 
 /**
  * @author Tom Baeyens
  */
-public class ByteArrayEntity implements Serializable, DbEntity, HasDbRevision {
+public class ByteArrayEntity implements Serializable, DbEntity, HasDbRevision, HasDbReferences {
 
   private static final long serialVersionUID = 1L;
 
@@ -32,6 +34,11 @@ public class ByteArrayEntity implements Serializable, DbEntity, HasDbRevision {
   protected byte[] bytes;
   protected String deploymentId;
 
+  /** the content which is streamed to the database on insert instead of the bytes */
+  protected transient InputStream byteStream;
+  /** the id of the byte array whose content is copied by the database on insert */
+  protected String sourceByteArrayId;
+
   public ByteArrayEntity() {
   }
 
@@ -52,6 +59,13 @@ public class ByteArrayEntity implements Serializable, DbEntity, HasDbRevision {
     return (bytes != null ? bytes : PERSISTENTSTATE_NULL);
   }
 
+  /**
+   * A copy is inserted after the byte array it copies.
+   */
+  public boolean hasReferenceTo(DbEntity entity) {
+    return sourceByteArrayId != null && sourceByteArrayId.equals(entity.getId());
+  }
+
   public int getRevisionNext() {
     return revision+1;
   }
@@ -86,6 +100,32 @@ public class ByteArrayEntity implements Serializable, DbEntity, HasDbRevision {
     this.bytes = bytes;
   }
 
+  public InputStream getByteStream() {
+    return byteStream;
+  }
+
+  public void setByteStream(InputStream byteStream) {
+    this.byteStream = byteStream;
+    this.bytes = null;
+  }
+
+  public String getSourceByteArrayId() {
+    return sourceByteArrayId;
+  }
+
+  public void setSourceByteArrayId(String sourceByteArrayId) {
+    this.sourceByteArrayId = sourceByteArrayId;
+    this.bytes = null;
+  }
+
+  /**
+   * @return true if the content is not held in memory but streamed or
+   * copied when the byte array is inserted
+   */
+  public boolean isStreamedInsert() {
+    return byteStream != null || sourceByteArrayId != null;
+  }
+
   public int getRevision() {
     return revision;
   }
@@ -13,6 +13,20 @@
 
 package org.camunda.bpm.engine.impl.persistence.entity;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.cfg.TransactionListener;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.db.sql.DbSqlSession;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
 import org.camunda.bpm.engine.impl.persistence.AbstractManager;
 
 /**
@@ -30,4 +44,114 @@ public class ByteArrayManager extends AbstractManager {
     getDbEntityManager().delete(ByteArrayEntity.class, "deleteByteArrayNoRevisionCheck", byteArrayEntityId);
   }
 
+  /**
+   * Opens a stream which reads the content of the {@link ByteArrayEntity} with the
+   * given id from the database while it is consumed, without loading the bytes in
+   * memory. The stream is closed when the transaction of the current command ends.
+   */
+  public InputStream openByteArrayStream(String byteArrayEntityId) {
+    DbSqlSession dbSqlSession = getDbSqlSession();
+    Connection connection = dbSqlSession.getSqlSession().getConnection();
+    String tableName = dbSqlSession.getDbSqlSessionFactory().getDatabaseTablePrefix() + "ACT_GE_BYTEARRAY";
+
+    PreparedStatement statement = null;
+    ResultSet resultSet = null;
+    try {
+      statement = connection.prepareStatement("select BYTES_ from " + tableName + " where ID_ = ?");
+      statement.setString(1, byteArrayEntityId);
+      resultSet = statement.executeQuery();
+
+      if (!resultSet.next()) {
+        throw new ProcessEngineException("No byte array found with id '" + byteArrayEntityId + "'");
+      }
+
+      ResultSetInputStream stream = new ResultSetInputStream(resultSet.getBinaryStream(1), statement, resultSet);
+
+      CommandContext commandContext = Context.getCommandContext();
+      commandContext.getTransactionContext().addTransactionListener(TransactionState.COMMITTED, stream);
+      commandContext.getTransactionContext().addTransactionListener(TransactionState.ROLLED_BACK, stream);
+
+      return stream;
+
+    } catch (SQLException e) {
+      ResultSetInputStream.closeSilently(statement, resultSet);
+      throw new ProcessEngineException("Cannot read byte array with id '" + byteArrayEntityId + "': " + e.getMessage(), e);
+
+    } catch (RuntimeException e) {
+      ResultSetInputStream.closeSilently(statement, resultSet);
+      throw e;
+    }
+  }
+
+  /**
+   * Reads a column of a result set and closes the result set with the stream
+   * or when the transaction ends.
+   */
+  protected static class ResultSetInputStream extends FilterInputStream implements TransactionListener {
+
+    protected PreparedStatement statement;
+    protected ResultSet resultSet;
+
+    public ResultSetInputStream(InputStream in, PreparedStatement statement, ResultSet resultSet) {
+      // the column is null if the byte array has no content
+      super(in);
+      this.statement = statement;
+      this.resultSet = resultSet;
+    }
+
+    public int read() throws IOException {
+      return in != null ? super.read() : -1;
+    }
+
+    public int read(byte[] b, int off, int len) throws IOException {
+      return in != null ? super.read(b, off, len) : -1;
+    }
+
+    public long skip(long n) throws IOException {
+      return in != null ? super.skip(n) : 0;
+    }
+
+    public int available() throws IOException {
+      return in != null ? super.available() : 0;
+    }
+
+    public synchronized void close() throws IOException {
+      try {
+        if (in != null) {
+          super.close();
+        }
+      } finally {
+        closeSilently(statement, resultSet);
+        statement = null;
+        resultSet = null;
+      }
+    }
+
+    public void execute(CommandContext commandContext) {
+      try {
+        close();
+      } catch (IOException e) {
+        // ignore
+      }
+    }
+
+    protected static void closeSilently(PreparedStatement statement, ResultSet resultSet) {
+      try {
+        if (resultSet != null) {
+          resultSet.close();
+        }
+      } catch (SQLException e) {
+        // ignore
+      }
+      try {
+        if (statement != null) {
+          statement.close();
+        }
+      } catch (SQLException e) {
+        // ignore
+      }
+    }
+
+  }
+
 }
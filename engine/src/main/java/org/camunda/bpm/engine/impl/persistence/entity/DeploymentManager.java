@@ -123,6 +123,12 @@ public class DeploymentManager extends AbstractManager {
 
     deleteCaseDeployment(deploymentId, cascade);
 
+    // remove the script resources loaded for the deployment from the cache
+    Context
+      .getProcessEngineConfiguration()
+      .getDeploymentCache()
+      .removeScriptResources(deploymentId);
+
     getResourceManager().deleteResourcesByDeploymentId(deploymentId);
 
     getDbEntityManager().delete(DeploymentEntity.class, "deleteDeployment", deploymentId);
@@ -0,0 +1,458 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.persistence.entity;
+
+import static org.camunda.bpm.engine.authorization.Authorization.ANY;
+import static org.camunda.bpm.engine.authorization.Authorization.AUTH_TYPE_GLOBAL;
+import static org.camunda.bpm.engine.authorization.Authorization.AUTH_TYPE_GRANT;
+import static org.camunda.bpm.engine.authorization.Authorization.AUTH_TYPE_REVOKE;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.camunda.bpm.engine.authorization.Permissions;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.cfg.TransactionListener;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.persistence.AbstractManager;
+
+/**
+ * <p>Maintains the effective permissions of the users (table
+ * <code>ACT_RU_EFFECTIVE_PERM</code>). An effective permission row holds,
+ * for a user and a resource, the permissions which are granted and the
+ * permissions which are decided (granted or revoked) by the authorizations
+ * of the user, its groups and the global authorizations, applying the same
+ * precedence as the authorization check. With the effective permissions, an
+ * authorization check of a query is a lookup of a single row per resource
+ * instead of a cascade of subqueries on the authorizations.</p>
+ *
+ * <p>Rows are only stored for the resource types on which a user or one of
+ * its groups has an authorization. All other users fall back to the rows of
+ * the pseudo user {@link org.camunda.bpm.engine.authorization.Authorization#ANY}
+ * which hold the permissions of the global authorizations. Rows of a resource
+ * which do not differ from the row for all resources (<code>'*'</code>) of the
+ * resource type are not stored either.</p>
+ *
+ * <p>Changes of authorizations and group memberships are collected during the
+ * command and the affected rows are recomputed when the transaction is
+ * committing. The recomputation deletes and inserts rows, so concurrent
+ * recomputations of the same user would insert the same primary keys. They
+ * are serialized by an exclusive lock on the property
+ * <code>effectivePermissions.lock</code> which is held until the transaction
+ * ends.</p>
+ */
+public class EffectivePermissionManager extends AbstractManager {
+
+  protected static final int ALL_PERMISSIONS = Permissions.ALL.getValue();
+
+  protected Set<String> changedUserIds = new LinkedHashSet<String>();
+  protected Set<ChangedResource> changedResources = new LinkedHashSet<ChangedResource>();
+  protected boolean isUpdateScheduled = false;
+
+  public boolean isEffectivePermissionsEnabled() {
+    return Context.getProcessEngineConfiguration().isEffectivePermissionsEnabled();
+  }
+
+  /**
+   * @return true if the effective permissions can be checked for the user
+   *   authenticated with the given groups. This is the case if the groups
+   *   equal the groups the user is a member of.
+   */
+  public boolean isEffectivePermissionCheckApplicable(String userId, List<String> groupIds) {
+    if (!isEffectivePermissionsEnabled() || userId == null || ANY.equals(userId)) {
+      return false;
+    }
+
+    Set<String> authenticatedGroupIds = new HashSet<String>();
+    if (groupIds != null) {
+      authenticatedGroupIds.addAll(groupIds);
+    }
+    return authenticatedGroupIds.equals(new HashSet<String>(selectGroupIds(userId)));
+  }
+
+  // changes //////////////////////////////////////////////////////
+
+  public void authorizationChanged(AuthorizationEntity authorization) {
+    if (!isEffectivePermissionsEnabled()) {
+      return;
+    }
+
+    String resourceId = authorization.getResourceId();
+    if (resourceId == null) {
+      // authorizations without resource id are never checked
+      return;
+    }
+
+    String principalId = null;
+    boolean isGroup = false;
+    if (authorization.getAuthorizationType() != AUTH_TYPE_GLOBAL) {
+      principalId = authorization.getUserId() != null ? authorization.getUserId() : authorization.getGroupId();
+      isGroup = authorization.getUserId() == null;
+    }
+
+    changedResources.add(new ChangedResource(principalId, isGroup, authorization.getResourceType(), resourceId));
+    scheduleUpdate();
+  }
+
+  public void membershipChanged(String userId) {
+    if (isEffectivePermissionsEnabled()) {
+      changedUserIds.add(userId);
+      scheduleUpdate();
+    }
+  }
+
+  /**
+   * Invoked before the memberships of the group are deleted.
+   */
+  public void groupMembersChanged(String groupId) {
+    if (isEffectivePermissionsEnabled()) {
+      changedUserIds.addAll(selectGroupMemberIds(groupId));
+      scheduleUpdate();
+    }
+  }
+
+  protected void scheduleUpdate() {
+    if (!isUpdateScheduled) {
+      isUpdateScheduled = true;
+
+      // the rows are computed from the flushed authorizations and memberships
+      Context.getCommandContext()
+        .getTransactionContext()
+        .addTransactionListener(TransactionState.COMMITTING, new TransactionListener() {
+          public void execute(CommandContext commandContext) {
+            updateEffectivePermissions();
+          }
+        });
+    }
+  }
+
+  public void updateEffectivePermissions() {
+    if (!changedUserIds.isEmpty() || !changedResources.isEmpty()) {
+      acquireExclusiveLock();
+    }
+
+    for (String userId : changedUserIds) {
+      updateEffectivePermissions(userId, null, null);
+    }
+
+    for (ChangedResource changedResource : changedResources) {
+      if (changedResource.principalId == null) {
+        // a global authorization changes the permissions of all users
+        updateEffectivePermissions(ANY, changedResource.resourceType, changedResource.resourceId);
+        for (String userId : selectAuthorizedUserIds(changedResource.resourceType)) {
+          updateEffectivePermissions(userId, changedResource.resourceType, changedResource.resourceId);
+        }
+      }
+      else if (changedResource.isGroup) {
+        for (String userId : selectGroupMemberIds(changedResource.principalId)) {
+          updateEffectivePermissions(userId, changedResource.resourceType, changedResource.resourceId);
+        }
+      }
+      else {
+        updateEffectivePermissions(changedResource.principalId, changedResource.resourceType, changedResource.resourceId);
+      }
+    }
+
+    changedUserIds.clear();
+    changedResources.clear();
+    isUpdateScheduled = false;
+  }
+
+  /**
+   * Recomputes the effective permissions of all users.
+   */
+  public void rebuildEffectivePermissions() {
+    acquireExclusiveLock();
+    getDbSqlSession().executeUpdate("deleteEffectivePermissions", new HashMap<String, Object>());
+
+    updateEffectivePermissions(ANY, null, null);
+    for (String userId : selectAuthorizedUserIds(null)) {
+      updateEffectivePermissions(userId, null, null);
+    }
+  }
+
+  protected void acquireExclusiveLock() {
+    Context.getCommandContext()
+      .getPropertyManager()
+      .acquireEffectivePermissionsLock();
+  }
+
+  // computation //////////////////////////////////////////////////
+
+  /**
+   * Recomputes the rows of the user. If a resource type is given, only the
+   * rows of the resource type are recomputed, and if also a resource id other
+   * than <code>'*'</code> is given, only the rows of the resource and of all
+   * resources.
+   */
+  @SuppressWarnings("unchecked")
+  protected void updateEffectivePermissions(String userId, Integer resourceType, String resourceId) {
+    boolean isSingleResource = resourceId != null && !ANY.equals(resourceId);
+
+    Map<String, Object> parameters = new HashMap<String, Object>();
+    parameters.put("userId", userId);
+    parameters.put("resourceType", resourceType);
+    parameters.put("resourceId", isSingleResource ? resourceId : null);
+    getDbSqlSession().executeUpdate("deleteEffectivePermissions", parameters);
+
+    List<String> groupIds = new ArrayList<String>();
+    if (ANY.equals(userId)) {
+      // the pseudo user only has the global authorizations
+      parameters.put("userId", null);
+    }
+    else {
+      groupIds.addAll(selectGroupIds(userId));
+    }
+    parameters.put("groupIds", groupIds);
+    List<AuthorizationEntity> authorizations = (List<AuthorizationEntity>) getDbSqlSession().selectList("selectAuthorizationsForEffectivePermissions", parameters);
+
+    Map<Integer, ResourceTypePermissions> resourceTypes = new HashMap<Integer, ResourceTypePermissions>();
+    for (AuthorizationEntity authorization : authorizations) {
+      ResourceTypePermissions permissions = resourceTypes.get(authorization.getResourceType());
+      if (permissions == null) {
+        permissions = new ResourceTypePermissions();
+        resourceTypes.put(authorization.getResourceType(), permissions);
+      }
+      permissions.add(authorization, userId);
+    }
+
+    if (isSingleResource && !ANY.equals(userId)) {
+      ResourceTypePermissions permissions = resourceTypes.get(resourceType);
+      if (permissions == null || !permissions.hasPrincipalAuthorizations) {
+        // without own authorizations on the resource the user may have none
+        // left on the resource type, in which case the rows of the pseudo user
+        // apply and the remaining rows of the user must be removed
+        updateEffectivePermissions(userId, resourceType, null);
+        return;
+      }
+    }
+
+    for (Entry<Integer, ResourceTypePermissions> resourceTypePermissions : resourceTypes.entrySet()) {
+      ResourceTypePermissions permissions = resourceTypePermissions.getValue();
+      if (isSingleResource) {
+        // the row for all resources is stored as well, since the row of the
+        // resource is omitted if it does not differ from it
+        insertIfDecided(userId, resourceTypePermissions.getKey(), ANY, permissions.getEffectivePermissions(ANY));
+        insertIfDifferent(userId, resourceTypePermissions.getKey(), resourceId, permissions);
+      }
+      else if (ANY.equals(userId) || permissions.hasPrincipalAuthorizations) {
+        insertIfDecided(userId, resourceTypePermissions.getKey(), ANY, permissions.getEffectivePermissions(ANY));
+        for (String authorizedResourceId : permissions.getResourceIds()) {
+          insertIfDifferent(userId, resourceTypePermissions.getKey(), authorizedResourceId, permissions);
+        }
+      }
+    }
+  }
+
+  protected void insertIfDifferent(String userId, int resourceType, String resourceId, ResourceTypePermissions permissions) {
+    int[] resourcePermissions = permissions.getEffectivePermissions(resourceId);
+    int[] allResourcesPermissions = permissions.getEffectivePermissions(ANY);
+
+    if (resourcePermissions[0] != allResourcesPermissions[0] || resourcePermissions[1] != allResourcesPermissions[1]) {
+      insertEffectivePermission(userId, resourceType, resourceId, resourcePermissions);
+    }
+  }
+
+  protected void insertIfDecided(String userId, int resourceType, String resourceId, int[] effectivePermissions) {
+    if (effectivePermissions[1] != 0) {
+      insertEffectivePermission(userId, resourceType, resourceId, effectivePermissions);
+    }
+  }
+
+  protected void insertEffectivePermission(String userId, int resourceType, String resourceId, int[] effectivePermissions) {
+    Map<String, Object> parameters = new HashMap<String, Object>();
+    parameters.put("userId", userId);
+    parameters.put("resourceType", resourceType);
+    parameters.put("resourceId", resourceId);
+    parameters.put("grantedPermissions", effectivePermissions[0]);
+    parameters.put("decidedPermissions", effectivePermissions[1]);
+    getDbSqlSession().executeUpdate("insertEffectivePermission", parameters);
+  }
+
+  // queries //////////////////////////////////////////////////////
+
+  @SuppressWarnings("unchecked")
+  protected List<String> selectGroupIds(String userId) {
+    if (!isDbIdentityUsed()) {
+      return new ArrayList<String>();
+    }
+    return (List<String>) getDbSqlSession().selectList("selectGroupIdsByUserId", userId);
+  }
+
+  @SuppressWarnings("unchecked")
+  protected List<String> selectGroupMemberIds(String groupId) {
+    if (!isDbIdentityUsed()) {
+      return new ArrayList<String>();
+    }
+    return (List<String>) getDbSqlSession().selectList("selectUserIdsByGroupId", groupId);
+  }
+
+  /**
+   * @return the users which have an authorization or are a member of a group
+   *   which has an authorization on the resource type, or on any resource type
+   *   if the resource type is null
+   */
+  @SuppressWarnings("unchecked")
+  protected List<String> selectAuthorizedUserIds(Integer resourceType) {
+    Map<String, Object> parameters = new HashMap<String, Object>();
+    parameters.put("resourceType", resourceType);
+    parameters.put("isDbIdentityUsed", isDbIdentityUsed());
+    return (List<String>) getDbSqlSession().selectList("selectUserIdsForEffectivePermissions", parameters);
+  }
+
+  protected boolean isDbIdentityUsed() {
+    ProcessEngineConfigurationImpl processEngineConfiguration = Context.getProcessEngineConfiguration();
+    return processEngineConfiguration.isDbIdentityUsed();
+  }
+
+  /**
+   * The authorizations of a resource type which apply to a user, by level of
+   * precedence: user, group and global authorizations, each for a single
+   * resource before all resources.
+   */
+  protected static class ResourceTypePermissions {
+
+    protected static final int USER = 0;
+    protected static final int GROUP = 1;
+    protected static final int GLOBAL = 2;
+
+    protected Map<String, int[]> grantsByResourceId = new HashMap<String, int[]>();
+    protected Map<String, int[]> revokesByResourceId = new HashMap<String, int[]>();
+    protected boolean hasPrincipalAuthorizations = false;
+
+    public void add(AuthorizationEntity authorization, String userId) {
+      int level;
+      if (authorization.getAuthorizationType() == AUTH_TYPE_GLOBAL) {
+        level = GLOBAL;
+      }
+      else if (userId.equals(authorization.getUserId())) {
+        level = USER;
+        hasPrincipalAuthorizations = true;
+      }
+      else {
+        level = GROUP;
+        hasPrincipalAuthorizations = true;
+      }
+
+      int permissions = authorization.getPermissions();
+      String resourceId = authorization.getResourceId();
+
+      // a global authorization grants its permissions and revokes all others
+      if (authorization.getAuthorizationType() != AUTH_TYPE_REVOKE) {
+        getLevels(grantsByResourceId, resourceId)[level] |= permissions & ALL_PERMISSIONS;
+      }
+      if (authorization.getAuthorizationType() != AUTH_TYPE_GRANT) {
+        getLevels(revokesByResourceId, resourceId)[level] |= ~permissions & ALL_PERMISSIONS;
+      }
+    }
+
+    public Set<String> getResourceIds() {
+      Set<String> resourceIds = new HashSet<String>(grantsByResourceId.keySet());
+      resourceIds.addAll(revokesByResourceId.keySet());
+      resourceIds.remove(ANY);
+      return resourceIds;
+    }
+
+    /**
+     * @return the granted and the decided permissions for the resource
+     */
+    public int[] getEffectivePermissions(String resourceId) {
+      int granted = 0;
+      int decided = 0;
+
+      for (int level = USER; level <= GLOBAL; level++) {
+        // grants precede revokes on the same level
+        if (!ANY.equals(resourceId)) {
+          int[] levelPermissions = decide(resourceId, level, granted, decided);
+          granted = levelPermissions[0];
+          decided = levelPermissions[1];
+        }
+        int[] levelPermissions = decide(ANY, level, granted, decided);
+        granted = levelPermissions[0];
+        decided = levelPermissions[1];
+      }
+
+      return new int[] { granted, decided };
+    }
+
+    protected int[] decide(String resourceId, int level, int granted, int decided) {
+      int grants = getLevels(grantsByResourceId, resourceId)[level];
+      int revokes = getLevels(revokesByResourceId, resourceId)[level];
+
+      int newlyDecided = (grants | revokes) & ~decided;
+      return new int[] { granted | (grants & newlyDecided), decided | newlyDecided };
+    }
+
+    protected int[] getLevels(Map<String, int[]> permissionsByResourceId, String resourceId) {
+      int[] levels = permissionsByResourceId.get(resourceId);
+      if (levels == null) {
+        levels = new int[3];
+        permissionsByResourceId.put(resourceId, levels);
+      }
+      return levels;
+    }
+  }
+
+  protected static class ChangedResource {
+
+    protected final String principalId;
+    protected final boolean isGroup;
+    protected final int resourceType;
+    protected final String resourceId;
+
+    public ChangedResource(String principalId, boolean isGroup, int resourceType, String resourceId) {
+      this.principalId = principalId;
+      this.isGroup = isGroup;
+      this.resourceType = resourceType;
+      this.resourceId = resourceId;
+    }
+
+    public int hashCode() {
+      final int prime = 31;
+      int result = 1;
+      result = prime * result + ((principalId == null) ? 0 : principalId.hashCode());
+      result = prime * result + (isGroup ? 1231 : 1237);
+      result = prime * result + resourceType;
+      result = prime * result + resourceId.hashCode();
+      return result;
+    }
+
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      ChangedResource other = (ChangedResource) obj;
+      if (principalId == null) {
+        if (other.principalId != null) {
+          return false;
+        }
+      }
+      else if (!principalId.equals(other.principalId)) {
+        return false;
+      }
+      return isGroup == other.isGroup && resourceType == other.resourceType && resourceId.equals(other.resourceId);
+    }
+  }
+
+}
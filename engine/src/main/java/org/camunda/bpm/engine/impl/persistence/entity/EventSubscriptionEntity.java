@@ -47,6 +47,11 @@ public abstract class EventSubscriptionEntity implements EventSubscription, DbEn
   protected String activityId;
   protected String configuration;
   protected Date created;
+  /**
+   * hash of the declared correlation keys of a message event subscription (see {@link org.camunda.bpm.engine.impl.util.CorrelationKeyUtil})
+   * or the event name if the subscription is correlated by querying the variables
+   */
+  protected String correlationKey;
 
   // runtime state /////////////////////////////
   protected ExecutionEntity execution;
@@ -147,6 +152,7 @@ public abstract class EventSubscriptionEntity implements EventSubscription, DbEn
     HashMap<String, Object> persistentState = new HashMap<String, Object>();
     persistentState.put("executionId", executionId);
     persistentState.put("configuration", configuration);
+    persistentState.put("correlationKey", correlationKey);
     return persistentState;
   }
 
@@ -262,6 +268,14 @@ public abstract class EventSubscriptionEntity implements EventSubscription, DbEn
     this.created = created;
   }
 
+  public String getCorrelationKey() {
+    return correlationKey;
+  }
+
+  public void setCorrelationKey(String correlationKey) {
+    this.correlationKey = correlationKey;
+  }
+
   @Override
   public int hashCode() {
     final int prime = 31;
@@ -299,6 +313,7 @@ public abstract class EventSubscriptionEntity implements EventSubscription, DbEn
            + ", configuration=" + configuration
            + ", revision=" + revision
            + ", created=" + created
+           + ", correlationKey=" + correlationKey
            + "]";
   }
 
@@ -14,8 +14,10 @@
 package org.camunda.bpm.engine.impl.persistence.entity;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -23,6 +25,8 @@ import java.util.Set;
 import org.camunda.bpm.engine.impl.EventSubscriptionQueryImpl;
 import org.camunda.bpm.engine.impl.Page;
 import org.camunda.bpm.engine.impl.persistence.AbstractManager;
+import org.camunda.bpm.engine.impl.runtime.MessageCorrelationCriteria;
+import org.camunda.bpm.engine.impl.util.CollectionUtil;
 import org.camunda.bpm.engine.runtime.EventSubscription;
 
 
@@ -30,6 +34,12 @@ import org.camunda.bpm.engine.runtime.EventSubscription;
  * @author Daniel Meyer
  */
 public class EventSubscriptionManager extends AbstractManager {
+
+  /** the maximum number of parameters of an in clause, which is limited to 1000 by some databases */
+  protected static final int MAX_IN_CLAUSE_PARAMETERS = 500;
+
+  /** the maximum number of message correlation criteria looked up by a single query */
+  protected static final int MAX_CORRELATION_CRITERIA = 50;
   
   /** keep track of subscriptions created in the current command */
   protected List<SignalEventSubscriptionEntity> createdSignalSubscriptions = new ArrayList<SignalEventSubscriptionEntity>();
@@ -77,7 +87,36 @@ public class EventSubscriptionManager extends AbstractManager {
     
     return new ArrayList<SignalEventSubscriptionEntity>(selectList);
   }
-  
+
+  /**
+   * Finds the ids of the signal event subscriptions of active executions created until the given time,
+   * ordered by id and starting after the given id.
+   */
+  @SuppressWarnings("unchecked")
+  public List<String> findSignalEventSubscriptionIdsByEventName(String eventName, Date createdBefore, String afterId, int maxResults) {
+    final String query = "selectSignalEventSubscriptionIdsByEventName";
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("eventName", eventName);
+    params.put("createdBefore", createdBefore);
+    params.put("afterId", afterId);
+    return getDbEntityManager().selectList(query, params, 0, maxResults);
+  }
+
+  /**
+   * Finds the signal event subscriptions of active executions created until the given time
+   * with an id between the given ids.
+   */
+  @SuppressWarnings("unchecked")
+  public List<SignalEventSubscriptionEntity> findSignalEventSubscriptionsByEventNameAndIdRange(String eventName, Date createdBefore, String firstId, String lastId) {
+    final String query = "selectSignalEventSubscriptionsByEventNameAndIdRange";
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("eventName", eventName);
+    params.put("createdBefore", createdBefore);
+    params.put("firstId", firstId);
+    params.put("lastId", lastId);
+    return getDbEntityManager().selectList(query, params);
+  }
+
   @SuppressWarnings("unchecked")
   public List<SignalEventSubscriptionEntity> findSignalEventSubscriptionsByExecution(String executionId) {
     final String query = "selectSignalEventSubscriptionsByExecution";    
@@ -159,6 +198,93 @@ public class EventSubscriptionManager extends AbstractManager {
     return getDbEntityManager().selectList(query, params);
   }
 
+  /**
+   * Finds the message event subscriptions of active executions by their correlation key.
+   *
+   * @param businessKey if not null, restricts the subscriptions to process instances with this business key
+   * @param processInstanceId if not null, restricts the subscriptions to this process instance
+   */
+  @SuppressWarnings("unchecked")
+  public List<MessageEventSubscriptionEntity> findMessageEventSubscriptionsByCorrelationKey(String messageName, String correlationKey,
+      String businessKey, String processInstanceId) {
+    final String query = "selectMessageEventSubscriptionsByCorrelationKey";
+    Map<String,String> params = new HashMap<String, String>();
+    params.put("eventName", messageName);
+    params.put("correlationKey", correlationKey);
+    params.put("businessKey", businessKey);
+    params.put("processInstanceId", processInstanceId);
+    return getDbEntityManager().selectList(query, params);
+  }
+
+  /**
+   * @return true if executions subscribe to the message without declaring correlation keys
+   */
+  public boolean hasMessageEventSubscriptionsWithoutCorrelationKey(String messageName) {
+    final String query = "selectMessageEventSubscriptionCountWithoutCorrelationKey";
+    return (Long) getDbEntityManager().selectOne(query, messageName) > 0;
+  }
+
+  /**
+   * Finds the message event subscriptions of active executions by any of the given correlation keys.
+   */
+  @SuppressWarnings("unchecked")
+  public List<MessageEventSubscriptionEntity> findMessageEventSubscriptionsByCorrelationKeys(List<String> correlationKeys) {
+    final String query = "selectMessageEventSubscriptionsByCorrelationKeys";
+    List<MessageEventSubscriptionEntity> result = new ArrayList<MessageEventSubscriptionEntity>();
+    for (List<String> partition : CollectionUtil.partition(correlationKeys, MAX_IN_CLAUSE_PARAMETERS)) {
+      result.addAll(getDbEntityManager().selectList(query, partition));
+    }
+    return result;
+  }
+
+  /**
+   * @return the names of the given messages executions subscribe to without declaring correlation keys
+   */
+  @SuppressWarnings("unchecked")
+  public Set<String> findMessageEventNamesWithoutCorrelationKey(List<String> messageNames) {
+    final String query = "selectMessageEventNamesWithoutCorrelationKey";
+    Set<String> result = new HashSet<String>();
+    for (List<String> partition : CollectionUtil.partition(messageNames, MAX_IN_CLAUSE_PARAMETERS)) {
+      result.addAll(getDbEntityManager().selectList(query, partition));
+    }
+    return result;
+  }
+
+  /**
+   * Finds the active executions which subscribe to a message matching any of the given criteria.
+   *
+   * @return the ids of the executions matching each of the criteria, in the order of the criteria
+   */
+  @SuppressWarnings("unchecked")
+  public List<Set<String>> findMessageEventSubscriptionExecutionIdsByCriteria(List<MessageCorrelationCriteria> criteria) {
+    final String query = "selectMessageEventSubscriptionExecutionIdsByCriteria";
+    List<Set<String>> result = new ArrayList<Set<String>>(criteria.size());
+    for (int i = 0; i < criteria.size(); i++) {
+      result.add(new LinkedHashSet<String>());
+    }
+
+    int offset = 0;
+    for (List<MessageCorrelationCriteria> partition : CollectionUtil.partition(criteria, MAX_CORRELATION_CRITERIA)) {
+      List<Map<String, Object>> rows = getDbEntityManager().selectList(query, partition);
+      for (Map<String, Object> row : rows) {
+        int criteriaIndex = ((Number) row.get("criteriaIndex")).intValue();
+        result.get(offset + criteriaIndex).add((String) row.get("executionId"));
+      }
+      offset += partition.size();
+    }
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  public List<MessageEventSubscriptionEntity> findMessageStartEventSubscriptionsByNames(List<String> messageNames) {
+    final String query = "selectMessageStartEventSubscriptionsByNames";
+    List<MessageEventSubscriptionEntity> result = new ArrayList<MessageEventSubscriptionEntity>();
+    for (List<String> partition : CollectionUtil.partition(messageNames, MAX_IN_CLAUSE_PARAMETERS)) {
+      result.addAll(getDbEntityManager().selectList(query, partition));
+    }
+    return result;
+  }
+
   public MessageEventSubscriptionEntity findMessageStartEventSubscriptionByName(String messageName) {
     MessageEventSubscriptionEntity entity = (MessageEventSubscriptionEntity) getDbEntityManager().selectOne("selectMessageStartEventSubscriptionByName", messageName);
     return entity;
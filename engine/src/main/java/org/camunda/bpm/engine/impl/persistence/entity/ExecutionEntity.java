@@ -13,11 +13,15 @@
 
 package org.camunda.bpm.engine.impl.persistence.entity;
 
+import static org.camunda.bpm.engine.impl.util.CompareUtil.areEqual;
+
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -37,6 +41,7 @@ import org.camunda.bpm.engine.impl.core.operation.CoreAtomicOperation;
 import org.camunda.bpm.engine.impl.core.variable.CoreVariableInstance;
 import org.camunda.bpm.engine.impl.core.variable.scope.CoreVariableStore;
 import org.camunda.bpm.engine.impl.db.DbEntity;
+import org.camunda.bpm.engine.impl.db.DirtyTrackingDbEntity;
 import org.camunda.bpm.engine.impl.db.HasDbReferences;
 import org.camunda.bpm.engine.impl.db.HasDbRevision;
 import org.camunda.bpm.engine.impl.db.entitymanager.DbEntityManager;
@@ -84,6 +89,7 @@ public class ExecutionEntity extends PvmExecutionImpl implements
       Execution,
       ProcessInstance,
       DbEntity,
+      DirtyTrackingDbEntity,
       HasDbRevision,
       HasDbReferences {
 
@@ -152,6 +158,8 @@ public class ExecutionEntity extends PvmExecutionImpl implements
 
   protected int revision = 1;
 
+  protected transient ExecutionPersistentState trackedPersistentState;
+
   /**
    * persisted reference to the processDefinition.
    *
@@ -1106,6 +1114,13 @@ public class ExecutionEntity extends PvmExecutionImpl implements
       .findVariableInstancesByExecutionId(id);
   }
 
+  protected List<VariableInstanceEntity> loadVariableInstances(Collection<String> variableNames) {
+    return Context
+      .getCommandContext()
+      .getVariableInstanceManager()
+      .findVariableInstancesByExecutionIdAndVariableNames(id, variableNames);
+  }
+
   protected boolean isAutoFireHistoryEvents() {
     // as long as the process instance is starting (ie. before activity instance of
     // the selected initial (start event) is created), the variable scope should not
@@ -1197,6 +1212,17 @@ public class ExecutionEntity extends PvmExecutionImpl implements
     return persistentState;
   }
 
+  public void trackPersistentState() {
+    if (trackedPersistentState == null) {
+      trackedPersistentState = new ExecutionPersistentState();
+    }
+    trackedPersistentState.track(this);
+  }
+
+  public boolean isPersistentStateChanged() {
+    return trackedPersistentState == null || !trackedPersistentState.matches(this);
+  }
+
   public void insert() {
     Context
       .getCommandContext()
@@ -1289,6 +1315,53 @@ public class ExecutionEntity extends PvmExecutionImpl implements
     getEventSubscriptionsInternal().remove(eventSubscriptionEntity);
   }
 
+  /**
+   * Recomputes the correlation keys of the message event subscriptions of this execution
+   * and its child executions if the given variable is used to compute them.
+   */
+  @SuppressWarnings("unchecked")
+  public void correlationKeyVariableChanged(String variableName) {
+    ProcessDefinitionImpl processDefinition = getProcessDefinition();
+    if (processDefinition == null) {
+      return;
+    }
+    Set<String> correlationVariableNames = (Set<String>) processDefinition.getProperty(BpmnParse.PROPERTYNAME_CORRELATION_VARIABLE_NAMES);
+    if (correlationVariableNames != null && correlationVariableNames.contains(variableName)) {
+      updateCorrelationKeys();
+    }
+  }
+
+  protected void updateCorrelationKeys() {
+    for (EventSubscriptionEntity eventSubscription : getEventSubscriptionsInternal()) {
+      if (eventSubscription instanceof MessageEventSubscriptionEntity) {
+        EventSubscriptionDeclaration declaration = findEventSubscriptionDeclaration(eventSubscription);
+        if (declaration != null) {
+          declaration.updateCorrelationKey(eventSubscription, this);
+        }
+      }
+    }
+    for (ExecutionEntity childExecution : getExecutions()) {
+      childExecution.updateCorrelationKeys();
+    }
+  }
+
+  protected EventSubscriptionDeclaration findEventSubscriptionDeclaration(EventSubscriptionEntity eventSubscription) {
+    ActivityImpl activity = eventSubscription.getActivity();
+    ScopeImpl scope = activity;
+    while (scope != null) {
+      for (EventSubscriptionDeclaration declaration : EventSubscriptionDeclaration.getDeclarationsForScope(scope)) {
+        // declarations without activity id create subscriptions for the scope they are declared on
+        String activityId = declaration.getActivityId() != null ? declaration.getActivityId() : scope.getId();
+        if (activity.getId().equals(activityId)
+            && eventSubscription.getEventName().equals(declaration.getEventName())) {
+          return declaration;
+        }
+      }
+      scope = scope instanceof ActivityImpl ? ((ActivityImpl) scope).getParent() : null;
+    }
+    return null;
+  }
+
   // referenced job entities //////////////////////////////////////////////////
 
   protected void ensureJobsInitialized() {
@@ -1569,4 +1642,65 @@ public class ExecutionEntity extends PvmExecutionImpl implements
           .getProcessEngine();
   }
 
+  /**
+   * The tracked persistent state of an execution. It is reused
+   * for every flush so that tracking does not allocate memory.
+   *
+   * @see #getPersistentState()
+   */
+  protected static class ExecutionPersistentState {
+
+    protected String processDefinitionId;
+    protected String businessKey;
+    protected String activityId;
+    protected String activityInstanceId;
+    protected boolean isActive;
+    protected boolean isConcurrent;
+    protected boolean isScope;
+    protected boolean isEventScope;
+    protected String parentId;
+    protected String superExecutionId;
+    protected String superCaseExecutionId;
+    protected String caseInstanceId;
+    protected int suspensionState;
+    protected int cachedEntityState;
+    protected long sequenceCounter;
+
+    public void track(ExecutionEntity execution) {
+      processDefinitionId = execution.processDefinitionId;
+      businessKey = execution.businessKey;
+      activityId = execution.activityId;
+      activityInstanceId = execution.activityInstanceId;
+      isActive = execution.isActive;
+      isConcurrent = execution.isConcurrent;
+      isScope = execution.isScope;
+      isEventScope = execution.isEventScope;
+      parentId = execution.parentId;
+      superExecutionId = execution.superExecutionId;
+      superCaseExecutionId = execution.superCaseExecutionId;
+      caseInstanceId = execution.caseInstanceId;
+      suspensionState = execution.suspensionState;
+      cachedEntityState = execution.getCachedEntityState();
+      sequenceCounter = execution.getSequenceCounter();
+    }
+
+    public boolean matches(ExecutionEntity execution) {
+      return isActive == execution.isActive
+          && isConcurrent == execution.isConcurrent
+          && isScope == execution.isScope
+          && isEventScope == execution.isEventScope
+          && suspensionState == execution.suspensionState
+          && sequenceCounter == execution.getSequenceCounter()
+          && areEqual(activityId, execution.activityId)
+          && areEqual(activityInstanceId, execution.activityInstanceId)
+          && areEqual(processDefinitionId, execution.processDefinitionId)
+          && areEqual(businessKey, execution.businessKey)
+          && areEqual(parentId, execution.parentId)
+          && areEqual(superExecutionId, execution.superExecutionId)
+          && areEqual(superCaseExecutionId, execution.superCaseExecutionId)
+          && areEqual(caseInstanceId, execution.caseInstanceId)
+          && cachedEntityState == execution.getCachedEntityState();
+    }
+  }
+
 }
@@ -12,10 +12,14 @@
  */
 package org.camunda.bpm.engine.impl.persistence.entity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
+import org.camunda.bpm.engine.impl.core.variable.CoreVariableInstance;
+import org.camunda.bpm.engine.impl.core.variable.scope.AbstractVariableScope;
 import org.camunda.bpm.engine.impl.variable.AbstractPersistentVariableStore;
+import org.camunda.bpm.engine.variable.value.TypedValue;
 
 /**
  * @author Daniel Meyer
@@ -37,6 +41,10 @@ public class ExecutionEntityVariableStore extends AbstractPersistentVariableStor
     return executionEntity.loadVariableInstances();
   }
 
+  protected List<VariableInstanceEntity> loadVariableInstances(Collection<String> variableNames) {
+    return executionEntity.loadVariableInstances(variableNames);
+  }
+
   protected void initializeVariableInstanceBackPointer(VariableInstanceEntity variableInstance) {
     executionEntity.initializeVariableInstanceBackPointer(variableInstance);
   }
@@ -45,6 +53,23 @@ public class ExecutionEntityVariableStore extends AbstractPersistentVariableStor
     return executionEntity.isAutoFireHistoryEvents();
   }
 
+  public CoreVariableInstance createVariableInstance(String variableName, TypedValue value, AbstractVariableScope sourceActivityExecution) {
+    CoreVariableInstance variableInstance = super.createVariableInstance(variableName, value, sourceActivityExecution);
+    executionEntity.correlationKeyVariableChanged(variableName);
+    return variableInstance;
+  }
+
+  public void setVariableValue(CoreVariableInstance variableInstance, TypedValue value, AbstractVariableScope sourceActivityExecution) {
+    super.setVariableValue(variableInstance, value, sourceActivityExecution);
+    executionEntity.correlationKeyVariableChanged(variableInstance.getName());
+  }
+
+  public CoreVariableInstance removeVariableInstance(String variableName, AbstractVariableScope sourceActivityExecution) {
+    CoreVariableInstance variableInstance = super.removeVariableInstance(variableName, sourceActivityExecution);
+    executionEntity.correlationKeyVariableChanged(variableName);
+    return variableInstance;
+  }
+
   public Map<String, VariableInstanceEntity> getVariableInstancesWithoutInitialization() {
     return variableInstances;
   }
@@ -13,7 +13,11 @@
 
 package org.camunda.bpm.engine.impl.persistence.entity;
 
+import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -24,6 +28,8 @@ import org.camunda.bpm.engine.impl.context.Context;
 import org.camunda.bpm.engine.impl.history.event.HistoricProcessInstanceEventEntity;
 import org.camunda.bpm.engine.impl.interceptor.CommandContext;
 import org.camunda.bpm.engine.impl.persistence.AbstractHistoricManager;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
+import org.camunda.bpm.engine.impl.util.CollectionUtil;
 
 
 /**
@@ -31,6 +37,9 @@ import org.camunda.bpm.engine.impl.persistence.AbstractHistoricManager;
  */
 public class HistoricProcessInstanceManager extends AbstractHistoricManager {
 
+  /** the maximum number of parameters of an in clause, which is limited to 1000 by some databases */
+  protected static final int MAX_IN_CLAUSE_PARAMETERS = 500;
+
   public HistoricProcessInstanceEntity findHistoricProcessInstance(String processInstanceId) {
     if (isHistoryEnabled()) {
       return getDbEntityManager().selectById(HistoricProcessInstanceEntity.class, processInstanceId);
@@ -87,6 +96,83 @@ public class HistoricProcessInstanceManager extends AbstractHistoricManager {
     }
   }
 
+  /**
+   * Deletes the given historic process instances together with their history in all
+   * history tables. Unlike {@link #deleteHistoricProcessInstanceById(String)}, each table
+   * is cleaned up with a single statement per {@value #MAX_IN_CLAUSE_PARAMETERS} instances.
+   */
+  public void deleteHistoricProcessInstanceByIds(List<String> historicProcessInstanceIds) {
+    if (isHistoryEnabled()) {
+      for (List<String> partition : CollectionUtil.partition(historicProcessInstanceIds, MAX_IN_CLAUSE_PARAMETERS)) {
+
+        getHistoricDetailManager()
+          .deleteHistoricDetailsByProcessInstanceIds(partition);
+
+        getHistoricVariableInstanceManager()
+          .deleteHistoricVariableInstancesByProcessInstanceIds(partition);
+
+        getHistoricActivityInstanceManager()
+          .deleteHistoricActivityInstancesByProcessInstanceIds(partition);
+
+        // comments and attachments are also deleted by the ids of the historic task instances,
+        // so they are deleted before the task instances
+        getCommentManager()
+          .deleteCommentsByProcessInstanceIds(partition);
+
+        getAttachmentManager()
+          .deleteAttachmentsByProcessInstanceIds(partition);
+
+        getHistoricTaskInstanceManager()
+          .deleteHistoricTaskInstancesByProcessInstanceIds(partition);
+
+        getUserOperationLogManager()
+          .deleteOperationLogEntriesByProcessInstanceIds(partition);
+
+        getHistoricIncidentManager()
+          .deleteHistoricIncidentsByProcessInstanceIds(partition);
+
+        getHistoricJobLogManager()
+          .deleteHistoricJobLogsByProcessInstanceIds(partition);
+
+        getDbEntityManager().delete(HistoricProcessInstanceEntity.class, "deleteHistoricProcessInstancesByProcessInstanceIds", partition);
+      }
+    }
+  }
+
+  /**
+   * Finds the ids of finished historic process instances whose process definition declares a
+   * history time to live which has expired.
+   *
+   * @param maxResults the maximum number of ids to return
+   */
+  @SuppressWarnings("unchecked")
+  public List<String> findHistoricProcessInstanceIdsForCleanup(int maxResults) {
+    if (!isHistoryEnabled()) {
+      return Collections.EMPTY_LIST;
+    }
+
+    List<Integer> historyTimeToLives = getProcessDefinitionManager().findProcessDefinitionHistoryTimeToLives();
+    if (historyTimeToLives.isEmpty()) {
+      return Collections.EMPTY_LIST;
+    }
+
+    // compute the end time before which the instances of each time to live are removed
+    Date now = ClockUtil.getCurrentTime();
+    List<Map<String, Object>> removalTimes = new ArrayList<Map<String, Object>>();
+    for (Integer historyTimeToLive : historyTimeToLives) {
+      Calendar endedBefore = Calendar.getInstance();
+      endedBefore.setTime(now);
+      endedBefore.add(Calendar.DAY_OF_MONTH, -historyTimeToLive);
+
+      Map<String, Object> removalTime = new HashMap<String, Object>();
+      removalTime.put("historyTimeToLive", historyTimeToLive);
+      removalTime.put("endedBefore", endedBefore.getTime());
+      removalTimes.add(removalTime);
+    }
+
+    return getDbEntityManager().selectList("selectHistoricProcessInstanceIdsForCleanup", removalTimes, 0, maxResults);
+  }
+
   public long findHistoricProcessInstanceCountByQueryCriteria(HistoricProcessInstanceQueryImpl historicProcessInstanceQuery) {
     if (isHistoryEnabled()) {
       return (Long) getDbEntityManager().selectOne("selectHistoricProcessInstanceCountByQueryCriteria", historicProcessInstanceQuery);
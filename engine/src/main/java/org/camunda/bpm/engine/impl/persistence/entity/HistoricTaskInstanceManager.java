@@ -51,6 +51,19 @@ public class HistoricTaskInstanceManager extends AbstractHistoricManager {
     deleteHistoricTaskInstances("caseDefinitionId", caseDefinitionId);
   }
 
+  /**
+   * Deletes the historic task instances of the given process instances. In contrast to
+   * {@link #deleteHistoricTaskInstanceById(String)}, the details, variables, comments,
+   * attachments and operation log entries of the tasks are not deleted. The comments and
+   * attachments must be deleted before, since the ones of tasks created without a process
+   * instance id are only found by the ids of the historic task instances.
+   */
+  public void deleteHistoricTaskInstancesByProcessInstanceIds(List<String> processInstanceIds) {
+    if (isHistoryEnabled()) {
+      getDbEntityManager().delete(HistoricTaskInstanceEntity.class, "deleteHistoricTaskInstancesByProcessInstanceIds", processInstanceIds);
+    }
+  }
+
   @SuppressWarnings("unchecked")
   protected void deleteHistoricTaskInstances(String key, String value) {
     if (isHistoryEnabled()) {
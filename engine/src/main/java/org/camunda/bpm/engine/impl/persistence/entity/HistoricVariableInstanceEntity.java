@@ -89,6 +89,8 @@ public class HistoricVariableInstanceEntity implements ValueFields, HistoricVari
     deleteByteArrayValue();
     if(historyEvent.getByteValue() != null) {
       setByteArrayValue(historyEvent.getByteValue());
+    } else if (historyEvent.getSourceByteArrayId() != null) {
+      copyByteArrayValue(historyEvent.getSourceByteArrayId());
     }
 
   }
@@ -216,11 +218,24 @@ public class HistoricVariableInstanceEntity implements ValueFields, HistoricVari
     }
   }
 
+  /**
+   * Inserts a byte array whose content is copied by the database from the given byte array.
+   */
+  protected void copyByteArrayValue(String sourceByteArrayId) {
+    deleteByteArrayValue();
+    ByteArrayEntity byteArrayValue = new ByteArrayEntity(name, null);
+    byteArrayValue.setSourceByteArrayId(sourceByteArrayId);
+    Context
+      .getCommandContext()
+      .getDbEntityManager()
+      .insert(byteArrayValue);
+    this.byteArrayValue = byteArrayValue;
+    this.byteArrayId = byteArrayValue.getId();
+  }
+
   protected void deleteByteArrayValue() {
     if (byteArrayId != null) {
-      // the next apparently useless line is probably to ensure consistency in the DbSqlSession
-      // cache, but should be checked and docced here (or removed if it turns out to be unnecessary)
-      getByteArrayValue();
+      // the byte array is deleted without loading it, its content may be large
       Context
         .getCommandContext()
         .getByteArrayManager()
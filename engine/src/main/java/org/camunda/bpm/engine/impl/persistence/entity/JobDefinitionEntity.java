@@ -54,6 +54,9 @@ public class JobDefinitionEntity implements JobDefinition, HasDbRevision, DbEnti
   // job definition is active by default
   protected int suspensionState = SuspensionState.ACTIVE.getStateCode();
 
+  /** if set, jobs of this definition receive this priority instead of the declared one */
+  protected Long overridingJobPriority;
+
   public JobDefinitionEntity() {
   }
 
@@ -71,6 +74,7 @@ public class JobDefinitionEntity implements JobDefinition, HasDbRevision, DbEnti
     state.put("jobType", jobType);
     state.put("jobConfiguration", jobConfiguration);
     state.put("suspensionState", suspensionState);
+    state.put("overridingJobPriority", overridingJobPriority);
     return state;
   }
 
@@ -154,4 +158,12 @@ public class JobDefinitionEntity implements JobDefinition, HasDbRevision, DbEnti
     this.suspensionState = state;
   }
 
+  public Long getOverridingJobPriority() {
+    return overridingJobPriority;
+  }
+
+  public void setOverridingJobPriority(Long overridingJobPriority) {
+    this.overridingJobPriority = overridingJobPriority;
+  }
+
 }
@@ -12,6 +12,7 @@
  */
 package org.camunda.bpm.engine.impl.persistence.entity;
 
+import static org.camunda.bpm.engine.impl.util.CompareUtil.areEqual;
 import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensureNotNull;
 import static org.camunda.bpm.engine.impl.util.JobExceptionUtil.createJobExceptionByteArray;
 import static org.camunda.bpm.engine.impl.util.JobExceptionUtil.getJobExceptionStacktrace;
@@ -28,12 +29,14 @@ import java.util.logging.Logger;
 import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.camunda.bpm.engine.impl.context.Context;
 import org.camunda.bpm.engine.impl.db.DbEntity;
+import org.camunda.bpm.engine.impl.db.DirtyTrackingDbEntity;
 import org.camunda.bpm.engine.impl.db.HasDbRevision;
 import org.camunda.bpm.engine.impl.incident.FailedJobIncidentHandler;
 import org.camunda.bpm.engine.impl.incident.IncidentHandler;
 import org.camunda.bpm.engine.impl.interceptor.CommandContext;
 import org.camunda.bpm.engine.impl.jobexecutor.JobHandler;
 import org.camunda.bpm.engine.impl.pvm.process.ProcessDefinitionImpl;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
 import org.camunda.bpm.engine.management.JobDefinition;
 import org.camunda.bpm.engine.runtime.Incident;
 import org.camunda.bpm.engine.runtime.Job;
@@ -47,12 +50,13 @@ import org.camunda.bpm.engine.runtime.Job;
  * @author Dave Syer
  * @author Frederik Heremans
  */
-public abstract class JobEntity implements Serializable, Job, DbEntity, HasDbRevision {
+public abstract class JobEntity implements Serializable, Job, DbEntity, DirtyTrackingDbEntity, HasDbRevision {
 
   private final static Logger LOG = Logger.getLogger(JobEntity.class.getName());
 
   public static final boolean DEFAULT_EXCLUSIVE = true;
   public static final int DEFAULT_RETRIES = 3;
+  public static final long DEFAULT_PRIORITY = 0;
 
   /**
    * Note: {@link String#length()} counts Unicode supplementary
@@ -96,6 +100,8 @@ public abstract class JobEntity implements Serializable, Job, DbEntity, HasDbRev
 
   protected String jobDefinitionId;
 
+  protected long priority = DEFAULT_PRIORITY;
+
   // runtime state /////////////////////////////
   protected boolean executing = false;
   protected String activityId;
@@ -105,6 +111,8 @@ public abstract class JobEntity implements Serializable, Job, DbEntity, HasDbRev
   // sequence counter //////////////////////////
   protected long sequenceCounter = 1;
 
+  protected transient JobPersistentState trackedPersistentState;
+
   public void execute(CommandContext commandContext) {
     if (executionId != null) {
       ExecutionEntity execution = getExecution();
@@ -190,12 +198,24 @@ public abstract class JobEntity implements Serializable, Job, DbEntity, HasDbRev
     persistentState.put("jobDefinitionId", jobDefinitionId);
     persistentState.put("deploymentId", deploymentId);
     persistentState.put("jobHandlerConfiguration", jobHandlerConfiguration);
+    persistentState.put("priority", priority);
     if(exceptionByteArrayId != null) {
       persistentState.put("exceptionByteArrayId", exceptionByteArrayId);
     }
     return persistentState;
   }
 
+  public void trackPersistentState() {
+    if (trackedPersistentState == null) {
+      trackedPersistentState = new JobPersistentState();
+    }
+    trackedPersistentState.track(this);
+  }
+
+  public boolean isPersistentStateChanged() {
+    return trackedPersistentState == null || !trackedPersistentState.matches(this);
+  }
+
   public int getRevisionNext() {
     return revision+1;
   }
@@ -354,6 +374,14 @@ public abstract class JobEntity implements Serializable, Job, DbEntity, HasDbRev
     this.lockExpirationTime = claimedUntil;
   }
 
+  /**
+   * @return true if the job is locked and its lock expired, so that it may be
+   *         acquired by another job executor
+   */
+  public boolean isLockExpired() {
+    return lockExpirationTime != null && !lockExpirationTime.after(ClockUtil.getCurrentTime());
+  }
+
   public String getProcessInstanceId() {
     return processInstanceId;
   }
@@ -505,6 +533,14 @@ public abstract class JobEntity implements Serializable, Job, DbEntity, HasDbRev
     this.deploymentId = deploymentId;
   }
 
+  public long getPriority() {
+    return priority;
+  }
+
+  public void setPriority(long priority) {
+    this.priority = priority;
+  }
+
   public boolean isInInconsistentLockState() {
     return (lockOwner != null && lockExpirationTime == null)
         || (retries == 0 && (lockOwner != null || lockExpirationTime != null));
@@ -596,4 +632,59 @@ public abstract class JobEntity implements Serializable, Job, DbEntity, HasDbRev
            + "]";
   }
 
+  /**
+   * The tracked persistent state of a job. It is reused
+   * for every flush so that tracking does not allocate memory.
+   *
+   * @see #getPersistentState()
+   */
+  protected static class JobPersistentState {
+
+    protected String executionId;
+    protected String lockOwner;
+    protected Date lockExpirationTime;
+    protected int retries;
+    protected Date duedate;
+    protected String exceptionMessage;
+    protected int suspensionState;
+    protected String processDefinitionId;
+    protected String jobDefinitionId;
+    protected String deploymentId;
+    protected String jobHandlerConfiguration;
+    protected long priority;
+    protected String exceptionByteArrayId;
+
+    public void track(JobEntity job) {
+      executionId = job.executionId;
+      lockOwner = job.lockOwner;
+      lockExpirationTime = job.lockExpirationTime;
+      retries = job.retries;
+      duedate = job.duedate;
+      exceptionMessage = job.exceptionMessage;
+      suspensionState = job.suspensionState;
+      processDefinitionId = job.processDefinitionId;
+      jobDefinitionId = job.jobDefinitionId;
+      deploymentId = job.deploymentId;
+      jobHandlerConfiguration = job.jobHandlerConfiguration;
+      priority = job.priority;
+      exceptionByteArrayId = job.exceptionByteArrayId;
+    }
+
+    public boolean matches(JobEntity job) {
+      return retries == job.retries
+          && suspensionState == job.suspensionState
+          && priority == job.priority
+          && areEqual(lockOwner, job.lockOwner)
+          && areEqual(lockExpirationTime, job.lockExpirationTime)
+          && areEqual(executionId, job.executionId)
+          && areEqual(duedate, job.duedate)
+          && areEqual(exceptionMessage, job.exceptionMessage)
+          && areEqual(processDefinitionId, job.processDefinitionId)
+          && areEqual(jobDefinitionId, job.jobDefinitionId)
+          && areEqual(deploymentId, job.deploymentId)
+          && areEqual(jobHandlerConfiguration, job.jobHandlerConfiguration)
+          && areEqual(exceptionByteArrayId, job.exceptionByteArrayId);
+    }
+  }
+
 }
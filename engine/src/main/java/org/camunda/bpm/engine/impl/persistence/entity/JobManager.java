@@ -17,6 +17,7 @@ import static org.camunda.bpm.engine.impl.jobexecutor.TimerEventJobHandler.JOB_H
 import static org.camunda.bpm.engine.impl.jobexecutor.TimerEventJobHandler.JOB_HANDLER_CONFIG_PROPERTY_FOLLOW_UP_JOB_CREATED;
 import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensureNotNull;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -25,9 +26,11 @@ import java.util.Set;
 
 import org.camunda.bpm.engine.impl.JobQueryImpl;
 import org.camunda.bpm.engine.impl.Page;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.camunda.bpm.engine.impl.cfg.TransactionListener;
 import org.camunda.bpm.engine.impl.cfg.TransactionState;
 import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.db.ListQueryParameterObject;
 import org.camunda.bpm.engine.impl.jobexecutor.ExclusiveJobAddedNotification;
 import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
 import org.camunda.bpm.engine.impl.jobexecutor.JobExecutorContext;
@@ -47,6 +50,8 @@ import org.camunda.bpm.engine.runtime.Job;
  */
 public class JobManager extends AbstractManager {
 
+  public static final String JOB_ACQUISITION_ORDER_BY_PRIORITY = "RES.PRIORITY_ desc, RES.DUEDATE_ asc";
+
   public void insertJob(JobEntity job) {
     getDbEntityManager().insert(job);
     getHistoricJobLogManager().fireJobCreatedEvent(job);
@@ -94,9 +99,8 @@ public class JobManager extends AbstractManager {
     JobExecutorContext jobExecutorContext = Context.getJobExecutorContext();
     TransactionListener transactionListener = null;
     if(!job.isSuspended()
-            && job.isExclusive()
             && jobExecutorContext != null
-            && jobExecutorContext.isExecutingExclusiveJob()) {
+            && isExecutedByCurrentProcessor(job, jobExecutorContext)) {
       // lock job & add to the queue of the current processor
       Date currentTime = ClockUtil.getCurrentTime();
       job.setLockExpirationTime(new Date(currentTime.getTime() + jobExecutor.getLockTimeInMillis()));
@@ -111,6 +115,37 @@ public class JobManager extends AbstractManager {
     .addTransactionListener(TransactionState.COMMITTED, transactionListener);
   }
 
+  /**
+   * Exclusive jobs created by an exclusive job are executed by the current processor.
+   * If {@link ProcessEngineConfigurationImpl#isJobExecutorLocalContinuation() local continuation}
+   * is enabled, due non-exclusive jobs are executed by the current processor as well.
+   * Exclusive jobs created by a non-exclusive job are acquired as usual since another
+   * exclusive job of the process instance may be executed concurrently.
+   */
+  protected boolean isExecutedByCurrentProcessor(JobEntity job, JobExecutorContext jobExecutorContext) {
+    if (job.isExclusive()) {
+      return jobExecutorContext.isExecutingExclusiveJob();
+    }
+
+    ProcessEngineConfigurationImpl processEngineConfiguration = Context.getProcessEngineConfiguration();
+    if (!processEngineConfiguration.isJobExecutorLocalContinuation()) {
+      return false;
+    }
+
+    Date duedate = job.getDuedate();
+    if (duedate != null && duedate.after(ClockUtil.getCurrentTime())) {
+      return false;
+    }
+
+    if (processEngineConfiguration.isJobExecutorDeploymentAware()) {
+      // the job must be acquirable by this job executor
+      Set<String> registeredDeployments = processEngineConfiguration.getRegisteredDeployments();
+      return job.getDeploymentId() == null || registeredDeployments.contains(job.getDeploymentId());
+    }
+
+    return true;
+  }
+
   public void cancelTimers(ExecutionEntity execution) {
     List<TimerEntity> timers = Context
       .getCommandContext()
@@ -126,19 +161,40 @@ public class JobManager extends AbstractManager {
     return (JobEntity) getDbEntityManager().selectOne("selectJob", jobId);
   }
 
-  @SuppressWarnings("unchecked")
   public List<JobEntity> findNextJobsToExecute(Page page) {
+    return findNextJobsToExecute(page, false);
+  }
+
+  /**
+   * @param skipLocked if true, the selected jobs are locked in the database and jobs which are
+   *   currently locked by another transaction are skipped. Must only be used if the
+   *   database supports <code>SELECT ... FOR UPDATE SKIP LOCKED</code>.
+   */
+  @SuppressWarnings("unchecked")
+  public List<JobEntity> findNextJobsToExecute(Page page, boolean skipLocked) {
+    ProcessEngineConfigurationImpl processEngineConfiguration = Context.getProcessEngineConfiguration();
+
     Map<String,Object> params = new HashMap<String, Object>();
     Date now = ClockUtil.getCurrentTime();
     params.put("now", now);
-    params.put("deploymentAware", Context.getProcessEngineConfiguration().isJobExecutorDeploymentAware());
-    if (Context.getProcessEngineConfiguration().isJobExecutorDeploymentAware()) {
-      Set<String> registeredDeployments = Context.getProcessEngineConfiguration().getRegisteredDeployments();
+    params.put("deploymentAware", processEngineConfiguration.isJobExecutorDeploymentAware());
+    if (processEngineConfiguration.isJobExecutorDeploymentAware()) {
+      Set<String> registeredDeployments = processEngineConfiguration.getRegisteredDeployments();
       if (!registeredDeployments.isEmpty()) {
         params.put("deploymentIds", registeredDeployments);
       }
     }
-    return getDbEntityManager().selectList("selectNextJobsToExecute", params, page);
+
+    boolean orderByPriority = processEngineConfiguration.isJobExecutorAcquireByPriority();
+    params.put("orderByPriority", orderByPriority);
+
+    ListQueryParameterObject queryParameter = new ListQueryParameterObject(params, page.getFirstResult(), page.getMaxResults());
+    if (orderByPriority) {
+      queryParameter.setOrderBy(JOB_ACQUISITION_ORDER_BY_PRIORITY);
+    }
+
+    String statement = skipLocked ? "selectNextJobsToExecuteSkipLocked" : "selectNextJobsToExecute";
+    return getDbEntityManager().selectList(statement, queryParameter);
   }
 
   @SuppressWarnings("unchecked")
@@ -151,12 +207,54 @@ public class JobManager extends AbstractManager {
     return getDbEntityManager().selectList("selectJobsByProcessInstanceId", processInstanceId);
   }
 
-  @SuppressWarnings("unchecked")
   public List<JobEntity> findExclusiveJobsToExecute(String processInstanceId) {
+    return findExclusiveJobsToExecute(processInstanceId, false);
+  }
+
+  @SuppressWarnings("unchecked")
+  public List<JobEntity> findExclusiveJobsToExecute(String processInstanceId, boolean skipLocked) {
     Map<String,Object> params = new HashMap<String, Object>();
     params.put("pid", processInstanceId);
     params.put("now",ClockUtil.getCurrentTime());
-    return getDbEntityManager().selectList("selectExclusiveJobsToExecute", params);
+    String statement = skipLocked ? "selectExclusiveJobsToExecuteSkipLocked" : "selectExclusiveJobsToExecute";
+    return getDbEntityManager().selectList(statement, params);
+  }
+
+  /**
+   * Selects the exclusive jobs to execute of all given process instances with a single query.
+   */
+  @SuppressWarnings("unchecked")
+  public List<JobEntity> findExclusiveJobsToExecute(Collection<String> processInstanceIds, boolean skipLocked) {
+    Map<String,Object> params = new HashMap<String, Object>();
+    params.put("pids", processInstanceIds);
+    params.put("now",ClockUtil.getCurrentTime());
+    String statement = skipLocked ? "selectExclusiveJobsToExecuteSkipLocked" : "selectExclusiveJobsToExecute";
+    return getDbEntityManager().selectList(statement, params);
+  }
+
+  /**
+   * Locks the given jobs with a single update statement. A job is only locked if its
+   * revision has not changed since it was selected.
+   *
+   * @return the number of locked jobs
+   */
+  public int lockJobs(List<JobEntity> jobs, String lockOwner, Date lockExpirationTime) {
+    Map<String, Object> parameters = new HashMap<String, Object>();
+    parameters.put("jobs", jobs);
+    parameters.put("lockOwner", lockOwner);
+    parameters.put("lockExpirationTime", lockExpirationTime);
+    return getDbEntityManager().executeUpdate("updateJobLocks", parameters);
+  }
+
+  /**
+   * @return the ids of those of the given jobs which have been locked by {@link #lockJobs(List, String, Date)}
+   */
+  @SuppressWarnings("unchecked")
+  public List<String> findLockedJobIds(List<JobEntity> jobs, String lockOwner) {
+    Map<String, Object> parameters = new HashMap<String, Object>();
+    parameters.put("jobs", jobs);
+    parameters.put("lockOwner", lockOwner);
+    return getDbEntityManager().selectList("selectLockedJobIds", parameters);
   }
 
 
@@ -195,6 +293,23 @@ public class JobManager extends AbstractManager {
     return getDbEntityManager().selectList("selectJobsByConfiguration", params);
   }
 
+  @SuppressWarnings("unchecked")
+  public List<JobEntity> findJobsByHandlerType(String jobHandlerType) {
+    return getDbEntityManager().selectList("selectJobsByHandlerType", jobHandlerType);
+  }
+
+  /**
+   * Finds the jobs of the given handler type whose configuration starts with the given prefix.
+   */
+  @SuppressWarnings("unchecked")
+  public List<JobEntity> findJobsByConfigurationPrefix(String jobHandlerType, String jobHandlerConfigurationPrefix) {
+    Map<String, String> params = new HashMap<String, String>();
+    params.put("handlerType", jobHandlerType);
+    params.put("handlerConfigurationLike", jobHandlerConfigurationPrefix + "%");
+
+    return getDbEntityManager().selectList("selectJobsByConfigurationPrefix", params);
+  }
+
   public long findJobCountByQueryCriteria(JobQueryImpl jobQuery) {
     return (Long) getDbEntityManager().selectOne("selectJobCountByQueryCriteria", jobQuery);
   }
@@ -250,6 +365,13 @@ public class JobManager extends AbstractManager {
     getDbEntityManager().update(JobEntity.class, "updateJobSuspensionStateByParameters", parameters);
   }
 
+  public void updateJobPriorityByDefinitionId(String jobDefinitionId, long priority) {
+    Map<String, Object> parameters = new HashMap<String, Object>();
+    parameters.put("jobDefinitionId", jobDefinitionId);
+    parameters.put("priority", priority);
+    getDbEntityManager().update(JobEntity.class, "updateJobPriorityByDefinitionId", parameters);
+  }
+
   public void updateFailedJobRetriesByJobDefinitionId(String jobDefinitionId, int retries) {
     Map<String, Object> parameters = new HashMap<String, Object>();
     parameters.put("jobDefinitionId", jobDefinitionId);
@@ -0,0 +1,100 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.persistence.entity;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.camunda.bpm.engine.impl.cmd.GetByteArrayStreamCmd;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.interceptor.CommandExecutor;
+
+/**
+ * <p>Reads the content of a {@link ByteArrayEntity} which is opened on the first read.</p>
+ *
+ * <p>Inside of a command, the content is streamed from the database by the
+ * {@link ByteArrayManager}. Outside of a command, the connection of the command
+ * which created the stream is not available anymore and the content is read
+ * from a temporary file instead.</p>
+ */
+public class LazyByteArrayInputStream extends InputStream {
+
+  protected final String byteArrayId;
+  protected final CommandExecutor commandExecutor;
+
+  protected InputStream stream;
+  protected boolean closed = false;
+
+  public LazyByteArrayInputStream(String byteArrayId, CommandExecutor commandExecutor) {
+    this.byteArrayId = byteArrayId;
+    this.commandExecutor = commandExecutor;
+  }
+
+  public String getByteArrayId() {
+    return byteArrayId;
+  }
+
+  /**
+   * @return true if the content has been read from the database
+   */
+  public boolean isOpened() {
+    return stream != null || closed;
+  }
+
+  public int read() throws IOException {
+    return getStream().read();
+  }
+
+  public int read(byte[] b, int off, int len) throws IOException {
+    return getStream().read(b, off, len);
+  }
+
+  public long skip(long n) throws IOException {
+    return getStream().skip(n);
+  }
+
+  public int available() throws IOException {
+    if (stream == null) {
+      return 0;
+    }
+    return getStream().available();
+  }
+
+  public void close() throws IOException {
+    closed = true;
+    if (stream != null) {
+      stream.close();
+    }
+  }
+
+  protected InputStream getStream() throws IOException {
+    if (closed) {
+      throw new IOException("Stream of byte array " + byteArrayId + " is closed");
+    }
+    if (stream == null) {
+      stream = openStream();
+    }
+    return stream;
+  }
+
+  protected InputStream openStream() {
+    CommandContext commandContext = Context.getCommandContext();
+    if (commandContext != null) {
+      return commandContext.getByteArrayManager().openByteArrayStream(byteArrayId);
+    } else {
+      return commandExecutor.execute(new GetByteArrayStreamCmd(byteArrayId));
+    }
+  }
+
+}
@@ -62,11 +62,15 @@ public class ProcessDefinitionEntity extends ProcessDefinitionImpl implements Pr
   protected Map<String, TaskDefinition> taskDefinitions;
   protected boolean hasStartFormKey;
   protected int suspensionState = SuspensionState.ACTIVE.getStateCode();
+  protected Integer historyTimeToLive;
   protected boolean isIdentityLinksInitialized = false;
   protected List<IdentityLinkEntity> definitionIdentityLinkEntities = new ArrayList<IdentityLinkEntity>();
   protected Set<Expression> candidateStarterUserIdExpressions = new HashSet<Expression>();
   protected Set<Expression> candidateStarterGroupIdExpressions = new HashSet<Expression>();
 
+  /** the declared job batch sizes by job definition id */
+  protected Map<String, Integer> jobBatchSizes = new HashMap<String, Integer>();
+
   public ProcessDefinitionEntity() {
     super(null);
   }
@@ -206,6 +210,7 @@ public class ProcessDefinitionEntity extends ProcessDefinitionImpl implements Pr
     // TODO: add a guard once the mismatch between revisions in deployment cache and database has been resolved
     this.revision = updatingProcessDefinition.revision;
     this.suspensionState = updatingProcessDefinition.suspensionState;
+    this.historyTimeToLive = updatingProcessDefinition.historyTimeToLive;
 
   }
 
@@ -215,6 +220,7 @@ public class ProcessDefinitionEntity extends ProcessDefinitionImpl implements Pr
   public Object getPersistentState() {
     Map<String, Object> persistentState = new HashMap<String, Object>();
     persistentState.put("suspensionState", this.suspensionState);
+    persistentState.put("historyTimeToLive", this.historyTimeToLive);
     return persistentState;
   }
 
@@ -282,6 +288,18 @@ public class ProcessDefinitionEntity extends ProcessDefinitionImpl implements Pr
     this.taskDefinitions = taskDefinitions;
   }
 
+  /**
+   * @return the maximum number of jobs of the given job definition which are
+   * executed in one transaction or null if the process declares none
+   */
+  public Integer getJobBatchSize(String jobDefinitionId) {
+    return jobBatchSizes.get(jobDefinitionId);
+  }
+
+  public void addJobBatchSize(String jobDefinitionId, Integer jobBatchSize) {
+    jobBatchSizes.put(jobDefinitionId, jobBatchSize);
+  }
+
   public String getCategory() {
     return category;
   }
@@ -345,6 +363,14 @@ public class ProcessDefinitionEntity extends ProcessDefinitionImpl implements Pr
     return suspensionState == SuspensionState.SUSPENDED.getStateCode();
   }
 
+  public Integer getHistoryTimeToLive() {
+    return historyTimeToLive;
+  }
+
+  public void setHistoryTimeToLive(Integer historyTimeToLive) {
+    this.historyTimeToLive = historyTimeToLive;
+  }
+
   public Set<Expression> getCandidateStarterUserIdExpressions() {
     return candidateStarterUserIdExpressions;
   }
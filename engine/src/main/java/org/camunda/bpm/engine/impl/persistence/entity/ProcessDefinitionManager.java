@@ -92,6 +92,14 @@ public class ProcessDefinitionManager extends AbstractManager {
     return null;
   }
 
+  /**
+   * @return the distinct history time to live values declared by process definitions
+   */
+  @SuppressWarnings("unchecked")
+  public List<Integer> findProcessDefinitionHistoryTimeToLives() {
+    return getDbEntityManager().selectList("selectProcessDefinitionHistoryTimeToLives");
+  }
+
   public void updateProcessDefinitionSuspensionStateById(String processDefinitionId, SuspensionState suspensionState) {
     Map<String, Object> parameters = new HashMap<String, Object>();
     parameters.put("processDefinitionId", processDefinitionId);
@@ -32,4 +32,14 @@ public class PropertyManager extends AbstractManager {
 
   }
 
+  public void acquireEffectivePermissionsLock() {
+    // We lock a special property for the recomputation of effective permissions
+    getDbEntityManager().lock("lockEffectivePermissionsLockProperty");
+  }
+
+  public void acquireHistoryCleanupJobLock() {
+    // We lock a special property for the creation of the history cleanup job
+    getDbEntityManager().lock("lockHistoryCleanupJobLockProperty");
+  }
+
 }
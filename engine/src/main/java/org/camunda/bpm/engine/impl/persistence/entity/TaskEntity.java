@@ -12,6 +12,7 @@
  */
 package org.camunda.bpm.engine.impl.persistence.entity;
 
+import static org.camunda.bpm.engine.impl.util.CompareUtil.areEqual;
 import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensureNotNull;
 
 import java.io.Serializable;
@@ -43,6 +44,7 @@ import org.camunda.bpm.engine.impl.core.instance.CoreExecution;
 import org.camunda.bpm.engine.impl.core.variable.scope.AbstractVariableScope;
 import org.camunda.bpm.engine.impl.core.variable.scope.CoreVariableStore;
 import org.camunda.bpm.engine.impl.db.DbEntity;
+import org.camunda.bpm.engine.impl.db.DirtyTrackingDbEntity;
 import org.camunda.bpm.engine.impl.db.HasDbRevision;
 import org.camunda.bpm.engine.impl.db.entitymanager.DbEntityManager;
 import org.camunda.bpm.engine.impl.interceptor.CommandContext;
@@ -65,7 +67,7 @@ import org.camunda.bpm.model.xml.type.ModelElementType;
  * @author Joram Barrez
  * @author Falko Menge
  */
-public class TaskEntity extends AbstractVariableScope implements Task, DelegateTask, Serializable, DbEntity, HasDbRevision, CommandContextListener {
+public class TaskEntity extends AbstractVariableScope implements Task, DelegateTask, Serializable, DbEntity, DirtyTrackingDbEntity, HasDbRevision, CommandContextListener {
 
   public static final String DELETE_REASON_COMPLETED = "completed";
   public static final String DELETE_REASON_DELETED = "deleted";
@@ -119,6 +121,8 @@ public class TaskEntity extends AbstractVariableScope implements Task, DelegateT
   protected boolean isFormKeyInitialized = false;
   protected String formKey;
 
+  protected transient TaskPersistentState trackedPersistentState;
+
   protected transient AbstractPersistentVariableStore variableStore;
 
   /**
@@ -323,6 +327,17 @@ public class TaskEntity extends AbstractVariableScope implements Task, DelegateT
     return persistentState;
   }
 
+  public void trackPersistentState() {
+    if (trackedPersistentState == null) {
+      trackedPersistentState = new TaskPersistentState();
+    }
+    trackedPersistentState.track(this);
+  }
+
+  public boolean isPersistentStateChanged() {
+    return trackedPersistentState == null || !trackedPersistentState.matches(this);
+  }
+
   public int getRevisionNext() {
     return revision+1;
   }
@@ -412,6 +427,13 @@ public class TaskEntity extends AbstractVariableScope implements Task, DelegateT
       .findVariableInstancesByTaskId(id);
   }
 
+  protected List<VariableInstanceEntity> loadVariableInstances(Collection<String> variableNames) {
+    return Context
+      .getCommandContext()
+      .getVariableInstanceManager()
+      .findVariableInstancesByTaskIdAndVariableNames(id, variableNames);
+  }
+
   @Override
   public String getVariableScopeKey() {
     return "task";
@@ -1064,4 +1086,68 @@ public class TaskEntity extends AbstractVariableScope implements Task, DelegateT
     return true;
   }
 
+  /**
+   * The tracked persistent state of a task. It is reused
+   * for every flush so that tracking does not allocate memory.
+   *
+   * @see #getPersistentState()
+   */
+  protected static class TaskPersistentState {
+
+    protected String assignee;
+    protected String owner;
+    protected String name;
+    protected int priority;
+    protected String executionId;
+    protected String processDefinitionId;
+    protected String caseExecutionId;
+    protected String caseInstanceId;
+    protected String caseDefinitionId;
+    protected Date createTime;
+    protected String description;
+    protected Date dueDate;
+    protected Date followUpDate;
+    protected String parentTaskId;
+    protected DelegationState delegationState;
+    protected int suspensionState;
+
+    public void track(TaskEntity task) {
+      assignee = task.assignee;
+      owner = task.owner;
+      name = task.name;
+      priority = task.priority;
+      executionId = task.executionId;
+      processDefinitionId = task.processDefinitionId;
+      caseExecutionId = task.caseExecutionId;
+      caseInstanceId = task.caseInstanceId;
+      caseDefinitionId = task.caseDefinitionId;
+      createTime = task.createTime;
+      description = task.description;
+      dueDate = task.dueDate;
+      followUpDate = task.followUpDate;
+      parentTaskId = task.parentTaskId;
+      delegationState = task.delegationState;
+      suspensionState = task.suspensionState;
+    }
+
+    public boolean matches(TaskEntity task) {
+      return priority == task.priority
+          && suspensionState == task.suspensionState
+          && delegationState == task.delegationState
+          && areEqual(assignee, task.assignee)
+          && areEqual(owner, task.owner)
+          && areEqual(name, task.name)
+          && areEqual(executionId, task.executionId)
+          && areEqual(processDefinitionId, task.processDefinitionId)
+          && areEqual(caseExecutionId, task.caseExecutionId)
+          && areEqual(caseInstanceId, task.caseInstanceId)
+          && areEqual(caseDefinitionId, task.caseDefinitionId)
+          && areEqual(createTime, task.createTime)
+          && areEqual(description, task.description)
+          && areEqual(dueDate, task.dueDate)
+          && areEqual(followUpDate, task.followUpDate)
+          && areEqual(parentTaskId, task.parentTaskId);
+    }
+  }
+
 }
@@ -12,6 +12,7 @@
  */
 package org.camunda.bpm.engine.impl.persistence.entity;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.camunda.bpm.engine.impl.variable.AbstractPersistentVariableStore;
@@ -36,6 +37,10 @@ public class TaskEntityVariableStore extends AbstractPersistentVariableStore {
     return taskEntity.loadVariableInstances();
   }
 
+  protected List<VariableInstanceEntity> loadVariableInstances(Collection<String> variableNames) {
+    return taskEntity.loadVariableInstances(variableNames);
+  }
+
   protected void initializeVariableInstanceBackPointer(VariableInstanceEntity variableInstance) {
     taskEntity.initializeVariableInstanceBackPointer(variableInstance);
   }
@@ -54,6 +54,10 @@ public class UserOperationLogManager extends AbstractHistoricManager {
     getDbEntityManager().delete(UserOperationLogEntryEventEntity.class, "deleteUserOperationLogEntriesByProcessInstanceId", historicProcessInstanceId);
   }
 
+  public void deleteOperationLogEntriesByProcessInstanceIds(List<String> historicProcessInstanceIds) {
+    getDbEntityManager().delete(UserOperationLogEntryEventEntity.class, "deleteUserOperationLogEntriesByProcessInstanceIds", historicProcessInstanceIds);
+  }
+
   public void deleteOperationLogEntriesByCaseInstanceId(String caseInstanceId) {
     getDbEntityManager().delete(UserOperationLogEntryEventEntity.class, "deleteUserOperationLogEntriesByCaseInstanceId", caseInstanceId);
   }
@@ -203,7 +203,6 @@ public class VariableInstanceEntity implements VariableInstance, CoreVariableIns
   public void setByteArrayValue(byte[] bytes) {
     ByteArrayEntity byteArrayValue = null;
     if (this.byteArrayValueId!=null) {
-      getByteArrayValue();
       Context
         .getCommandContext()
         .getByteArrayManager()
@@ -226,9 +225,7 @@ public class VariableInstanceEntity implements VariableInstance, CoreVariableIns
 
   protected void deleteByteArrayValue() {
     if (byteArrayValueId != null) {
-      // the next apparently useless line is probably to ensure consistency in the DbSqlSession
-      // cache, but should be checked and docced here (or removed if it turns out to be unnecessary)
-      getByteArrayValue();
+      // the byte array is deleted without loading it, its content may be large
       Context
         .getCommandContext()
         .getByteArrayManager()
@@ -13,6 +13,9 @@
 
 package org.camunda.bpm.engine.impl.persistence.entity;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +23,7 @@ import org.camunda.bpm.engine.impl.Page;
 import org.camunda.bpm.engine.impl.VariableInstanceQueryImpl;
 import org.camunda.bpm.engine.impl.core.variable.CoreVariableInstance;
 import org.camunda.bpm.engine.impl.persistence.AbstractManager;
+import org.camunda.bpm.engine.impl.util.CollectionUtil;
 import org.camunda.bpm.engine.runtime.VariableInstance;
 
 
@@ -28,6 +32,9 @@ import org.camunda.bpm.engine.runtime.VariableInstance;
  */
 public class VariableInstanceManager extends AbstractManager {
 
+  /** the maximum number of parameters of an in clause, which is limited to 1000 by some databases */
+  protected static final int MAX_IN_CLAUSE_PARAMETERS = 500;
+
   @SuppressWarnings("unchecked")
   public List<VariableInstanceEntity> findVariableInstancesByTaskId(String taskId) {
     return getDbEntityManager().selectList("selectVariablesByTaskId", taskId);
@@ -43,6 +50,34 @@ public class VariableInstanceManager extends AbstractManager {
     return getDbEntityManager().selectList("selectVariablesByCaseExecutionId", caseExecutionId);
   }
 
+  public List<VariableInstanceEntity> findVariableInstancesByTaskIdAndVariableNames(String taskId, Collection<String> variableNames) {
+    return findVariableInstancesByVariableNames("selectVariablesByTaskIdAndVariableNames", "taskId", taskId, variableNames);
+  }
+
+  public List<VariableInstanceEntity> findVariableInstancesByExecutionIdAndVariableNames(String executionId, Collection<String> variableNames) {
+    return findVariableInstancesByVariableNames("selectVariablesByExecutionIdAndVariableNames", "executionId", executionId, variableNames);
+  }
+
+  public List<VariableInstanceEntity> findVariableInstancesByCaseExecutionIdAndVariableNames(String caseExecutionId, Collection<String> variableNames) {
+    return findVariableInstancesByVariableNames("selectVariablesByCaseExecutionIdAndVariableNames", "caseExecutionId", caseExecutionId, variableNames);
+  }
+
+  /**
+   * Selects the variables with the given names of a scope. The names are split into
+   * several queries to stay below the in clause limit of the database.
+   */
+  @SuppressWarnings("unchecked")
+  protected List<VariableInstanceEntity> findVariableInstancesByVariableNames(String query, String scopeParameterName, String scopeId, Collection<String> variableNames) {
+    List<VariableInstanceEntity> result = new ArrayList<VariableInstanceEntity>();
+    for (List<String> partition : CollectionUtil.partition(new ArrayList<String>(variableNames), MAX_IN_CLAUSE_PARAMETERS)) {
+      Map<String, Object> parameter = new HashMap<String, Object>();
+      parameter.put(scopeParameterName, scopeId);
+      parameter.put("variableNames", partition);
+      result.addAll(getDbEntityManager().selectList(query, parameter));
+    }
+    return result;
+  }
+
   public void deleteVariableInstanceByTask(TaskEntity task) {
     Map<String, CoreVariableInstance> variableInstances = task.getVariableInstancesLocal();
     if (variableInstances!=null) {
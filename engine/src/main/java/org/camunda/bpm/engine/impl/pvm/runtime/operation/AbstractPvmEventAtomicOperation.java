@@ -12,8 +12,11 @@
  */
 package org.camunda.bpm.engine.impl.pvm.runtime.operation;
 
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.context.Context;
 import org.camunda.bpm.engine.impl.core.model.CoreModelElement;
 import org.camunda.bpm.engine.impl.core.operation.AbstractEventAtomicOperation;
+import org.camunda.bpm.engine.impl.metrics.MetricsRegistry;
 import org.camunda.bpm.engine.impl.pvm.runtime.PvmExecutionImpl;
 
 /**
@@ -26,4 +29,18 @@ public abstract class AbstractPvmEventAtomicOperation extends AbstractEventAtomi
 
   protected abstract CoreModelElement getScope(PvmExecutionImpl execution);
 
+  /**
+   * Increments the given metric if the operation is executed
+   * by a process engine which collects metrics.
+   */
+  protected void markOccurrence(String metric) {
+    ProcessEngineConfigurationImpl processEngineConfiguration = Context.getProcessEngineConfiguration();
+    if (processEngineConfiguration != null) {
+      MetricsRegistry metricsRegistry = processEngineConfiguration.getMetricsRegistry();
+      if (metricsRegistry != null) {
+        metricsRegistry.markOccurrence(metric);
+      }
+    }
+  }
+
 }
@@ -15,6 +15,7 @@ package org.camunda.bpm.engine.impl.pvm.runtime.operation;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.camunda.bpm.engine.impl.metrics.Metrics;
 import org.camunda.bpm.engine.impl.pvm.delegate.CompositeActivityBehavior;
 import org.camunda.bpm.engine.impl.pvm.process.ActivityImpl;
 import org.camunda.bpm.engine.impl.pvm.runtime.PvmExecutionImpl;
@@ -58,10 +59,18 @@ public abstract class PvmAtomicOperationActivityInstanceEnd extends AbstractPvmE
   }
 
   protected void eventNotificationsCompleted(PvmExecutionImpl execution) {
+    if (execution.getActivityInstanceId() != null) {
+      markActivityInstanceEnded();
+    }
+
     // make execution leave the activity instance
     execution.leaveActivityInstance();
   }
 
+  protected void markActivityInstanceEnded() {
+    markOccurrence(Metrics.ACTIVITY_INSTANCE_END);
+  }
+
   @Override
   protected boolean isSkipNotifyListeners(PvmExecutionImpl execution) {
     // listeners are skipped if this execution is not part of an activity instance.
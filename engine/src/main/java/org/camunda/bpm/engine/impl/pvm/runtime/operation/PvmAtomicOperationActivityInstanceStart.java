@@ -12,6 +12,7 @@
  */
 package org.camunda.bpm.engine.impl.pvm.runtime.operation;
 
+import org.camunda.bpm.engine.impl.metrics.Metrics;
 import org.camunda.bpm.engine.impl.pvm.delegate.CompositeActivityBehavior;
 import org.camunda.bpm.engine.impl.pvm.process.ActivityImpl;
 import org.camunda.bpm.engine.impl.pvm.runtime.PvmExecutionImpl;
@@ -33,6 +34,7 @@ public abstract class PvmAtomicOperationActivityInstanceStart extends AbstractPv
   protected PvmExecutionImpl eventNotificationsStarted(PvmExecutionImpl execution) {
     execution.incrementSequenceCounter();
     execution.enterActivityInstance();
+    markOccurrence(Metrics.ACTIVITY_INSTANCE_START);
 
     return execution;
   }
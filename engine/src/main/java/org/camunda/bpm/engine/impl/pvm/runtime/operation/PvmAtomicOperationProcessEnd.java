@@ -42,6 +42,11 @@ public class PvmAtomicOperationProcessEnd extends PvmAtomicOperationActivityInst
     return ExecutionListener.EVENTNAME_END;
   }
 
+  @Override
+  protected void markActivityInstanceEnded() {
+    // the start of a process instance is not counted as activity instance start either
+  }
+
   @Override
   protected void eventNotificationsCompleted(PvmExecutionImpl execution) {
 
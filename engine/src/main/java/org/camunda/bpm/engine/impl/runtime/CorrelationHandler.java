@@ -46,4 +46,16 @@ public interface CorrelationHandler {
    */
   public List<MessageCorrelationResult> correlateMessages(CommandContext commandContext, String messageName, CorrelationSet correlationSet);
 
+  /**
+   * Correlate a batch of messages. For each message, return the {@link MessageCorrelationResult}s of all
+   * executions that match it, followed by the result of the process definition that can be started by it.
+   * Implementations should look up the candidates of all messages together rather than one by one.
+   *
+   * @param commandContext
+   * @param messageNames the names of the messages, any of them may be <code>null</code>
+   * @param correlationSets the correlation sets of the messages, in the same order as the message names
+   * @return a {@link List} of the matching {@link MessageCorrelationResult}s per message, in the order of the messages
+   */
+  public List<List<MessageCorrelationResult>> correlateMessageBatch(CommandContext commandContext, List<String> messageNames, List<CorrelationSet> correlationSets);
+
 }
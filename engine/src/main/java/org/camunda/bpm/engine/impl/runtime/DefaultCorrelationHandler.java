@@ -14,8 +14,12 @@
 package org.camunda.bpm.engine.impl.runtime;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -24,9 +28,13 @@ import org.camunda.bpm.engine.impl.ExecutionQueryImpl;
 import org.camunda.bpm.engine.impl.context.Context;
 import org.camunda.bpm.engine.impl.interceptor.CommandContext;
 import org.camunda.bpm.engine.impl.persistence.deploy.DeploymentCache;
+import org.camunda.bpm.engine.impl.persistence.entity.EventSubscriptionManager;
 import org.camunda.bpm.engine.impl.persistence.entity.ExecutionEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.ExecutionManager;
 import org.camunda.bpm.engine.impl.persistence.entity.MessageEventSubscriptionEntity;
 import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.camunda.bpm.engine.impl.util.CorrelationKeyUtil;
+import org.camunda.bpm.engine.impl.variable.serializer.VariableSerializers;
 import org.camunda.bpm.engine.runtime.Execution;
 
 /**
@@ -71,9 +79,175 @@ public class DefaultCorrelationHandler implements CorrelationHandler {
     return result;
   }
 
+  public List<List<MessageCorrelationResult>> correlateMessageBatch(CommandContext commandContext, List<String> messageNames,
+      List<CorrelationSet> correlationSets) {
+
+    EventSubscriptionManager eventSubscriptionManager = commandContext.getEventSubscriptionManager();
+
+    // look up the subscriptions of all messages with correlation keys at once
+    List<String> correlationKeys = new ArrayList<String>();
+    Set<String> keyedMessageNames = new HashSet<String>();
+    Set<String> distinctMessageNames = new HashSet<String>();
+    for (int i = 0; i < messageNames.size(); i++) {
+      String messageName = messageNames.get(i);
+      String correlationKey = CorrelationKeyUtil.hashCorrelationKeys(messageName, correlationSets.get(i).getCorrelationKeys());
+      correlationKeys.add(correlationKey);
+      if (correlationKey != null) {
+        keyedMessageNames.add(messageName);
+      }
+      if (messageName != null) {
+        distinctMessageNames.add(messageName);
+      }
+    }
+
+    Map<String, List<MessageEventSubscriptionEntity>> subscriptionsByCorrelationKey = new HashMap<String, List<MessageEventSubscriptionEntity>>();
+    Set<String> messageNamesWithoutCorrelationKey = new HashSet<String>();
+    if (!keyedMessageNames.isEmpty()) {
+      Set<String> distinctCorrelationKeys = new HashSet<String>(correlationKeys);
+      distinctCorrelationKeys.remove(null);
+      for (MessageEventSubscriptionEntity subscription : eventSubscriptionManager
+          .findMessageEventSubscriptionsByCorrelationKeys(new ArrayList<String>(distinctCorrelationKeys))) {
+        List<MessageEventSubscriptionEntity> subscriptions = subscriptionsByCorrelationKey.get(subscription.getCorrelationKey());
+        if (subscriptions == null) {
+          subscriptions = new ArrayList<MessageEventSubscriptionEntity>();
+          subscriptionsByCorrelationKey.put(subscription.getCorrelationKey(), subscriptions);
+        }
+        subscriptions.add(subscription);
+      }
+      messageNamesWithoutCorrelationKey = eventSubscriptionManager
+          .findMessageEventNamesWithoutCorrelationKey(new ArrayList<String>(keyedMessageNames));
+    }
+
+    // look up the executions of all messages which are not correlated by a correlation key at once
+    VariableSerializers variableSerializers = Context.getProcessEngineConfiguration().getVariableSerializers();
+    List<MessageCorrelationCriteria> criteria = new ArrayList<MessageCorrelationCriteria>();
+    int[] criteriaIndexes = new int[messageNames.size()];
+    for (int i = 0; i < messageNames.size(); i++) {
+      String messageName = messageNames.get(i);
+      boolean isKeyed = correlationKeys.get(i) != null;
+      if (!isKeyed || messageNamesWithoutCorrelationKey.contains(messageName)) {
+        criteriaIndexes[i] = criteria.size();
+        criteria.add(new MessageCorrelationCriteria(messageName, correlationSets.get(i), isKeyed, variableSerializers));
+      }
+      else {
+        criteriaIndexes[i] = -1;
+      }
+    }
+    List<Set<String>> executionIdsByCriteria = new ArrayList<Set<String>>();
+    if (!criteria.isEmpty()) {
+      executionIdsByCriteria = eventSubscriptionManager.findMessageEventSubscriptionExecutionIdsByCriteria(criteria);
+    }
+
+    // look up the message start events of all messages at once
+    Map<String, MessageEventSubscriptionEntity> startEventSubscriptions = new HashMap<String, MessageEventSubscriptionEntity>();
+    if (!distinctMessageNames.isEmpty()) {
+      for (MessageEventSubscriptionEntity subscription : eventSubscriptionManager
+          .findMessageStartEventSubscriptionsByNames(new ArrayList<String>(distinctMessageNames))) {
+        startEventSubscriptions.put(subscription.getEventName(), subscription);
+      }
+    }
+
+    List<List<MessageCorrelationResult>> result = new ArrayList<List<MessageCorrelationResult>>(messageNames.size());
+    for (int i = 0; i < messageNames.size(); i++) {
+      String messageName = messageNames.get(i);
+      CorrelationSet correlationSet = correlationSets.get(i);
+      String correlationKey = correlationKeys.get(i);
+
+      Map<String, MessageCorrelationResult> matches = new LinkedHashMap<String, MessageCorrelationResult>();
+      if (correlationKey != null) {
+        List<MessageEventSubscriptionEntity> subscriptions = subscriptionsByCorrelationKey.get(correlationKey);
+        if (subscriptions != null) {
+          addMatchingExecutions(matches, subscriptions, correlationSet);
+        }
+      }
+      if (criteriaIndexes[i] >= 0) {
+        addExecutions(commandContext, matches, executionIdsByCriteria.get(criteriaIndexes[i]));
+      }
+      List<MessageCorrelationResult> correlations = new ArrayList<MessageCorrelationResult>(matches.values());
+
+      if (messageName != null) {
+        MessageCorrelationResult processDefinitionCorrelation = correlateMessageToProcessDefinition(startEventSubscriptions.get(messageName));
+        if (processDefinitionCorrelation != null) {
+          correlations.add(processDefinitionCorrelation);
+        }
+      }
+
+      result.add(correlations);
+    }
+
+    return result;
+  }
+
+  protected void addMatchingExecutions(Map<String, MessageCorrelationResult> matches, List<MessageEventSubscriptionEntity> subscriptions,
+      CorrelationSet correlationSet) {
+    String businessKey = correlationSet.getBusinessKey();
+    String processInstanceId = correlationSet.getProcessInstanceId();
+
+    for (MessageEventSubscriptionEntity subscription : subscriptions) {
+      if (processInstanceId != null && !processInstanceId.equals(subscription.getProcessInstanceId())) {
+        continue;
+      }
+      ExecutionEntity execution = subscription.getExecution();
+      if (businessKey != null && !businessKey.equals(execution.getProcessBusinessKey())) {
+        continue;
+      }
+      if (!matches.containsKey(execution.getId())) {
+        matches.put(execution.getId(), MessageCorrelationResult.matchedExecution(execution));
+      }
+    }
+  }
+
+  protected void addExecutions(CommandContext commandContext, Map<String, MessageCorrelationResult> matches, Set<String> executionIds) {
+    ExecutionManager executionManager = commandContext.getExecutionManager();
+    for (String executionId : executionIds) {
+      if (!matches.containsKey(executionId)) {
+        ExecutionEntity execution = executionManager.findExecutionById(executionId);
+        matches.put(executionId, MessageCorrelationResult.matchedExecution(execution));
+      }
+    }
+  }
+
+  protected void addCorrelations(Map<String, MessageCorrelationResult> matches, List<MessageCorrelationResult> correlations) {
+    for (MessageCorrelationResult correlation : correlations) {
+      String executionId = correlation.getExecutionEntity().getId();
+      if (!matches.containsKey(executionId)) {
+        matches.put(executionId, correlation);
+      }
+    }
+  }
+
   protected List<MessageCorrelationResult> correlateMessageToExecutions(CommandContext commandContext, String messageName,
       CorrelationSet correlationSet) {
 
+    String correlationKey = CorrelationKeyUtil.hashCorrelationKeys(messageName, correlationSet.getCorrelationKeys());
+
+    if (correlationKey == null) {
+      return correlateMessageToExecutionsByQuery(commandContext, messageName, correlationSet, false);
+    }
+
+    // subscriptions which declare correlation keys are found by a single indexed lookup
+    List<MessageEventSubscriptionEntity> subscriptions = commandContext.getEventSubscriptionManager()
+      .findMessageEventSubscriptionsByCorrelationKey(messageName, correlationKey, correlationSet.getBusinessKey(), correlationSet.getProcessInstanceId());
+
+    Map<String, MessageCorrelationResult> result = new LinkedHashMap<String, MessageCorrelationResult>();
+    for (MessageEventSubscriptionEntity subscription : subscriptions) {
+      ExecutionEntity execution = subscription.getExecution();
+      if (!result.containsKey(execution.getId())) {
+        result.put(execution.getId(), MessageCorrelationResult.matchedExecution(execution));
+      }
+    }
+
+    // subscriptions without correlation keys still have to be matched by their variables
+    if (commandContext.getEventSubscriptionManager().hasMessageEventSubscriptionsWithoutCorrelationKey(messageName)) {
+      addCorrelations(result, correlateMessageToExecutionsByQuery(commandContext, messageName, correlationSet, true));
+    }
+
+    return new ArrayList<MessageCorrelationResult>(result.values());
+  }
+
+  protected List<MessageCorrelationResult> correlateMessageToExecutionsByQuery(CommandContext commandContext, String messageName,
+      CorrelationSet correlationSet, boolean withoutCorrelationKey) {
+
     ExecutionQueryImpl query = new ExecutionQueryImpl();
 
     Map<String, Object> correlationKeys = correlationSet.getCorrelationKeys();
@@ -93,7 +267,9 @@ public class DefaultCorrelationHandler implements CorrelationHandler {
       query.processInstanceId(processInstanceId);
     }
 
-    if (messageName != null) {
+    if (withoutCorrelationKey) {
+      query.messageEventSubscriptionWithoutCorrelationKey(messageName);
+    } else if (messageName != null) {
       query.messageEventSubscriptionName(messageName);
     } else {
       query.messageEventSubscription();
@@ -120,6 +296,10 @@ public class DefaultCorrelationHandler implements CorrelationHandler {
 
     MessageEventSubscriptionEntity messageEventSubscription = commandContext.getEventSubscriptionManager()
       .findMessageStartEventSubscriptionByName(messageName);
+    return correlateMessageToProcessDefinition(messageEventSubscription);
+  }
+
+  protected MessageCorrelationResult correlateMessageToProcessDefinition(MessageEventSubscriptionEntity messageEventSubscription) {
     if(messageEventSubscription == null || messageEventSubscription.getConfiguration() == null) {
       return null;
 
@@ -0,0 +1,77 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.engine.impl.QueryOperator;
+import org.camunda.bpm.engine.impl.QueryVariableValue;
+import org.camunda.bpm.engine.impl.variable.serializer.VariableSerializers;
+
+/**
+ * The criteria of a message of a batch whose executions are looked up by their
+ * message event subscriptions and process variables instead of a correlation key.
+ * The executions of all such messages of a batch are found with a single query.
+ */
+public class MessageCorrelationCriteria {
+
+  protected final String messageName;
+  protected final String businessKey;
+  protected final String processInstanceId;
+  protected final boolean withoutCorrelationKey;
+  protected final List<QueryVariableValue> queryVariableValues = new ArrayList<QueryVariableValue>();
+
+  /**
+   * @param withoutCorrelationKey if true, only the subscriptions which do not declare
+   *   correlation keys are matched
+   */
+  public MessageCorrelationCriteria(String messageName, CorrelationSet correlationSet, boolean withoutCorrelationKey,
+      VariableSerializers variableSerializers) {
+    this.messageName = messageName;
+    this.businessKey = correlationSet.getBusinessKey();
+    this.processInstanceId = correlationSet.getProcessInstanceId();
+    this.withoutCorrelationKey = withoutCorrelationKey;
+
+    Map<String, Object> correlationKeys = correlationSet.getCorrelationKeys();
+    if (correlationKeys != null) {
+      for (Map.Entry<String, Object> correlationKey : correlationKeys.entrySet()) {
+        QueryVariableValue queryVariableValue = new QueryVariableValue(correlationKey.getKey(), correlationKey.getValue(), QueryOperator.EQUALS, false);
+        queryVariableValue.initialize(variableSerializers);
+        queryVariableValues.add(queryVariableValue);
+      }
+    }
+  }
+
+  public String getMessageName() {
+    return messageName;
+  }
+
+  public String getBusinessKey() {
+    return businessKey;
+  }
+
+  public String getProcessInstanceId() {
+    return processInstanceId;
+  }
+
+  public boolean isWithoutCorrelationKey() {
+    return withoutCorrelationKey;
+  }
+
+  public List<QueryVariableValue> getQueryVariableValues() {
+    return queryVariableValues;
+  }
+
+}
@@ -13,15 +13,18 @@
 
 package org.camunda.bpm.engine.impl.scripting;
 
+import javax.script.Bindings;
+import javax.script.ScriptEngine;
+
 import org.camunda.bpm.engine.delegate.Expression;
 import org.camunda.bpm.engine.delegate.VariableScope;
 import org.camunda.bpm.engine.impl.context.Context;
 import org.camunda.bpm.engine.impl.persistence.entity.DeploymentEntity;
-import org.camunda.bpm.engine.impl.util.ResourceUtil;
 
 /**
  * A script which resource path is dynamically determined during the execution.
- * Therefore it has to be executed in the context of an atomic operation.
+ * Therefore it has to be executed in the context of an atomic operation. The
+ * resource is loaded and compiled once per deployment using the deployment cache.
  *
  * @author Sebastian Menski
  */
@@ -31,9 +34,19 @@ public class DynamicResourceExecutableScript extends DynamicExecutableScript {
     super(scriptResourceExpression, language);
   }
 
+  public Object execute(ScriptEngine scriptEngine, VariableScope variableScope, Bindings bindings) {
+    return getResourceScript(variableScope).execute(scriptEngine, variableScope, bindings);
+  }
+
   public String getScriptSource(VariableScope variableScope) {
+    return getResourceScript(variableScope).getScriptSource();
+  }
+
+  protected SourceExecutableScript getResourceScript(VariableScope variableScope) {
     String scriptPath = evaluateExpression(variableScope);
-    return ResourceUtil.loadResourceContent(scriptPath, getDeployment());
+    return Context.getProcessEngineConfiguration()
+      .getDeploymentCache()
+      .findScriptResource(getDeployment(), scriptPath, language);
   }
 
   protected DeploymentEntity getDeployment() {
@@ -19,10 +19,10 @@ import javax.script.ScriptEngine;
 import org.camunda.bpm.engine.delegate.VariableScope;
 import org.camunda.bpm.engine.impl.context.Context;
 import org.camunda.bpm.engine.impl.persistence.entity.DeploymentEntity;
-import org.camunda.bpm.engine.impl.util.ResourceUtil;
 
 /**
- * A script which is provided by an external resource.
+ * A script which is provided by an external resource. The resource is
+ * loaded and compiled once per deployment using the deployment cache.
  *
  * @author Sebastian Menski
  */
@@ -36,18 +36,18 @@ public class ResourceExecutableScript extends SourceExecutableScript {
   }
 
   public Object execute(ScriptEngine engine, VariableScope variableScope, Bindings bindings) {
-    if (scriptSource == null) {
-      loadScriptSource();
-    }
-    return super.execute(engine, variableScope, bindings);
+    return getResourceScript().execute(engine, variableScope, bindings);
   }
 
-  protected synchronized void loadScriptSource() {
-    if (getScriptSource() == null) {
-      DeploymentEntity deployment = Context.getCoreExecutionContext().getDeployment();
-      String source = ResourceUtil.loadResourceContent(scriptResource, deployment);
-      setScriptSource(source);
-    }
+  protected SourceExecutableScript getResourceScript() {
+    DeploymentEntity deployment = Context.getCoreExecutionContext().getDeployment();
+    return Context.getProcessEngineConfiguration()
+      .getDeploymentCache()
+      .findScriptResource(deployment, scriptResource, language);
+  }
+
+  public String getScriptResource() {
+    return scriptResource;
   }
 
 }
@@ -12,7 +12,9 @@
  */
 package org.camunda.bpm.engine.impl.util;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -37,5 +39,17 @@ public class CollectionUtil {
     map.put(key, value);
     return map;
   }
+
+  /**
+   * Splits the list into consecutive sublists of the given maximum size, e.g. to
+   * bound the number of parameters of an <code>in</code> clause.
+   */
+  public static <T> List<List<T>> partition(List<T> list, int partitionSize) {
+    List<List<T>> partitions = new ArrayList<List<T>>();
+    for (int i = 0; i < list.size(); i += partitionSize) {
+      partitions.add(list.subList(i, Math.min(i + partitionSize, list.size())));
+    }
+    return partitions;
+  }
   
 }
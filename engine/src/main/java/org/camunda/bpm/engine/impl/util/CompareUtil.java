@@ -0,0 +1,34 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.util;
+
+/**
+ * Helper methods for comparing values.
+ */
+public class CompareUtil {
+
+  // No need to instantiate
+  private CompareUtil() {}
+
+  /**
+   * @return true if both values are null or equal to each other
+   */
+  public static boolean areEqual(Object value, Object otherValue) {
+    if (value == null) {
+      return otherValue == null;
+    } else {
+      return value.equals(otherValue);
+    }
+  }
+
+}
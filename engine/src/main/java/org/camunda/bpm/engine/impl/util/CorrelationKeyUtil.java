@@ -0,0 +1,119 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.util;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.variable.value.TypedValue;
+
+/**
+ * <p>Computes the correlation key of a message event subscription from the
+ * message name and the values of its declared correlation keys. The correlation
+ * key is a hash over the message name and the names and values of the keys,
+ * independent of their order, so that the subscriptions matching a message and
+ * a set of correlation keys can be found with a single indexed lookup.</p>
+ *
+ * <p>Only <code>null</code>, string, number, boolean and date values can be
+ * hashed. For any other value no correlation key is computed.</p>
+ */
+public class CorrelationKeyUtil {
+
+  protected static final String HASH_ALGORITHM = "SHA-256";
+
+  protected static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  /**
+   * @return the correlation key for the given message name and correlation keys or
+   *   null if there are no correlation keys or a value cannot be hashed
+   */
+  public static String hashCorrelationKeys(String messageName, Map<String, Object> correlationKeys) {
+    if (messageName == null || correlationKeys == null || correlationKeys.isEmpty()) {
+      return null;
+    }
+
+    StringBuilder canonicalForm = new StringBuilder();
+    appendLengthPrefixed(canonicalForm, messageName);
+    for (Map.Entry<String, Object> correlationKey : new TreeMap<String, Object>(correlationKeys).entrySet()) {
+      String value = toCanonicalValue(correlationKey.getValue());
+      if (value == null) {
+        return null;
+      }
+      // prefix the name and the value with their length to keep the canonical form unambiguous
+      appendLengthPrefixed(canonicalForm, correlationKey.getKey());
+      appendLengthPrefixed(canonicalForm, value);
+    }
+
+    return toHex(hash(canonicalForm.toString()));
+  }
+
+  protected static String toCanonicalValue(Object value) {
+    if (value instanceof TypedValue) {
+      value = ((TypedValue) value).getValue();
+    }
+
+    if (value == null) {
+      return "n";
+    }
+    else if (value instanceof String) {
+      return "s" + value;
+    }
+    else if (value instanceof Long || value instanceof Integer || value instanceof Short) {
+      return "l" + ((Number) value).longValue();
+    }
+    else if (value instanceof Double || value instanceof Float) {
+      return "d" + ((Number) value).doubleValue();
+    }
+    else if (value instanceof Boolean) {
+      return "b" + value;
+    }
+    else if (value instanceof Date) {
+      return "t" + ((Date) value).getTime();
+    }
+    else {
+      return null;
+    }
+  }
+
+  protected static void appendLengthPrefixed(StringBuilder builder, String value) {
+    builder.append(value.length()).append(':').append(value);
+  }
+
+  protected static byte[] hash(String value) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+      return digest.digest(value.getBytes("UTF-8"));
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new ProcessEngineException("Cannot lookup " + HASH_ALGORITHM + " algorithm", e);
+    }
+    catch (UnsupportedEncodingException e) {
+      throw new ProcessEngineException("UnsupportedEncodingException while calculating correlation key", e);
+    }
+  }
+
+  protected static String toHex(byte[] bytes) {
+    char[] hex = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+      hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xf];
+    }
+    return new String(hex);
+  }
+
+}
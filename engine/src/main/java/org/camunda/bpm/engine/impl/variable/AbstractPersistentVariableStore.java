@@ -15,10 +15,13 @@ package org.camunda.bpm.engine.impl.variable;
 
 import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensureNotNull;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.camunda.bpm.engine.delegate.VariableListener;
@@ -42,9 +45,17 @@ import org.camunda.bpm.engine.variable.value.TypedValue;
  */
 public abstract class AbstractPersistentVariableStore extends AbstractVariableStore {
 
+  /** all variable instances of the scope, null as long as they have not been loaded */
   protected Map<String, VariableInstanceEntity> variableInstances = null;
 
+  /**
+   * the variable instances which have been loaded by name before all variable instances
+   * are loaded. A null value records that the variable does not exist.
+   */
+  protected Map<String, VariableInstanceEntity> variableInstancesByName = new HashMap<String, VariableInstanceEntity>();
+
   protected abstract List<VariableInstanceEntity> loadVariableInstances();
+  protected abstract List<VariableInstanceEntity> loadVariableInstances(Collection<String> variableNames);
   protected abstract void initializeVariableInstanceBackPointer(VariableInstanceEntity variableInstance);
 
   public void ensureVariableInstancesInitialized() {
@@ -56,6 +67,45 @@ public abstract class AbstractPersistentVariableStore extends AbstractVariableSt
       for (VariableInstanceEntity variableInstance : variableInstancesList) {
         variableInstances.put(variableInstance.getName(), variableInstance);
       }
+
+      // variables which have been created or removed since they were loaded by name
+      for (Entry<String, VariableInstanceEntity> variableInstance : variableInstancesByName.entrySet()) {
+        if (variableInstance.getValue() != null) {
+          variableInstances.put(variableInstance.getKey(), variableInstance.getValue());
+        }
+        else {
+          variableInstances.remove(variableInstance.getKey());
+        }
+      }
+      variableInstancesByName.clear();
+    }
+  }
+
+  /**
+   * Loads the variable instances with the given names which have not been loaded
+   * yet, unless all variable instances of the scope have been loaded already.
+   */
+  protected void ensureVariableInstancesLoaded(Collection<String> variableNames) {
+    if (variableInstances != null) {
+      return;
+    }
+
+    List<String> namesToLoad = new ArrayList<String>();
+    for (String variableName : variableNames) {
+      if (variableName != null && !variableInstancesByName.containsKey(variableName)) {
+        namesToLoad.add(variableName);
+      }
+    }
+
+    if (!namesToLoad.isEmpty()) {
+      CommandContext commandContext = Context.getCommandContext();
+      ensureNotNull("lazy loading outside command context", "commandContext", commandContext);
+      for (String variableName : namesToLoad) {
+        variableInstancesByName.put(variableName, null);
+      }
+      for (VariableInstanceEntity variableInstance : loadVariableInstances(namesToLoad)) {
+        variableInstancesByName.put(variableInstance.getName(), variableInstance);
+      }
     }
   }
 
@@ -65,8 +115,14 @@ public abstract class AbstractPersistentVariableStore extends AbstractVariableSt
     return (Map) variableInstances;
   }
 
+  public Map<String, CoreVariableInstance> getVariableInstances(Collection<String> variableNames) {
+    ensureVariableInstancesLoaded(variableNames);
+    return super.getVariableInstances(variableNames);
+  }
+
   public void setVariableInstances(Map<String, VariableInstanceEntity> variableInstances) {
     this.variableInstances = variableInstances;
+    variableInstancesByName.clear();
   }
 
   @SuppressWarnings({ "unchecked", "rawtypes" })
@@ -76,8 +132,11 @@ public abstract class AbstractPersistentVariableStore extends AbstractVariableSt
   }
 
   public CoreVariableInstance getVariableInstance(String variableName) {
-    ensureVariableInstancesInitialized();
-    return variableInstances.get(variableName);
+    if (variableInstances != null) {
+      return variableInstances.get(variableName);
+    }
+    ensureVariableInstancesLoaded(Collections.singleton(variableName));
+    return variableInstancesByName.get(variableName);
   }
 
   public Set<String> getVariableNames() {
@@ -91,13 +150,18 @@ public abstract class AbstractPersistentVariableStore extends AbstractVariableSt
   }
 
   public boolean containsVariableInstance(String variableName) {
-    ensureVariableInstancesInitialized();
-    return variableInstances.containsKey(variableName);
+    return getVariableInstance(variableName) != null;
   }
 
   public CoreVariableInstance removeVariableInstance(String variableName, AbstractVariableScope sourceActivityExecution) {
-    ensureVariableInstancesInitialized();
-    VariableInstanceEntity variable = variableInstances.remove(variableName);
+    VariableInstanceEntity variable = null;
+    if (variableInstances != null) {
+      variable = variableInstances.remove(variableName);
+    }
+    else {
+      variable = (VariableInstanceEntity) getVariableInstance(variableName);
+      variableInstancesByName.put(variableName, null);
+    }
 
     if(variable != null) {
       variable.incrementSequenceCounter();
@@ -129,7 +193,12 @@ public abstract class AbstractPersistentVariableStore extends AbstractVariableSt
     // create variable instance
     VariableInstanceEntity variableInstance = VariableInstanceEntity.createAndInsert(variableName, value);
     initializeVariableInstanceBackPointer(variableInstance);
-    variableInstances.put(variableName, variableInstance);
+    if (variableInstances != null) {
+      variableInstances.put(variableName, variableInstance);
+    }
+    else {
+      variableInstancesByName.put(variableName, variableInstance);
+    }
 
     // fire CREATE event
     if(isAutoFireHistoryEvents()) {
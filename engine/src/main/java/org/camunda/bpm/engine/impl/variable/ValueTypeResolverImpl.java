@@ -22,6 +22,7 @@ import static org.camunda.bpm.engine.variable.type.ValueType.NULL;
 import static org.camunda.bpm.engine.variable.type.ValueType.NUMBER;
 import static org.camunda.bpm.engine.variable.type.ValueType.OBJECT;
 import static org.camunda.bpm.engine.variable.type.ValueType.SHORT;
+import static org.camunda.bpm.engine.variable.type.ValueType.STREAM;
 import static org.camunda.bpm.engine.variable.type.ValueType.STRING;
 
 import java.util.ArrayList;
@@ -54,6 +55,7 @@ public class ValueTypeResolverImpl implements ValueTypeResolver {
     addType(LONG);
     addType(NULL);
     addType(SHORT);
+    addType(STREAM);
     addType(STRING);
     addType(OBJECT);
     addType(NUMBER);
@@ -0,0 +1,162 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.variable.serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.util.IoUtil;
+import org.camunda.bpm.engine.variable.Variables.SerializationDataFormats;
+
+/**
+ * <p>Serializes java objects in a compact binary format. Objects are encoded
+ * field by field: the field names of a class are written once per value and
+ * every field value carries a small type tag. Fields which have been added to
+ * or removed from a class since the value was written are tolerated when it is
+ * read.</p>
+ *
+ * <p>Values which exceed the compression threshold are deflated if this
+ * makes them smaller.</p>
+ *
+ * @see CompactBinaryWriter
+ * @see CompactBinaryReader
+ */
+public class CompactBinaryObjectSerializer extends AbstractObjectValueSerializer {
+
+  public static final String NAME = "compact-binary";
+
+  public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
+  protected static final int FORMAT_VERSION = 1;
+  protected static final int COMPRESSED_FLAG = 0x80;
+
+  /** the size in bytes above which values are compressed, a negative value disables compression */
+  protected int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+
+  /** the classes which may be deserialized or null if all serializable classes may be deserialized */
+  protected List<String> allowedClasses;
+
+  public CompactBinaryObjectSerializer() {
+    super(SerializationDataFormats.COMPACT_BINARY.getName());
+  }
+
+  public String getName() {
+    return NAME;
+  }
+
+  protected boolean isSerializationTextBased() {
+    return false;
+  }
+
+  protected byte[] serializeToByteArray(Object deserializedObject) throws Exception {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(baos);
+    new CompactBinaryWriter(out).writeValue(deserializedObject);
+    out.flush();
+    byte[] encoded = baos.toByteArray();
+
+    if (compressionThreshold >= 0 && encoded.length > compressionThreshold) {
+      byte[] compressed = compress(encoded);
+      if (compressed.length < encoded.length) {
+        return withHeader(FORMAT_VERSION | COMPRESSED_FLAG, compressed);
+      }
+    }
+    return withHeader(FORMAT_VERSION, encoded);
+  }
+
+  protected Object deserializeFromByteArray(byte[] bytes, String objectTypeName) throws Exception {
+    if (bytes.length == 0) {
+      throw new ProcessEngineException("Cannot deserialize empty value");
+    }
+
+    int header = bytes[0] & 0xFF;
+    int version = header & ~COMPRESSED_FLAG;
+    if (version != FORMAT_VERSION) {
+      throw new ProcessEngineException("Unsupported version " + version + " of the compact binary format");
+    }
+
+    InputStream in = new ByteArrayInputStream(bytes, 1, bytes.length - 1);
+    if ((header & COMPRESSED_FLAG) != 0) {
+      in = new InflaterInputStream(in);
+    }
+
+    try {
+      return new CompactBinaryReader(new DataInputStream(in), allowedClasses).readValue();
+    }
+    finally {
+      IoUtil.closeSilently(in);
+    }
+  }
+
+  protected byte[] compress(byte[] bytes) throws Exception {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream(bytes.length / 2);
+    DeflaterOutputStream out = new DeflaterOutputStream(baos);
+    try {
+      out.write(bytes);
+      out.finish();
+      return baos.toByteArray();
+    }
+    finally {
+      IoUtil.closeSilently(out);
+    }
+  }
+
+  protected byte[] withHeader(int header, byte[] bytes) {
+    byte[] result = new byte[bytes.length + 1];
+    result[0] = (byte) header;
+    System.arraycopy(bytes, 0, result, 1, bytes.length);
+    return result;
+  }
+
+  protected String getTypeNameForDeserialized(Object deserializedObject) {
+    return deserializedObject.getClass().getName();
+  }
+
+  /**
+   * Only serializable objects are accepted: classes which cannot be encoded
+   * field by field are embedded using java serialization.
+   */
+  protected boolean canSerializeValue(Object value) {
+    return value instanceof Serializable;
+  }
+
+  public int getCompressionThreshold() {
+    return compressionThreshold;
+  }
+
+  public void setCompressionThreshold(int compressionThreshold) {
+    this.compressionThreshold = compressionThreshold;
+  }
+
+  public List<String> getAllowedClasses() {
+    return allowedClasses;
+  }
+
+  /**
+   * @param allowedClasses the names of the classes which may be deserialized and patterns like
+   *   <code>com.example.*</code> which allow the classes of a package and its sub packages,
+   *   or null to allow all serializable classes
+   */
+  public void setAllowedClasses(List<String> allowedClasses) {
+    this.allowedClasses = allowedClasses;
+  }
+
+}
@@ -0,0 +1,417 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.variable.serializer;
+
+import static org.camunda.bpm.engine.impl.variable.serializer.CompactBinaryWriter.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.util.IoUtil;
+import org.camunda.bpm.engine.impl.util.ReflectUtil;
+import org.camunda.bpm.engine.impl.variable.serializer.JavaObjectSerializer.ClassloaderAwareObjectInputStream;
+
+/**
+ * <p>Reads values written by the {@link CompactBinaryWriter}.</p>
+ *
+ * <p>Fields are matched by name: values of fields which no longer exist in
+ * the class are skipped and fields which did not exist when the value was
+ * written keep the value assigned by the no-argument constructor. Numbers are
+ * converted if the type of a field has changed.</p>
+ *
+ * <p>Only serializable classes are instantiated. If a list of allowed classes
+ * is given, classes which are not on the list are rejected before they are
+ * loaded.</p>
+ */
+public class CompactBinaryReader {
+
+  protected DataInputStream in;
+
+  protected List<ClassDescriptor> classes = new ArrayList<ClassDescriptor>();
+  protected List<Object> handles = new ArrayList<Object>();
+
+  /** the allowed class names and package patterns or null if all serializable classes are allowed */
+  protected List<String> allowedClasses;
+
+  public CompactBinaryReader(DataInputStream in) {
+    this(in, null);
+  }
+
+  /**
+   * @param allowedClasses the names of the classes which may be instantiated and patterns like
+   *   <code>com.example.*</code> which allow the classes of a package and its sub packages,
+   *   or null to allow all serializable classes
+   */
+  public CompactBinaryReader(DataInputStream in, List<String> allowedClasses) {
+    this.in = in;
+    this.allowedClasses = allowedClasses;
+  }
+
+  public Object readValue() throws IOException {
+    int tag = in.readUnsignedByte();
+
+    switch (tag) {
+      case TAG_NULL:
+        return null;
+      case TAG_TRUE:
+        return Boolean.TRUE;
+      case TAG_FALSE:
+        return Boolean.FALSE;
+      case TAG_BYTE:
+        return in.readByte();
+      case TAG_SHORT:
+        return (short) readSignedVarLong();
+      case TAG_CHAR:
+        return (char) readVarInt();
+      case TAG_INT:
+        return (int) readSignedVarLong();
+      case TAG_LONG:
+        return readSignedVarLong();
+      case TAG_FLOAT:
+        return in.readFloat();
+      case TAG_DOUBLE:
+        return in.readDouble();
+      case TAG_STRING:
+        return readString();
+      case TAG_BYTES:
+        return readBytes();
+      case TAG_DATE:
+        return new Date(readSignedVarLong());
+      case TAG_ENUM:
+        return readEnum();
+      case TAG_ARRAY:
+        return readArray();
+      case TAG_COLLECTION:
+        return readCollection();
+      case TAG_MAP:
+        return readMap();
+      case TAG_OBJECT:
+        return readObject();
+      case TAG_REFERENCE:
+        return readReference();
+      case TAG_SERIALIZED:
+        return readSerialized();
+      default:
+        throw new ProcessEngineException("Unknown tag " + tag + " in compact binary value");
+    }
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  protected Object readEnum() throws IOException {
+    Class enumType = readClass(false).type;
+    return Enum.valueOf(enumType, readString());
+  }
+
+  protected Object readArray() throws IOException {
+    Class<?> componentType = readClass(false).type.getComponentType();
+    int length = readVarInt();
+    Object array = Array.newInstance(componentType, length);
+    handles.add(array);
+    for (int i = 0; i < length; i++) {
+      Array.set(array, i, convert(readValue(), componentType));
+    }
+    return array;
+  }
+
+  @SuppressWarnings("unchecked")
+  protected Object readCollection() throws IOException {
+    ClassDescriptor descriptor = readClass(false);
+    int size = readVarInt();
+    Collection<Object> collection = (Collection<Object>) descriptor.newInstance();
+    handles.add(collection);
+    for (int i = 0; i < size; i++) {
+      collection.add(readValue());
+    }
+    return collection;
+  }
+
+  @SuppressWarnings("unchecked")
+  protected Object readMap() throws IOException {
+    ClassDescriptor descriptor = readClass(false);
+    int size = readVarInt();
+    Map<Object, Object> map = (Map<Object, Object>) descriptor.newInstance();
+    handles.add(map);
+    for (int i = 0; i < size; i++) {
+      Object key = readValue();
+      map.put(key, readValue());
+    }
+    return map;
+  }
+
+  protected Object readObject() throws IOException {
+    ClassDescriptor descriptor = readClass(true);
+    Object object = descriptor.newInstance();
+    handles.add(object);
+
+    for (Field field : descriptor.fields) {
+      Object value = readValue();
+      if (field != null) {
+        setField(object, field, value);
+      }
+    }
+    return object;
+  }
+
+  protected Object readReference() throws IOException {
+    int handle = readVarInt();
+    if (handle >= handles.size()) {
+      throw new ProcessEngineException("Invalid reference " + handle + " in compact binary value");
+    }
+    return handles.get(handle);
+  }
+
+  protected Object readSerialized() throws IOException {
+    ObjectInputStream ois = new AllowedClassesObjectInputStream(new ByteArrayInputStream(readBytes()));
+    try {
+      return ois.readObject();
+    } catch (ClassNotFoundException e) {
+      throw new ProcessEngineException("Cannot deserialize embedded object: " + e.getMessage(), e);
+    }
+    finally {
+      IoUtil.closeSilently(ois);
+    }
+  }
+
+  protected ClassDescriptor readClass(boolean withFields) throws IOException {
+    int index = readVarInt();
+    if (index > 0) {
+      if (index > classes.size()) {
+        throw new ProcessEngineException("Invalid class reference " + index + " in compact binary value");
+      }
+      return classes.get(index - 1);
+    }
+
+    ClassDescriptor descriptor = new ClassDescriptor(loadClass(readString()));
+    classes.add(descriptor);
+
+    if (withFields) {
+      Map<String, Field> localFields = getLocalFields(descriptor.type);
+      int fieldCount = readVarInt();
+      for (int i = 0; i < fieldCount; i++) {
+        // fields which no longer exist are skipped
+        descriptor.fields.add(localFields.get(readString()));
+      }
+    }
+    return descriptor;
+  }
+
+  protected Class<?> loadClass(String className) {
+    ensureAllowedClass(className);
+    Class<?> type = ReflectUtil.loadClass(className);
+    if (!Serializable.class.isAssignableFrom(type)) {
+      throw new ProcessEngineException("Cannot deserialize " + className + ": class is not serializable");
+    }
+    return type;
+  }
+
+  protected void ensureAllowedClass(String className) {
+    if (!isAllowedClass(className)) {
+      throw new ProcessEngineException("Cannot deserialize " + className + ": class is not allowed");
+    }
+  }
+
+  protected boolean isAllowedClass(String className) {
+    if (allowedClasses == null) {
+      return true;
+    }
+
+    // arrays are allowed if their element class is allowed
+    String elementClassName = className;
+    if (elementClassName.startsWith("[")) {
+      elementClassName = elementClassName.substring(elementClassName.lastIndexOf('[') + 1);
+      if (!elementClassName.startsWith("L")) {
+        // array of primitives
+        return true;
+      }
+      elementClassName = elementClassName.substring(1, elementClassName.length() - 1);
+    }
+
+    if (isLanguageClass(elementClassName) || SUPPORTED_CONTAINER_CLASS_NAMES.contains(elementClassName)) {
+      return true;
+    }
+    for (String allowedClass : allowedClasses) {
+      if (allowedClass.endsWith(".*")) {
+        if (elementClassName.startsWith(allowedClass.substring(0, allowedClass.length() - 1))) {
+          return true;
+        }
+      }
+      else if (allowedClass.equals(elementClassName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return true for the classes of the package <code>java.lang</code> but not of its sub packages
+   */
+  protected boolean isLanguageClass(String className) {
+    return className.startsWith("java.lang.") && className.indexOf('.', "java.lang.".length()) < 0;
+  }
+
+  protected Map<String, Field> getLocalFields(Class<?> type) {
+    Map<String, Field> fields = new HashMap<String, Field>();
+    for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic() && !fields.containsKey(field.getName())) {
+          field.setAccessible(true);
+          fields.put(field.getName(), field);
+        }
+      }
+    }
+    return fields;
+  }
+
+  protected void setField(Object object, Field field, Object value) {
+    Class<?> fieldType = field.getType();
+    if (value == null && fieldType.isPrimitive()) {
+      // keep the default value of the primitive field
+      return;
+    }
+
+    try {
+      field.set(object, convert(value, fieldType));
+    } catch (Exception e) {
+      throw new ProcessEngineException("Cannot set field '" + field.getName() + "' of " + object.getClass().getName() + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Converts numbers to the given type, so that values can be read after the
+   * type of a field has been changed to another numeric type.
+   */
+  protected Object convert(Object value, Class<?> type) {
+    if (!(value instanceof Number) || type.isInstance(value)) {
+      return value;
+    }
+
+    Number number = (Number) value;
+    if (type == int.class || type == Integer.class) {
+      return number.intValue();
+    }
+    else if (type == long.class || type == Long.class) {
+      return number.longValue();
+    }
+    else if (type == short.class || type == Short.class) {
+      return number.shortValue();
+    }
+    else if (type == byte.class || type == Byte.class) {
+      return number.byteValue();
+    }
+    else if (type == double.class || type == Double.class) {
+      return number.doubleValue();
+    }
+    else if (type == float.class || type == Float.class) {
+      return number.floatValue();
+    }
+    return value;
+  }
+
+  protected String readString() throws IOException {
+    return new String(readBytes(), "UTF-8");
+  }
+
+  protected byte[] readBytes() throws IOException {
+    byte[] bytes = new byte[readVarInt()];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  protected long readSignedVarLong() throws IOException {
+    long value = readVarLong();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  protected int readVarInt() throws IOException {
+    return (int) readVarLong();
+  }
+
+  protected long readVarLong() throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new ProcessEngineException("Malformed variable length number in compact binary value");
+  }
+
+  /**
+   * Resolves the classes of values embedded using java serialization only if they are allowed.
+   */
+  protected class AllowedClassesObjectInputStream extends ClassloaderAwareObjectInputStream {
+
+    public AllowedClassesObjectInputStream(InputStream in) throws IOException {
+      super(in);
+    }
+
+    protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+      ensureAllowedClass(desc.getName());
+      return super.resolveClass(desc);
+    }
+
+    protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+      for (String interfaceName : interfaces) {
+        ensureAllowedClass(interfaceName);
+      }
+      return super.resolveProxyClass(interfaces);
+    }
+
+  }
+
+  protected static class ClassDescriptor {
+
+    protected Class<?> type;
+    protected Constructor<?> constructor;
+
+    /** the local fields in the order in which their values have been written, null for fields which no longer exist */
+    protected List<Field> fields = new ArrayList<Field>();
+
+    public ClassDescriptor(Class<?> type) {
+      this.type = type;
+    }
+
+    public Object newInstance() {
+      try {
+        if (constructor == null) {
+          constructor = type.getDeclaredConstructor();
+          constructor.setAccessible(true);
+        }
+        return constructor.newInstance();
+      } catch (Exception e) {
+        throw new ProcessEngineException("Cannot instantiate " + type.getName() + ": " + e.getMessage(), e);
+      }
+    }
+
+  }
+
+}
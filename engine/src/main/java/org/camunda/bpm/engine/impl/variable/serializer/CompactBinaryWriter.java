@@ -0,0 +1,385 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.variable.serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.camunda.bpm.engine.impl.util.IoUtil;
+
+/**
+ * <p>Writes values in the format read by the {@link CompactBinaryReader}.</p>
+ *
+ * <p>Every value starts with a tag. Numbers are written as variable length
+ * integers, strings as UTF-8. The name of a class is written the first time
+ * the class is used and referenced by its index afterwards. For objects which
+ * are encoded field by field, the field names are written along with the class
+ * name. Arrays, collections, maps and objects which are written more than once
+ * are referenced by their handle, so that shared references and cycles are
+ * preserved.</p>
+ *
+ * <p>Objects are encoded field by field if their class declares a no-argument
+ * constructor and does not customize java serialization. All other objects are
+ * embedded using java serialization.</p>
+ */
+public class CompactBinaryWriter {
+
+  protected static final int TAG_NULL = 0;
+  protected static final int TAG_TRUE = 1;
+  protected static final int TAG_FALSE = 2;
+  protected static final int TAG_BYTE = 3;
+  protected static final int TAG_SHORT = 4;
+  protected static final int TAG_CHAR = 5;
+  protected static final int TAG_INT = 6;
+  protected static final int TAG_LONG = 7;
+  protected static final int TAG_FLOAT = 8;
+  protected static final int TAG_DOUBLE = 9;
+  protected static final int TAG_STRING = 10;
+  protected static final int TAG_BYTES = 11;
+  protected static final int TAG_DATE = 12;
+  protected static final int TAG_ENUM = 13;
+  protected static final int TAG_ARRAY = 14;
+  protected static final int TAG_COLLECTION = 15;
+  protected static final int TAG_MAP = 16;
+  protected static final int TAG_OBJECT = 17;
+  protected static final int TAG_REFERENCE = 18;
+  protected static final int TAG_SERIALIZED = 19;
+
+  protected static final Set<Class<?>> SUPPORTED_CONTAINER_CLASSES = new HashSet<Class<?>>();
+
+  static {
+    SUPPORTED_CONTAINER_CLASSES.add(ArrayList.class);
+    SUPPORTED_CONTAINER_CLASSES.add(LinkedList.class);
+    SUPPORTED_CONTAINER_CLASSES.add(HashSet.class);
+    SUPPORTED_CONTAINER_CLASSES.add(LinkedHashSet.class);
+    SUPPORTED_CONTAINER_CLASSES.add(TreeSet.class);
+    SUPPORTED_CONTAINER_CLASSES.add(HashMap.class);
+    SUPPORTED_CONTAINER_CLASSES.add(LinkedHashMap.class);
+    SUPPORTED_CONTAINER_CLASSES.add(TreeMap.class);
+  }
+
+  protected static final Set<String> SUPPORTED_CONTAINER_CLASS_NAMES = new HashSet<String>();
+
+  static {
+    for (Class<?> containerClass : SUPPORTED_CONTAINER_CLASSES) {
+      SUPPORTED_CONTAINER_CLASS_NAMES.add(containerClass.getName());
+    }
+  }
+
+  protected DataOutputStream out;
+
+  protected Map<Class<?>, Integer> classIndexes = new HashMap<Class<?>, Integer>();
+  protected Map<Object, Integer> handles = new IdentityHashMap<Object, Integer>();
+
+  public CompactBinaryWriter(DataOutputStream out) {
+    this.out = out;
+  }
+
+  public void writeValue(Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(TAG_NULL);
+    }
+    else if (value instanceof Boolean) {
+      out.writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+    }
+    else if (value instanceof Byte) {
+      out.writeByte(TAG_BYTE);
+      out.writeByte((Byte) value);
+    }
+    else if (value instanceof Short) {
+      out.writeByte(TAG_SHORT);
+      writeSignedVarLong((Short) value);
+    }
+    else if (value instanceof Character) {
+      out.writeByte(TAG_CHAR);
+      writeVarInt((Character) value);
+    }
+    else if (value instanceof Integer) {
+      out.writeByte(TAG_INT);
+      writeSignedVarLong((Integer) value);
+    }
+    else if (value instanceof Long) {
+      out.writeByte(TAG_LONG);
+      writeSignedVarLong((Long) value);
+    }
+    else if (value instanceof Float) {
+      out.writeByte(TAG_FLOAT);
+      out.writeFloat((Float) value);
+    }
+    else if (value instanceof Double) {
+      out.writeByte(TAG_DOUBLE);
+      out.writeDouble((Double) value);
+    }
+    else if (value instanceof String) {
+      out.writeByte(TAG_STRING);
+      writeString((String) value);
+    }
+    else if (value instanceof byte[]) {
+      out.writeByte(TAG_BYTES);
+      writeBytes((byte[]) value);
+    }
+    else if (value.getClass() == Date.class) {
+      out.writeByte(TAG_DATE);
+      writeSignedVarLong(((Date) value).getTime());
+    }
+    else if (value instanceof Enum) {
+      out.writeByte(TAG_ENUM);
+      writeClass(((Enum<?>) value).getDeclaringClass(), null);
+      writeString(((Enum<?>) value).name());
+    }
+    else {
+      Integer handle = handles.get(value);
+      if (handle != null) {
+        out.writeByte(TAG_REFERENCE);
+        writeVarInt(handle);
+      }
+      else {
+        writeNewObject(value);
+      }
+    }
+  }
+
+  protected void writeNewObject(Object value) throws IOException {
+    Class<?> type = value.getClass();
+
+    if (type.isArray()) {
+      writeArray(value);
+    }
+    else if (value instanceof Collection && isSupportedContainer(value)) {
+      writeCollection((Collection<?>) value);
+    }
+    else if (value instanceof Map && isSupportedContainer(value)) {
+      writeMap((Map<?, ?>) value);
+    }
+    else {
+      List<Field> fields = getEncodableFields(type);
+      if (fields != null) {
+        writeObject(value, fields);
+      }
+      else {
+        writeSerialized(value);
+      }
+    }
+  }
+
+  protected void writeArray(Object array) throws IOException {
+    out.writeByte(TAG_ARRAY);
+    writeClass(array.getClass(), null);
+    int length = Array.getLength(array);
+    writeVarInt(length);
+    registerHandle(array);
+    for (int i = 0; i < length; i++) {
+      writeValue(Array.get(array, i));
+    }
+  }
+
+  protected void writeCollection(Collection<?> collection) throws IOException {
+    out.writeByte(TAG_COLLECTION);
+    writeClass(collection.getClass(), null);
+    writeVarInt(collection.size());
+    registerHandle(collection);
+    for (Object element : collection) {
+      writeValue(element);
+    }
+  }
+
+  protected void writeMap(Map<?, ?> map) throws IOException {
+    out.writeByte(TAG_MAP);
+    writeClass(map.getClass(), null);
+    writeVarInt(map.size());
+    registerHandle(map);
+    for (Entry<?, ?> entry : map.entrySet()) {
+      writeValue(entry.getKey());
+      writeValue(entry.getValue());
+    }
+  }
+
+  protected void writeObject(Object object, List<Field> fields) throws IOException {
+    out.writeByte(TAG_OBJECT);
+    writeClass(object.getClass(), fields);
+    registerHandle(object);
+    try {
+      for (Field field : fields) {
+        writeValue(field.get(object));
+      }
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException("Cannot read field of " + object.getClass().getName(), e);
+    }
+  }
+
+  protected void writeSerialized(Object value) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    ObjectOutputStream oos = new ObjectOutputStream(baos);
+    try {
+      oos.writeObject(value);
+    }
+    finally {
+      IoUtil.closeSilently(oos);
+    }
+    out.writeByte(TAG_SERIALIZED);
+    writeBytes(baos.toByteArray());
+  }
+
+  /**
+   * Writes the index of an already written class or the name of a new class
+   * followed by the names of its fields if the class is encoded field by field.
+   */
+  protected void writeClass(Class<?> type, List<Field> fields) throws IOException {
+    Integer index = classIndexes.get(type);
+    if (index != null) {
+      writeVarInt(index + 1);
+    }
+    else {
+      classIndexes.put(type, classIndexes.size());
+      writeVarInt(0);
+      writeString(type.getName());
+      if (fields != null) {
+        writeVarInt(fields.size());
+        for (Field field : fields) {
+          writeString(field.getName());
+        }
+      }
+    }
+  }
+
+  protected void registerHandle(Object value) {
+    handles.put(value, handles.size());
+  }
+
+  protected boolean isSupportedContainer(Object container) {
+    if (!SUPPORTED_CONTAINER_CLASSES.contains(container.getClass())) {
+      return false;
+    }
+    // the comparator of sorted containers is not encoded
+    if (container instanceof SortedSet) {
+      return ((SortedSet<?>) container).comparator() == null;
+    }
+    if (container instanceof SortedMap) {
+      return ((SortedMap<?, ?>) container).comparator() == null;
+    }
+    return true;
+  }
+
+  /**
+   * @return the fields to encode in declaration order from the class to its
+   * super classes or null if objects of the type cannot be encoded field by field.
+   */
+  protected List<Field> getEncodableFields(Class<?> type) {
+    // objects of classes which are not serializable are rejected by the java serialization
+    if (!Serializable.class.isAssignableFrom(type) || Externalizable.class.isAssignableFrom(type) || !hasNoArgConstructor(type)) {
+      return null;
+    }
+
+    List<Field> fields = new ArrayList<Field>();
+    Set<String> fieldNames = new HashSet<String>();
+
+    for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+      if (isPlatformClass(current) || customizesSerialization(current)) {
+        return null;
+      }
+      for (Field field : current.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        // fields shadowed by a field of a sub class are not encoded
+        if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic() && fieldNames.add(field.getName())) {
+          field.setAccessible(true);
+          fields.add(field);
+        }
+      }
+    }
+
+    return fields;
+  }
+
+  protected boolean hasNoArgConstructor(Class<?> type) {
+    try {
+      type.getDeclaredConstructor();
+      return !type.isInterface() && !Modifier.isAbstract(type.getModifiers());
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  protected boolean isPlatformClass(Class<?> type) {
+    String name = type.getName();
+    return name.startsWith("java.") || name.startsWith("javax.");
+  }
+
+  protected boolean customizesSerialization(Class<?> type) {
+    return hasDeclaredMethod(type, "writeObject", ObjectOutputStream.class)
+        || hasDeclaredMethod(type, "writeReplace")
+        || hasDeclaredMethod(type, "readResolve");
+  }
+
+  protected boolean hasDeclaredMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+    try {
+      Method method = type.getDeclaredMethod(name, parameterTypes);
+      return method != null;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  protected void writeString(String value) throws IOException {
+    writeBytes(value.getBytes("UTF-8"));
+  }
+
+  protected void writeBytes(byte[] bytes) throws IOException {
+    writeVarInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Writes a signed value in zig-zag encoding, so that values close to zero take few bytes.
+   */
+  protected void writeSignedVarLong(long value) throws IOException {
+    writeVarLong((value << 1) ^ (value >> 63));
+  }
+
+  protected void writeVarInt(int value) throws IOException {
+    writeVarLong(value & 0xFFFFFFFFL);
+  }
+
+  protected void writeVarLong(long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+}
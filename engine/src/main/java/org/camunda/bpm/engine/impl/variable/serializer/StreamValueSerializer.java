@@ -0,0 +1,73 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.variable.serializer;
+
+import java.io.InputStream;
+
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.core.variable.value.UntypedValueImpl;
+import org.camunda.bpm.engine.impl.persistence.entity.ByteArrayEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.LazyByteArrayInputStream;
+import org.camunda.bpm.engine.variable.Variables;
+import org.camunda.bpm.engine.variable.type.ValueType;
+import org.camunda.bpm.engine.variable.value.StreamValue;
+
+/**
+ * <p>Stores the content of a {@link StreamValue} in a byte array which is written
+ * from the stream when it is inserted. The value read from the byte array is a
+ * {@link LazyByteArrayInputStream} which streams the content from the database.</p>
+ *
+ * <p>A stream which has been read from another variable but not consumed is
+ * copied by the database, so passing a value on never loads it.</p>
+ */
+public class StreamValueSerializer extends PrimitiveValueSerializer<StreamValue> {
+
+  protected static final byte[] NO_BYTES = new byte[0];
+
+  public StreamValueSerializer() {
+    super(ValueType.STREAM);
+  }
+
+  public StreamValue convertToTypedValue(UntypedValueImpl untypedValue) {
+    return Variables.streamValue((InputStream) untypedValue.getValue());
+  }
+
+  public StreamValue readValue(ValueFields valueFields) {
+    String byteArrayId = valueFields.getByteArrayValueId();
+    if (byteArrayId == null) {
+      return Variables.streamValue(null);
+    }
+
+    LazyByteArrayInputStream stream = new LazyByteArrayInputStream(byteArrayId, Context.getProcessEngineConfiguration().getCommandExecutorTxRequired());
+    return Variables.streamValue(stream);
+  }
+
+  public void writeValue(StreamValue value, ValueFields valueFields) {
+    InputStream stream = value.getValue();
+    if (stream == null) {
+      valueFields.setByteArrayValue(null);
+      return;
+    }
+
+    // a new byte array is inserted, its content is provided on insert
+    valueFields.setByteArrayValue(NO_BYTES);
+    ByteArrayEntity byteArray = valueFields.getByteArrayValue();
+
+    if (stream instanceof LazyByteArrayInputStream && !((LazyByteArrayInputStream) stream).isOpened()) {
+      byteArray.setSourceByteArrayId(((LazyByteArrayInputStream) stream).getByteArrayId());
+    } else {
+      byteArray.setByteStream(stream);
+    }
+  }
+
+}
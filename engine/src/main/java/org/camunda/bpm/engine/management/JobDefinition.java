@@ -74,4 +74,12 @@ public interface JobDefinition {
    */
   boolean isSuspended();
 
+  /**
+   * The priority that all jobs created from this job definition receive, regardless
+   * of the priority declared in the process definition.
+   *
+   * @return the overriding job priority or null if jobs receive the declared priority.
+   */
+  Long getOverridingJobPriority();
+
 }
@@ -66,4 +66,10 @@ public interface ProcessDefinition {
   
   /** Returns true if the process definition is in suspended state. */
   boolean isSuspended();
+
+  /**
+   * The number of days the history of finished instances of this process definition
+   * is kept before it is removed by the history cleanup, or null if it is kept forever.
+   */
+  Integer getHistoryTimeToLive();
 }
@@ -91,4 +91,13 @@ public interface Job {
    * @return true if this Job is currently suspended.
    */
   boolean isSuspended();
+
+  /**
+   * The priority of this job. Jobs with a higher priority are acquired before
+   * jobs with a lower priority if the engine configuration property
+   * <code>jobExecutorAcquireByPriority</code> is set.
+   *
+   * @return the priority of this job
+   */
+  long getPriority();
 }
@@ -0,0 +1,67 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.runtime;
+
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.engine.MismatchingMessageCorrelationException;
+
+/**
+ * <p>A fluent builder for correlating a batch of messages in a single command.</p>
+ *
+ * <p>Each message is correlated like {@link MessageCorrelationBuilder#correlate()}: it notifies
+ * exactly one waiting execution or starts exactly one process instance. The executions and process
+ * definitions of all messages are looked up together, so all messages are correlated against the
+ * state before the batch.</p>
+ */
+public interface MessageCorrelationBatchBuilder {
+
+  /**
+   * <p>Adds a message to the batch.</p>
+   *
+   * @param messageName the name of the message, can be null to correlate by the other criteria only
+   * @param businessKey the business key of the process instance to correlate against, can be null
+   * @param correlationKeys the process instance variables to correlate on, can be null
+   * @param processVariables the variables which are set on the notified execution or the started
+   *   process instance, can be null
+   * @return the builder
+   */
+  MessageCorrelationBatchBuilder addMessage(String messageName, String businessKey,
+      Map<String, Object> correlationKeys, Map<String, Object> processVariables);
+
+  /**
+   * <p>Correlates either all messages of the batch or none of them. By default, a message that fails
+   * to correlate is reported in its result and the other messages of the batch are correlated anyway.</p>
+   *
+   * @return the builder
+   */
+  MessageCorrelationBatchBuilder allOrNothing();
+
+  /**
+   * <p>Correlates the messages of the batch.</p>
+   *
+   * <p>Unless {@link #allOrNothing()} is set, a message that does not match exactly one execution or
+   * process definition, or whose notification fails, does not prevent the correlation of the other
+   * messages. A failing notification rolls back the command, which is then repeated without the failing
+   * message. Each command runs in a new transaction, so the messages correlated by the last command are
+   * committed even if a surrounding transaction rolls back. An all-or-nothing batch joins a surrounding
+   * transaction.</p>
+   *
+   * @return the result of each message, in the order the messages were added
+   * @throws MismatchingMessageCorrelationException if {@link #allOrNothing()} is set and a message
+   *   does not match exactly one execution or process definition
+   */
+  List<MessageCorrelationBatchResult> correlate();
+
+}
@@ -0,0 +1,42 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.runtime;
+
+import java.util.List;
+
+/**
+ * The progress of an asynchronous signal broadcast.
+ *
+ * @see org.camunda.bpm.engine.RuntimeService#signalEventReceivedAsync(String)
+ */
+public interface SignalBroadcastProgress {
+
+  String getBroadcastId();
+
+  /**
+   * @return true if the signal was delivered to all executions waiting on it
+   */
+  boolean isCompleted();
+
+  /**
+   * @return the number of jobs of the broadcast which are not executed yet, including the failed jobs
+   */
+  int getRemainingJobCount();
+
+  /**
+   * @return the ids of the jobs of the broadcast which have no retries left. They can be retried
+   *   with {@link org.camunda.bpm.engine.ManagementService#setJobRetries(String, int)}.
+   */
+  List<String> getFailedJobIds();
+
+}
@@ -12,6 +12,7 @@
  */
 package org.camunda.bpm.engine.variable;
 
+import java.io.InputStream;
 import java.io.Serializable;
 import java.util.Date;
 import java.util.Map;
@@ -26,6 +27,7 @@ import org.camunda.bpm.engine.impl.core.variable.value.PrimitiveTypeValueImpl.In
 import org.camunda.bpm.engine.impl.core.variable.value.PrimitiveTypeValueImpl.LongValueImpl;
 import org.camunda.bpm.engine.impl.core.variable.value.PrimitiveTypeValueImpl.NumberValueImpl;
 import org.camunda.bpm.engine.impl.core.variable.value.PrimitiveTypeValueImpl.ShortValueImpl;
+import org.camunda.bpm.engine.impl.core.variable.value.PrimitiveTypeValueImpl.StreamValueImpl;
 import org.camunda.bpm.engine.impl.core.variable.value.PrimitiveTypeValueImpl.StringValueImpl;
 import org.camunda.bpm.engine.impl.core.variable.value.UntypedValueImpl;
 import org.camunda.bpm.engine.impl.core.variable.value.builder.ObjectVariableBuilderImpl;
@@ -39,6 +41,7 @@ import org.camunda.bpm.engine.variable.value.LongValue;
 import org.camunda.bpm.engine.variable.value.NumberValue;
 import org.camunda.bpm.engine.variable.value.SerializationDataFormat;
 import org.camunda.bpm.engine.variable.value.ShortValue;
+import org.camunda.bpm.engine.variable.value.StreamValue;
 import org.camunda.bpm.engine.variable.value.StringValue;
 import org.camunda.bpm.engine.variable.value.TypedValue;
 import org.camunda.bpm.engine.variable.value.builder.ObjectValueBuilder;
@@ -104,7 +107,16 @@ public class Variables {
      * If you want to serialize objects using the Xml dataformat, you need to provide a serializer. The optinal
      * camunda Spin process engine plugin provides such a serializer.</p>
      */
-    XML("application/xml");
+    XML("application/xml"),
+
+    /**
+     * <p>The compact binary Serialization Data format. If this data format is used for serializing an object,
+     * the object is serialized field by field in a compact binary encoding which tolerates fields being added
+     * to or removed from the class of the object.</p>
+     *
+     * <p>The process engine provides a serializer for this dataformat out of the box.</p>
+     */
+    COMPACT_BINARY("application/x-compact-binary-object");
 
     private final String name;
 
@@ -158,6 +170,13 @@ public class Variables {
     return new BytesValueImpl(bytes);
   }
 
+  /**
+   * Creates a value whose content is streamed to the database instead of being held in memory.
+   */
+  public static StreamValue streamValue(InputStream stream) {
+    return new StreamValueImpl(stream);
+  }
+
   public static DateValue dateValue(Date date) {
     return new DateValueImpl(date);
   }
@@ -24,6 +24,7 @@ import org.camunda.bpm.engine.impl.core.variable.type.PrimitiveValueTypeImpl.Int
 import org.camunda.bpm.engine.impl.core.variable.type.PrimitiveValueTypeImpl.LongTypeImpl;
 import org.camunda.bpm.engine.impl.core.variable.type.PrimitiveValueTypeImpl.NullTypeImpl;
 import org.camunda.bpm.engine.impl.core.variable.type.PrimitiveValueTypeImpl.ShortTypeImpl;
+import org.camunda.bpm.engine.impl.core.variable.type.PrimitiveValueTypeImpl.StreamTypeImpl;
 import org.camunda.bpm.engine.impl.core.variable.type.PrimitiveValueTypeImpl.StringTypeImpl;
 import org.camunda.bpm.engine.impl.core.variable.type.PrimitiveValueTypeImpl.NumberTypeImpl;
 import org.camunda.bpm.engine.variable.value.TypedValue;
@@ -55,6 +56,8 @@ public interface ValueType extends Serializable {
 
   public static final PrimitiveValueType BYTES = new BytesTypeImpl();
 
+  public static final PrimitiveValueType STREAM = new StreamTypeImpl();
+
   public static final PrimitiveValueType NUMBER = new NumberTypeImpl();
 
   public static final SerializableValueType OBJECT = new ObjectTypeImpl();
@@ -0,0 +1,31 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.variable.value;
+
+import java.io.InputStream;
+
+/**
+ * <p>A {@link PrimitiveValue} whose content is provided by an {@link InputStream}.
+ * Contrary to a {@link BytesValue}, the content is streamed to and from the
+ * database and is never held in memory as a whole.</p>
+ *
+ * <p>The stream of a value read from the process engine is opened on the first
+ * read and can be read once. Inside of a command (e.g. in a JavaDelegate) it
+ * reads the content from the database, outside of a command it reads a temporary
+ * copy of the content which is deleted when the stream is closed.</p>
+ *
+ * @since 7.3
+ */
+public interface StreamValue extends PrimitiveValue<InputStream> {
+
+}
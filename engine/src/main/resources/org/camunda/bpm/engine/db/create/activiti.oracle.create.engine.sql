@@ -17,6 +17,12 @@ values ('next.dbid', '1', 1);
 insert into ACT_GE_PROPERTY
 values ('deployment.lock', '0', 1);
 
+insert into ACT_GE_PROPERTY
+values ('effectivePermissions.lock', '0', 1);
+
+insert into ACT_GE_PROPERTY
+values ('historyCleanupJob.lock', '0', 1);
+
 create table ACT_GE_BYTEARRAY (
     ID_ NVARCHAR2(64),
     REV_ INTEGER,
@@ -78,6 +84,7 @@ create table ACT_RU_JOB (
     SUSPENSION_STATE_ INTEGER,
     JOB_DEF_ID_ NVARCHAR2(64),
     SEQUENCE_COUNTER_ NUMBER(19,0),
+    PRIORITY_ NUMBER(19,0) DEFAULT 0 NOT NULL,
     primary key (ID_)
 );
 
@@ -90,6 +97,7 @@ create table ACT_RU_JOBDEF (
     JOB_TYPE_ NVARCHAR2(255) NOT NULL,
     JOB_CONFIGURATION_ NVARCHAR2(255),
     SUSPENSION_STATE_ INTEGER,
+    JOB_PRIORITY_ NUMBER(19,0),
     primary key (ID_)
 );
 
@@ -105,6 +113,7 @@ create table ACT_RE_PROCDEF (
     DGRM_RESOURCE_NAME_ NVARCHAR2(2000),
     HAS_START_FORM_KEY_ NUMBER(1,0) CHECK (HAS_START_FORM_KEY_ IN (1,0)),
     SUSPENSION_STATE_ INTEGER,
+    HISTORY_TTL_ INTEGER,
     primary key (ID_)
 );
 
@@ -173,6 +182,7 @@ create table ACT_RU_EVENT_SUBSCR (
     ACTIVITY_ID_ NVARCHAR2(64),
     CONFIGURATION_ NVARCHAR2(255),
     CREATED_ TIMESTAMP(6) not null,
+    CORRELATION_KEY_ NVARCHAR2(255),
     primary key (ID_)
 );
 
@@ -204,6 +214,15 @@ create table ACT_RU_AUTHORIZATION (
   primary key (ID_)
 );
 
+create table ACT_RU_EFFECTIVE_PERM (
+  USER_ID_ NVARCHAR2(255) not null,
+  RESOURCE_TYPE_ integer not null,
+  RESOURCE_ID_ NVARCHAR2(64) not null,
+  GRANTED_PERMS_ integer not null,
+  DECIDED_PERMS_ integer not null,
+  primary key (USER_ID_, RESOURCE_TYPE_, RESOURCE_ID_)
+);
+
 create table ACT_RU_FILTER (
   ID_ NVARCHAR2(64) not null,
   REV_ integer not null,
@@ -221,9 +240,11 @@ create index ACT_IDX_TASK_ASSIGNEE on ACT_RU_TASK(ASSIGNEE_);
 create index ACT_IDX_IDENT_LNK_USER on ACT_RU_IDENTITYLINK(USER_ID_);
 create index ACT_IDX_IDENT_LNK_GROUP on ACT_RU_IDENTITYLINK(GROUP_ID_);
 create index ACT_IDX_EVENT_SUBSCR_CONFIG_ on ACT_RU_EVENT_SUBSCR(CONFIGURATION_);
+create index ACT_IDX_EVENT_SUBSCR_CORR_KEY on ACT_RU_EVENT_SUBSCR(CORRELATION_KEY_);
 create index ACT_IDX_VARIABLE_TASK_ID on ACT_RU_VARIABLE(TASK_ID_);
 create index ACT_IDX_INC_CONFIGURATION on ACT_RU_INCIDENT(CONFIGURATION_);
 create index ACT_IDX_JOB_PROCINST on ACT_RU_JOB(PROCESS_INSTANCE_ID_);
+create index ACT_IDX_JOB_PRIORITY on ACT_RU_JOB(PRIORITY_ desc, DUEDATE_);
 
 create index ACT_IDX_BYTEAR_DEPL on ACT_GE_BYTEARRAY(DEPLOYMENT_ID_);
 alter table ACT_GE_BYTEARRAY
@@ -13,6 +13,9 @@ drop index ACT_HI_VARINST.ACT_IDX_HI_PROCVAR_NAME_TYPE;
 drop index ACT_HI_ACTINST.ACT_IDX_HI_ACT_INST_PROCINST;
 drop index ACT_HI_JOB_LOG.ACT_IDX_HI_JOB_LOG_PROCINST;
 drop index ACT_HI_JOB_LOG.ACT_IDX_HI_JOB_LOG_PROCDEF;
+drop index ACT_HI_TASKINST.ACT_IDX_HI_TASKINST_PROCINST;
+drop index ACT_HI_OP_LOG.ACT_IDX_HI_OP_LOG_PROCINST;
+drop index ACT_HI_INCIDENT.ACT_IDX_HI_INCIDENT_PROCINST;
 
 if exists (select TABLE_NAME from INFORMATION_SCHEMA.TABLES where TABLE_NAME = 'ACT_HI_PROCINST') drop table ACT_HI_PROCINST;
 if exists (select TABLE_NAME from INFORMATION_SCHEMA.TABLES where TABLE_NAME = 'ACT_HI_ACTINST') drop table ACT_HI_ACTINST;
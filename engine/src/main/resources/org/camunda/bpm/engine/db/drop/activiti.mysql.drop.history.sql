@@ -13,6 +13,9 @@ drop index ACT_IDX_HI_PROCVAR_NAME_TYPE on ACT_HI_VARINST;
 drop index ACT_IDX_HI_ACT_INST_PROCINST on ACT_HI_ACTINST;
 drop index ACT_IDX_HI_JOB_LOG_PROCINST on ACT_HI_JOB_LOG;
 drop index ACT_IDX_HI_JOB_LOG_PROCDEF on ACT_HI_JOB_LOG;
+drop index ACT_IDX_HI_TASKINST_PROCINST on ACT_HI_TASKINST;
+drop index ACT_IDX_HI_OP_LOG_PROCINST on ACT_HI_OP_LOG;
+drop index ACT_IDX_HI_INCIDENT_PROCINST on ACT_HI_INCIDENT;
 
 drop table if exists ACT_HI_PROCINST;
 drop table if exists ACT_HI_ACTINST;
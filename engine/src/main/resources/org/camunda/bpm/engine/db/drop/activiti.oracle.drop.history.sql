@@ -13,6 +13,9 @@ drop index ACT_IDX_HI_PROCVAR_NAME_TYPE;
 drop index ACT_IDX_HI_ACT_INST_PROCINST;
 drop index ACT_IDX_HI_JOB_LOG_PROCINST;
 drop index ACT_IDX_HI_JOB_LOG_PROCDEF;
+drop index ACT_IDX_HI_TASKINST_PROCINST;
+drop index ACT_IDX_HI_OP_LOG_PROCINST;
+drop index ACT_IDX_HI_INCIDENT_PROCINST;
 
 drop table ACT_HI_PROCINST;
 drop table ACT_HI_ACTINST;
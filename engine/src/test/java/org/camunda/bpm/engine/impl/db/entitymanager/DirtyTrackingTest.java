@@ -0,0 +1,134 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.db.entitymanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.camunda.bpm.engine.impl.db.DbEntity;
+import org.camunda.bpm.engine.impl.db.entitymanager.operation.DbEntityOperation;
+import org.camunda.bpm.engine.impl.db.entitymanager.operation.DbOperation;
+import org.camunda.bpm.engine.impl.db.entitymanager.operation.DbOperationType;
+import org.camunda.bpm.engine.impl.persistence.entity.ExecutionEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.MessageEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.TaskEntity;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that entities which track their persistent state
+ * are only updated if their persistent state has changed.
+ */
+public class DirtyTrackingTest {
+
+  protected DbEntityManager entityManager;
+
+  protected ExecutionEntity execution;
+  protected TaskEntity task;
+  protected MessageEntity job;
+
+  @Before
+  public void setup() {
+    entityManager = new DbEntityManager(new TestIdGenerator(), null);
+
+    execution = new ExecutionEntity();
+    execution.setId("101");
+    task = new TaskEntity();
+    task.setId("102");
+    job = new MessageEntity();
+    job.setId("103");
+
+    entityManager.getDbEntityCache().putPersistent(execution);
+    entityManager.getDbEntityCache().putPersistent(task);
+    entityManager.getDbEntityCache().putPersistent(job);
+  }
+
+  @Test
+  public void testUnchangedEntitiesAreNotUpdated() {
+    assertFalse(entityManager.isDirty(execution));
+    assertFalse(entityManager.isDirty(task));
+    assertFalse(entityManager.isDirty(job));
+
+    assertTrue(flush().isEmpty());
+  }
+
+  @Test
+  public void testChangedExecutionIsUpdated() {
+    // the activity instance id is changed without a setter by the pvm
+    execution.setActivityInstanceId("anActivityInstance");
+    assertUpdated(execution);
+  }
+
+  @Test
+  public void testChangedSequenceCounterIsUpdated() {
+    execution.setSequenceCounter(execution.getSequenceCounter() + 1);
+    assertUpdated(execution);
+  }
+
+  @Test
+  public void testChangedTaskIsUpdated() {
+    task.setDescriptionWithoutCascade("aDescription");
+    assertUpdated(task);
+  }
+
+  @Test
+  public void testChangedJobIsUpdated() {
+    job.setLockOwner("aLockOwner");
+    assertUpdated(job);
+  }
+
+  @Test
+  public void testChangeToPreviousValueIsNotUpdated() {
+    job.setLockOwner("aLockOwner");
+    job.setLockOwner(null);
+
+    assertTrue(flush().isEmpty());
+  }
+
+  @Test
+  public void testForcedUpdate() {
+    entityManager.forceUpdate(task);
+    assertUpdated(task);
+  }
+
+  @Test
+  public void testNotUpdatedAgainAfterFlush() {
+    task.setDescriptionWithoutCascade("aDescription");
+    assertUpdated(task);
+
+    entityManager.getDbOperationManager().updates.clear();
+    assertFalse(entityManager.isDirty(task));
+    assertTrue(flush().isEmpty());
+  }
+
+  protected void assertUpdated(DbEntity entity) {
+    assertTrue(entityManager.isDirty(entity));
+
+    List<DbOperation> operations = flush();
+    assertEquals(1, operations.size());
+
+    DbEntityOperation operation = (DbEntityOperation) operations.get(0);
+    assertEquals(DbOperationType.UPDATE, operation.getOperationType());
+    assertSame(entity, operation.getEntity());
+  }
+
+  protected List<DbOperation> flush() {
+    entityManager.flushEntityCache();
+    return entityManager.getDbOperationManager().calculateFlush();
+  }
+
+}
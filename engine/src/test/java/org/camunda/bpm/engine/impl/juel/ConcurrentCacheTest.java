@@ -0,0 +1,112 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.juel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class ConcurrentCacheTest {
+
+  protected Builder builder = new Builder();
+
+  @Test
+  public void testGetCachedTree() {
+    ConcurrentCache cache = new ConcurrentCache(10);
+    Tree tree = builder.build("${a}");
+    cache.put("${a}", tree);
+
+    assertSame(tree, cache.get("${a}"));
+    assertNull(cache.get("${b}"));
+
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(0.5d, cache.getHitRate(), 0d);
+  }
+
+  @Test
+  public void testEvictLeastRecentlyUsedTrees() throws Exception {
+    ConcurrentCache cache = new ConcurrentCache(3, 1);
+    cache.put("${a}", builder.build("${a}"));
+    Thread.sleep(1);
+    cache.put("${b}", builder.build("${b}"));
+    Thread.sleep(1);
+    cache.put("${c}", builder.build("${c}"));
+    Thread.sleep(1);
+
+    // "${a}" is used, so "${b}" and "${c}" are the least recently used trees
+    assertNotNull(cache.get("${a}"));
+    cache.put("${d}", builder.build("${d}"));
+
+    // the exceeding tree and one more tree of the batch are evicted
+    assertEquals(2, cache.size());
+    assertEquals(2, cache.getEvictionCount());
+    assertNotNull(cache.get("${a}"));
+    assertNull(cache.get("${b}"));
+    assertNull(cache.get("${c}"));
+    assertNotNull(cache.get("${d}"));
+  }
+
+  @Test
+  public void testNoHitRateWithoutLookups() {
+    assertEquals(0d, new ConcurrentCache(1).getHitRate(), 0d);
+  }
+
+  @Test
+  public void testConcurrentAccess() throws Exception {
+    final ConcurrentCache cache = new ConcurrentCache(50);
+    final TreeStore store = new TreeStore(builder, cache);
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < 4; i++) {
+      Thread thread = new Thread() {
+        public void run() {
+          try {
+            for (int j = 0; j < 1000; j++) {
+              assertNotNull(store.get("${a" + (j % 100) + "}"));
+            }
+          }
+          catch (Throwable t) {
+            failure.set(t);
+          }
+        }
+      };
+      threads.add(thread);
+      thread.start();
+    }
+
+    for (Thread thread : threads) {
+      thread.join(30000);
+      assertFalse(thread.isAlive());
+    }
+
+    assertNull(failure.get());
+
+    // threads which add a tree while another thread evicts may exceed the size
+    // until the next tree is added without a concurrent eviction
+    cache.put("${b}", builder.build("${b}"));
+    assertTrue(cache.size() <= 50);
+    assertTrue(cache.getEvictionCount() > 0);
+  }
+
+}
@@ -0,0 +1,104 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+  @Test
+  public void testEmptyHistogram() {
+    Histogram histogram = new Histogram();
+
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMax());
+    assertEquals(0, histogram.getMean(), 0);
+    assertEquals(0, histogram.getPercentile(0.99));
+  }
+
+  @Test
+  public void testStatistics() {
+    Histogram histogram = new Histogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.update(i);
+    }
+
+    assertEquals(100, histogram.getCount());
+    assertEquals(5050, histogram.getSum());
+    assertEquals(100, histogram.getMax());
+    assertEquals(50.5, histogram.getMean(), 0.001);
+  }
+
+  @Test
+  public void testPercentilesAreApproximatedByPowersOfTwo() {
+    Histogram histogram = new Histogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.update(i);
+    }
+
+    // the median 50 is in the bucket from 32 to 63
+    assertEquals(63, histogram.getPercentile(0.5));
+    // the 99th percentile is in the bucket from 64 to 127 but not larger than the maximum
+    assertEquals(100, histogram.getPercentile(0.99));
+    assertEquals(1, histogram.getPercentile(0.01));
+  }
+
+  @Test
+  public void testNegativeValuesAreRecordedAsZero() {
+    Histogram histogram = new Histogram();
+    histogram.update(-5);
+
+    assertEquals(1, histogram.getCount());
+    assertEquals(0, histogram.getSum());
+    assertEquals(0, histogram.getPercentile(1));
+  }
+
+  @Test
+  public void testLargeValues() {
+    Histogram histogram = new Histogram();
+    histogram.update(Long.MAX_VALUE);
+
+    assertEquals(Long.MAX_VALUE, histogram.getMax());
+    assertEquals(Long.MAX_VALUE, histogram.getPercentile(0.5));
+  }
+
+  @Test
+  public void testRegistryCreatesMetricsOnce() {
+    MetricsRegistry metricsRegistry = new MetricsRegistry();
+
+    assertSame(metricsRegistry.getCounter("aCounter"), metricsRegistry.getCounter("aCounter"));
+    assertSame(metricsRegistry.getHistogram("aHistogram"), metricsRegistry.getHistogram("aHistogram"));
+  }
+
+  @Test
+  public void testRegistryValues() {
+    MetricsRegistry metricsRegistry = new MetricsRegistry();
+    metricsRegistry.markOccurrence("aCounter");
+    metricsRegistry.markOccurrence("aCounter", 2);
+    metricsRegistry.updateHistogram("aHistogram", 10);
+    metricsRegistry.updateHistogram("aHistogram", 20);
+
+    Map<String, Long> values = metricsRegistry.getValues();
+    assertEquals(Long.valueOf(3), values.get("aCounter"));
+    assertEquals(Long.valueOf(2), values.get("aHistogram.count"));
+    assertEquals(Long.valueOf(15), values.get("aHistogram.mean"));
+    assertEquals(Long.valueOf(20), values.get("aHistogram.max"));
+    assertEquals(Long.valueOf(20), values.get("aHistogram.p99"));
+  }
+
+}
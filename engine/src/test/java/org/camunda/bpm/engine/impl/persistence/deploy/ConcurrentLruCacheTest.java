@@ -0,0 +1,102 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.impl.persistence.deploy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrentLruCacheTest {
+
+  protected ConcurrentLruCache<String, String> cache;
+
+  @Before
+  public void createCache() {
+    cache = new ConcurrentLruCache<String, String>(3);
+  }
+
+  @Test
+  public void testEvictLeastRecentlyUsedEntry() throws Exception {
+    cache.put("a", "1");
+    Thread.sleep(1);
+    cache.put("b", "2");
+    Thread.sleep(1);
+    cache.put("c", "3");
+    Thread.sleep(1);
+
+    // "a" is used, so "b" is the least recently used entry
+    assertEquals("1", cache.get("a"));
+    cache.put("d", "4");
+
+    assertEquals(3, cache.size());
+    assertTrue(cache.containsKey("a"));
+    assertFalse(cache.containsKey("b"));
+    assertTrue(cache.containsKey("c"));
+    assertTrue(cache.containsKey("d"));
+    assertEquals(1, cache.getEvictionCount());
+  }
+
+  @Test
+  public void testReplaceEntryDoesNotEvict() {
+    cache.put("a", "1");
+    cache.put("b", "2");
+    cache.put("c", "3");
+    cache.put("a", "4");
+
+    assertEquals(3, cache.size());
+    assertEquals("4", cache.get("a"));
+    assertEquals(0, cache.getEvictionCount());
+  }
+
+  @Test
+  public void testHitAndMissCount() {
+    cache.put("a", "1");
+
+    cache.get("a");
+    cache.get("a");
+    assertNull(cache.get("b"));
+
+    assertEquals(2, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void testRemoveAndClear() {
+    cache.put("a", "1");
+    cache.put("b", "2");
+
+    assertEquals("1", cache.remove("a"));
+    assertNull(cache.remove("a"));
+    assertEquals(1, cache.size());
+
+    cache.clear();
+    assertTrue(cache.isEmpty());
+  }
+
+  @Test
+  public void testInvalidCapacity() {
+    try {
+      new ConcurrentLruCache<String, String>(0);
+      fail("exception expected");
+    } catch (ProcessEngineException e) {
+      assertTrue(e.getMessage().contains("capacity"));
+    }
+  }
+
+}
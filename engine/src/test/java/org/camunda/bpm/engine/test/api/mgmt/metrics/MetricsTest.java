@@ -0,0 +1,147 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.api.mgmt.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.container.impl.jmx.services.JmxManagedProcessEngine;
+import org.camunda.bpm.engine.impl.ProcessEngineImpl;
+import org.camunda.bpm.engine.impl.cmd.AcquireJobsCmd;
+import org.camunda.bpm.engine.impl.jobexecutor.AcquiredJobs;
+import org.camunda.bpm.engine.impl.jobexecutor.ExecuteJobsRunnable;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
+import org.camunda.bpm.engine.impl.metrics.Metrics;
+import org.camunda.bpm.engine.impl.metrics.MetricsRegistry;
+import org.camunda.bpm.engine.impl.metrics.MetricsReporter;
+import org.camunda.bpm.engine.impl.metrics.MetricsReportingTimer;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.engine.test.Deployment;
+
+public class MetricsTest extends PluggableProcessEngineTestCase {
+
+  protected MetricsRegistry metricsRegistry;
+
+  protected void setUp() throws Exception {
+    metricsRegistry = processEngineConfiguration.getMetricsRegistry();
+  }
+
+  public void testMetricsEnabledByDefault() {
+    assertTrue(processEngineConfiguration.isMetricsEnabled());
+    assertNotNull(metricsRegistry);
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testActivityInstances() {
+    long startedActivityInstances = getCount(Metrics.ACTIVITY_INSTANCE_START);
+    long endedActivityInstances = getCount(Metrics.ACTIVITY_INSTANCE_END);
+
+    runtimeService.startProcessInstanceByKey("oneTaskProcess");
+
+    // the start event and the user task are started, the start event is ended
+    assertEquals(startedActivityInstances + 2, getCount(Metrics.ACTIVITY_INSTANCE_START));
+    assertEquals(endedActivityInstances + 1, getCount(Metrics.ACTIVITY_INSTANCE_END));
+
+    taskService.complete(taskService.createTaskQuery().singleResult().getId());
+
+    // the end event is started, the user task and the end event are ended
+    assertEquals(startedActivityInstances + 3, getCount(Metrics.ACTIVITY_INSTANCE_START));
+    assertEquals(endedActivityInstances + 3, getCount(Metrics.ACTIVITY_INSTANCE_END));
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testFlushOperations() {
+    long flushes = metricsRegistry.getHistogram(Metrics.FLUSH_OPERATIONS).getCount();
+
+    runtimeService.startProcessInstanceByKey("oneTaskProcess");
+
+    assertTrue(metricsRegistry.getHistogram(Metrics.FLUSH_OPERATIONS).getCount() > flushes);
+    assertTrue(metricsRegistry.getHistogram(Metrics.FLUSH_OPERATIONS).getMax() > 0);
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/jobexecutor/simpleAsyncProcess.bpmn20.xml")
+  public void testJobAcquisitionAndExecution() {
+    runtimeService.startProcessInstanceByKey("simpleAsyncProcess");
+
+    long acquisitionAttempts = getCount(Metrics.JOB_ACQUISITION_ATTEMPT);
+    long acquiredJobs = getCount(Metrics.JOB_ACQUIRED_SUCCESS);
+    long successfulJobs = getCount(Metrics.JOB_SUCCESSFUL);
+    long executedJobs = metricsRegistry.getHistogram(Metrics.JOB_EXECUTION_TIME).getCount();
+
+    JobExecutor jobExecutor = processEngineConfiguration.getJobExecutor();
+    AcquiredJobs jobs = processEngineConfiguration.getCommandExecutorTxRequired()
+        .execute(new AcquireJobsCmd(jobExecutor));
+
+    assertEquals(acquisitionAttempts + 1, getCount(Metrics.JOB_ACQUISITION_ATTEMPT));
+    assertEquals(acquiredJobs + 1, getCount(Metrics.JOB_ACQUIRED_SUCCESS));
+
+    new ExecuteJobsRunnable(jobs.getJobIdBatches().get(0), (ProcessEngineImpl) processEngine).run();
+
+    assertEquals(successfulJobs + 1, getCount(Metrics.JOB_SUCCESSFUL));
+    assertEquals(executedJobs + 1, metricsRegistry.getHistogram(Metrics.JOB_EXECUTION_TIME).getCount());
+    assertEquals(0, managementService.createJobQuery().count());
+  }
+
+  public void testReportingTimer() {
+    metricsRegistry.markOccurrence(Metrics.JOB_SUCCESSFUL);
+
+    RecordingMetricsReporter reporter = new RecordingMetricsReporter();
+    List<MetricsReporter> reporters = new ArrayList<MetricsReporter>();
+    reporters.add(new FailingMetricsReporter());
+    reporters.add(reporter);
+
+    MetricsReportingTimer timer = new MetricsReportingTimer("anEngine", metricsRegistry, reporters, 60 * 60 * 1000);
+    timer.start();
+    assertTrue(timer.isActive());
+    assertTrue(reporter.reports.isEmpty());
+
+    // the metrics are reported when the timer is stopped, even if another reporter fails
+    timer.stop();
+    assertFalse(timer.isActive());
+    assertEquals(1, reporter.reports.size());
+    assertEquals(Long.valueOf(getCount(Metrics.JOB_SUCCESSFUL)), reporter.reports.get(0).get(Metrics.JOB_SUCCESSFUL));
+    assertEquals("anEngine", reporter.processEngineName);
+  }
+
+  public void testJmxManagedProcessEngine() {
+    metricsRegistry.markOccurrence(Metrics.JOB_SUCCESSFUL);
+
+    Map<String, Long> metrics = new JmxManagedProcessEngine(processEngine).getMetrics();
+    assertEquals(Long.valueOf(getCount(Metrics.JOB_SUCCESSFUL)), metrics.get(Metrics.JOB_SUCCESSFUL));
+  }
+
+  protected long getCount(String metric) {
+    return metricsRegistry.getCounter(metric).getCount();
+  }
+
+  protected static class RecordingMetricsReporter implements MetricsReporter {
+
+    protected String processEngineName;
+    protected List<Map<String, Long>> reports = Collections.synchronizedList(new ArrayList<Map<String, Long>>());
+
+    public void report(String processEngineName, MetricsRegistry metricsRegistry) {
+      this.processEngineName = processEngineName;
+      reports.add(metricsRegistry.getValues());
+    }
+  }
+
+  protected static class FailingMetricsReporter implements MetricsReporter {
+
+    public void report(String processEngineName, MetricsRegistry metricsRegistry) {
+      throw new RuntimeException("cannot report metrics");
+    }
+  }
+
+}
@@ -0,0 +1,116 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.api.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.engine.impl.persistence.deploy.ConcurrentLruCache;
+import org.camunda.bpm.engine.impl.persistence.deploy.DeploymentCache;
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.engine.repository.ProcessDefinition;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+
+/**
+ * Starts process instances of more process definitions than fit into the deployment cache.
+ */
+public class DeploymentCacheCapacityTest extends PluggableProcessEngineTestCase {
+
+  protected DeploymentCache deploymentCache;
+  protected Map<String, ProcessDefinitionEntity> processDefinitionCache;
+  protected List<String> deploymentIds = new ArrayList<String>();
+
+  protected void setUp() throws Exception {
+    deploymentCache = processEngineConfiguration.getDeploymentCache();
+    processDefinitionCache = deploymentCache.getProcessDefinitionCache();
+    deploymentCache.setProcessDefinitionCache(new ConcurrentLruCache<String, ProcessDefinitionEntity>(2));
+  }
+
+  protected void tearDown() throws Exception {
+    for (String deploymentId : deploymentIds) {
+      repositoryService.deleteDeployment(deploymentId, true);
+    }
+    deploymentCache.setProcessDefinitionCache(processDefinitionCache);
+  }
+
+  public void testEvictedProcessDefinitionIsDeployedAgain() {
+    for (int i = 0; i < 3; i++) {
+      deployProcess("process" + i);
+    }
+
+    ConcurrentLruCache<String, ProcessDefinitionEntity> cache = deploymentCache.getProcessDefinitionLruCache();
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictionCount());
+
+    // all processes can be started although one of them has been evicted
+    for (int i = 0; i < 3; i++) {
+      runtimeService.startProcessInstanceByKey("process" + i);
+    }
+
+    assertEquals(3, taskService.createTaskQuery().count());
+    assertEquals(2, cache.size());
+    assertTrue(cache.getMissCount() > 0);
+    assertTrue(cache.getEvictionCount() > 1);
+  }
+
+  public void testCachedProcessDefinitionIsReused() {
+    deployProcess("process");
+    ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery().singleResult();
+
+    ConcurrentLruCache<String, ProcessDefinitionEntity> cache = deploymentCache.getProcessDefinitionLruCache();
+    long hitCount = cache.getHitCount();
+
+    runtimeService.startProcessInstanceById(processDefinition.getId());
+    runtimeService.startProcessInstanceById(processDefinition.getId());
+
+    assertTrue(cache.getHitCount() >= hitCount + 2);
+    assertEquals(0, cache.getEvictionCount());
+  }
+
+  public void testDefaultCacheCapacity() {
+    assertEquals(DeploymentCache.DEFAULT_CACHE_CAPACITY, processEngineConfiguration.getCacheCapacity());
+    assertEquals(DeploymentCache.DEFAULT_CACHE_CAPACITY, ((ConcurrentLruCache<?, ?>) processDefinitionCache).getCapacity());
+  }
+
+  public void testProcessDefinitionCacheWithoutCapacity() {
+    Map<String, ProcessDefinitionEntity> cache = new HashMap<String, ProcessDefinitionEntity>();
+    deploymentCache.setProcessDefinitionCache(cache);
+
+    for (int i = 0; i < 3; i++) {
+      deployProcess("process" + i);
+    }
+
+    assertEquals(3, cache.size());
+    assertSame(cache, deploymentCache.getProcessDefinitionCache());
+    assertNull(deploymentCache.getProcessDefinitionLruCache());
+  }
+
+  protected void deployProcess(String processDefinitionKey) {
+    BpmnModelInstance modelInstance = Bpmn.createExecutableProcess(processDefinitionKey)
+      .startEvent()
+      .userTask()
+      .endEvent()
+      .done();
+
+    String deploymentId = repositoryService.createDeployment()
+      .addModelInstance(processDefinitionKey + ".bpmn", modelInstance)
+      .deploy()
+      .getId();
+    deploymentIds.add(deploymentId);
+  }
+
+}
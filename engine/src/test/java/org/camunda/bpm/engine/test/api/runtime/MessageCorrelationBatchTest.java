@@ -0,0 +1,259 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.api.runtime;
+
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.engine.MismatchingMessageCorrelationException;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.engine.runtime.MessageCorrelationBatchResult;
+import org.camunda.bpm.engine.runtime.ProcessInstance;
+import org.camunda.bpm.engine.test.Deployment;
+import org.camunda.bpm.engine.variable.Variables;
+
+public class MessageCorrelationBatchTest extends PluggableProcessEngineTestCase {
+
+  protected static final String PAYMENT_MESSAGE = "paymentMessage";
+  protected static final String ORDER_MESSAGE = "orderMessage";
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/runtime/MessageCorrelationBatchTest.bpmn20.xml")
+  public void testCorrelateBatch() {
+    ProcessInstance processInstance1 = startProcessInstance(1, false);
+    ProcessInstance processInstance2 = startProcessInstance(2, false);
+    ProcessInstance processInstance3 = startProcessInstance(3, false);
+
+    List<MessageCorrelationBatchResult> results = runtimeService.createMessageCorrelationBatch()
+      .addMessage(PAYMENT_MESSAGE, null, orderId(1), Variables.createVariables().putValue("paid", true))
+      .addMessage(PAYMENT_MESSAGE, null, orderId(3), null)
+      .addMessage(ORDER_MESSAGE, "anOrder", null, null)
+      .correlate();
+
+    assertEquals(3, results.size());
+    assertCorrelated(results.get(0), processInstance1.getId());
+    assertCorrelated(results.get(1), processInstance3.getId());
+    assertTrue(results.get(2).isCorrelated());
+    assertEquals(ORDER_MESSAGE, results.get(2).getMessageName());
+
+    assertMessageReceived(processInstance1);
+    assertWaitsForMessage(processInstance2);
+    assertMessageReceived(processInstance3);
+    assertEquals(true, runtimeService.getVariable(processInstance1.getId(), "paid"));
+
+    ProcessInstance startedProcessInstance = runtimeService.createProcessInstanceQuery()
+      .processInstanceId(results.get(2).getProcessInstanceId())
+      .singleResult();
+    assertEquals("anOrder", startedProcessInstance.getBusinessKey());
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/runtime/MessageCorrelationTest.testCatchingMessageEventCorrelation.bpmn20.xml")
+  public void testCorrelateBatchWithoutDeclaredCorrelationKeys() {
+    ProcessInstance processInstance1 = runtimeService.startProcessInstanceByKey("process",
+        Variables.createVariables().putValue("aKey", "aValue"));
+    ProcessInstance processInstance2 = runtimeService.startProcessInstanceByKey("process", "aBusinessKey",
+        Variables.createVariables().putValue("aKey", "anotherValue"));
+
+    List<MessageCorrelationBatchResult> results = runtimeService.createMessageCorrelationBatch()
+      .addMessage("newInvoiceMessage", null, Variables.createVariables().putValue("aKey", "aValue"), null)
+      .addMessage("newInvoiceMessage", "aBusinessKey", null, null)
+      .correlate();
+
+    assertCorrelated(results.get(0), processInstance1.getId());
+    assertCorrelated(results.get(1), processInstance2.getId());
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/runtime/MessageCorrelationTest.testCatchingMessageEventCorrelation.bpmn20.xml")
+  public void testCorrelateBatchByBusinessKeys() {
+    ProcessInstance processInstance1 = runtimeService.startProcessInstanceByKey("process", "businessKey1");
+    ProcessInstance processInstance2 = runtimeService.startProcessInstanceByKey("process", "businessKey2");
+    ProcessInstance processInstance3 = runtimeService.startProcessInstanceByKey("process", "businessKey3");
+
+    List<MessageCorrelationBatchResult> results = runtimeService.createMessageCorrelationBatch()
+      .addMessage("newInvoiceMessage", "businessKey3", null, null)
+      .addMessage("newInvoiceMessage", "businessKey1", null, null)
+      .addMessage("newInvoiceMessage", "unknownBusinessKey", null, null)
+      .addMessage(null, "businessKey2", null, null)
+      .correlate();
+
+    assertCorrelated(results.get(0), processInstance3.getId());
+    assertCorrelated(results.get(1), processInstance1.getId());
+    assertFalse(results.get(2).isCorrelated());
+    assertTrue(results.get(2).getException() instanceof MismatchingMessageCorrelationException);
+    assertCorrelated(results.get(3), processInstance2.getId());
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/runtime/MessageCorrelationBatchTest.bpmn20.xml")
+  public void testMismatchingMessageIsIsolated() {
+    ProcessInstance processInstance = startProcessInstance(1, false);
+
+    List<MessageCorrelationBatchResult> results = runtimeService.createMessageCorrelationBatch()
+      .addMessage(PAYMENT_MESSAGE, null, orderId(2), null)
+      .addMessage(PAYMENT_MESSAGE, null, orderId(1), null)
+      .correlate();
+
+    assertFalse(results.get(0).isCorrelated());
+    assertNull(results.get(0).getProcessInstanceId());
+    assertTrue(results.get(0).getException() instanceof MismatchingMessageCorrelationException);
+    assertCorrelated(results.get(1), processInstance.getId());
+
+    assertMessageReceived(processInstance);
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/runtime/MessageCorrelationBatchTest.bpmn20.xml")
+  public void testDuplicateMessageDoesNotMatchNotifiedExecution() {
+    ProcessInstance processInstance = startProcessInstance(1, false);
+
+    List<MessageCorrelationBatchResult> results = runtimeService.createMessageCorrelationBatch()
+      .addMessage(PAYMENT_MESSAGE, null, orderId(1), null)
+      .addMessage(PAYMENT_MESSAGE, null, orderId(1), null)
+      .correlate();
+
+    // the second message behaves as if it was correlated after the first one
+    assertCorrelated(results.get(0), processInstance.getId());
+    assertFalse(results.get(1).isCorrelated());
+    assertTrue(results.get(1).getException() instanceof MismatchingMessageCorrelationException);
+
+    assertMessageReceived(processInstance);
+
+    ProcessInstance otherProcessInstance = startProcessInstance(2, false);
+    try {
+      runtimeService.createMessageCorrelationBatch()
+        .addMessage(PAYMENT_MESSAGE, null, orderId(2), null)
+        .addMessage(PAYMENT_MESSAGE, null, orderId(2), null)
+        .allOrNothing()
+        .correlate();
+      fail("exception expected");
+    } catch (MismatchingMessageCorrelationException e) {
+      // expected
+    }
+
+    assertWaitsForMessage(otherProcessInstance);
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/runtime/MessageCorrelationBatchTest.bpmn20.xml")
+  public void testFailingMessageIsIsolated() {
+    ProcessInstance processInstance1 = startProcessInstance(1, false);
+    ProcessInstance processInstance2 = startProcessInstance(2, true);
+    ProcessInstance processInstance3 = startProcessInstance(3, false);
+
+    List<MessageCorrelationBatchResult> results = runtimeService.createMessageCorrelationBatch()
+      .addMessage(PAYMENT_MESSAGE, null, orderId(1), null)
+      .addMessage(PAYMENT_MESSAGE, null, orderId(2), null)
+      .addMessage(PAYMENT_MESSAGE, null, orderId(3), null)
+      .correlate();
+
+    assertCorrelated(results.get(0), processInstance1.getId());
+    assertFalse(results.get(1).isCorrelated());
+    assertEquals(FailingDelegate.EXCEPTION_MESSAGE, results.get(1).getException().getMessage());
+    assertCorrelated(results.get(2), processInstance3.getId());
+
+    assertMessageReceived(processInstance1);
+    assertWaitsForMessage(processInstance2);
+    assertMessageReceived(processInstance3);
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/runtime/MessageCorrelationBatchTest.bpmn20.xml")
+  public void testFailingMessageIsIsolatedInOuterTransaction() {
+    ProcessInstance processInstance1 = startProcessInstance(1, false);
+    ProcessInstance processInstance2 = startProcessInstance(2, true);
+
+    List<MessageCorrelationBatchResult> results = processEngineConfiguration.getCommandExecutorTxRequired()
+      .execute(new Command<List<MessageCorrelationBatchResult>>() {
+        public List<MessageCorrelationBatchResult> execute(CommandContext commandContext) {
+          return runtimeService.createMessageCorrelationBatch()
+            .addMessage(PAYMENT_MESSAGE, null, orderId(1), null)
+            .addMessage(PAYMENT_MESSAGE, null, orderId(2), null)
+            .correlate();
+        }
+      });
+
+    assertCorrelated(results.get(0), processInstance1.getId());
+    assertFalse(results.get(1).isCorrelated());
+    assertEquals(FailingDelegate.EXCEPTION_MESSAGE, results.get(1).getException().getMessage());
+
+    assertMessageReceived(processInstance1);
+    assertWaitsForMessage(processInstance2);
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/runtime/MessageCorrelationBatchTest.bpmn20.xml")
+  public void testAllOrNothingWithMismatchingMessage() {
+    ProcessInstance processInstance = startProcessInstance(1, false);
+
+    try {
+      runtimeService.createMessageCorrelationBatch()
+        .addMessage(PAYMENT_MESSAGE, null, orderId(1), null)
+        .addMessage(PAYMENT_MESSAGE, null, orderId(2), null)
+        .allOrNothing()
+        .correlate();
+      fail("exception expected");
+    } catch (MismatchingMessageCorrelationException e) {
+      // expected
+    }
+
+    assertWaitsForMessage(processInstance);
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/runtime/MessageCorrelationBatchTest.bpmn20.xml")
+  public void testAllOrNothingWithFailingMessage() {
+    ProcessInstance processInstance1 = startProcessInstance(1, false);
+    ProcessInstance processInstance2 = startProcessInstance(2, true);
+
+    try {
+      runtimeService.createMessageCorrelationBatch()
+        .addMessage(PAYMENT_MESSAGE, null, orderId(1), null)
+        .addMessage(PAYMENT_MESSAGE, null, orderId(2), null)
+        .allOrNothing()
+        .correlate();
+      fail("exception expected");
+    } catch (ProcessEngineException e) {
+      assertEquals(FailingDelegate.EXCEPTION_MESSAGE, e.getMessage());
+    }
+
+    assertWaitsForMessage(processInstance1);
+    assertWaitsForMessage(processInstance2);
+  }
+
+  public void testCorrelateEmptyBatch() {
+    assertTrue(runtimeService.createMessageCorrelationBatch().correlate().isEmpty());
+  }
+
+  protected ProcessInstance startProcessInstance(int orderId, boolean fail) {
+    return runtimeService.startProcessInstanceByKey("process", Variables.createVariables()
+        .putValue("orderId", orderId)
+        .putValue("fail", fail));
+  }
+
+  protected Map<String, Object> orderId(int orderId) {
+    return Variables.createVariables().putValue("orderId", orderId);
+  }
+
+  protected void assertCorrelated(MessageCorrelationBatchResult result, String processInstanceId) {
+    assertTrue(result.isCorrelated());
+    assertNull(result.getException());
+    assertEquals(processInstanceId, result.getProcessInstanceId());
+  }
+
+  protected void assertWaitsForMessage(ProcessInstance processInstance) {
+    assertEquals(1, runtimeService.createEventSubscriptionQuery().processInstanceId(processInstance.getId()).count());
+    assertEquals(0, taskService.createTaskQuery().processInstanceId(processInstance.getId()).count());
+  }
+
+  protected void assertMessageReceived(ProcessInstance processInstance) {
+    assertEquals(0, runtimeService.createEventSubscriptionQuery().processInstanceId(processInstance.getId()).count());
+    assertEquals(1, taskService.createTaskQuery().processInstanceId(processInstance.getId()).count());
+  }
+
+}
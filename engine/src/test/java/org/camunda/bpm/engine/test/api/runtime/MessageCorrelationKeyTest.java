@@ -0,0 +1,215 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.api.runtime;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.camunda.bpm.engine.MismatchingMessageCorrelationException;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.persistence.entity.EventSubscriptionEntity;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.engine.impl.test.TestHelper;
+import org.camunda.bpm.engine.impl.util.CorrelationKeyUtil;
+import org.camunda.bpm.engine.runtime.ProcessInstance;
+import org.camunda.bpm.engine.test.Deployment;
+import org.camunda.bpm.engine.variable.Variables;
+
+public class MessageCorrelationKeyTest extends PluggableProcessEngineTestCase {
+
+  protected static final String MESSAGE_NAME = "paymentMessage";
+
+  @Deployment
+  public void testCorrelateByDeclaredCorrelationKey() {
+    ProcessInstance processInstance1 = startProcessInstance(1, "a");
+    ProcessInstance processInstance2 = startProcessInstance(1, "b");
+    ProcessInstance processInstance3 = startProcessInstance(2, "a");
+
+    Map<String, Object> correlationKeys = new HashMap<String, Object>();
+    correlationKeys.put("orderId", 1);
+    correlationKeys.put("customerId", "a");
+    assertEquals(CorrelationKeyUtil.hashCorrelationKeys(MESSAGE_NAME, correlationKeys), getCorrelationKey(processInstance1));
+
+    runtimeService.createMessageCorrelation(MESSAGE_NAME)
+      .processInstanceVariableEquals("orderId", 1)
+      .processInstanceVariableEquals("customerId", "b")
+      .correlate();
+
+    assertWaitsForMessage(processInstance1);
+    assertMessageReceived(processInstance2);
+    assertWaitsForMessage(processInstance3);
+
+    runtimeService.createMessageCorrelation(MESSAGE_NAME)
+      .processInstanceVariableEquals("customerId", "a")
+      .processInstanceVariableEquals("orderId", 2)
+      .correlateAll();
+
+    assertWaitsForMessage(processInstance1);
+    assertMessageReceived(processInstance3);
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/runtime/MessageCorrelationKeyTest.testCorrelateByDeclaredCorrelationKey.bpmn20.xml")
+  public void testCorrelateByDeclaredCorrelationKeyAndBusinessKey() {
+    Map<String, Object> variables = Variables.createVariables()
+      .putValue("orderId", 1)
+      .putValue("customerId", "a");
+    ProcessInstance processInstance1 = runtimeService.startProcessInstanceByKey("process", "businessKey1", variables);
+    ProcessInstance processInstance2 = runtimeService.startProcessInstanceByKey("process", "businessKey2", variables);
+
+    runtimeService.createMessageCorrelation(MESSAGE_NAME)
+      .processInstanceBusinessKey("businessKey2")
+      .processInstanceVariableEquals("orderId", 1)
+      .processInstanceVariableEquals("customerId", "a")
+      .correlate();
+
+    assertWaitsForMessage(processInstance1);
+    assertMessageReceived(processInstance2);
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/runtime/MessageCorrelationKeyTest.testCorrelateByDeclaredCorrelationKey.bpmn20.xml")
+  public void testCorrelationKeysMustMatchDeclaredCorrelationKeys() {
+    ProcessInstance processInstance = startProcessInstance(1, "a");
+
+    // the subscription is only correlated by all of its declared correlation keys
+    try {
+      runtimeService.createMessageCorrelation(MESSAGE_NAME)
+        .processInstanceVariableEquals("orderId", 1)
+        .correlate();
+      fail("exception expected");
+    } catch (MismatchingMessageCorrelationException e) {
+      // expected
+    }
+
+    assertWaitsForMessage(processInstance);
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/runtime/MessageCorrelationKeyTest.testCorrelateByDeclaredCorrelationKey.bpmn20.xml")
+  public void testMissingCorrelationKeyVariable() {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("process",
+        Variables.createVariables().putValue("orderId", 1));
+
+    // without all of its correlation keys, the subscription is correlated by its variables
+    assertEquals(MESSAGE_NAME, getCorrelationKey(processInstance));
+
+    runtimeService.setVariable(processInstance.getId(), "customerId", "a");
+    runtimeService.createMessageCorrelation(MESSAGE_NAME)
+      .processInstanceVariableEquals("orderId", 1)
+      .processInstanceVariableEquals("customerId", "a")
+      .correlate();
+
+    assertMessageReceived(processInstance);
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/runtime/MessageCorrelationKeyTest.testCorrelateByDeclaredCorrelationKey.bpmn20.xml")
+  public void testCorrelationKeyVariableChanged() {
+    ProcessInstance processInstance = startProcessInstance(1, "a");
+
+    runtimeService.setVariable(processInstance.getId(), "orderId", 2);
+
+    Map<String, Object> correlationKeys = new HashMap<String, Object>();
+    correlationKeys.put("orderId", 2);
+    correlationKeys.put("customerId", "a");
+    assertEquals(CorrelationKeyUtil.hashCorrelationKeys(MESSAGE_NAME, correlationKeys), getCorrelationKey(processInstance));
+
+    try {
+      runtimeService.createMessageCorrelation(MESSAGE_NAME)
+        .processInstanceVariableEquals("orderId", 1)
+        .processInstanceVariableEquals("customerId", "a")
+        .correlate();
+      fail("exception expected");
+    } catch (MismatchingMessageCorrelationException e) {
+      // expected
+    }
+
+    runtimeService.createMessageCorrelation(MESSAGE_NAME)
+      .processInstanceVariableEquals("orderId", 2)
+      .processInstanceVariableEquals("customerId", "a")
+      .correlate();
+
+    assertMessageReceived(processInstance);
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/runtime/MessageCorrelationKeyTest.testCorrelateByDeclaredCorrelationKey.bpmn20.xml")
+  public void testCorrelationKeyVariableRemoved() {
+    ProcessInstance processInstance = startProcessInstance(1, "a");
+
+    runtimeService.removeVariable(processInstance.getId(), "customerId");
+
+    assertEquals(MESSAGE_NAME, getCorrelationKey(processInstance));
+  }
+
+  @Deployment
+  public void testCorrelationKeysDeclaredOnProcess() {
+    ProcessInstance processInstance1 = runtimeService.startProcessInstanceByKey("process",
+        Variables.createVariables().putValue("orderId", "order1"));
+    ProcessInstance processInstance2 = runtimeService.startProcessInstanceByKey("process",
+        Variables.createVariables().putValue("orderId", "order2"));
+
+    assertFalse(MESSAGE_NAME.equals(getCorrelationKey(processInstance1)));
+
+    Map<String, Object> correlationKeys = new HashMap<String, Object>();
+    correlationKeys.put("orderId", "order2");
+    runtimeService.correlateMessage(MESSAGE_NAME, correlationKeys);
+
+    assertWaitsForMessage(processInstance1);
+    assertMessageReceived(processInstance2);
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/runtime/MessageCorrelationTest.testCatchingMessageEventCorrelation.bpmn20.xml")
+  public void testCorrelateSubscriptionWithoutCorrelationKeys() {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("process",
+        Variables.createVariables().putValue("aKey", "aValue"));
+
+    assertEquals("newInvoiceMessage", getCorrelationKey(processInstance));
+
+    runtimeService.createMessageCorrelation("newInvoiceMessage")
+      .processInstanceVariableEquals("aKey", "aValue")
+      .correlate();
+
+    assertEquals(1, taskService.createTaskQuery().processInstanceId(processInstance.getId()).count());
+  }
+
+  public void testInvalidCorrelationKeys() {
+    String resource = TestHelper.getBpmnProcessDefinitionResource(getClass(), "testInvalidCorrelationKeys");
+    try {
+      repositoryService.createDeployment().addClasspathResource(resource).deploy();
+      fail("exception expected");
+    } catch (ProcessEngineException e) {
+      assertTextPresent("Cannot parse correlation keys 'orderId,,customerId'", e.getMessage());
+    }
+  }
+
+  protected ProcessInstance startProcessInstance(int orderId, String customerId) {
+    return runtimeService.startProcessInstanceByKey("process", Variables.createVariables()
+        .putValue("orderId", orderId)
+        .putValue("customerId", customerId));
+  }
+
+  protected String getCorrelationKey(ProcessInstance processInstance) {
+    EventSubscriptionEntity eventSubscription = (EventSubscriptionEntity) runtimeService.createEventSubscriptionQuery()
+      .processInstanceId(processInstance.getId())
+      .singleResult();
+    return eventSubscription.getCorrelationKey();
+  }
+
+  protected void assertWaitsForMessage(ProcessInstance processInstance) {
+    assertEquals(1, runtimeService.createEventSubscriptionQuery().processInstanceId(processInstance.getId()).count());
+    assertEquals(0, taskService.createTaskQuery().processInstanceId(processInstance.getId()).count());
+  }
+
+  protected void assertMessageReceived(ProcessInstance processInstance) {
+    assertEquals(0, runtimeService.createEventSubscriptionQuery().processInstanceId(processInstance.getId()).count());
+    assertEquals(1, taskService.createTaskQuery().processInstanceId(processInstance.getId()).count());
+  }
+
+}
@@ -0,0 +1,158 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.api.variable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.persistence.entity.ExecutionEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.VariableInstanceEntity;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.engine.runtime.ProcessInstance;
+import org.camunda.bpm.engine.task.Task;
+import org.camunda.bpm.engine.test.Deployment;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+
+/**
+ * Fetches only the variables of a scope which are accessed by name.
+ */
+public class SelectiveVariableFetchingTest extends PluggableProcessEngineTestCase {
+
+  protected static final String ONE_TASK_PROCESS = "org/camunda/bpm/engine/test/api/oneTaskProcess.bpmn20.xml";
+
+  protected static final int NUMBER_OF_VARIABLES = 10;
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testGetVariableFetchesOnlyThisVariable() {
+    final ProcessInstance processInstance = startProcessWithVariables();
+
+    processEngineConfiguration.getCommandExecutorTxRequired().execute(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        ExecutionEntity execution = commandContext.getExecutionManager().findExecutionById(processInstance.getId());
+
+        assertEquals(3, execution.getVariable("var3"));
+        assertEquals(1, getCachedVariableInstanceCount(commandContext));
+
+        // a variable is fetched only once
+        assertTrue(execution.hasVariableLocal("var3"));
+        assertFalse(execution.hasVariableLocal("unknown"));
+        assertNull(execution.getVariableLocal("unknown"));
+        assertEquals(1, getCachedVariableInstanceCount(commandContext));
+        return null;
+      }
+    });
+  }
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testGetVariablesByNamesFetchesOnlyTheseVariables() {
+    final ProcessInstance processInstance = startProcessWithVariables();
+
+    processEngineConfiguration.getCommandExecutorTxRequired().execute(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        ExecutionEntity execution = commandContext.getExecutionManager().findExecutionById(processInstance.getId());
+
+        VariableMap variables = execution.getVariablesTyped(Arrays.asList("var1", "var2", "unknown"), true);
+
+        assertEquals(2, variables.size());
+        assertEquals(1, variables.get("var1"));
+        assertEquals(2, variables.get("var2"));
+        assertEquals(2, getCachedVariableInstanceCount(commandContext));
+        return null;
+      }
+    });
+  }
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testGetVariablesByMoreNamesThanAllowedInASingleQuery() {
+    ProcessInstance processInstance = startProcessWithVariables();
+
+    // the names exceed the in clause limit of 1000 parameters
+    List<String> variableNames = new ArrayList<String>();
+    for (int i = 0; i < 1500; i++) {
+      variableNames.add("var" + i);
+    }
+
+    Map<String, Object> variables = runtimeService.getVariables(processInstance.getId(), variableNames);
+
+    assertEquals(NUMBER_OF_VARIABLES, variables.size());
+    assertEquals(0, variables.get("var0"));
+    assertEquals(NUMBER_OF_VARIABLES - 1, variables.get("var" + (NUMBER_OF_VARIABLES - 1)));
+  }
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testChangeVariablesBeforeAllVariablesAreFetched() {
+    final ProcessInstance processInstance = startProcessWithVariables();
+
+    processEngineConfiguration.getCommandExecutorTxRequired().execute(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        ExecutionEntity execution = commandContext.getExecutionManager().findExecutionById(processInstance.getId());
+
+        execution.setVariable("var1", 100);
+        execution.setVariable("newVariable", "aValue");
+        execution.removeVariable("var2");
+        // var1, var2 and the new variable
+        assertEquals(3, getCachedVariableInstanceCount(commandContext));
+
+        // the changes are visible once all variables are fetched
+        Map<String, Object> variables = execution.getVariables();
+        assertEquals(NUMBER_OF_VARIABLES, variables.size());
+        assertEquals(100, variables.get("var1"));
+        assertEquals("aValue", variables.get("newVariable"));
+        assertFalse(variables.containsKey("var2"));
+        return null;
+      }
+    });
+
+    Map<String, Object> variables = runtimeService.getVariables(processInstance.getId());
+    assertEquals(NUMBER_OF_VARIABLES, variables.size());
+    assertEquals(100, variables.get("var1"));
+    assertEquals("aValue", variables.get("newVariable"));
+    assertFalse(variables.containsKey("var2"));
+  }
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testGetTaskVariablesByNames() {
+    ProcessInstance processInstance = startProcessWithVariables();
+    Task task = taskService.createTaskQuery().processInstanceId(processInstance.getId()).singleResult();
+    taskService.setVariableLocal(task.getId(), "var1", "local");
+
+    Map<String, Object> variables = taskService.getVariables(task.getId(), Arrays.asList("var1", "var2"));
+
+    assertEquals(2, variables.size());
+    assertEquals("local", variables.get("var1"));
+    assertEquals(2, variables.get("var2"));
+
+    variables = taskService.getVariablesLocal(task.getId(), Arrays.asList("var1", "var2"));
+
+    assertEquals(1, variables.size());
+    assertEquals("local", variables.get("var1"));
+  }
+
+  protected ProcessInstance startProcessWithVariables() {
+    VariableMap variables = Variables.createVariables();
+    for (int i = 0; i < NUMBER_OF_VARIABLES; i++) {
+      variables.putValue("var" + i, i);
+    }
+    return runtimeService.startProcessInstanceByKey("oneTaskProcess", variables);
+  }
+
+  protected int getCachedVariableInstanceCount(CommandContext commandContext) {
+    return commandContext.getDbEntityManager().getCachedEntitiesByType(VariableInstanceEntity.class).size();
+  }
+
+}
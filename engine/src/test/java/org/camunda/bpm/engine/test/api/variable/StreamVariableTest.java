@@ -0,0 +1,191 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.api.variable;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.camunda.bpm.engine.history.HistoricVariableInstance;
+import org.camunda.bpm.engine.impl.cmd.GetByteArrayStreamCmd;
+import org.camunda.bpm.engine.impl.cmd.GetByteArrayStreamCmd.TemporaryFileInputStream;
+import org.camunda.bpm.engine.impl.history.HistoryLevel;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.persistence.entity.ByteArrayEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.ExecutionEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.VariableInstanceEntity;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.engine.impl.util.IoUtil;
+import org.camunda.bpm.engine.runtime.ProcessInstance;
+import org.camunda.bpm.engine.test.Deployment;
+import org.camunda.bpm.engine.variable.Variables;
+import org.camunda.bpm.engine.variable.type.ValueType;
+import org.camunda.bpm.engine.variable.value.StreamValue;
+
+/**
+ * Stores and reads variables whose content is streamed to and from the database.
+ */
+public class StreamVariableTest extends PluggableProcessEngineTestCase {
+
+  protected static final String ONE_TASK_PROCESS = "org/camunda/bpm/engine/test/api/oneTaskProcess.bpmn20.xml";
+
+  protected byte[] content = createContent(256 * 1024);
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testSetAndGetStreamVariable() throws IOException {
+    ProcessInstance processInstance = startProcessWithDocument();
+
+    StreamValue value = runtimeService.getVariableTyped(processInstance.getId(), "document");
+
+    assertEquals(ValueType.STREAM, value.getType());
+    assertContent(value.getValue());
+  }
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testSetInputStreamAsUntypedValue() throws IOException {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("oneTaskProcess",
+        Variables.createVariables().putValue("document", new ByteArrayInputStream(content)));
+
+    StreamValue value = runtimeService.getVariableTyped(processInstance.getId(), "document");
+
+    assertEquals(ValueType.STREAM, value.getType());
+    assertContent(value.getValue());
+  }
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testStreamIsReadFromDatabaseInsideOfCommand() {
+    final ProcessInstance processInstance = startProcessWithDocument();
+
+    processEngineConfiguration.getCommandExecutorTxRequired().execute(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        ExecutionEntity execution = commandContext.getExecutionManager().findExecutionById(processInstance.getId());
+        VariableInstanceEntity variableInstance = (VariableInstanceEntity) execution.getVariableInstanceLocal("document");
+
+        StreamValue value = execution.getVariableTyped("document");
+        try {
+          assertContent(value.getValue());
+        } catch (IOException e) {
+          fail(e.getMessage());
+        }
+
+        // the content has not been loaded as byte array entity
+        assertNull(commandContext.getDbEntityManager().getCachedEntity(ByteArrayEntity.class, variableInstance.getByteArrayValueId()));
+        return null;
+      }
+    });
+  }
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testTemporaryFileIsDeletedOnClose() throws IOException {
+    final ProcessInstance processInstance = startProcessWithDocument();
+
+    String byteArrayId = processEngineConfiguration.getCommandExecutorTxRequired().execute(new Command<String>() {
+      public String execute(CommandContext commandContext) {
+        ExecutionEntity execution = commandContext.getExecutionManager().findExecutionById(processInstance.getId());
+        return ((VariableInstanceEntity) execution.getVariableInstanceLocal("document")).getByteArrayValueId();
+      }
+    });
+
+    TemporaryFileInputStream stream = (TemporaryFileInputStream) processEngineConfiguration.getCommandExecutorTxRequired()
+        .execute(new GetByteArrayStreamCmd(byteArrayId));
+    File file = stream.getFile();
+    assertTrue(file.exists());
+
+    assertContent(stream);
+    assertFalse(file.exists());
+  }
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testPassStreamToAnotherVariable() throws IOException {
+    final ProcessInstance processInstance = startProcessWithDocument();
+
+    processEngineConfiguration.getCommandExecutorTxRequired().execute(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        ExecutionEntity execution = commandContext.getExecutionManager().findExecutionById(processInstance.getId());
+        execution.setVariable("copy", execution.getVariableTyped("document"));
+        return null;
+      }
+    });
+
+    StreamValue copy = runtimeService.getVariableTyped(processInstance.getId(), "copy");
+    assertContent(copy.getValue());
+
+    // the copy is independent of the original
+    runtimeService.removeVariable(processInstance.getId(), "document");
+    copy = runtimeService.getVariableTyped(processInstance.getId(), "copy");
+    assertContent(copy.getValue());
+  }
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testReplaceStreamVariable() throws IOException {
+    ProcessInstance processInstance = startProcessWithDocument();
+
+    byte[] otherContent = createContent(1024);
+    runtimeService.setVariable(processInstance.getId(), "document", Variables.streamValue(new ByteArrayInputStream(otherContent)));
+
+    StreamValue value = runtimeService.getVariableTyped(processInstance.getId(), "document");
+    assertTrue(Arrays.equals(otherContent, IoUtil.readInputStream(value.getValue(), "document")));
+  }
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testNullStream() {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("oneTaskProcess",
+        Variables.createVariables().putValue("document", Variables.streamValue(null)));
+
+    StreamValue value = runtimeService.getVariableTyped(processInstance.getId(), "document");
+
+    assertEquals(ValueType.STREAM, value.getType());
+    assertNull(value.getValue());
+  }
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testHistoricStreamVariable() throws IOException {
+    ProcessInstance processInstance = startProcessWithDocument();
+
+    if (processEngineConfiguration.getHistoryLevel().getId() >= HistoryLevel.HISTORY_LEVEL_AUDIT.getId()) {
+      HistoricVariableInstance historicVariable = historyService.createHistoricVariableInstanceQuery()
+          .processInstanceId(processInstance.getId())
+          .singleResult();
+
+      assertEquals(ValueType.STREAM, historicVariable.getTypedValue().getType());
+      assertContent((InputStream) historicVariable.getValue());
+    }
+
+    runtimeService.deleteProcessInstance(processInstance.getId(), null);
+  }
+
+  protected ProcessInstance startProcessWithDocument() {
+    return runtimeService.startProcessInstanceByKey("oneTaskProcess",
+        Variables.createVariables().putValue("document", Variables.streamValue(new ByteArrayInputStream(content))));
+  }
+
+  protected void assertContent(InputStream stream) throws IOException {
+    try {
+      assertTrue(Arrays.equals(content, IoUtil.readInputStream(stream, "document")));
+    } finally {
+      stream.close();
+    }
+  }
+
+  protected static byte[] createContent(int size) {
+    byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      bytes[i] = (byte) (i % 251);
+    }
+    return bytes;
+  }
+
+}
@@ -0,0 +1,159 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.authorization;
+
+import static org.camunda.bpm.engine.authorization.Authorization.AUTH_TYPE_GRANT;
+import static org.camunda.bpm.engine.authorization.Permissions.READ;
+import static org.camunda.bpm.engine.authorization.Permissions.UPDATE;
+import static org.camunda.bpm.engine.authorization.Resources.TASK;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.camunda.bpm.engine.authorization.Authorization;
+import org.camunda.bpm.engine.authorization.Permission;
+import org.camunda.bpm.engine.impl.db.AuthorizationDecisionCache;
+import org.camunda.bpm.engine.impl.db.PermissionCheck;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+
+public class AuthorizationDecisionCacheTest extends PluggableProcessEngineTestCase {
+
+  protected static final String USER_ID = "test";
+  protected static final String GROUP_ID = "accounting";
+  protected static final String TASK_ID = "myTask";
+
+  protected List<String> groupIds = Arrays.asList(GROUP_ID);
+  protected AuthorizationDecisionCache decisionCache;
+
+  public void setUp() {
+    decisionCache = processEngineConfiguration.getAuthorizationDecisionCache();
+  }
+
+  public void tearDown() {
+    for (Authorization authorization : authorizationService.createAuthorizationQuery().list()) {
+      authorizationService.deleteAuthorization(authorization.getId());
+    }
+  }
+
+  public void testDecisionIsCached() {
+    grantAuthorization(READ);
+
+    assertTrue(authorizationService.isUserAuthorized(USER_ID, groupIds, READ, TASK, TASK_ID));
+    long hitCount = decisionCache.getHitCount();
+
+    assertTrue(authorizationService.isUserAuthorized(USER_ID, groupIds, READ, TASK, TASK_ID));
+    assertEquals(hitCount + 1, decisionCache.getHitCount());
+
+    // a decision is cached per permission
+    assertFalse(authorizationService.isUserAuthorized(USER_ID, groupIds, UPDATE, TASK, TASK_ID));
+    assertEquals(hitCount + 1, decisionCache.getHitCount());
+  }
+
+  public void testDecisionIsCachedForGroupsInAnyOrder() {
+    List<String> groups = Arrays.asList(GROUP_ID, "sales");
+    List<String> reversedGroups = Arrays.asList("sales", GROUP_ID);
+
+    assertFalse(authorizationService.isUserAuthorized(USER_ID, groups, READ, TASK, TASK_ID));
+    long hitCount = decisionCache.getHitCount();
+
+    assertFalse(authorizationService.isUserAuthorized(USER_ID, reversedGroups, READ, TASK, TASK_ID));
+    assertEquals(hitCount + 1, decisionCache.getHitCount());
+  }
+
+  public void testDecisionsAreInvalidatedByAuthorizationChanges() {
+    assertFalse(authorizationService.isUserAuthorized(USER_ID, groupIds, READ, TASK, TASK_ID));
+
+    // when an authorization is created
+    Authorization authorization = grantAuthorization(READ);
+    // then
+    assertTrue(authorizationService.isUserAuthorized(USER_ID, groupIds, READ, TASK, TASK_ID));
+
+    // when the authorization is updated
+    authorization.removePermission(READ);
+    authorization.addPermission(UPDATE);
+    authorizationService.saveAuthorization(authorization);
+    // then
+    assertFalse(authorizationService.isUserAuthorized(USER_ID, groupIds, READ, TASK, TASK_ID));
+    assertTrue(authorizationService.isUserAuthorized(USER_ID, groupIds, UPDATE, TASK, TASK_ID));
+
+    // when the authorization is deleted
+    authorizationService.deleteAuthorization(authorization.getId());
+    // then
+    assertFalse(authorizationService.isUserAuthorized(USER_ID, groupIds, UPDATE, TASK, TASK_ID));
+  }
+
+  public void testDeletingResourceAuthorizationsOnlyInvalidatesDecisionsOfResource() {
+    grantAuthorization(READ);
+    assertFalse(authorizationService.isUserAuthorized(USER_ID, groupIds, READ, TASK, "otherTask"));
+    assertTrue(authorizationService.isUserAuthorized(USER_ID, groupIds, READ, TASK, TASK_ID));
+
+    processEngineConfiguration.setAuthorizationEnabled(true);
+    try {
+      processEngineConfiguration.getCommandExecutorTxRequired().execute(new Command<Void>() {
+        public Void execute(CommandContext commandContext) {
+          commandContext.getAuthorizationManager().deleteAuthorizationsByResourceId(TASK, TASK_ID);
+          return null;
+        }
+      });
+    }
+    finally {
+      processEngineConfiguration.setAuthorizationEnabled(false);
+    }
+
+    long hitCount = decisionCache.getHitCount();
+    assertFalse(authorizationService.isUserAuthorized(USER_ID, groupIds, READ, TASK, "otherTask"));
+    assertEquals(hitCount + 1, decisionCache.getHitCount());
+    assertFalse(authorizationService.isUserAuthorized(USER_ID, groupIds, READ, TASK, TASK_ID));
+  }
+
+  public void testDecisionExpires() throws Exception {
+    AuthorizationDecisionCache cache = new AuthorizationDecisionCache(10, 0);
+    List<PermissionCheck> permissionChecks = Arrays.asList(createPermissionCheck(READ));
+
+    cache.putDecision(USER_ID, groupIds, permissionChecks, true);
+    Thread.sleep(2);
+
+    assertNull(cache.getDecision(USER_ID, groupIds, permissionChecks));
+    assertEquals(0, cache.size());
+  }
+
+  public void testDecisionWithoutTimeToLiveDoesNotExpire() throws Exception {
+    AuthorizationDecisionCache cache = new AuthorizationDecisionCache(10, -1);
+    List<PermissionCheck> permissionChecks = Arrays.asList(createPermissionCheck(READ));
+
+    cache.putDecision(USER_ID, groupIds, permissionChecks, false);
+    Thread.sleep(2);
+
+    assertEquals(Boolean.FALSE, cache.getDecision(USER_ID, groupIds, permissionChecks));
+  }
+
+  protected Authorization grantAuthorization(Permission permission) {
+    Authorization authorization = authorizationService.createNewAuthorization(AUTH_TYPE_GRANT);
+    authorization.setUserId(USER_ID);
+    authorization.setResource(TASK);
+    authorization.setResourceId(TASK_ID);
+    authorization.addPermission(permission);
+    return authorizationService.saveAuthorization(authorization);
+  }
+
+  protected PermissionCheck createPermissionCheck(Permission permission) {
+    PermissionCheck permissionCheck = new PermissionCheck();
+    permissionCheck.setPermission(permission);
+    permissionCheck.setResource(TASK);
+    permissionCheck.setResourceId(TASK_ID);
+    return permissionCheck;
+  }
+
+}
@@ -0,0 +1,198 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.authorization;
+
+import static org.camunda.bpm.engine.authorization.Authorization.ANY;
+import static org.camunda.bpm.engine.authorization.Authorization.AUTH_TYPE_GLOBAL;
+import static org.camunda.bpm.engine.authorization.Authorization.AUTH_TYPE_GRANT;
+import static org.camunda.bpm.engine.authorization.Authorization.AUTH_TYPE_REVOKE;
+import static org.camunda.bpm.engine.authorization.Permissions.READ;
+import static org.camunda.bpm.engine.authorization.Resources.TASK;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.camunda.bpm.engine.authorization.Authorization;
+import org.camunda.bpm.engine.impl.cmd.RebuildEffectivePermissionsCmd;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.engine.task.Task;
+
+public class EffectivePermissionsTest extends PluggableProcessEngineTestCase {
+
+  protected static final String USER_ID = "demo";
+  protected static final String OTHER_USER_ID = "john";
+  protected static final String GROUP_ID = "sales";
+  protected static final String OTHER_GROUP_ID = "accounting";
+
+  protected List<String> groupIds = Arrays.asList(GROUP_ID);
+
+  public void setUp() {
+    processEngineConfiguration.setEffectivePermissionsEnabled(true);
+
+    identityService.saveUser(identityService.newUser(USER_ID));
+    identityService.saveUser(identityService.newUser(OTHER_USER_ID));
+    identityService.saveGroup(identityService.newGroup(GROUP_ID));
+    identityService.saveGroup(identityService.newGroup(OTHER_GROUP_ID));
+    identityService.createMembership(USER_ID, GROUP_ID);
+
+    for (String taskId : Arrays.asList("task1", "task2", "task3")) {
+      taskService.saveTask(taskService.newTask(taskId));
+    }
+  }
+
+  public void tearDown() {
+    for (Authorization authorization : authorizationService.createAuthorizationQuery().list()) {
+      authorizationService.deleteAuthorization(authorization.getId());
+    }
+    identityService.deleteUser(USER_ID);
+    identityService.deleteUser(OTHER_USER_ID);
+    identityService.deleteGroup(GROUP_ID);
+    identityService.deleteGroup(OTHER_GROUP_ID);
+    for (Task task : taskService.createTaskQuery().list()) {
+      taskService.deleteTask(task.getId(), true);
+    }
+
+    assertEquals(0, getEffectivePermissionCount());
+    processEngineConfiguration.setEffectivePermissionsEnabled(false);
+  }
+
+  public void testGroupGrant() {
+    createAuthorization(AUTH_TYPE_GRANT, null, GROUP_ID, "task1");
+
+    assertTaskCount(1, USER_ID, groupIds);
+    assertTaskCount(0, OTHER_USER_ID, new ArrayList<String>());
+    assertEquals(1, getEffectivePermissionCount());
+  }
+
+  public void testUserRevokePrecedesGroupGrant() {
+    createAuthorization(AUTH_TYPE_GRANT, null, GROUP_ID, ANY);
+    createAuthorization(AUTH_TYPE_REVOKE, USER_ID, null, "task2");
+
+    assertTaskCount(2, USER_ID, groupIds);
+  }
+
+  public void testGroupGrantPrecedesGlobalRevoke() {
+    createAuthorization(AUTH_TYPE_GLOBAL, ANY, null, ANY);
+    Authorization globalAuthorization = createAuthorization(AUTH_TYPE_GLOBAL, ANY, null, "task3");
+    globalAuthorization.removePermission(READ);
+    authorizationService.saveAuthorization(globalAuthorization);
+    createAuthorization(AUTH_TYPE_GRANT, null, GROUP_ID, "task3");
+
+    assertTaskCount(3, USER_ID, groupIds);
+    // a user without authorizations has the global permissions
+    assertTaskCount(2, OTHER_USER_ID, new ArrayList<String>());
+  }
+
+  public void testMembershipChanges() {
+    createAuthorization(AUTH_TYPE_GRANT, null, GROUP_ID, "task1");
+
+    identityService.deleteMembership(USER_ID, GROUP_ID);
+    assertTaskCount(0, USER_ID, new ArrayList<String>());
+
+    identityService.createMembership(USER_ID, GROUP_ID);
+    assertTaskCount(1, USER_ID, groupIds);
+  }
+
+  public void testAuthorizationChanges() {
+    Authorization authorization = createAuthorization(AUTH_TYPE_GRANT, null, GROUP_ID, "task1");
+
+    authorization.setGroupId(OTHER_GROUP_ID);
+    authorizationService.saveAuthorization(authorization);
+    assertTaskCount(0, USER_ID, groupIds);
+
+    authorization.setGroupId(GROUP_ID);
+    authorization.setResourceId("task2");
+    authorizationService.saveAuthorization(authorization);
+    assertTaskCount(1, USER_ID, groupIds);
+
+    authorizationService.deleteAuthorization(authorization.getId());
+    assertTaskCount(0, USER_ID, groupIds);
+    assertEquals(0, getEffectivePermissionCount());
+  }
+
+  public void testGlobalRevokeAfterLastUserAuthorizationDeleted() {
+    Authorization globalAuthorization = createAuthorization(AUTH_TYPE_GLOBAL, ANY, null, ANY);
+    Authorization userAuthorization = createAuthorization(AUTH_TYPE_GRANT, USER_ID, null, "task1");
+    assertTaskCount(3, USER_ID, groupIds);
+
+    authorizationService.deleteAuthorization(userAuthorization.getId());
+    assertTaskCount(3, USER_ID, groupIds);
+    assertEquals(1, getEffectivePermissionCount());
+
+    globalAuthorization.removePermission(READ);
+    authorizationService.saveAuthorization(globalAuthorization);
+    assertTaskCount(0, USER_ID, groupIds);
+  }
+
+  public void testAuthenticationWithOtherGroups() {
+    createAuthorization(AUTH_TYPE_GRANT, null, GROUP_ID, "task1");
+
+    // the effective permissions do not apply to the groups of the authentication
+    assertTaskCount(0, USER_ID, new ArrayList<String>());
+    assertTaskCount(1, OTHER_USER_ID, groupIds);
+  }
+
+  public void testRebuildEffectivePermissions() {
+    processEngineConfiguration.setEffectivePermissionsEnabled(false);
+    createAuthorization(AUTH_TYPE_GRANT, null, GROUP_ID, "task1");
+    createAuthorization(AUTH_TYPE_GRANT, USER_ID, null, "task2");
+    assertEquals(0, getEffectivePermissionCount());
+
+    processEngineConfiguration.setEffectivePermissionsEnabled(true);
+    processEngineConfiguration.getCommandExecutorTxRequired().execute(new RebuildEffectivePermissionsCmd());
+
+    assertEquals(2, getEffectivePermissionCount());
+    assertTaskCount(2, USER_ID, groupIds);
+  }
+
+  protected Authorization createAuthorization(int type, String userId, String groupId, String resourceId) {
+    Authorization authorization = authorizationService.createNewAuthorization(type);
+    authorization.setUserId(userId);
+    authorization.setGroupId(groupId);
+    authorization.setResource(TASK);
+    authorization.setResourceId(resourceId);
+    if (type == AUTH_TYPE_REVOKE) {
+      authorization.removePermission(READ);
+    }
+    else {
+      authorization.addPermission(READ);
+    }
+    return authorizationService.saveAuthorization(authorization);
+  }
+
+  /**
+   * Asserts the number of tasks the user can read, with and without the
+   * effective permissions.
+   */
+  protected void assertTaskCount(long expectedCount, String userId, List<String> groupIds) {
+    processEngineConfiguration.setAuthorizationEnabled(true);
+    identityService.setAuthentication(userId, groupIds);
+    try {
+      assertEquals(expectedCount, taskService.createTaskQuery().count());
+
+      processEngineConfiguration.setEffectivePermissionsEnabled(false);
+      assertEquals(expectedCount, taskService.createTaskQuery().count());
+    }
+    finally {
+      processEngineConfiguration.setEffectivePermissionsEnabled(true);
+      identityService.clearAuthentication();
+      processEngineConfiguration.setAuthorizationEnabled(false);
+    }
+  }
+
+  protected long getEffectivePermissionCount() {
+    return managementService.getTableCount().get("ACT_RU_EFFECTIVE_PERM");
+  }
+
+}
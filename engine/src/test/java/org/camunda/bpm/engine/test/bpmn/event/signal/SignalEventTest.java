@@ -17,14 +17,22 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 
+import org.camunda.bpm.engine.history.HistoricIncident;
 import org.camunda.bpm.engine.impl.EventSubscriptionQueryImpl;
+import org.camunda.bpm.engine.impl.db.DbEntity;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.jobexecutor.SignalBroadcastJobHandler;
 import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.engine.impl.test.TestHelper;
 import org.camunda.bpm.engine.impl.util.ClockUtil;
 import org.camunda.bpm.engine.runtime.ExecutionQuery;
 import org.camunda.bpm.engine.runtime.ProcessInstance;
+import org.camunda.bpm.engine.runtime.SignalBroadcastProgress;
 import org.camunda.bpm.engine.task.Task;
 import org.camunda.bpm.engine.task.TaskQuery;
 import org.camunda.bpm.engine.test.Deployment;
+import org.camunda.bpm.engine.variable.Variables;
 
 
 /**
@@ -32,6 +40,23 @@ import org.camunda.bpm.engine.test.Deployment;
  */
 public class SignalEventTest extends PluggableProcessEngineTestCase {
 
+  protected void tearDown() throws Exception {
+    // the jobs of asynchronous broadcasts do not belong to a deployment
+    processEngineConfiguration.getCommandExecutorTxRequired().execute(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        commandContext.getHistoricJobLogManager().deleteHistoricJobLogsByHandlerType(SignalBroadcastJobHandler.TYPE);
+
+        for (HistoricIncident historicIncident : historyService.createHistoricIncidentQuery().list()) {
+          commandContext.getDbEntityManager().delete((DbEntity) historicIncident);
+        }
+        return null;
+      }
+    });
+    TestHelper.clearOpLog(processEngineConfiguration);
+
+    super.tearDown();
+  }
+
   @Deployment(resources={
           "org/camunda/bpm/engine/test/bpmn/event/signal/SignalEventTests.catchAlertSignal.bpmn20.xml",
           "org/camunda/bpm/engine/test/bpmn/event/signal/SignalEventTests.throwAlertSignal.bpmn20.xml"})
@@ -110,6 +135,97 @@ public class SignalEventTest extends PluggableProcessEngineTestCase {
 
   }
 
+  @Deployment(resources={"org/camunda/bpm/engine/test/bpmn/event/signal/SignalEventTests.catchAlertSignal.bpmn20.xml"})
+  public void testSignalCatchIntermediateAsyncBroadcast() {
+    int chunkSize = processEngineConfiguration.getSignalBroadcastChunkSize();
+    processEngineConfiguration.setSignalBroadcastChunkSize(2);
+    try {
+      for (int i = 0; i < 5; i++) {
+        runtimeService.startProcessInstanceByKey("catchSignal");
+      }
+
+      String broadcastId = runtimeService.signalEventReceivedAsync("alert");
+
+      // the signal is not delivered yet
+      assertEquals(5, createEventSubscriptionQuery().count());
+      SignalBroadcastProgress progress = runtimeService.getSignalBroadcastProgress(broadcastId);
+      assertEquals(broadcastId, progress.getBroadcastId());
+      assertFalse(progress.isCompleted());
+      assertEquals(1, progress.getRemainingJobCount());
+
+      // the first job splits the delivery into chunks
+      managementService.executeJob(managementService.createJobQuery().singleResult().getId());
+      assertEquals(5, createEventSubscriptionQuery().count());
+      assertEquals(3, runtimeService.getSignalBroadcastProgress(broadcastId).getRemainingJobCount());
+      assertEquals(3, managementService.createJobQuery().count());
+
+      executeAvailableJobs();
+
+      assertEquals(0, createEventSubscriptionQuery().count());
+      assertEquals(0, runtimeService.createProcessInstanceQuery().count());
+      assertTrue(runtimeService.getSignalBroadcastProgress(broadcastId).isCompleted());
+    }
+    finally {
+      processEngineConfiguration.setSignalBroadcastChunkSize(chunkSize);
+    }
+  }
+
+  @Deployment(resources={"org/camunda/bpm/engine/test/bpmn/event/signal/SignalEventTests.catchAlertSignal.bpmn20.xml"})
+  public void testAsyncBroadcastIgnoresLaterSubscriptions() {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("catchSignal");
+
+    String broadcastId = runtimeService.signalEventReceivedAsync("alert");
+
+    try {
+      ClockUtil.setCurrentTime(new Date(System.currentTimeMillis() + 1000));
+      ProcessInstance laterProcessInstance = runtimeService.startProcessInstanceByKey("catchSignal");
+
+      executeAvailableJobs();
+
+      assertEquals(0, runtimeService.createProcessInstanceQuery().processInstanceId(processInstance.getId()).count());
+      assertEquals(1, runtimeService.createProcessInstanceQuery().processInstanceId(laterProcessInstance.getId()).count());
+      assertTrue(runtimeService.getSignalBroadcastProgress(broadcastId).isCompleted());
+    }
+    finally {
+      ClockUtil.reset();
+    }
+  }
+
+  @Deployment
+  public void testAsyncBroadcastWithFailingChunk() {
+    int chunkSize = processEngineConfiguration.getSignalBroadcastChunkSize();
+    processEngineConfiguration.setSignalBroadcastChunkSize(1);
+    try {
+      ProcessInstance failingProcessInstance = runtimeService.startProcessInstanceByKey("catchSignal",
+          Variables.createVariables().putValue("fail", true));
+      ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("catchSignal",
+          Variables.createVariables().putValue("fail", false));
+
+      String broadcastId = runtimeService.signalEventReceivedAsync("alert");
+      executeAvailableJobs();
+
+      // only the chunk of the failing process instance is rolled back
+      assertEquals(1, taskService.createTaskQuery().processInstanceId(processInstance.getId()).count());
+      assertEquals(1, createEventSubscriptionQuery().processInstanceId(failingProcessInstance.getId()).count());
+
+      SignalBroadcastProgress progress = runtimeService.getSignalBroadcastProgress(broadcastId);
+      assertFalse(progress.isCompleted());
+      assertEquals(1, progress.getRemainingJobCount());
+      assertEquals(1, progress.getFailedJobIds().size());
+
+      // the failed chunk can be retried
+      runtimeService.setVariable(failingProcessInstance.getId(), "fail", false);
+      managementService.setJobRetries(progress.getFailedJobIds().get(0), 1);
+      executeAvailableJobs();
+
+      assertEquals(1, taskService.createTaskQuery().processInstanceId(failingProcessInstance.getId()).count());
+      assertTrue(runtimeService.getSignalBroadcastProgress(broadcastId).isCompleted());
+    }
+    finally {
+      processEngineConfiguration.setSignalBroadcastChunkSize(chunkSize);
+    }
+  }
+
   @Deployment(resources={
           "org/camunda/bpm/engine/test/bpmn/event/signal/SignalEventTests.catchMultipleSignals.bpmn20.xml",
           "org/camunda/bpm/engine/test/bpmn/event/signal/SignalEventTests.throwAlertSignal.bpmn20.xml",
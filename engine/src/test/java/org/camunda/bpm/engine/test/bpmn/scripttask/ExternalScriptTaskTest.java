@@ -19,6 +19,12 @@ import java.util.Map;
 import org.camunda.bpm.engine.ProcessEngineException;
 import org.camunda.bpm.engine.ScriptCompilationException;
 import org.camunda.bpm.engine.exception.NotFoundException;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.persistence.deploy.DeploymentCache;
+import org.camunda.bpm.engine.impl.persistence.deploy.DeploymentCache.ScriptResourceKey;
+import org.camunda.bpm.engine.impl.persistence.entity.DeploymentEntity;
+import org.camunda.bpm.engine.impl.scripting.SourceExecutableScript;
 import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
 import org.camunda.bpm.engine.runtime.ProcessInstance;
 import org.camunda.bpm.engine.test.Deployment;
@@ -163,6 +169,40 @@ public class ExternalScriptTaskTest extends PluggableProcessEngineTestCase {
     }
   }
 
+  public void testScriptResourceIsCachedPerDeployment() {
+    final String deploymentId = repositoryService.createDeployment()
+      .addClasspathResource("org/camunda/bpm/engine/test/bpmn/scripttask/ExternalScriptTaskTest.testScriptInDeploymentAsVariable.bpmn20.xml")
+      .addClasspathResource("org/camunda/bpm/engine/test/bpmn/scripttask/greeting.py")
+      .deploy()
+      .getId();
+
+    final String scriptPath = "deployment://org/camunda/bpm/engine/test/bpmn/scripttask/greeting.py";
+    final DeploymentCache deploymentCache = processEngineConfiguration.getDeploymentCache();
+    ScriptResourceKey key = new ScriptResourceKey(deploymentId, scriptPath, "python");
+
+    try {
+      SourceExecutableScript script = processEngineConfiguration.getCommandExecutorTxRequired().execute(new Command<SourceExecutableScript>() {
+        public SourceExecutableScript execute(CommandContext commandContext) {
+          DeploymentEntity deployment = commandContext.getDeploymentManager().findDeploymentById(deploymentId);
+
+          SourceExecutableScript script = deploymentCache.findScriptResource(deployment, scriptPath, "python");
+          // the script is loaded once
+          assertSame(script, deploymentCache.findScriptResource(deployment, scriptPath, "python"));
+          return script;
+        }
+      });
+
+      assertTrue(script.getScriptSource().contains("Greetings camunda BPM speaking"));
+      assertSame(script, deploymentCache.getScriptResourceCache().get(key));
+    }
+    finally {
+      repositoryService.deleteDeployment(deploymentId, true);
+    }
+
+    // the script is removed with the deployment
+    assertFalse(deploymentCache.getScriptResourceCache().containsKey(key));
+  }
+
   @Deployment
   public void testNotExistingImport() {
     try {
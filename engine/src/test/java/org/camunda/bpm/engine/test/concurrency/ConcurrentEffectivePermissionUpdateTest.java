@@ -0,0 +1,129 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.concurrency;
+
+import static org.camunda.bpm.engine.authorization.Authorization.AUTH_TYPE_GRANT;
+import static org.camunda.bpm.engine.authorization.Permissions.READ;
+import static org.camunda.bpm.engine.authorization.Resources.TASK;
+
+import org.camunda.bpm.engine.authorization.Authorization;
+import org.camunda.bpm.engine.impl.cfg.TransactionListener;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.cmd.SaveAuthorizationCmd;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+
+public class ConcurrentEffectivePermissionUpdateTest extends ConcurrencyTestCase {
+
+  protected static final String USER_ID = "demo";
+  protected static final String GROUP_ID = "sales";
+  protected static final String RESOURCE_ID = "aTask";
+
+  public void setUp() {
+    processEngineConfiguration.setEffectivePermissionsEnabled(true);
+
+    identityService.saveUser(identityService.newUser(USER_ID));
+    identityService.saveGroup(identityService.newGroup(GROUP_ID));
+    identityService.createMembership(USER_ID, GROUP_ID);
+  }
+
+  public void tearDown() {
+    for (Authorization authorization : authorizationService.createAuthorizationQuery().list()) {
+      authorizationService.deleteAuthorization(authorization.getId());
+    }
+    identityService.deleteUser(USER_ID);
+    identityService.deleteGroup(GROUP_ID);
+
+    processEngineConfiguration.setEffectivePermissionsEnabled(false);
+  }
+
+  /**
+   * Grant a permission to a user and to its group from two threads
+   * simultaneously -> make sure that the second recomputation of the user's
+   * row waits for the first one instead of inserting the same row.
+   */
+  public void testConcurrentRecomputationOfUser() throws InterruptedException {
+
+    // do not execute on H2
+    if("h2".equals(processEngineConfiguration.getDbSqlSessionFactory().getDatabaseType())) {
+      return;
+    }
+
+    // STEP 1: bring two threads to a point where they have
+    // 1) started a new transaction
+    // 2) are ready to save the authorization
+    ThreadControl thread1 = executeControllableCommand(new ControllableGrantCommand(USER_ID, null));
+    thread1.waitForSync();
+
+    ThreadControl thread2 = executeControllableCommand(new ControllableGrantCommand(null, GROUP_ID));
+    thread2.waitForSync();
+
+    // STEP 2: make Thread 1 proceed and wait until it has recomputed the
+    // effective permissions but not yet committed -> will still hold the exclusive lock
+    thread1.makeContinue();
+    thread1.waitForSync();
+
+    // STEP 3: make Thread 2 continue
+    // -> it will attempt to acquire the exclusive lock and block on the lock
+    thread2.makeContinue();
+
+    // wait for 2 seconds (Thread 2 is blocked on the lock)
+    Thread.sleep(2000);
+
+    // STEP 4: allow Thread 1 to terminate
+    // -> Thread 1 will commit and release the lock
+    thread1.waitUntilDone();
+
+    // STEP 5: wait for Thread 2 to terminate
+    thread2.waitForSync();
+    thread2.waitUntilDone();
+
+    // both authorizations are saved and the user has a single row for the resource
+    assertEquals(2, authorizationService.createAuthorizationQuery().count());
+    assertEquals(1, (long) managementService.getTableCount().get("ACT_RU_EFFECTIVE_PERM"));
+  }
+
+  protected class ControllableGrantCommand extends ControllableCommand<Void> {
+
+    protected String userId;
+    protected String groupId;
+
+    public ControllableGrantCommand(String userId, String groupId) {
+      this.userId = userId;
+      this.groupId = groupId;
+    }
+
+    public Void execute(CommandContext commandContext) {
+      Authorization authorization = authorizationService.createNewAuthorization(AUTH_TYPE_GRANT);
+      authorization.setUserId(userId);
+      authorization.setGroupId(groupId);
+      authorization.setResource(TASK);
+      authorization.setResourceId(RESOURCE_ID);
+      authorization.addPermission(READ);
+
+      monitor.sync();  // thread will block here until makeContinue() is called form main thread
+
+      new SaveAuthorizationCmd(authorization).execute(commandContext);
+
+      // the effective permissions are recomputed by an earlier listener
+      commandContext.getTransactionContext().addTransactionListener(TransactionState.COMMITTING, new TransactionListener() {
+        public void execute(CommandContext commandContext) {
+          monitor.sync();  // thread will block here until waitUntilDone() is called form main thread
+        }
+      });
+
+      return null;
+    }
+
+  }
+
+}
@@ -0,0 +1,95 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.concurrency;
+
+import org.camunda.bpm.engine.impl.cmd.HistoryCleanupCmd;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.jobexecutor.HistoryCleanupJobHandler;
+import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
+
+public class ConcurrentHistoryCleanupTest extends ConcurrencyTestCase {
+
+  public void tearDown() {
+    // the history cleanup job does not belong to a deployment
+    processEngineConfiguration.getCommandExecutorTxRequired().execute(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        for (JobEntity job : commandContext.getJobManager().findJobsByHandlerType(HistoryCleanupJobHandler.TYPE)) {
+          job.delete();
+        }
+        commandContext.getHistoricJobLogManager().deleteHistoricJobLogsByHandlerType(HistoryCleanupJobHandler.TYPE);
+        return null;
+      }
+    });
+  }
+
+  /**
+   * Schedule the history cleanup from two threads simultaneously, like two
+   * engines of a cluster starting at the same time -> make sure that the
+   * second thread waits for the first one and reuses its job.
+   */
+  public void testConcurrentSchedulingOfHistoryCleanupJob() throws InterruptedException {
+
+    // do not execute on H2
+    if("h2".equals(processEngineConfiguration.getDbSqlSessionFactory().getDatabaseType())) {
+      return;
+    }
+
+    // STEP 1: bring two threads to a point where they have
+    // 1) started a new transaction
+    // 2) are ready to schedule the history cleanup
+    ThreadControl thread1 = executeControllableCommand(new ControllableHistoryCleanupCommand());
+    thread1.waitForSync();
+
+    ThreadControl thread2 = executeControllableCommand(new ControllableHistoryCleanupCommand());
+    thread2.waitForSync();
+
+    // STEP 2: make Thread 1 proceed and wait until it has created the job
+    // but not yet committed -> will still hold the exclusive lock
+    thread1.makeContinue();
+    thread1.waitForSync();
+
+    // STEP 3: make Thread 2 continue
+    // -> it will attempt to acquire the exclusive lock and block on the lock
+    thread2.makeContinue();
+
+    // wait for 2 seconds (Thread 2 is blocked on the lock)
+    Thread.sleep(2000);
+
+    // STEP 4: allow Thread 1 to terminate
+    // -> Thread 1 will commit and release the lock
+    thread1.waitUntilDone();
+
+    // STEP 5: wait for Thread 2 to terminate
+    thread2.waitForSync();
+    thread2.waitUntilDone();
+
+    // only a single history cleanup job exists
+    assertEquals(1, managementService.createJobQuery().count());
+  }
+
+  protected class ControllableHistoryCleanupCommand extends ControllableCommand<Void> {
+
+    public Void execute(CommandContext commandContext) {
+      monitor.sync();  // thread will block here until makeContinue() is called form main thread
+
+      new HistoryCleanupCmd(true).execute(commandContext);
+
+      monitor.sync();  // thread will block here until waitUntilDone() is called form main thread
+
+      return null;
+    }
+
+  }
+
+}
@@ -0,0 +1,159 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.db;
+
+import java.util.List;
+
+import org.camunda.bpm.engine.OptimisticLockingException;
+import org.camunda.bpm.engine.history.HistoricActivityInstance;
+import org.camunda.bpm.engine.impl.cmd.AcquireJobsCmd;
+import org.camunda.bpm.engine.impl.db.entitymanager.operation.DbEntityOperation;
+import org.camunda.bpm.engine.impl.db.entitymanager.operation.DbOperation;
+import org.camunda.bpm.engine.impl.db.entitymanager.operation.DbOperationType;
+import org.camunda.bpm.engine.impl.db.sql.DbSqlSession;
+import org.camunda.bpm.engine.impl.db.sql.DbSqlSessionFactory;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.jobexecutor.AcquiredJobs;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
+import org.camunda.bpm.engine.impl.persistence.entity.TaskEntity;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.engine.runtime.ProcessInstance;
+import org.camunda.bpm.engine.task.Task;
+import org.camunda.bpm.engine.test.Deployment;
+import org.camunda.bpm.engine.variable.Variables;
+
+/**
+ * Executes database operations with JDBC batch processing enabled.
+ */
+public class JdbcBatchProcessingTest extends PluggableProcessEngineTestCase {
+
+  protected DbSqlSessionFactory dbSqlSessionFactory;
+
+  protected void setUp() throws Exception {
+    dbSqlSessionFactory = processEngineConfiguration.getDbSqlSessionFactory();
+    dbSqlSessionFactory.setJdbcBatchProcessing(true);
+  }
+
+  protected void tearDown() throws Exception {
+    dbSqlSessionFactory.setJdbcBatchProcessing(processEngineConfiguration.isJdbcBatchProcessing());
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testProcessExecution() {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("oneTaskProcess",
+        Variables.createVariables().putValue("aVariable", "aValue").putValue("anotherVariable", 42));
+
+    Task task = taskService.createTaskQuery().singleResult();
+    assertNotNull(task);
+    assertEquals(2, runtimeService.getVariables(processInstance.getId()).size());
+
+    taskService.setVariable(task.getId(), "aVariable", "anotherValue");
+    assertEquals("anotherValue", runtimeService.getVariable(processInstance.getId(), "aVariable"));
+
+    taskService.complete(task.getId());
+    assertProcessEnded(processInstance.getId());
+
+    for (HistoricActivityInstance activityInstance : historyService.createHistoricActivityInstanceQuery().list()) {
+      assertNotNull(activityInstance.getEndTime());
+    }
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testOptimisticLocking() {
+    runtimeService.startProcessInstanceByKey("oneTaskProcess");
+    final String taskId = taskService.createTaskQuery().singleResult().getId();
+
+    try {
+      processEngineConfiguration.getCommandExecutorTxRequired().execute(new Command<Void>() {
+        public Void execute(CommandContext commandContext) {
+          TaskEntity task = commandContext.getTaskManager().findTaskById(taskId);
+
+          // the task is updated concurrently
+          processEngineConfiguration.getCommandExecutorTxRequiresNew().execute(new Command<Void>() {
+            public Void execute(CommandContext commandContext) {
+              commandContext.getTaskManager().findTaskById(taskId).setDescription("concurrent update");
+              return null;
+            }
+          });
+
+          task.setDescription("update");
+          return null;
+        }
+      });
+      fail("exception expected");
+    } catch (OptimisticLockingException e) {
+      // expected
+    }
+
+    assertEquals("concurrent update", taskService.createTaskQuery().singleResult().getDescription());
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testOptimisticLockingDetectedBeforeSelect() {
+    runtimeService.startProcessInstanceByKey("oneTaskProcess");
+    final String taskId = taskService.createTaskQuery().singleResult().getId();
+
+    processEngineConfiguration.getCommandExecutorTxRequired().execute(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        DbSqlSession dbSqlSession = commandContext.getDbSqlSession();
+        TaskEntity task = dbSqlSession.selectById(TaskEntity.class, taskId);
+
+        // the task is updated concurrently
+        processEngineConfiguration.getCommandExecutorTxRequiresNew().execute(new Command<Void>() {
+          public Void execute(CommandContext commandContext) {
+            commandContext.getTaskManager().findTaskById(taskId).setDescription("concurrent update");
+            return null;
+          }
+        });
+
+        task.setDescription("update");
+        DbEntityOperation updateOperation = new DbEntityOperation();
+        updateOperation.setOperationType(DbOperationType.UPDATE);
+        updateOperation.setEntity(task);
+        dbSqlSession.executeDbOperation(updateOperation);
+
+        // the select and the immediate update execute the pending batch
+        dbSqlSession.selectById(TaskEntity.class, taskId);
+        assertEquals(0, dbSqlSession.executeUpdate("updateTask", task));
+
+        List<DbOperation> operations = dbSqlSession.flushOperations();
+        assertEquals(1, operations.size());
+        assertTrue(updateOperation.isFailed());
+        return null;
+      }
+    });
+
+    assertEquals("concurrent update", taskService.createTaskQuery().singleResult().getDescription());
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/jobexecutor/simpleAsyncProcess.bpmn20.xml")
+  public void testImmediateUpdate() {
+    runtimeService.startProcessInstanceByKey("simpleAsyncProcess");
+    runtimeService.startProcessInstanceByKey("simpleAsyncProcess");
+
+    JobExecutor jobExecutor = processEngineConfiguration.getJobExecutor();
+    boolean lockJobsInBulk = jobExecutor.isLockJobsInBulk();
+    jobExecutor.setLockJobsInBulk(true);
+    try {
+      // the jobs are locked by an update statement which is executed immediately
+      AcquiredJobs acquiredJobs = processEngineConfiguration.getCommandExecutorTxRequired()
+          .execute(new AcquireJobsCmd(jobExecutor));
+      assertEquals(2, acquiredJobs.size());
+      assertEquals(0, acquiredJobs.getNumberOfJobsFailedToLock());
+    } finally {
+      jobExecutor.setLockJobsInBulk(lockJobsInBulk);
+    }
+  }
+
+}
@@ -0,0 +1,100 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.db;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.camunda.bpm.engine.history.HistoricVariableInstance;
+import org.camunda.bpm.engine.impl.db.sql.DbSqlSession;
+import org.camunda.bpm.engine.impl.db.sql.DbSqlSessionFactory;
+import org.camunda.bpm.engine.impl.history.HistoryLevel;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.engine.runtime.ProcessInstance;
+import org.camunda.bpm.engine.test.Deployment;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+
+/**
+ * Inserts history and byte array entities with multi-row insert statements.
+ */
+public class MultiRowInsertTest extends PluggableProcessEngineTestCase {
+
+  public void testMultiRowInsertSupported() {
+    DbSqlSessionFactory dbSqlSessionFactory = processEngineConfiguration.getDbSqlSessionFactory();
+    String databaseType = dbSqlSessionFactory.getDatabaseType();
+
+    boolean supported = DbSqlSessionFactory.H2.equals(databaseType)
+        || DbSqlSessionFactory.MYSQL.equals(databaseType)
+        || DbSqlSessionFactory.POSTGRES.equals(databaseType);
+    assertEquals(supported, dbSqlSessionFactory.isMultiRowInsertSupported());
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testInsertVariables() {
+    VariableMap variables = Variables.createVariables()
+        .putValue("aString", "aValue")
+        .putValue("aLong", 42l)
+        .putValue("aDouble", 4.2d)
+        .putValue("aByteArray", "someBytes".getBytes())
+        .putValue("anotherByteArray", "someOtherBytes".getBytes());
+
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("oneTaskProcess", variables);
+
+    assertEquals("aValue", runtimeService.getVariable(processInstance.getId(), "aString"));
+    assertEquals(42l, runtimeService.getVariable(processInstance.getId(), "aLong"));
+    assertEquals(4.2d, runtimeService.getVariable(processInstance.getId(), "aDouble"));
+    assertTrue(Arrays.equals("someBytes".getBytes(), (byte[]) runtimeService.getVariable(processInstance.getId(), "aByteArray")));
+    assertTrue(Arrays.equals("someOtherBytes".getBytes(), (byte[]) runtimeService.getVariable(processInstance.getId(), "anotherByteArray")));
+
+    if (isFullHistory()) {
+      assertEquals(5, historyService.createHistoricVariableInstanceQuery().count());
+      assertEquals(5, historyService.createHistoricDetailQuery().variableUpdates().count());
+
+      HistoricVariableInstance byteArrayVariable = historyService.createHistoricVariableInstanceQuery()
+          .variableName("anotherByteArray")
+          .singleResult();
+      assertTrue(Arrays.equals("someOtherBytes".getBytes(), (byte[]) byteArrayVariable.getValue()));
+
+      assertEquals(2, historyService.createHistoricActivityInstanceQuery().count());
+    }
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testInsertMoreRowsThanFitIntoOneStatement() {
+    int numberOfVariables = DbSqlSession.MULTI_ROW_INSERT_MAX_ROWS * 2 + 1;
+
+    VariableMap variables = Variables.createVariables();
+    for (int i = 0; i < numberOfVariables; i++) {
+      variables.putValue("variable" + i, i);
+    }
+
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("oneTaskProcess", variables);
+
+    assertEquals(numberOfVariables, runtimeService.getVariables(processInstance.getId()).size());
+
+    if (isFullHistory()) {
+      List<HistoricVariableInstance> historicVariables = historyService.createHistoricVariableInstanceQuery().list();
+      assertEquals(numberOfVariables, historicVariables.size());
+
+      for (HistoricVariableInstance historicVariable : historicVariables) {
+        assertEquals(historicVariable.getName(), "variable" + historicVariable.getValue());
+      }
+    }
+  }
+
+  protected boolean isFullHistory() {
+    return processEngineConfiguration.getHistoryLevel().equals(HistoryLevel.HISTORY_LEVEL_FULL);
+  }
+
+}
@@ -0,0 +1,168 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.db.IdBlock;
+import org.camunda.bpm.engine.impl.db.PrefetchingDbIdGenerator;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+
+public class PrefetchingDbIdGeneratorTest extends PluggableProcessEngineTestCase {
+
+  public void testUniqueIdsForConcurrentThreads() throws Exception {
+    final PrefetchingDbIdGenerator idGenerator = new PrefetchingDbIdGenerator();
+    idGenerator.setIdBlockSize(10);
+    idGenerator.setMaxIdBlockSize(50);
+    idGenerator.setCommandExecutor(processEngineConfiguration.getCommandExecutorTxRequiresNew());
+
+    final Set<String> ids = Collections.synchronizedSet(new HashSet<String>());
+    final int idsPerThread = 500;
+
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < 4; i++) {
+      Thread thread = new Thread() {
+        public void run() {
+          for (int j = 0; j < idsPerThread; j++) {
+            ids.add(idGenerator.getNextId());
+          }
+        }
+      };
+      threads.add(thread);
+      thread.start();
+    }
+
+    for (Thread thread : threads) {
+      thread.join(30000);
+    }
+
+    assertEquals(4 * idsPerThread, ids.size());
+  }
+
+  public void testIdsHandedOutWhileNextBlockIsFetched() throws Exception {
+    CountingIdGenerator idGenerator = new CountingIdGenerator();
+    idGenerator.setIdBlockSize(10);
+
+    // the first block is fetched synchronously
+    assertEquals("0", idGenerator.getNextId());
+
+    idGenerator.prefetchLatch = new CountDownLatch(1);
+
+    // the remaining ids of the block are available while the next block is fetched
+    for (int i = 1; i < 10; i++) {
+      assertEquals(Integer.toString(i), idGenerator.getNextId());
+    }
+    assertEquals(1, idGenerator.fetchedBlockSizes.size());
+
+    idGenerator.prefetchLatch.countDown();
+    assertEquals("10", idGenerator.getNextId());
+    assertEquals(2, idGenerator.fetchedBlockSizes.size());
+  }
+
+  public void testBlockSizeAdaptsToIdUsage() {
+    CountingIdGenerator idGenerator = new CountingIdGenerator();
+    idGenerator.setIdBlockSize(10);
+    idGenerator.setMaxIdBlockSize(1000);
+
+    // ids are used fast: the next block is as large as allowed
+    idGenerator.setTargetBlockDurationInMillis(60 * 60 * 1000);
+    getIds(idGenerator, 11);
+    assertEquals(Integer.valueOf(1000), idGenerator.fetchedBlockSizes.get(1));
+
+    // ids are used slowly: the next block has the minimal size
+    idGenerator.setTargetBlockDurationInMillis(0);
+    getIds(idGenerator, 1000);
+    assertEquals(Integer.valueOf(10), idGenerator.fetchedBlockSizes.get(2));
+  }
+
+  public void testFetchBlockIfPrefetchingFails() {
+    CountingIdGenerator idGenerator = new CountingIdGenerator();
+    idGenerator.setIdBlockSize(10);
+
+    idGenerator.failPrefetch = true;
+    getIds(idGenerator, 10);
+
+    // the block is fetched by the thread which needs it
+    assertEquals("10", idGenerator.getNextId());
+  }
+
+  public void testShutdown() {
+    CountingIdGenerator idGenerator = new CountingIdGenerator();
+    idGenerator.setIdBlockSize(10);
+    idGenerator.setMaxIdBlockSize(10);
+
+    // the next block is prefetched
+    getIds(idGenerator, 6);
+
+    idGenerator.shutdown();
+    assertTrue(idGenerator.isPrefetchTerminated());
+
+    // the remaining blocks are fetched by the thread which needs them
+    getIds(idGenerator, 14);
+    assertEquals("20", idGenerator.getNextId());
+    assertEquals(3, idGenerator.fetchedBlockSizes.size());
+  }
+
+  public void testIdBlockPrefetchingConfiguration() {
+    assertFalse(processEngineConfiguration.isIdBlockPrefetching());
+  }
+
+  protected void getIds(PrefetchingDbIdGenerator idGenerator, int numberOfIds) {
+    for (int i = 0; i < numberOfIds; i++) {
+      idGenerator.getNextId();
+    }
+  }
+
+  /**
+   * Hands out consecutive blocks without a database.
+   */
+  protected static class CountingIdGenerator extends PrefetchingDbIdGenerator {
+
+    protected AtomicLong nextBlockStart = new AtomicLong(0);
+    protected List<Integer> fetchedBlockSizes = Collections.synchronizedList(new ArrayList<Integer>());
+    protected volatile CountDownLatch prefetchLatch;
+    protected volatile boolean failPrefetch = false;
+
+    protected IdBlock fetchBlock(int blockSize) {
+      boolean isPrefetch = "camunda-id-block-prefetch".equals(Thread.currentThread().getName());
+
+      if (isPrefetch && prefetchLatch != null) {
+        try {
+          prefetchLatch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      if (isPrefetch && failPrefetch) {
+        throw new ProcessEngineException("cannot fetch id block");
+      }
+
+      fetchedBlockSizes.add(blockSize);
+      long blockStart = nextBlockStart.getAndAdd(blockSize);
+      return new IdBlock(blockStart, blockStart + blockSize - 1);
+    }
+
+    protected boolean isPrefetchTerminated() {
+      return prefetchExecutor.isTerminated();
+    }
+  }
+
+}
@@ -16,6 +16,14 @@ package org.camunda.bpm.engine.test.el;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.camunda.bpm.engine.delegate.Expression;
+import org.camunda.bpm.engine.impl.el.ExpressionManager;
+import org.camunda.bpm.engine.impl.el.StartProcessVariableScope;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.javax.el.ELException;
+import org.camunda.bpm.engine.impl.juel.ConcurrentCache;
+import org.camunda.bpm.engine.impl.juel.ExpressionFactoryImpl;
 import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
 import org.camunda.bpm.engine.runtime.ProcessInstance;
 import org.camunda.bpm.engine.task.Task;
@@ -87,4 +95,43 @@ public class ExpressionManagerTest extends PluggableProcessEngineTestCase {
     task = taskService.createTaskQuery().processInstanceId(secondInstance.getId()).singleResult();
     assertEquals("johnny", task.getAssignee());
   }
+
+  public void testExpressionsAreCachedByText() {
+    ExpressionManager expressionManager = new ExpressionManager();
+    ConcurrentCache treeCache = (ConcurrentCache) expressionManager.getTreeCache();
+
+    final Expression expression = expressionManager.createExpression("${1 + 2}");
+    final Expression sameExpression = expressionManager.createExpression("${1 + 2}");
+
+    // the second expression is neither parsed nor created by the expression factory
+    assertEquals(1, treeCache.size());
+    assertEquals(0, treeCache.getHitCount());
+    assertEquals(1, expressionManager.getValueExpressionCache().size());
+
+    processEngineConfiguration.getCommandExecutorTxRequired().execute(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        assertEquals(3l, expression.getValue(StartProcessVariableScope.getSharedInstance()));
+        assertEquals(3l, sameExpression.getValue(StartProcessVariableScope.getSharedInstance()));
+        return null;
+      }
+    });
+  }
+
+  public void testExpressionFactoryIsConfiguredByElProperties() {
+    // the factory falls back to the system properties if they select it as expression factory
+    System.setProperty("javax.el.ExpressionFactory", ExpressionFactoryImpl.class.getName());
+    System.setProperty(ExpressionFactoryImpl.PROP_METHOD_INVOCATIONS, "false");
+    try {
+      ExpressionManager expressionManager = new ExpressionManager();
+      try {
+        expressionManager.createExpression("${bean.method()}");
+        fail("exception expected");
+      } catch (ELException e) {
+        // method invocations are disabled
+      }
+    } finally {
+      System.clearProperty("javax.el.ExpressionFactory");
+      System.clearProperty(ExpressionFactoryImpl.PROP_METHOD_INVOCATIONS);
+    }
+  }
 }
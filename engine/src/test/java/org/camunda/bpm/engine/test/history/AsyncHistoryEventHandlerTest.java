@@ -0,0 +1,548 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.history;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.camunda.bpm.engine.HistoryService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.ProcessEngineConfiguration;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.RuntimeService;
+import org.camunda.bpm.engine.TaskService;
+import org.camunda.bpm.engine.history.HistoricProcessInstance;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.history.event.HistoricProcessInstanceEventEntity;
+import org.camunda.bpm.engine.impl.history.event.HistoricVariableUpdateEventEntity;
+import org.camunda.bpm.engine.impl.history.event.HistoryEvent;
+import org.camunda.bpm.engine.impl.history.event.HistoryEventTypes;
+import org.camunda.bpm.engine.impl.history.handler.AsyncHistoryEventHandler;
+import org.camunda.bpm.engine.impl.history.handler.DbHistoryEventHandler;
+import org.camunda.bpm.engine.impl.history.handler.HistoryEventDeliveryGuarantee;
+import org.camunda.bpm.engine.impl.history.handler.HistoryEventLog;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
+import org.camunda.bpm.engine.runtime.ProcessInstance;
+import org.camunda.bpm.engine.task.Task;
+import org.camunda.bpm.engine.variable.Variables;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncHistoryEventHandlerTest {
+
+  protected File logDirectory;
+  protected ProcessEngineConfigurationImpl processEngineConfiguration;
+  protected ProcessEngine processEngine;
+
+  @Before
+  public void setUp() throws IOException {
+    logDirectory = File.createTempFile("history-event-log", "");
+    logDirectory.delete();
+    logDirectory.mkdirs();
+
+    processEngineConfiguration = createProcessEngineConfiguration();
+  }
+
+  protected ProcessEngineConfigurationImpl createProcessEngineConfiguration() {
+    ProcessEngineConfigurationImpl processEngineConfiguration = (ProcessEngineConfigurationImpl) ProcessEngineConfiguration
+        .createStandaloneInMemProcessEngineConfiguration()
+        .setJdbcUrl("jdbc:h2:mem:camunda" + getClass().getSimpleName())
+        .setProcessEngineName(getClass().getSimpleName())
+        .setHistory(ProcessEngineConfiguration.HISTORY_FULL);
+    processEngineConfiguration
+      .setAsyncHistoryEnabled(true)
+      .setAsyncHistoryLogDirectory(logDirectory.getAbsolutePath())
+      .setAsyncHistoryBatchSize(10);
+    return processEngineConfiguration;
+  }
+
+  @After
+  public void tearDown() {
+    if (processEngine != null) {
+      processEngine.close();
+    }
+    for (File file : logDirectory.listFiles()) {
+      file.delete();
+    }
+    logDirectory.delete();
+  }
+
+  @Test
+  public void testWriteHistoryAsynchronously() {
+    buildProcessEngine();
+    processEngine.getRepositoryService().createDeployment()
+      .addClasspathResource("org/camunda/bpm/engine/test/api/oneTaskProcess.bpmn20.xml")
+      .deploy();
+
+    RuntimeService runtimeService = processEngine.getRuntimeService();
+    TaskService taskService = processEngine.getTaskService();
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("oneTaskProcess",
+        Variables.createVariables().putValue("aVariable", "aValue"));
+    runtimeService.setVariable(processInstance.getId(), "aVariable", "anotherValue");
+    Task task = taskService.createTaskQuery().singleResult();
+    taskService.complete(task.getId());
+
+    waitForHistory();
+
+    HistoryService historyService = processEngine.getHistoryService();
+    HistoricProcessInstance historicProcessInstance = historyService.createHistoricProcessInstanceQuery().singleResult();
+    assertEquals(processInstance.getId(), historicProcessInstance.getId());
+    assertNotNull(historicProcessInstance.getStartTime());
+    assertNotNull(historicProcessInstance.getEndTime());
+    assertEquals(3, historyService.createHistoricActivityInstanceQuery().finished().count());
+    assertEquals(1, historyService.createHistoricTaskInstanceQuery().finished().count());
+    assertEquals("anotherValue", historyService.createHistoricVariableInstanceQuery().singleResult().getValue());
+    assertEquals(2, historyService.createHistoricDetailQuery().count());
+
+    // nothing is replayed after a clean shutdown
+    processEngine.close();
+    processEngine = null;
+    assertNothingToReplay();
+  }
+
+  @Test
+  public void testReplayAfterCrash() throws IOException {
+    HistoryEventLog eventLog = new HistoryEventLog(logDirectory);
+    eventLog.recover();
+    long crashed = eventLog.append(Collections.singletonList(createProcessInstanceStartEvent("crashed")));
+    eventLog.commit(crashed);
+    long rolledBack = eventLog.append(Collections.singletonList(createProcessInstanceStartEvent("rolledBack")));
+    eventLog.cancel(rolledBack);
+    // the process engine crashed before the transaction committed or rolled back
+    eventLog.append(Collections.singletonList(createProcessInstanceStartEvent("inDoubt")));
+    eventLog.close();
+    appendTornRecord();
+
+    buildProcessEngine();
+    waitForHistory();
+
+    HistoryService historyService = processEngine.getHistoryService();
+    assertEquals(1, historyService.createHistoricProcessInstanceQuery().processInstanceId("crashed").count());
+    assertEquals(0, historyService.createHistoricProcessInstanceQuery().processInstanceId("rolledBack").count());
+    assertEquals(0, historyService.createHistoricProcessInstanceQuery().processInstanceId("inDoubt").count());
+
+    // new events are appended behind the truncated record
+    writeHistoryEvent(createProcessInstanceStartEvent("afterCrash"));
+    waitForHistory();
+    assertEquals(1, historyService.createHistoricProcessInstanceQuery().processInstanceId("afterCrash").count());
+
+    processEngine.close();
+    processEngine = null;
+    assertNothingToReplay();
+  }
+
+  @Test
+  public void testSkipReplayedDuplicates() {
+    HistoryEventLog eventLog = new HistoryEventLog(logDirectory);
+    eventLog.recover();
+    // the second record was written before the crash, but not acknowledged
+    eventLog.commit(eventLog.append(Collections.singletonList(createProcessInstanceStartEvent("duplicate"))));
+    eventLog.commit(eventLog.append(Arrays.asList(createProcessInstanceStartEvent("duplicate"), createProcessInstanceStartEvent("other"))));
+    eventLog.close();
+
+    buildProcessEngine();
+    waitForHistory();
+
+    HistoryService historyService = processEngine.getHistoryService();
+    assertEquals(1, historyService.createHistoricProcessInstanceQuery().processInstanceId("duplicate").count());
+    assertEquals(1, historyService.createHistoricProcessInstanceQuery().processInstanceId("other").count());
+
+    processEngine.close();
+    processEngine = null;
+    assertNothingToReplay();
+  }
+
+  @Test
+  public void testSkipReplayedDuplicateVariableUpdate() {
+    HistoricVariableUpdateEventEntity variableUpdate = createVariableCreateEvent("aVariableInstance");
+    HistoryEventLog eventLog = new HistoryEventLog(logDirectory);
+    eventLog.recover();
+    eventLog.commit(eventLog.append(Collections.<HistoryEvent>singletonList(variableUpdate)));
+    eventLog.commit(eventLog.append(Collections.<HistoryEvent>singletonList(variableUpdate)));
+    eventLog.close();
+
+    buildProcessEngine();
+    waitForHistory();
+
+    HistoryService historyService = processEngine.getHistoryService();
+    assertEquals(1, historyService.createHistoricDetailQuery().count());
+    assertEquals(1, historyService.createHistoricVariableInstanceQuery().count());
+
+    processEngine.close();
+    processEngine = null;
+    assertNothingToReplay();
+  }
+
+  @Test
+  public void testRetryFailingReplayedEvent() throws InterruptedException {
+    HistoryEventLog eventLog = new HistoryEventLog(logDirectory);
+    eventLog.recover();
+    eventLog.commit(eventLog.append(Collections.singletonList(createProcessInstanceStartEvent("failing"))));
+    eventLog.close();
+
+    FailingHistoryEventHandler failingHistoryEventHandler = new FailingHistoryEventHandler("failing");
+    processEngineConfiguration.setHistoryEventHandler(new AsyncHistoryEventHandler(failingHistoryEventHandler));
+    buildProcessEngine();
+    Thread.sleep(1000);
+
+    // the event was not written before, so it is not skipped
+    AsyncHistoryEventHandler historyEventHandler = (AsyncHistoryEventHandler) processEngineConfiguration.getHistoryEventHandler();
+    assertEquals(1, historyEventHandler.getPendingEventCount());
+
+    failingHistoryEventHandler.setFailing(false);
+    waitForHistory();
+    assertEquals(1, processEngine.getHistoryService().createHistoricProcessInstanceQuery().processInstanceId("failing").count());
+
+    processEngine.close();
+    processEngine = null;
+    assertNothingToReplay();
+  }
+
+  @Test
+  public void testKeepWritingWhenCheckpointFails() {
+    buildProcessEngine();
+    // the temporary checkpoint file cannot be created
+    File blockingDirectory = new File(logDirectory, HistoryEventLog.CHECKPOINT_FILE + ".tmp");
+    assertTrue(blockingDirectory.mkdir());
+
+    // the events of a process instance are written by the same writer
+    writeHistoryEvent(createProcessInstanceStartEvent("aProcessInstance"));
+    waitForHistory();
+    writeHistoryEvent(createProcessInstanceEndEvent("aProcessInstance"));
+    waitForHistory();
+
+    HistoricProcessInstance historicProcessInstance = processEngine.getHistoryService()
+        .createHistoricProcessInstanceQuery().processInstanceId("aProcessInstance").singleResult();
+    assertNotNull(historicProcessInstance.getEndTime());
+
+    blockingDirectory.delete();
+    processEngine.close();
+    processEngine = null;
+    assertNothingToReplay();
+  }
+
+  @Test
+  public void testCommitMarkerIsWrittenWhenCommitReturns() {
+    HistoryEventLog eventLog = new HistoryEventLog(logDirectory);
+    eventLog.recover();
+    try {
+      eventLog.commit(eventLog.append(Collections.singletonList(createProcessInstanceStartEvent("committed"))));
+
+      // the process engine crashes without acknowledging the record
+      HistoryEventLog recoveredEventLog = new HistoryEventLog(logDirectory);
+      try {
+        assertEquals(1, recoveredEventLog.recover().size());
+      }
+      finally {
+        recoveredEventLog.close();
+      }
+    }
+    finally {
+      eventLog.close();
+    }
+  }
+
+  @Test
+  public void testConcurrentAppends() throws InterruptedException {
+    final HistoryEventLog eventLog = new HistoryEventLog(logDirectory);
+    eventLog.recover();
+
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < 10; i++) {
+      final String processInstanceId = "aProcessInstance" + i;
+      threads.add(new Thread() {
+        public void run() {
+          eventLog.commit(eventLog.append(Collections.singletonList(createProcessInstanceStartEvent(processInstanceId))));
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    eventLog.close();
+
+    HistoryEventLog recoveredEventLog = new HistoryEventLog(logDirectory);
+    try {
+      assertEquals(10, recoveredEventLog.recover().size());
+    }
+    finally {
+      recoveredEventLog.close();
+    }
+  }
+
+  @Test
+  public void testRetryFailingEventBeforeLaterEvents() throws InterruptedException {
+    FailingHistoryEventHandler failingHistoryEventHandler = new FailingHistoryEventHandler("failing");
+    processEngineConfiguration.setHistoryEventHandler(new AsyncHistoryEventHandler(failingHistoryEventHandler));
+    buildProcessEngine();
+
+    writeHistoryEvent(createProcessInstanceStartEvent("failing"));
+    writeHistoryEvent(createProcessInstanceEndEvent("failing"));
+    Thread.sleep(1000);
+
+    // the end event waits for the start event
+    AsyncHistoryEventHandler historyEventHandler = (AsyncHistoryEventHandler) processEngineConfiguration.getHistoryEventHandler();
+    assertEquals(2, historyEventHandler.getPendingEventCount());
+
+    failingHistoryEventHandler.setFailing(false);
+    waitForHistory();
+
+    HistoricProcessInstance historicProcessInstance = processEngine.getHistoryService().createHistoricProcessInstanceQuery().singleResult();
+    assertNotNull(historicProcessInstance.getEndTime());
+
+    processEngine.close();
+    processEngine = null;
+    assertNothingToReplay();
+  }
+
+  @Test
+  public void testReplayFailingEventAndLaterEventsAfterStop() {
+    processEngineConfiguration.setHistoryEventHandler(new AsyncHistoryEventHandler(new FailingHistoryEventHandler("failing")));
+    buildProcessEngine();
+
+    writeHistoryEvent(createProcessInstanceStartEvent("failing"));
+    writeHistoryEvent(createProcessInstanceEndEvent("failing"));
+
+    // the writer stops at the failing event and leaves both events in the log
+    processEngine.close();
+
+    processEngineConfiguration = createProcessEngineConfiguration();
+    buildProcessEngine();
+    waitForHistory();
+
+    HistoricProcessInstance historicProcessInstance = processEngine.getHistoryService().createHistoricProcessInstanceQuery().singleResult();
+    assertNotNull(historicProcessInstance.getEndTime());
+
+    processEngine.close();
+    processEngine = null;
+    assertNothingToReplay();
+  }
+
+  @Test
+  public void testStopWhileQueueIsFull() throws InterruptedException {
+    FailingHistoryEventHandler failingHistoryEventHandler = new FailingHistoryEventHandler("failing");
+    processEngineConfiguration
+      .setAsyncHistoryQueueCapacity(1)
+      .setAsyncHistoryWriterThreads(1)
+      .setHistoryEventHandler(new AsyncHistoryEventHandler(failingHistoryEventHandler));
+    buildProcessEngine();
+
+    // the writer retries the failing event, the next event fills the queue
+    writeHistoryEvent(createProcessInstanceStartEvent("failing"));
+    writeHistoryEvent(createProcessInstanceStartEvent("queued"));
+
+    final List<Exception> exceptions = Collections.synchronizedList(new ArrayList<Exception>());
+    Thread committingThread = new Thread() {
+      public void run() {
+        try {
+          writeHistoryEvent(createProcessInstanceStartEvent("blocked"));
+        }
+        catch (Exception e) {
+          exceptions.add(e);
+        }
+      }
+    };
+    committingThread.start();
+    Thread.sleep(500);
+
+    // the blocked transaction leaves its event to the writer's final drain
+    processEngine.close();
+    committingThread.join(10000);
+    assertTrue(exceptions.isEmpty());
+    assertEquals(false, committingThread.isAlive());
+
+    // the drain stopped at the failing event, all events are replayed in order
+    processEngineConfiguration = createProcessEngineConfiguration();
+    buildProcessEngine();
+    waitForHistory();
+    assertEquals(3, processEngine.getHistoryService().createHistoricProcessInstanceQuery().count());
+
+    processEngine.close();
+    processEngine = null;
+    assertNothingToReplay();
+  }
+
+  @Test
+  public void testDiscardEventsOfRolledBackTransaction() {
+    buildProcessEngine();
+
+    try {
+      processEngineConfiguration.getCommandExecutorTxRequired().execute(new Command<Void>() {
+        public Void execute(CommandContext commandContext) {
+          processEngineConfiguration.getHistoryEventHandler().handleEvent(createProcessInstanceStartEvent("rolledBack"));
+          throw new ProcessEngineException("rollback");
+        }
+      });
+      fail("exception expected");
+    } catch (ProcessEngineException e) {
+      // expected
+    }
+
+    waitForHistory();
+    assertEquals(0, processEngine.getHistoryService().createHistoricProcessInstanceQuery().count());
+
+    processEngine.close();
+    processEngine = null;
+    assertNothingToReplay();
+  }
+
+  @Test
+  public void testAtMostOnceWithoutLog() {
+    processEngineConfiguration
+      .setAsyncHistoryDeliveryGuarantee(HistoryEventDeliveryGuarantee.AT_MOST_ONCE)
+      .setAsyncHistoryLogDirectory(null);
+    buildProcessEngine();
+
+    writeHistoryEvent(createProcessInstanceStartEvent("aProcessInstance"));
+    waitForHistory();
+
+    assertEquals(1, processEngine.getHistoryService().createHistoricProcessInstanceQuery().count());
+    assertEquals(0, logDirectory.listFiles().length);
+  }
+
+  @Test
+  public void testLogDirectoryRequired() {
+    processEngineConfiguration.setAsyncHistoryLogDirectory(null);
+    try {
+      buildProcessEngine();
+      fail("exception expected");
+    } catch (ProcessEngineException e) {
+      assertTrue(e.getMessage().contains("asyncHistoryLogDirectory must be set"));
+    }
+  }
+
+  protected void buildProcessEngine() {
+    processEngine = processEngineConfiguration.buildProcessEngine();
+  }
+
+  protected void writeHistoryEvent(final HistoryEvent historyEvent) {
+    processEngineConfiguration.getCommandExecutorTxRequired().execute(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        processEngineConfiguration.getHistoryEventHandler().handleEvent(historyEvent);
+        return null;
+      }
+    });
+  }
+
+  protected void waitForHistory() {
+    AsyncHistoryEventHandler historyEventHandler = (AsyncHistoryEventHandler) processEngineConfiguration.getHistoryEventHandler();
+    long timeout = System.currentTimeMillis() + 10000;
+    while (historyEventHandler.getPendingEventCount() > 0) {
+      if (System.currentTimeMillis() > timeout) {
+        fail("history events are not written");
+      }
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  protected void assertNothingToReplay() {
+    HistoryEventLog eventLog = new HistoryEventLog(logDirectory);
+    try {
+      assertTrue(eventLog.recover().isEmpty());
+    }
+    finally {
+      eventLog.close();
+    }
+  }
+
+  protected HistoricProcessInstanceEventEntity createProcessInstanceStartEvent(String processInstanceId) {
+    HistoricProcessInstanceEventEntity event = new HistoricProcessInstanceEventEntity();
+    event.setId(processInstanceId);
+    event.setProcessInstanceId(processInstanceId);
+    event.setProcessDefinitionId("aProcessDefinition:1:1");
+    event.setStartTime(ClockUtil.getCurrentTime());
+    event.setEventType(HistoryEventTypes.PROCESS_INSTANCE_START.getEventName());
+    return event;
+  }
+
+  protected HistoricVariableUpdateEventEntity createVariableCreateEvent(String variableInstanceId) {
+    HistoricVariableUpdateEventEntity event = new HistoricVariableUpdateEventEntity();
+    event.setId(variableInstanceId + "Update");
+    event.setVariableInstanceId(variableInstanceId);
+    event.setVariableName("aVariable");
+    event.setSerializerName("string");
+    event.setTextValue("aValue");
+    event.setTimestamp(ClockUtil.getCurrentTime());
+    event.setEventType(HistoryEventTypes.VARIABLE_INSTANCE_CREATE.getEventName());
+    return event;
+  }
+
+  protected HistoricProcessInstanceEventEntity createProcessInstanceEndEvent(String processInstanceId) {
+    HistoricProcessInstanceEventEntity event = createProcessInstanceStartEvent(processInstanceId);
+    event.setEndTime(ClockUtil.getCurrentTime());
+    event.setEventType(HistoryEventTypes.PROCESS_INSTANCE_END.getEventName());
+    return event;
+  }
+
+  protected void appendTornRecord() throws IOException {
+    File lastSegment = null;
+    for (File file : logDirectory.listFiles()) {
+      if (file.getName().startsWith(HistoryEventLog.SEGMENT_PREFIX)
+          && (lastSegment == null || file.getName().compareTo(lastSegment.getName()) > 0)) {
+        lastSegment = file;
+      }
+    }
+    FileOutputStream output = new FileOutputStream(lastSegment, true);
+    try {
+      output.write(new byte[] { 1, 0, 0, 0 });
+    }
+    finally {
+      output.close();
+    }
+  }
+
+  /**
+   * Fails to write the events of a process instance while it is failing.
+   */
+  public static class FailingHistoryEventHandler extends DbHistoryEventHandler {
+
+    protected String processInstanceId;
+    protected volatile boolean failing = true;
+
+    public FailingHistoryEventHandler(String processInstanceId) {
+      this.processInstanceId = processInstanceId;
+    }
+
+    public void handleEvent(HistoryEvent historyEvent) {
+      if (failing && processInstanceId.equals(historyEvent.getProcessInstanceId())) {
+        throw new ProcessEngineException("cannot write history event");
+      }
+      super.handleEvent(historyEvent);
+    }
+
+    public void setFailing(boolean failing) {
+      this.failing = failing;
+    }
+  }
+
+}
@@ -0,0 +1,305 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.history;
+
+import java.io.ByteArrayInputStream;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.history.HistoryLevel;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.jobexecutor.HistoryCleanupJobHandler;
+import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.engine.impl.test.TestHelper;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
+import org.camunda.bpm.engine.repository.ProcessDefinition;
+import org.camunda.bpm.engine.runtime.Job;
+import org.camunda.bpm.engine.runtime.ProcessInstance;
+import org.camunda.bpm.engine.task.Task;
+import org.camunda.bpm.engine.test.Deployment;
+import org.camunda.bpm.engine.variable.Variables;
+
+public class HistoryCleanupTest extends PluggableProcessEngineTestCase {
+
+  protected static final String PROCESS_KEY = "process";
+
+  protected void tearDown() throws Exception {
+    // the history cleanup job does not belong to a deployment
+    processEngineConfiguration.getCommandExecutorTxRequired().execute(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        for (JobEntity job : commandContext.getJobManager().findJobsByHandlerType(HistoryCleanupJobHandler.TYPE)) {
+          job.delete();
+        }
+        commandContext.getHistoricJobLogManager().deleteHistoricJobLogsByHandlerType(HistoryCleanupJobHandler.TYPE);
+        return null;
+      }
+    });
+    TestHelper.clearOpLog(processEngineConfiguration);
+
+    processEngineConfiguration.setHistoryCleanupBatchSize(500);
+    processEngineConfiguration.setHistoryCleanupBatchWindowStartTime(null);
+    processEngineConfiguration.setHistoryCleanupBatchWindowEndTime(null);
+    ClockUtil.reset();
+
+    super.tearDown();
+  }
+
+  @Deployment
+  public void testCleanUpHistory() {
+    if (!isFullHistory()) {
+      return;
+    }
+
+    ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery().singleResult();
+    assertEquals(Integer.valueOf(5), processDefinition.getHistoryTimeToLive());
+
+    for (int i = 0; i < 3; i++) {
+      ProcessInstance processInstance = startProcessInstance();
+      Task task = taskService.createTaskQuery().processInstanceId(processInstance.getId()).singleResult();
+      taskService.setVariableLocal(task.getId(), "taskVariable", "value");
+      taskService.createComment(task.getId(), processInstance.getId(), "comment");
+      taskService.createAttachment("text", task.getId(), processInstance.getId(), "attachment", null,
+          new ByteArrayInputStream("content".getBytes()));
+      taskService.complete(task.getId());
+    }
+    ProcessInstance runningProcessInstance = startProcessInstance();
+
+    moveClockByDays(6);
+
+    Job job = historyService.cleanUpHistoryAsync(true);
+    managementService.executeJob(job.getId());
+
+    // the history of the running process instance is kept
+    assertEquals(1, historyService.createHistoricProcessInstanceQuery().count());
+    assertEquals(runningProcessInstance.getId(), historyService.createHistoricProcessInstanceQuery().singleResult().getId());
+    assertEquals(2, historyService.createHistoricActivityInstanceQuery().count());
+    assertEquals(1, historyService.createHistoricTaskInstanceQuery().count());
+    assertEquals(2, historyService.createHistoricVariableInstanceQuery().count());
+    assertEquals(2, historyService.createHistoricDetailQuery().count());
+    assertTrue(taskService.getProcessInstanceComments(runningProcessInstance.getId()).isEmpty());
+
+    // the job is done
+    assertEquals(0, managementService.createJobQuery().count());
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/history/HistoryCleanupTest.testCleanUpHistory.bpmn20.xml")
+  public void testCleanUpTaskCommentsWithoutProcessInstanceId() {
+    if (!isFullHistory()) {
+      return;
+    }
+
+    ProcessInstance processInstance = startProcessInstance();
+    Task task = taskService.createTaskQuery().processInstanceId(processInstance.getId()).singleResult();
+    taskService.createComment(task.getId(), null, "comment");
+    taskService.createAttachment("text", task.getId(), null, "attachment", null,
+        new ByteArrayInputStream("content".getBytes()));
+    taskService.complete(task.getId());
+
+    moveClockByDays(6);
+
+    Job job = historyService.cleanUpHistoryAsync(true);
+    managementService.executeJob(job.getId());
+
+    // the comments and attachments are deleted by the id of the task
+    assertEquals(0, historyService.createHistoricTaskInstanceQuery().count());
+    assertTrue(taskService.getTaskComments(task.getId()).isEmpty());
+    assertTrue(taskService.getTaskAttachments(task.getId()).isEmpty());
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/history/HistoryCleanupTest.testCleanUpHistory.bpmn20.xml")
+  public void testKeepHistoryWithinTimeToLive() {
+    if (!isFullHistory()) {
+      return;
+    }
+
+    completeProcessInstance(startProcessInstance());
+
+    moveClockByDays(4);
+
+    Job job = historyService.cleanUpHistoryAsync(true);
+    managementService.executeJob(job.getId());
+
+    assertEquals(1, historyService.createHistoricProcessInstanceQuery().count());
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/history/HistoryCleanupTest.testCleanUpHistory.bpmn20.xml")
+  public void testCleanUpHistoryInBatches() {
+    if (!isFullHistory()) {
+      return;
+    }
+
+    processEngineConfiguration.setHistoryCleanupBatchSize(2);
+    for (int i = 0; i < 5; i++) {
+      completeProcessInstance(startProcessInstance());
+    }
+
+    moveClockByDays(6);
+
+    historyService.cleanUpHistoryAsync(true);
+
+    // each batch is deleted by its own job
+    int executedJobs = 0;
+    Job job = managementService.createJobQuery().singleResult();
+    while (job != null) {
+      assertEquals(5 - 2 * executedJobs, historyService.createHistoricProcessInstanceQuery().count());
+      managementService.executeJob(job.getId());
+      executedJobs++;
+      job = managementService.createJobQuery().singleResult();
+    }
+
+    assertEquals(3, executedJobs);
+    assertEquals(0, historyService.createHistoricProcessInstanceQuery().count());
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/history/HistoryCleanupTest.testCleanUpHistory.bpmn20.xml")
+  public void testCleanUpHistoryWithinBatchWindow() {
+    if (!isFullHistory()) {
+      return;
+    }
+
+    ClockUtil.setCurrentTime(getTimeOfDay(12, 0));
+    processEngineConfiguration.setHistoryCleanupBatchWindowStartTime("22:00");
+    processEngineConfiguration.setHistoryCleanupBatchWindowEndTime("02:00");
+
+    completeProcessInstance(startProcessInstance());
+
+    // the job is scheduled at the start of the batch window
+    Job job = historyService.cleanUpHistoryAsync();
+    Date windowStart = getTimeOfDay(22, 0);
+    assertEquals(windowStart, job.getDuedate());
+
+    // scheduling the job again returns the existing job
+    assertEquals(job.getId(), historyService.cleanUpHistoryAsync().getId());
+
+    // outside of the batch window, the job is rescheduled
+    moveClockByDays(5);
+    managementService.executeJob(job.getId());
+    assertEquals(1, historyService.createHistoricProcessInstanceQuery().count());
+
+    job = managementService.createJobQuery().singleResult();
+    Date nextWindowStart = addDays(windowStart, 5);
+    assertEquals(nextWindowStart, job.getDuedate());
+
+    // within the batch window, the history is removed and the job is rescheduled to the next window
+    ClockUtil.setCurrentTime(new Date(nextWindowStart.getTime() + 60 * 60 * 1000));
+    managementService.executeJob(job.getId());
+    assertEquals(0, historyService.createHistoricProcessInstanceQuery().count());
+
+    job = managementService.createJobQuery().singleResult();
+    assertEquals(addDays(nextWindowStart, 1), job.getDuedate());
+  }
+
+  public void testScheduleHistoryCleanupWithoutBatchWindow() {
+    try {
+      historyService.cleanUpHistoryAsync();
+      fail("exception expected");
+    } catch (ProcessEngineException e) {
+      assertTextPresent("no batch window is configured", e.getMessage());
+    }
+  }
+
+  public void testInvalidBatchWindow() {
+    try {
+      HistoryCleanupJobHandler.BatchWindow.parse("22:00", "25:00");
+      fail("exception expected");
+    } catch (ProcessEngineException e) {
+      assertTextPresent("Cannot parse history cleanup batch window time '25:00'", e.getMessage());
+    }
+
+    try {
+      HistoryCleanupJobHandler.BatchWindow.parse("22:00", null);
+      fail("exception expected");
+    } catch (ProcessEngineException e) {
+      assertTextPresent("must both be set", e.getMessage());
+    }
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/api/oneTaskProcess.bpmn20.xml")
+  public void testUpdateHistoryTimeToLive() {
+    ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery().singleResult();
+    assertNull(processDefinition.getHistoryTimeToLive());
+
+    repositoryService.updateProcessDefinitionHistoryTimeToLive(processDefinition.getId(), 3);
+
+    processDefinition = repositoryService.createProcessDefinitionQuery().singleResult();
+    assertEquals(Integer.valueOf(3), processDefinition.getHistoryTimeToLive());
+    assertEquals(Integer.valueOf(3), repositoryService.getProcessDefinition(processDefinition.getId()).getHistoryTimeToLive());
+
+    if (!isFullHistory()) {
+      return;
+    }
+
+    completeProcessInstance(runtimeService.startProcessInstanceByKey("oneTaskProcess"));
+
+    moveClockByDays(4);
+
+    Job job = historyService.cleanUpHistoryAsync(true);
+    managementService.executeJob(job.getId());
+
+    assertEquals(0, historyService.createHistoricProcessInstanceQuery().count());
+  }
+
+  public void testInvalidHistoryTimeToLive() {
+    String resource = TestHelper.getBpmnProcessDefinitionResource(getClass(), "testInvalidHistoryTimeToLive");
+    try {
+      repositoryService.createDeployment().addClasspathResource(resource).deploy();
+      fail("exception expected");
+    } catch (ProcessEngineException e) {
+      assertTextPresent("Cannot parse history time to live '-1'", e.getMessage());
+    }
+  }
+
+  protected ProcessInstance startProcessInstance() {
+    return runtimeService.startProcessInstanceByKey(PROCESS_KEY,
+        Variables.createVariables()
+          .putValue("stringVariable", "value")
+          .putValue("bytesVariable", "value".getBytes()));
+  }
+
+  protected void completeProcessInstance(ProcessInstance processInstance) {
+    List<Task> tasks = taskService.createTaskQuery().processInstanceId(processInstance.getId()).list();
+    for (Task task : tasks) {
+      taskService.complete(task.getId());
+    }
+  }
+
+  protected void moveClockByDays(int days) {
+    ClockUtil.setCurrentTime(addDays(ClockUtil.getCurrentTime(), days));
+  }
+
+  protected Date addDays(Date date, int days) {
+    Calendar calendar = Calendar.getInstance();
+    calendar.setTime(date);
+    calendar.add(Calendar.DAY_OF_MONTH, days);
+    return calendar.getTime();
+  }
+
+  protected Date getTimeOfDay(int hours, int minutes) {
+    Calendar calendar = Calendar.getInstance();
+    calendar.setTime(ClockUtil.getCurrentTime());
+    calendar.set(Calendar.HOUR_OF_DAY, hours);
+    calendar.set(Calendar.MINUTE, minutes);
+    calendar.set(Calendar.SECOND, 0);
+    calendar.set(Calendar.MILLISECOND, 0);
+    return calendar.getTime();
+  }
+
+  protected boolean isFullHistory() {
+    return processEngineConfiguration.getHistoryLevel().equals(HistoryLevel.HISTORY_LEVEL_FULL);
+  }
+
+}
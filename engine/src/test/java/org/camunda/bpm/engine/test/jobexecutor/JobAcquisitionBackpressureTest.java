@@ -0,0 +1,188 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.jobexecutor;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.engine.impl.ProcessEngineImpl;
+import org.camunda.bpm.engine.impl.cmd.AcquireJobsCmd;
+import org.camunda.bpm.engine.impl.jobexecutor.AcquiredJobs;
+import org.camunda.bpm.engine.impl.jobexecutor.DefaultJobExecutor;
+import org.camunda.bpm.engine.impl.jobexecutor.ExecuteJobsRunnable;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
+import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
+import org.camunda.bpm.engine.test.Deployment;
+
+/**
+ * Verifies that the number of acquired jobs is limited by the free capacity
+ * of the job executor and by the time the jobs can wait for execution
+ * before their lock expires.
+ */
+public class JobAcquisitionBackpressureTest extends PluggableProcessEngineTestCase {
+
+  protected DefaultJobExecutor threadPoolJobExecutor;
+  protected ThreadPoolExecutor threadPoolExecutor;
+  protected CountDownLatch blockingJobsLatch;
+
+  protected void setUp() throws Exception {
+    // one thread and a queue for two jobs
+    threadPoolExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(2));
+    threadPoolJobExecutor = new DefaultJobExecutor();
+    threadPoolJobExecutor.setThreadPoolExecutor(threadPoolExecutor);
+    threadPoolJobExecutor.setMaxJobsPerAcquisition(5);
+    blockingJobsLatch = new CountDownLatch(1);
+  }
+
+  protected void tearDown() throws Exception {
+    blockingJobsLatch.countDown();
+    threadPoolExecutor.shutdown();
+    threadPoolExecutor.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  public void testNumberOfJobsLimitedByFreeCapacity() throws Exception {
+    assertEquals(3, threadPoolJobExecutor.getFreeCapacity());
+    assertEquals(3, threadPoolJobExecutor.getNumberOfJobsToAcquire());
+
+    submitBlockingJob();
+    waitForActiveThreads(1);
+    assertEquals(2, threadPoolJobExecutor.getNumberOfJobsToAcquire());
+
+    submitBlockingJob();
+    submitBlockingJob();
+    assertEquals(0, threadPoolJobExecutor.getFreeCapacity());
+    assertEquals(0, threadPoolJobExecutor.getNumberOfJobsToAcquire());
+  }
+
+  public void testNumberOfJobsLimitedByLockTime() {
+    threadPoolJobExecutor.setLockTimeInMillis(1000);
+
+    // no job has been executed yet
+    assertEquals(-1, threadPoolJobExecutor.getAverageJobDurationInMillis());
+    assertEquals(3, threadPoolJobExecutor.getNumberOfJobsToAcquire());
+
+    // a single thread can start two jobs of one second within a lock time of one second
+    threadPoolJobExecutor.jobExecuted(1000);
+    assertEquals(2, threadPoolJobExecutor.getNumberOfJobsToAcquire());
+
+    // jobs which take longer than the lock time are only acquired for idle threads
+    threadPoolJobExecutor.jobExecuted(50000);
+    assertEquals(1, threadPoolJobExecutor.getNumberOfJobsToAcquire());
+  }
+
+  public void testAverageJobDuration() {
+    threadPoolJobExecutor.jobExecuted(100);
+    assertEquals(100, threadPoolJobExecutor.getAverageJobDurationInMillis());
+
+    threadPoolJobExecutor.jobExecuted(200);
+    assertEquals(120, threadPoolJobExecutor.getAverageJobDurationInMillis());
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/jobexecutor/simpleAsyncProcess.bpmn20.xml")
+  public void testNoJobsAcquiredBySaturatedJobExecutor() throws Exception {
+    runtimeService.startProcessInstanceByKey("simpleAsyncProcess");
+
+    submitBlockingJob();
+    submitBlockingJob();
+    submitBlockingJob();
+
+    AcquiredJobs acquiredJobs = processEngineConfiguration.getCommandExecutorTxRequired()
+        .execute(new AcquireJobsCmd(threadPoolJobExecutor));
+    assertEquals(0, acquiredJobs.size());
+
+    JobEntity job = (JobEntity) managementService.createJobQuery().singleResult();
+    assertNull(job.getLockOwner());
+  }
+
+  public void testQueuedJobsCountedPerRunnable() throws Exception {
+    threadPoolJobExecutor.setLockTimeInMillis(2000);
+    threadPoolJobExecutor.jobExecuted(1000);
+
+    submitBlockingJob();
+    waitForActiveThreads(1);
+    // a single thread starts three jobs of one second within a lock time of two seconds:
+    // the active one and the two jobs of the queued runnable
+    threadPoolExecutor.execute(new ExecuteJobsRunnable(Arrays.asList("aJob", "anotherJob"), (ProcessEngineImpl) processEngine));
+
+    assertEquals(0, threadPoolJobExecutor.getNumberOfJobsToAcquire());
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/jobexecutor/simpleAsyncProcess.bpmn20.xml")
+  public void testAcquireGivenNumberOfJobs() {
+    runtimeService.startProcessInstanceByKey("simpleAsyncProcess");
+    runtimeService.startProcessInstanceByKey("simpleAsyncProcess");
+
+    AcquiredJobs acquiredJobs = processEngineConfiguration.getCommandExecutorTxRequired()
+        .execute(new AcquireJobsCmd(processEngineConfiguration.getJobExecutor(), 1));
+    assertEquals(1, acquiredJobs.size());
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/jobexecutor/simpleAsyncProcess.bpmn20.xml")
+  public void testJobsNotExecutedAfterLockExpired() {
+    runtimeService.startProcessInstanceByKey("simpleAsyncProcess");
+    JobExecutor jobExecutor = processEngineConfiguration.getJobExecutor();
+    AcquiredJobs acquiredJobs = processEngineConfiguration.getCommandExecutorTxRequired()
+        .execute(new AcquireJobsCmd(jobExecutor));
+    assertEquals(1, acquiredJobs.size());
+
+    // the runnable waited in the queue until the lock of the job expired
+    ClockUtil.setCurrentTime(new Date(ClockUtil.getCurrentTime().getTime() + jobExecutor.getLockTimeInMillis()));
+    try {
+      new ExecuteJobsRunnable(acquiredJobs.getJobIdBatches().get(0), (ProcessEngineImpl) processEngine).run();
+    } finally {
+      ClockUtil.reset();
+    }
+
+    assertEquals(1, managementService.createJobQuery().count());
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/jobexecutor/simpleAsyncProcess.bpmn20.xml")
+  public void testJobsExecutedBeforeLockExpired() {
+    runtimeService.startProcessInstanceByKey("simpleAsyncProcess");
+    AcquiredJobs acquiredJobs = processEngineConfiguration.getCommandExecutorTxRequired()
+        .execute(new AcquireJobsCmd(processEngineConfiguration.getJobExecutor()));
+
+    new ExecuteJobsRunnable(acquiredJobs.getJobIdBatches().get(0), (ProcessEngineImpl) processEngine).run();
+
+    assertEquals(0, managementService.createJobQuery().count());
+  }
+
+  protected void submitBlockingJob() {
+    threadPoolExecutor.execute(new Runnable() {
+      public void run() {
+        try {
+          blockingJobsLatch.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+  }
+
+  protected void waitForActiveThreads(int activeThreads) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (threadPoolExecutor.getActiveCount() < activeThreads) {
+      if (System.currentTimeMillis() > deadline) {
+        fail("expected " + activeThreads + " active threads");
+      }
+      Thread.sleep(10);
+    }
+  }
+
+}
@@ -0,0 +1,40 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.jobexecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.delegate.JavaDelegate;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+
+/**
+ * Records the command context it is executed in and fails if the
+ * variable <code>fail</code> is true.
+ */
+public class JobBatchDelegate implements JavaDelegate {
+
+  public static List<CommandContext> commandContexts = Collections.synchronizedList(new ArrayList<CommandContext>());
+
+  public void execute(DelegateExecution execution) throws Exception {
+    commandContexts.add(Context.getCommandContext());
+
+    if (Boolean.TRUE.equals(execution.getVariable("fail"))) {
+      throw new RuntimeException("expected exception");
+    }
+  }
+
+}
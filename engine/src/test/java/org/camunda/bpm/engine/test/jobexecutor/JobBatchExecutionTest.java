@@ -0,0 +1,152 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.jobexecutor;
+
+import java.util.List;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.ProcessEngineImpl;
+import org.camunda.bpm.engine.impl.cmd.AcquireJobsCmd;
+import org.camunda.bpm.engine.impl.jobexecutor.AcquiredJobs;
+import org.camunda.bpm.engine.impl.jobexecutor.ExecuteJobsRunnable;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
+import org.camunda.bpm.engine.impl.jobexecutor.NonExclusiveJobBatch;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.engine.runtime.Job;
+import org.camunda.bpm.engine.test.Deployment;
+import org.camunda.bpm.engine.variable.Variables;
+
+/**
+ * Executes non-exclusive jobs of a job definition which declares
+ * a <code>camunda:jobBatchSize</code> in one transaction.
+ */
+public class JobBatchExecutionTest extends PluggableProcessEngineTestCase {
+
+  protected static final String BATCH_PROCESS = "org/camunda/bpm/engine/test/jobexecutor/JobBatchExecutionTest.batchProcess.bpmn20.xml";
+
+  protected JobExecutor jobExecutor;
+  protected int maxJobsPerAcquisition;
+
+  protected void setUp() throws Exception {
+    jobExecutor = processEngineConfiguration.getJobExecutor();
+    maxJobsPerAcquisition = jobExecutor.getMaxJobsPerAcquisition();
+    jobExecutor.setMaxJobsPerAcquisition(10);
+    JobBatchDelegate.commandContexts.clear();
+  }
+
+  protected void tearDown() throws Exception {
+    jobExecutor.setMaxJobsPerAcquisition(maxJobsPerAcquisition);
+    JobBatchDelegate.commandContexts.clear();
+  }
+
+  @Deployment(resources = BATCH_PROCESS)
+  public void testJobsAreAcquiredInBatches() {
+    startProcessInstances(5, false);
+
+    List<List<String>> jobIdBatches = acquireJobs().getJobIdBatches();
+
+    // the batch size of the job definition is 3
+    assertEquals(2, jobIdBatches.size());
+    assertTrue(jobIdBatches.get(0) instanceof NonExclusiveJobBatch);
+    assertEquals(3, jobIdBatches.get(0).size());
+    assertTrue(jobIdBatches.get(1) instanceof NonExclusiveJobBatch);
+    assertEquals(2, jobIdBatches.get(1).size());
+  }
+
+  @Deployment(resources = BATCH_PROCESS)
+  public void testJobsAreAcquiredInBatchesInBulk() {
+    boolean lockJobsInBulk = jobExecutor.isLockJobsInBulk();
+    jobExecutor.setLockJobsInBulk(true);
+    try {
+      startProcessInstances(4, false);
+
+      List<List<String>> jobIdBatches = acquireJobs().getJobIdBatches();
+
+      assertEquals(2, jobIdBatches.size());
+      assertEquals(3, jobIdBatches.get(0).size());
+      assertEquals(1, jobIdBatches.get(1).size());
+    } finally {
+      jobExecutor.setLockJobsInBulk(lockJobsInBulk);
+    }
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/jobexecutor/asyncServiceTaskChain.bpmn20.xml")
+  public void testNoBatchesWithoutJobBatchSize() {
+    runtimeService.startProcessInstanceByKey("asyncServiceTaskChain");
+    runtimeService.startProcessInstanceByKey("asyncServiceTaskChain");
+
+    List<List<String>> jobIdBatches = acquireJobs().getJobIdBatches();
+
+    assertEquals(2, jobIdBatches.size());
+    assertFalse(jobIdBatches.get(0) instanceof NonExclusiveJobBatch);
+    assertFalse(jobIdBatches.get(1) instanceof NonExclusiveJobBatch);
+  }
+
+  @Deployment(resources = BATCH_PROCESS)
+  public void testJobBatchIsExecutedInOneTransaction() {
+    startProcessInstances(3, false);
+
+    executeJobBatches(acquireJobs());
+
+    assertEquals(0, managementService.createJobQuery().count());
+    assertEquals(0, runtimeService.createProcessInstanceQuery().count());
+
+    List<?> commandContexts = JobBatchDelegate.commandContexts;
+    assertEquals(3, commandContexts.size());
+    assertSame(commandContexts.get(0), commandContexts.get(1));
+    assertSame(commandContexts.get(0), commandContexts.get(2));
+  }
+
+  @Deployment(resources = BATCH_PROCESS)
+  public void testFailingJobDoesNotRollbackOtherJobs() {
+    startProcessInstances(2, false);
+    startProcessInstances(1, true);
+
+    executeJobBatches(acquireJobs());
+
+    // the jobs are executed one by one after the batch failed
+    assertEquals(1, runtimeService.createProcessInstanceQuery().count());
+
+    Job failedJob = managementService.createJobQuery().singleResult();
+    assertEquals(2, failedJob.getRetries());
+    assertEquals("expected exception", failedJob.getExceptionMessage());
+  }
+
+  public void testInvalidJobBatchSize() {
+    try {
+      repositoryService.createDeployment()
+        .addClasspathResource("org/camunda/bpm/engine/test/jobexecutor/JobBatchExecutionTest.testInvalidJobBatchSize.bpmn20.xml")
+        .deploy();
+      fail("exception expected");
+    } catch (ProcessEngineException e) {
+      assertTextPresent("Cannot parse job batch size '0'", e.getMessage());
+    }
+  }
+
+  protected void startProcessInstances(int numberOfInstances, boolean fail) {
+    for (int i = 0; i < numberOfInstances; i++) {
+      runtimeService.startProcessInstanceByKey("batchProcess", Variables.createVariables().putValue("fail", fail));
+    }
+  }
+
+  protected AcquiredJobs acquireJobs() {
+    return processEngineConfiguration.getCommandExecutorTxRequired().execute(new AcquireJobsCmd(jobExecutor));
+  }
+
+  protected void executeJobBatches(AcquiredJobs acquiredJobs) {
+    for (List<String> jobIds : acquiredJobs.getJobIdBatches()) {
+      new ExecuteJobsRunnable(jobIds, (ProcessEngineImpl) processEngine).run();
+    }
+  }
+
+}
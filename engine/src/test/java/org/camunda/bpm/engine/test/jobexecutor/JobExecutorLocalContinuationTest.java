@@ -0,0 +1,79 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.jobexecutor;
+
+import java.util.Collections;
+
+import org.camunda.bpm.engine.impl.ProcessEngineImpl;
+import org.camunda.bpm.engine.impl.jobexecutor.ExecuteJobsRunnable;
+import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.engine.runtime.Job;
+import org.camunda.bpm.engine.runtime.ProcessInstance;
+import org.camunda.bpm.engine.test.Deployment;
+
+/**
+ * Verifies that non-exclusive jobs created by a job are executed by
+ * the same job executor thread if local continuation is enabled.
+ */
+public class JobExecutorLocalContinuationTest extends PluggableProcessEngineTestCase {
+
+  protected static final String CHAIN_PROCESS = "org/camunda/bpm/engine/test/jobexecutor/asyncServiceTaskChain.bpmn20.xml";
+
+  protected void setUp() throws Exception {
+    processEngineConfiguration.setJobExecutorLocalContinuation(true);
+  }
+
+  protected void tearDown() throws Exception {
+    processEngineConfiguration.setJobExecutorLocalContinuation(false);
+  }
+
+  @Deployment(resources = CHAIN_PROCESS)
+  public void testChainOfJobsIsExecutedByOneThread() {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("asyncServiceTaskChain");
+
+    // the first job creates the next one which is executed right away, and so on
+    executeJobsRunnable(managementService.createJobQuery().singleResult());
+
+    assertProcessEnded(processInstance.getId());
+  }
+
+  @Deployment(resources = CHAIN_PROCESS)
+  public void testNoLocalContinuationIfDisabled() {
+    processEngineConfiguration.setJobExecutorLocalContinuation(false);
+    runtimeService.startProcessInstanceByKey("asyncServiceTaskChain");
+
+    executeJobsRunnable(managementService.createJobQuery().singleResult());
+
+    // the next job has to be acquired
+    JobEntity nextJob = (JobEntity) managementService.createJobQuery().singleResult();
+    assertNotNull(nextJob);
+    assertNull(nextJob.getLockOwner());
+  }
+
+  @Deployment(resources = CHAIN_PROCESS)
+  public void testNoLocalContinuationOutsideOfJobExecutor() {
+    runtimeService.startProcessInstanceByKey("asyncServiceTaskChain");
+
+    managementService.executeJob(managementService.createJobQuery().singleResult().getId());
+
+    JobEntity nextJob = (JobEntity) managementService.createJobQuery().singleResult();
+    assertNotNull(nextJob);
+    assertNull(nextJob.getLockOwner());
+  }
+
+  protected void executeJobsRunnable(Job job) {
+    new ExecuteJobsRunnable(Collections.singletonList(job.getId()), (ProcessEngineImpl) processEngine).run();
+  }
+
+}
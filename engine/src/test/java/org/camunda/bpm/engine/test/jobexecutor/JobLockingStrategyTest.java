@@ -0,0 +1,195 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.jobexecutor;
+
+import java.util.Date;
+import java.util.List;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.Page;
+import org.camunda.bpm.engine.impl.cmd.AcquireJobsCmd;
+import org.camunda.bpm.engine.impl.db.sql.DbSqlSessionFactory;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.jobexecutor.AcquiredJobs;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
+import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.JobManager;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.engine.runtime.Job;
+import org.camunda.bpm.engine.test.Deployment;
+
+public class JobLockingStrategyTest extends PluggableProcessEngineTestCase {
+
+  protected JobExecutor jobExecutor;
+  protected String lockingStrategy;
+  protected boolean lockJobsInBulk;
+  protected int maxJobsPerAcquisition;
+  protected boolean acquireByPriority;
+
+  protected void setUp() throws Exception {
+    jobExecutor = processEngineConfiguration.getJobExecutor();
+    lockingStrategy = jobExecutor.getLockingStrategy();
+    lockJobsInBulk = jobExecutor.isLockJobsInBulk();
+    maxJobsPerAcquisition = jobExecutor.getMaxJobsPerAcquisition();
+    acquireByPriority = processEngineConfiguration.isJobExecutorAcquireByPriority();
+  }
+
+  protected void tearDown() throws Exception {
+    jobExecutor.setLockingStrategy(lockingStrategy);
+    jobExecutor.setLockJobsInBulk(lockJobsInBulk);
+    jobExecutor.setMaxJobsPerAcquisition(maxJobsPerAcquisition);
+    processEngineConfiguration.setJobExecutorAcquireByPriority(acquireByPriority);
+  }
+
+  public void testDefaultLockingStrategy() {
+    assertEquals(JobExecutor.LOCKING_STRATEGY_OPTIMISTIC, jobExecutor.getLockingStrategy());
+    assertFalse(jobExecutor.isSkipLockedAcquisition());
+  }
+
+  public void testUnknownLockingStrategy() {
+    try {
+      jobExecutor.setLockingStrategy("pessimistic");
+      fail("exception expected");
+    } catch (ProcessEngineException e) {
+      assertTextPresent("Unknown job locking strategy 'pessimistic'", e.getMessage());
+    }
+  }
+
+  public void testSkipLockedSupport() {
+    assertSkipLockedSupported(true, DbSqlSessionFactory.POSTGRES, "selectNextJobsToExecuteSkipLocked");
+    assertSkipLockedSupported(true, DbSqlSessionFactory.ORACLE, "selectNextJobsToExecuteSkipLocked_oracle");
+    assertSkipLockedSupported(true, DbSqlSessionFactory.MYSQL, "selectNextJobsToExecuteSkipLocked_mysql");
+
+    assertSkipLockedSupported(false, DbSqlSessionFactory.H2, null);
+    assertSkipLockedSupported(false, DbSqlSessionFactory.DB2, null);
+    assertSkipLockedSupported(false, DbSqlSessionFactory.MSSQL, null);
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/jobexecutor/simpleAsyncProcess.bpmn20.xml")
+  public void testSkipLockedAcquisition() {
+    runtimeService.startProcessInstanceByKey("simpleAsyncProcess");
+    jobExecutor.setLockingStrategy(JobExecutor.LOCKING_STRATEGY_SKIP_LOCKED);
+
+    // falls back to optimistic locking if the database does not support skip locked
+    AcquiredJobs acquiredJobs = processEngineConfiguration.getCommandExecutorTxRequired()
+        .execute(new AcquireJobsCmd(jobExecutor));
+    assertEquals(1, acquiredJobs.getJobIdBatches().size());
+
+    Job job = managementService.createJobQuery().singleResult();
+    assertTrue(acquiredJobs.contains(job.getId()));
+    assertEquals(jobExecutor.getLockOwner(), ((JobEntity) job).getLockOwner());
+  }
+
+  @Deployment(resources = {
+      "org/camunda/bpm/engine/test/jobexecutor/simpleAsyncProcess.bpmn20.xml",
+      "org/camunda/bpm/engine/test/jobexecutor/JobPriorityTest.testDeclaredPriorities.bpmn20.xml" })
+  public void testSkipLockedAcquisitionByPriority() {
+    for (int i = 0; i < 3; i++) {
+      runtimeService.startProcessInstanceByKey("simpleAsyncProcess");
+    }
+    runtimeService.startProcessInstanceByKey("jobPriorityProcess");
+
+    jobExecutor.setLockingStrategy(JobExecutor.LOCKING_STRATEGY_SKIP_LOCKED);
+    jobExecutor.setMaxJobsPerAcquisition(2);
+    processEngineConfiguration.setJobExecutorAcquireByPriority(true);
+
+    // of the five due jobs, the two with the highest priority are acquired
+    AcquiredJobs acquiredJobs = processEngineConfiguration.getCommandExecutorTxRequired()
+        .execute(new AcquireJobsCmd(jobExecutor));
+    assertEquals(2, acquiredJobs.size());
+
+    for (Job job : managementService.createJobQuery().list()) {
+      assertEquals(job.getPriority() > 0, acquiredJobs.contains(job.getId()));
+    }
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/jobexecutor/simpleAsyncProcess.bpmn20.xml")
+  public void testBulkLocking() {
+    runtimeService.startProcessInstanceByKey("simpleAsyncProcess");
+    runtimeService.startProcessInstanceByKey("simpleAsyncProcess");
+    jobExecutor.setLockJobsInBulk(true);
+
+    AcquiredJobs acquiredJobs = processEngineConfiguration.getCommandExecutorTxRequired()
+        .execute(new AcquireJobsCmd(jobExecutor));
+    assertEquals(2, acquiredJobs.getJobIdBatches().size());
+    assertEquals(0, acquiredJobs.getNumberOfJobsFailedToLock());
+
+    for (Job job : managementService.createJobQuery().list()) {
+      JobEntity jobEntity = (JobEntity) job;
+      assertTrue(acquiredJobs.contains(job.getId()));
+      assertEquals(jobExecutor.getLockOwner(), jobEntity.getLockOwner());
+      assertNotNull(jobEntity.getLockExpirationTime());
+      assertEquals(2, jobEntity.getRevision());
+    }
+
+    // locked jobs are not acquired again
+    acquiredJobs = processEngineConfiguration.getCommandExecutorTxRequired()
+        .execute(new AcquireJobsCmd(jobExecutor));
+    assertEquals(0, acquiredJobs.size());
+  }
+
+  @Deployment
+  public void testBulkLockingOfExclusiveJobs() {
+    runtimeService.startProcessInstanceByKey("parallelAsyncProcess");
+    jobExecutor.setLockJobsInBulk(true);
+
+    AcquiredJobs acquiredJobs = processEngineConfiguration.getCommandExecutorTxRequired()
+        .execute(new AcquireJobsCmd(jobExecutor));
+    assertEquals(2, acquiredJobs.size());
+
+    // both exclusive jobs of the process instance are executed in the same batch
+    List<String> batch = acquiredJobs.getJobIdBatches().get(0);
+    assertEquals(2, batch.size());
+    for (Job job : managementService.createJobQuery().list()) {
+      assertTrue(batch.contains(job.getId()));
+      assertEquals(jobExecutor.getLockOwner(), ((JobEntity) job).getLockOwner());
+    }
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/jobexecutor/simpleAsyncProcess.bpmn20.xml")
+  public void testBulkLockingOfConcurrentlyModifiedJob() {
+    runtimeService.startProcessInstanceByKey("simpleAsyncProcess");
+    runtimeService.startProcessInstanceByKey("simpleAsyncProcess");
+
+    final String lockOwner = jobExecutor.getLockOwner();
+    List<String> lockedJobIds = processEngineConfiguration.getCommandExecutorTxRequired().execute(new Command<List<String>>() {
+      public List<String> execute(CommandContext commandContext) {
+        JobManager jobManager = commandContext.getJobManager();
+        List<JobEntity> jobs = jobManager.findNextJobsToExecute(new Page(0, 10));
+
+        // simulate that the first job has been modified after it was selected
+        JobEntity modifiedJob = jobs.get(0);
+        modifiedJob.setRevision(modifiedJob.getRevision() + 1);
+
+        assertEquals(1, jobManager.lockJobs(jobs, lockOwner, new Date()));
+        return jobManager.findLockedJobIds(jobs, lockOwner);
+      }
+    });
+
+    assertEquals(1, lockedJobIds.size());
+    JobEntity lockedJob = (JobEntity) managementService.createJobQuery().jobId(lockedJobIds.get(0)).singleResult();
+    assertEquals(lockOwner, lockedJob.getLockOwner());
+  }
+
+  protected void assertSkipLockedSupported(boolean supported, String databaseType, String statement) {
+    DbSqlSessionFactory dbSqlSessionFactory = new DbSqlSessionFactory();
+    dbSqlSessionFactory.setDatabaseType(databaseType);
+
+    assertEquals(supported, dbSqlSessionFactory.isSkipLockedSupported());
+    if (supported) {
+      assertEquals(statement, dbSqlSessionFactory.mapStatement("selectNextJobsToExecuteSkipLocked"));
+    }
+  }
+
+}
@@ -0,0 +1,145 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.jobexecutor;
+
+import java.util.List;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.Page;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.engine.impl.test.TestHelper;
+import org.camunda.bpm.engine.management.JobDefinition;
+import org.camunda.bpm.engine.runtime.Job;
+import org.camunda.bpm.engine.test.Deployment;
+
+/**
+ * Verifies that job priorities are resolved from the process definition and
+ * the job definition and that they are honored by the job acquisition.
+ */
+public class JobPriorityTest extends PluggableProcessEngineTestCase {
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/jobexecutor/simpleAsyncProcess.bpmn20.xml")
+  public void testDefaultPriority() {
+    runtimeService.startProcessInstanceByKey("simpleAsyncProcess");
+
+    Job job = managementService.createJobQuery().singleResult();
+    assertEquals(JobEntity.DEFAULT_PRIORITY, job.getPriority());
+  }
+
+  @Deployment
+  public void testDeclaredPriorities() {
+    runtimeService.startProcessInstanceByKey("jobPriorityProcess");
+
+    assertEquals(20, getJobForActivity("highPriorityTask").getPriority());
+    assertEquals(10, getJobForActivity("processPriorityTask").getPriority());
+  }
+
+  @Deployment
+  public void testTimerPriority() {
+    runtimeService.startProcessInstanceByKey("timerPriorityProcess");
+
+    Job timer = managementService.createJobQuery().timers().singleResult();
+    assertEquals(42, timer.getPriority());
+  }
+
+  public void testInvalidPriority() {
+    String resource = TestHelper.getBpmnProcessDefinitionResource(getClass(), "testInvalidPriority");
+    try {
+      repositoryService.createDeployment().addClasspathResource(resource).deploy();
+      fail("exception expected");
+    } catch (ProcessEngineException e) {
+      assertTextPresent("Cannot parse job priority 'high'", e.getMessage());
+    }
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/jobexecutor/JobPriorityTest.testDeclaredPriorities.bpmn20.xml")
+  public void testOverridingPriority() {
+    JobDefinition jobDefinition = getJobDefinitionForActivity("processPriorityTask");
+    assertNull(jobDefinition.getOverridingJobPriority());
+
+    managementService.setOverridingJobPriorityForJobDefinition(jobDefinition.getId(), 30);
+
+    jobDefinition = getJobDefinitionForActivity("processPriorityTask");
+    assertEquals(Long.valueOf(30), jobDefinition.getOverridingJobPriority());
+
+    runtimeService.startProcessInstanceByKey("jobPriorityProcess");
+    assertEquals(30, getJobForActivity("processPriorityTask").getPriority());
+    assertEquals(20, getJobForActivity("highPriorityTask").getPriority());
+
+    managementService.clearOverridingJobPriorityForJobDefinition(jobDefinition.getId());
+    assertNull(getJobDefinitionForActivity("processPriorityTask").getOverridingJobPriority());
+
+    // the existing job keeps its priority
+    assertEquals(30, getJobForActivity("processPriorityTask").getPriority());
+  }
+
+  @Deployment(resources = "org/camunda/bpm/engine/test/jobexecutor/JobPriorityTest.testDeclaredPriorities.bpmn20.xml")
+  public void testOverridingPriorityCascade() {
+    runtimeService.startProcessInstanceByKey("jobPriorityProcess");
+    JobDefinition jobDefinition = getJobDefinitionForActivity("processPriorityTask");
+
+    managementService.setOverridingJobPriorityForJobDefinition(jobDefinition.getId(), 5, true);
+
+    assertEquals(5, getJobForActivity("processPriorityTask").getPriority());
+    assertEquals(20, getJobForActivity("highPriorityTask").getPriority());
+  }
+
+  public void testOverridingPriorityForNonExistingJobDefinition() {
+    try {
+      managementService.setOverridingJobPriorityForJobDefinition("nonExisting", 5);
+      fail("exception expected");
+    } catch (ProcessEngineException e) {
+      assertTextPresent("Job definition with id 'nonExisting' does not exist", e.getMessage());
+    }
+  }
+
+  @Deployment(resources = {
+      "org/camunda/bpm/engine/test/jobexecutor/simpleAsyncProcess.bpmn20.xml",
+      "org/camunda/bpm/engine/test/jobexecutor/JobPriorityTest.testDeclaredPriorities.bpmn20.xml" })
+  public void testAcquisitionByPriority() {
+    runtimeService.startProcessInstanceByKey("simpleAsyncProcess");
+    runtimeService.startProcessInstanceByKey("jobPriorityProcess");
+
+    boolean acquireByPriority = processEngineConfiguration.isJobExecutorAcquireByPriority();
+    processEngineConfiguration.setJobExecutorAcquireByPriority(true);
+    try {
+      List<JobEntity> acquirableJobs = findAcquirableJobs();
+      assertEquals(3, acquirableJobs.size());
+      assertEquals(20, acquirableJobs.get(0).getPriority());
+      assertEquals(10, acquirableJobs.get(1).getPriority());
+      assertEquals(0, acquirableJobs.get(2).getPriority());
+    } finally {
+      processEngineConfiguration.setJobExecutorAcquireByPriority(acquireByPriority);
+    }
+  }
+
+  protected List<JobEntity> findAcquirableJobs() {
+    return processEngineConfiguration.getCommandExecutorTxRequired().execute(new Command<List<JobEntity>>() {
+      public List<JobEntity> execute(CommandContext commandContext) {
+        return commandContext.getJobManager().findNextJobsToExecute(new Page(0, 10));
+      }
+    });
+  }
+
+  protected JobDefinition getJobDefinitionForActivity(String activityId) {
+    return managementService.createJobDefinitionQuery().activityIdIn(activityId).singleResult();
+  }
+
+  protected Job getJobForActivity(String activityId) {
+    return managementService.createJobQuery().jobDefinitionId(getJobDefinitionForActivity(activityId).getId()).singleResult();
+  }
+
+}
@@ -0,0 +1,174 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.jobexecutor;
+
+import java.text.DateFormat.Field;
+import java.util.Calendar;
+
+import org.camunda.bpm.engine.ManagementService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.ProcessEngineImpl;
+import org.camunda.bpm.engine.impl.cfg.StandaloneInMemProcessEngineConfiguration;
+import org.camunda.bpm.engine.impl.cfg.StandaloneProcessEngineConfiguration;
+import org.camunda.bpm.engine.impl.jobexecutor.DefaultJobExecutor;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
+import org.camunda.bpm.engine.impl.jobexecutor.ParallelJobAcquisitionRunnable;
+import org.camunda.bpm.engine.impl.jobexecutor.ProcessEngineJobAcquisitionRunnable;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestParallelJobAcquisition {
+
+  private static final String RESOURCE_BASE = TestParallelJobAcquisition.class.getPackage().getName().replace(".", "/");
+  private static final String PROCESS_RESOURCE = RESOURCE_BASE + "/IntermediateTimerEventTest.testCatchingTimerEvent.bpmn20.xml";
+
+  private JobExecutor jobExecutor = new DefaultJobExecutor();
+
+  private ProcessEngine engine1;
+  private ProcessEngine engine2;
+
+  @Before
+  public void buildProcessEngines() {
+    jobExecutor.setAcquisitionStrategy(JobExecutor.ACQUISITION_STRATEGY_PARALLEL);
+
+    engine1 = buildProcessEngine("engine1");
+    engine2 = buildProcessEngine("engine2");
+  }
+
+  @After
+  public void closeProcessEngines() {
+    jobExecutor.shutdown();
+    ClockUtil.reset();
+    engine1.close();
+    engine2.close();
+  }
+
+  @Test
+  public void testExecuteJobsForTwoEngines() {
+    engine1.getRepositoryService().createDeployment().addClasspathResource(PROCESS_RESOURCE).deploy();
+    engine2.getRepositoryService().createDeployment().addClasspathResource(PROCESS_RESOURCE).deploy();
+
+    engine1.getRuntimeService().startProcessInstanceByKey("intermediateTimerEventExample");
+    engine2.getRuntimeService().startProcessInstanceByKey("intermediateTimerEventExample");
+
+    Assert.assertEquals(1, engine1.getManagementService().createJobQuery().count());
+    Assert.assertEquals(1, engine2.getManagementService().createJobQuery().count());
+
+    Calendar calendar = Calendar.getInstance();
+    calendar.add(Field.DAY_OF_YEAR.getCalendarField(), 6);
+    ClockUtil.setCurrentTime(calendar.getTime());
+
+    jobExecutor.start();
+
+    // both engines are served by their own acquisition loop
+    waitForJobsToBeExecuted(10000, engine1.getManagementService());
+    waitForJobsToBeExecuted(10000, engine2.getManagementService());
+
+    ParallelJobAcquisitionRunnable acquisitionRunnable = (ParallelJobAcquisitionRunnable) jobExecutor.getAcquireJobsRunnable();
+    Assert.assertEquals(2, acquisitionRunnable.getAcquisitionLoops().size());
+  }
+
+  @Test
+  public void testStopAcquisitionLoopOfUnregisteredEngine() {
+    jobExecutor.start();
+    ParallelJobAcquisitionRunnable acquisitionRunnable = (ParallelJobAcquisitionRunnable) jobExecutor.getAcquireJobsRunnable();
+    waitForAcquisitionLoops(10000, acquisitionRunnable, 2);
+
+    jobExecutor.unregisterProcessEngine((ProcessEngineImpl) engine2);
+    waitForAcquisitionLoops(10000, acquisitionRunnable, 1);
+
+    Assert.assertTrue(acquisitionRunnable.getAcquisitionLoops().containsKey(engine1));
+  }
+
+  @Test
+  public void testRegisterProcessEngineDoesNotWakeUpOtherAcquisitionLoops() {
+    ParallelJobAcquisitionRunnable acquisitionRunnable = new ParallelJobAcquisitionRunnable(jobExecutor);
+    CountingAcquisitionLoop acquisitionLoop = new CountingAcquisitionLoop(jobExecutor, (ProcessEngineImpl) engine1);
+    acquisitionRunnable.getAcquisitionLoops().put((ProcessEngineImpl) engine1, acquisitionLoop);
+
+    acquisitionRunnable.processEngineRegistered((ProcessEngineImpl) engine2);
+    acquisitionRunnable.processEngineUnregistered((ProcessEngineImpl) engine2);
+    Assert.assertEquals(0, acquisitionLoop.jobsAdded);
+
+    acquisitionRunnable.jobWasAdded();
+    Assert.assertEquals(1, acquisitionLoop.jobsAdded);
+  }
+
+  @Test
+  public void testUnknownAcquisitionStrategy() {
+    try {
+      jobExecutor.setAcquisitionStrategy("ROUND_ROBIN");
+      Assert.fail("exception expected");
+    } catch (ProcessEngineException e) {
+      Assert.assertTrue(e.getMessage().contains("Unknown job acquisition strategy 'ROUND_ROBIN'"));
+    }
+  }
+
+  ////////// helper methods ////////////////////////////
+
+  protected ProcessEngine buildProcessEngine(String name) {
+    StandaloneProcessEngineConfiguration engineConfiguration = new StandaloneInMemProcessEngineConfiguration();
+    engineConfiguration.setProcessEngineName(getClass().getName() + "-" + name);
+    engineConfiguration.setJdbcUrl("jdbc:h2:mem:parallel-acquisition-" + name);
+    engineConfiguration.setJobExecutorActivate(false);
+    engineConfiguration.setJobExecutor(jobExecutor);
+    return engineConfiguration.buildProcessEngine();
+  }
+
+  protected void waitForJobsToBeExecuted(long maxMillisToWait, ManagementService managementService) {
+    long deadline = System.currentTimeMillis() + maxMillisToWait;
+    while (managementService.createJobQuery().count() > 0) {
+      if (System.currentTimeMillis() > deadline) {
+        Assert.fail("time limit of " + maxMillisToWait + " was exceeded");
+      }
+      sleep(100);
+    }
+  }
+
+  protected void waitForAcquisitionLoops(long maxMillisToWait, ParallelJobAcquisitionRunnable acquisitionRunnable, int expectedLoops) {
+    long deadline = System.currentTimeMillis() + maxMillisToWait;
+    while (acquisitionRunnable.getAcquisitionLoops().size() != expectedLoops) {
+      if (System.currentTimeMillis() > deadline) {
+        Assert.fail("expected " + expectedLoops + " acquisition loops within " + maxMillisToWait + " millis");
+      }
+      sleep(100);
+    }
+  }
+
+  protected static class CountingAcquisitionLoop extends ProcessEngineJobAcquisitionRunnable {
+
+    protected int jobsAdded = 0;
+
+    public CountingAcquisitionLoop(JobExecutor jobExecutor, ProcessEngineImpl processEngine) {
+      super(jobExecutor, processEngine);
+    }
+
+    public void jobWasAdded() {
+      jobsAdded++;
+      super.jobWasAdded();
+    }
+  }
+
+  protected void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
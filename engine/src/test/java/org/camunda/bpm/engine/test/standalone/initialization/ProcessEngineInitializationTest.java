@@ -13,6 +13,8 @@
 package org.camunda.bpm.engine.test.standalone.initialization;
 
 import org.camunda.bpm.engine.ProcessEngineConfiguration;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
 import org.camunda.bpm.engine.impl.test.PvmTestCase;
 
@@ -49,4 +51,17 @@ public class ProcessEngineInitializationTest extends PvmTestCase {
     assertEquals(5, configuration.getDefaultNumberOfRetries());
   }
 
+  public void testSignalBroadcastChunkSizeMustBePositive() {
+    ProcessEngineConfigurationImpl configuration = (ProcessEngineConfigurationImpl) ProcessEngineConfiguration
+      .createStandaloneInMemProcessEngineConfiguration();
+    configuration.setSignalBroadcastChunkSize(0);
+
+    try {
+      configuration.buildProcessEngine();
+      fail("expected exception");
+    } catch (ProcessEngineException e) {
+      assertTextPresent("signalBroadcastChunkSize must be positive", e.getMessage());
+    }
+  }
+
 }
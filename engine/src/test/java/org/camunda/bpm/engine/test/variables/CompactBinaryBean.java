@@ -0,0 +1,117 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.variables;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CompactBinaryBean implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  public enum Status {
+    ACTIVE, CLOSED
+  }
+
+  private String name;
+  private int count;
+  private Long total;
+  private Date created;
+  private Status status;
+  private int[] numbers;
+  private List<CompactBinaryBean> children = new ArrayList<CompactBinaryBean>();
+  private Map<String, Object> properties = new HashMap<String, Object>();
+  private CompactBinaryBean parent;
+  private transient String cachedDescription;
+
+  public CompactBinaryBean() {
+  }
+
+  public CompactBinaryBean(String name) {
+    this.name = name;
+  }
+
+  public void addChild(CompactBinaryBean child) {
+    children.add(child);
+    child.parent = this;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public void setCount(int count) {
+    this.count = count;
+  }
+
+  public Long getTotal() {
+    return total;
+  }
+
+  public void setTotal(Long total) {
+    this.total = total;
+  }
+
+  public Date getCreated() {
+    return created;
+  }
+
+  public void setCreated(Date created) {
+    this.created = created;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+
+  public int[] getNumbers() {
+    return numbers;
+  }
+
+  public void setNumbers(int[] numbers) {
+    this.numbers = numbers;
+  }
+
+  public List<CompactBinaryBean> getChildren() {
+    return children;
+  }
+
+  public Map<String, Object> getProperties() {
+    return properties;
+  }
+
+  public CompactBinaryBean getParent() {
+    return parent;
+  }
+
+  public String getCachedDescription() {
+    return cachedDescription;
+  }
+
+  public void setCachedDescription(String cachedDescription) {
+    this.cachedDescription = cachedDescription;
+  }
+
+}
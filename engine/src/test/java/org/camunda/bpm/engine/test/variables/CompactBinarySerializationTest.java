@@ -0,0 +1,260 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.engine.test.variables;
+
+import static org.camunda.bpm.engine.variable.Variables.objectValue;
+import static org.camunda.bpm.engine.variable.Variables.serializedObjectValue;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.impl.digest._apacheCommonsCodec.Base64;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.engine.impl.util.StringUtil;
+import org.camunda.bpm.engine.impl.variable.serializer.CompactBinaryObjectSerializer;
+import org.camunda.bpm.engine.runtime.ProcessInstance;
+import org.camunda.bpm.engine.test.Deployment;
+import org.camunda.bpm.engine.test.variables.CompactBinaryBean.Status;
+import org.camunda.bpm.engine.variable.Variables;
+import org.camunda.bpm.engine.variable.value.ObjectValue;
+
+public class CompactBinarySerializationTest extends PluggableProcessEngineTestCase {
+
+  protected static final String ONE_TASK_PROCESS = "org/camunda/bpm/engine/test/variables/oneTaskProcess.bpmn20.xml";
+
+  protected static final String COMPACT_BINARY_DATA_FORMAT = Variables.SerializationDataFormats.COMPACT_BINARY.getName();
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testSerializationAsCompactBinary() {
+    ProcessInstance instance = runtimeService.startProcessInstanceByKey("oneTaskProcess");
+
+    Date created = new Date();
+    CompactBinaryBean bean = new CompactBinaryBean("parent");
+    bean.setCount(42);
+    bean.setTotal(-12345678901l);
+    bean.setCreated(created);
+    bean.setStatus(Status.ACTIVE);
+    bean.setNumbers(new int[] { 1, -2, 300 });
+    bean.setCachedDescription("not serialized");
+    bean.getProperties().put("aString", "aValue");
+    bean.getProperties().put("aDecimal", new BigDecimal("1.5"));
+    bean.addChild(new CompactBinaryBean("child"));
+
+    runtimeService.setVariable(instance.getId(), "bean", objectValue(bean).serializationDataFormat(COMPACT_BINARY_DATA_FORMAT).create());
+
+    ObjectValue typedValue = runtimeService.getVariableTyped(instance.getId(), "bean");
+    assertEquals(COMPACT_BINARY_DATA_FORMAT, typedValue.getSerializationDataFormat());
+    assertEquals(CompactBinaryBean.class.getName(), typedValue.getObjectTypeName());
+
+    CompactBinaryBean value = (CompactBinaryBean) typedValue.getValue();
+    assertEquals("parent", value.getName());
+    assertEquals(42, value.getCount());
+    assertEquals(Long.valueOf(-12345678901l), value.getTotal());
+    assertEquals(created, value.getCreated());
+    assertEquals(Status.ACTIVE, value.getStatus());
+    assertTrue(Arrays.equals(new int[] { 1, -2, 300 }, value.getNumbers()));
+    assertNull(value.getCachedDescription());
+    assertEquals("aValue", value.getProperties().get("aString"));
+    assertEquals(new BigDecimal("1.5"), value.getProperties().get("aDecimal"));
+
+    // the reference from the child to its parent is preserved
+    assertEquals(1, value.getChildren().size());
+    CompactBinaryBean child = value.getChildren().get(0);
+    assertEquals("child", child.getName());
+    assertSame(value, child.getParent());
+  }
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testDefaultSerializationFormat() {
+    String defaultSerializationFormat = processEngineConfiguration.getDefaultSerializationFormat();
+    processEngineConfiguration.setDefaultSerializationFormat(COMPACT_BINARY_DATA_FORMAT);
+
+    try {
+      ProcessInstance instance = runtimeService.startProcessInstanceByKey("oneTaskProcess",
+          Variables.createVariables().putValue("bean", new CompactBinaryBean("aBean")));
+
+      ObjectValue typedValue = runtimeService.getVariableTyped(instance.getId(), "bean");
+      assertEquals(COMPACT_BINARY_DATA_FORMAT, typedValue.getSerializationDataFormat());
+      assertEquals("aBean", ((CompactBinaryBean) typedValue.getValue()).getName());
+    }
+    finally {
+      processEngineConfiguration.setDefaultSerializationFormat(defaultSerializationFormat);
+    }
+  }
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testSmallerThanJavaSerialization() {
+    CompactBinaryBean bean = new CompactBinaryBean("aBean");
+    bean.setStatus(Status.CLOSED);
+    bean.getProperties().put("aString", "aValue");
+
+    ProcessInstance instance = runtimeService.startProcessInstanceByKey("oneTaskProcess", Variables.createVariables()
+        .putValue("javaBean", objectValue(bean).serializationDataFormat(Variables.SerializationDataFormats.JAVA).create())
+        .putValue("compactBean", objectValue(bean).serializationDataFormat(COMPACT_BINARY_DATA_FORMAT).create()));
+
+    byte[] javaBytes = getSerializedBytes(instance, "javaBean");
+    byte[] compactBytes = getSerializedBytes(instance, "compactBean");
+
+    assertTrue(compactBytes.length * 2 < javaBytes.length);
+  }
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testCompressionAboveThreshold() {
+    char[] repeated = new char[10000];
+    Arrays.fill(repeated, 'a');
+    CompactBinaryBean bean = new CompactBinaryBean(new String(repeated));
+
+    ProcessInstance instance = runtimeService.startProcessInstanceByKey("oneTaskProcess", Variables.createVariables()
+        .putValue("bean", objectValue(bean).serializationDataFormat(COMPACT_BINARY_DATA_FORMAT).create()));
+
+    byte[] bytes = getSerializedBytes(instance, "bean");
+    assertTrue(bytes.length < 1000);
+
+    CompactBinaryBean value = (CompactBinaryBean) runtimeService.getVariable(instance.getId(), "bean");
+    assertEquals(bean.getName(), value.getName());
+  }
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testFallbackToJavaSerialization() {
+    // the class has no no-argument constructor
+    JavaSerializable javaSerializable = new JavaSerializable("foo");
+
+    ProcessInstance instance = runtimeService.startProcessInstanceByKey("oneTaskProcess", Variables.createVariables()
+        .putValue("bean", objectValue(javaSerializable).serializationDataFormat(COMPACT_BINARY_DATA_FORMAT).create()));
+
+    assertEquals(javaSerializable, runtimeService.getVariable(instance.getId(), "bean"));
+  }
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testReadValueOfChangedClass() {
+    SchemaV1 oldValue = new SchemaV1();
+    oldValue.name = "aName";
+    oldValue.count = 7;
+    oldValue.removed = "removed";
+
+    ProcessInstance instance = runtimeService.startProcessInstanceByKey("oneTaskProcess", Variables.createVariables()
+        .putValue("oldValue", objectValue(oldValue).serializationDataFormat(COMPACT_BINARY_DATA_FORMAT).create()));
+
+    // replace the class name in the serialized value, as if the class had been changed
+    byte[] serializedValue = getSerializedBytes(instance, "oldValue");
+    replaceBytes(serializedValue, SchemaV1.class.getName().getBytes(), SchemaV2.class.getName().getBytes());
+    String changedValue = StringUtil.fromBytes(Base64.encodeBase64(serializedValue), processEngine);
+
+    runtimeService.setVariable(instance.getId(), "newValue", serializedObjectValue(changedValue)
+        .serializationDataFormat(COMPACT_BINARY_DATA_FORMAT)
+        .objectTypeName(SchemaV2.class.getName())
+        .create());
+
+    SchemaV2 newValue = (SchemaV2) runtimeService.getVariable(instance.getId(), "newValue");
+    assertEquals("aName", newValue.name);
+    assertEquals(7l, newValue.count);
+    assertEquals("default", newValue.added);
+  }
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testRejectClassWhichIsNotSerializable() {
+    SchemaV1 value = new SchemaV1();
+    ProcessInstance instance = runtimeService.startProcessInstanceByKey("oneTaskProcess", Variables.createVariables()
+        .putValue("value", objectValue(value).serializationDataFormat(COMPACT_BINARY_DATA_FORMAT).create()));
+
+    byte[] serializedValue = getSerializedBytes(instance, "value");
+    replaceBytes(serializedValue, SchemaV1.class.getName().getBytes(), SchemaV3.class.getName().getBytes());
+    String changedValue = StringUtil.fromBytes(Base64.encodeBase64(serializedValue), processEngine);
+
+    runtimeService.setVariable(instance.getId(), "changedValue", serializedObjectValue(changedValue)
+        .serializationDataFormat(COMPACT_BINARY_DATA_FORMAT)
+        .objectTypeName(SchemaV3.class.getName())
+        .create());
+
+    try {
+      runtimeService.getVariable(instance.getId(), "changedValue");
+      fail("exception expected");
+    } catch (ProcessEngineException e) {
+      assertTextPresent(SchemaV3.class.getName() + ": class is not serializable", e.getMessage());
+    }
+  }
+
+  @Deployment(resources = ONE_TASK_PROCESS)
+  public void testRejectClassWhichIsNotAllowed() {
+    CompactBinaryObjectSerializer serializer = (CompactBinaryObjectSerializer) processEngineConfiguration
+        .getVariableSerializers()
+        .getSerializerByName(CompactBinaryObjectSerializer.NAME);
+
+    CompactBinaryBean bean = new CompactBinaryBean("aBean");
+    bean.setStatus(Status.ACTIVE);
+    bean.getProperties().put("aString", "aValue");
+
+    ProcessInstance instance = runtimeService.startProcessInstanceByKey("oneTaskProcess", Variables.createVariables()
+        .putValue("bean", objectValue(bean).serializationDataFormat(COMPACT_BINARY_DATA_FORMAT).create())
+        .putValue("schema", objectValue(new SchemaV1()).serializationDataFormat(COMPACT_BINARY_DATA_FORMAT).create())
+        .putValue("embedded", objectValue(new JavaSerializable("foo")).serializationDataFormat(COMPACT_BINARY_DATA_FORMAT).create()));
+
+    serializer.setAllowedClasses(Arrays.asList(CompactBinaryBean.class.getName(), Status.class.getName()));
+    try {
+      CompactBinaryBean value = (CompactBinaryBean) runtimeService.getVariable(instance.getId(), "bean");
+      assertEquals(Status.ACTIVE, value.getStatus());
+      assertEquals("aValue", value.getProperties().get("aString"));
+
+      for (String variableName : Arrays.asList("schema", "embedded")) {
+        try {
+          runtimeService.getVariable(instance.getId(), variableName);
+          fail("exception expected");
+        } catch (ProcessEngineException e) {
+          assertTextPresent("class is not allowed", e.getMessage());
+        }
+      }
+    }
+    finally {
+      serializer.setAllowedClasses(null);
+    }
+  }
+
+  protected byte[] getSerializedBytes(ProcessInstance instance, String variableName) {
+    ObjectValue typedValue = runtimeService.getVariableTyped(instance.getId(), variableName, false);
+    return Base64.decodeBase64(StringUtil.toByteArray(typedValue.getValueSerialized(), processEngine));
+  }
+
+  protected void replaceBytes(byte[] bytes, byte[] original, byte[] replacement) {
+    for (int i = 0; i <= bytes.length - original.length; i++) {
+      if (Arrays.equals(original, Arrays.copyOfRange(bytes, i, i + original.length))) {
+        System.arraycopy(replacement, 0, bytes, i, replacement.length);
+        return;
+      }
+    }
+    fail("bytes not found");
+  }
+
+  public static class SchemaV1 implements Serializable {
+    private static final long serialVersionUID = 1L;
+    protected String name;
+    protected int count;
+    protected String removed;
+  }
+
+  public static class SchemaV3 {
+    protected String name;
+    protected int count;
+    protected String removed;
+  }
+
+  public static class SchemaV2 implements Serializable {
+    private static final long serialVersionUID = 1L;
+    protected String name;
+    protected long count;
+    protected String added = "default";
+  }
+
+}